@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks concurrent gets and puts against the block cache implementations. Each operation looks
+ * up a block and caches it on a miss, like a scan reading data blocks. Block names are drawn from a
+ * skewed distribution over a working set that is larger than the cache, so the benchmark exercises
+ * both hits and evictions.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class BlockCacheBenchmark {
+
+  @Param({"lru", "tinylfu", "tiered"})
+  public String cacheType;
+
+  /**
+   * The number of distinct blocks accessed, as a multiple of the number of blocks that fit in the
+   * cache.
+   */
+  @Param({"0.5", "2", "8"})
+  public double workingSetRatio;
+
+  private static final int BLOCK_SIZE = 16 * 1024;
+  private static final long CACHE_SIZE = 64L * 1024 * 1024;
+  // the tiered cache holds this much more off heap, in addition to CACHE_SIZE on the heap
+  private static final long L2_SIZE = 8 * CACHE_SIZE;
+
+  private BlockCacheManager manager;
+  private BlockCache cache;
+  private String[] blockNames;
+  private byte[] block;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    switch (cacheType) {
+      case "lru":
+        conf.set(Property.TSERV_CACHE_MANAGER_IMPL, LruBlockCacheManager.class.getName());
+        break;
+      case "tinylfu":
+        conf.set(Property.TSERV_CACHE_MANAGER_IMPL, TinyLfuBlockCacheManager.class.getName());
+        break;
+      case "tiered":
+        conf.set(Property.TSERV_CACHE_MANAGER_IMPL, TieredBlockCacheManager.class.getName());
+        TieredBlockCacheConfiguration.builder(CacheType.DATA).l2Size(L2_SIZE).buildMap()
+            .forEach(conf::set);
+        break;
+      default:
+        throw new IllegalArgumentException(cacheType);
+    }
+    conf.set(Property.TSERV_DEFAULT_BLOCKSIZE, Integer.toString(BLOCK_SIZE));
+    conf.set(Property.TSERV_DATACACHE_SIZE, Long.toString(CACHE_SIZE));
+    manager = BlockCacheManagerFactory.getInstance(conf);
+    manager.start(new BlockCacheConfiguration(conf));
+    cache = manager.getBlockCache(CacheType.DATA);
+
+    int numBlocks = (int) (workingSetRatio * CACHE_SIZE / BLOCK_SIZE);
+    blockNames = new String[numBlocks];
+    for (int i = 0; i < numBlocks; i++) {
+      blockNames[i] = "hdfs://nn/accumulo/tables/1/t-0001/F" + (i / 64) + ".rf_" + (i % 64);
+    }
+    block = new byte[BLOCK_SIZE];
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    // misses cost nothing in this benchmark, so also report how many a real scan would have had
+    BlockCache.Stats stats = cache.getStats();
+    System.out.printf("%n%s hit ratio %.3f%n", cacheType,
+        stats.hitCount() / (double) stats.requestCount());
+    manager.stop();
+  }
+
+  private String nextBlockName() {
+    // squaring a uniform random number skews accesses towards the start of the array
+    double r = ThreadLocalRandom.current().nextDouble();
+    return blockNames[(int) (r * r * blockNames.length)];
+  }
+
+  @Benchmark
+  public CacheEntry getOrCache() {
+    String name = nextBlockName();
+    CacheEntry entry = cache.getBlock(name);
+    if (entry == null) {
+      entry = cache.cacheBlock(name, block);
+    }
+    return entry;
+  }
+
+  @Benchmark
+  public CacheEntry get() {
+    return cache.getBlock(nextBlockName());
+  }
+}
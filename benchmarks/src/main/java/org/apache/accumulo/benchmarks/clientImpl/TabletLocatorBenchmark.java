@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.clientImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.clientImpl.ClientContext;
+import org.apache.accumulo.core.clientImpl.TabletLocator;
+import org.apache.accumulo.core.clientImpl.TabletLocatorImpl;
+import org.apache.accumulo.core.clientImpl.TabletLocatorImpl.TabletLocationObtainer;
+import org.apache.accumulo.core.clientImpl.TabletLocatorImpl.TabletServerLockChecker;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.MetadataTable;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks binning mutations to tablet servers with {@link TabletLocatorImpl}, alone, with many
+ * threads binning at once, and with many threads binning while another keeps invalidating cached
+ * locations. Tablet locations come from an in memory metadata table, so no cluster is needed.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TabletLocatorBenchmark {
+
+  private static final TableId TABLE_ID = TableId.of("1");
+  private static final int ROWS_PER_TABLET = 100;
+  private static final int MUTATIONS_PER_BATCH = 1000;
+  // the number of tablets returned by one metadata lookup
+  private static final int LOOKUP_BATCH = 100;
+  private static final TabletLocator.TabletLocation METADATA_LOCATION =
+      new TabletLocator.TabletLocation(new KeyExtent(MetadataTable.ID, null, null), "meta:9997",
+          "1");
+
+  @Param({"1000", "100000"})
+  public int numTablets;
+
+  private TabletLocatorImpl locator;
+  private List<KeyExtent> extents;
+
+  private static String row(int i) {
+    return String.format("%010d", i);
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    NavigableMap<Text,TabletLocator.TabletLocation> metadata = new TreeMap<>();
+    extents = new ArrayList<>(numTablets);
+    Text prevEndRow = null;
+    for (int i = 0; i < numTablets; i++) {
+      Text endRow = i == numTablets - 1 ? null : new Text(row((i + 1) * ROWS_PER_TABLET));
+      KeyExtent extent = new KeyExtent(TABLE_ID, endRow, prevEndRow);
+      extents.add(extent);
+      metadata.put(extent.toMetaRow(),
+          new TabletLocator.TabletLocation(extent, "tserver" + (i % 100) + ":9997", "1"));
+      prevEndRow = endRow;
+    }
+
+    locator = new TabletLocatorImpl(TABLE_ID, new MetadataLocator(),
+        new InMemoryLocationObtainer(metadata), new AlwaysHeldLockChecker());
+    locator.prefetchLocations();
+    bin(locator, List.of(new Mutation(row(0))));
+  }
+
+  @State(Scope.Thread)
+  public static class Batch {
+    private List<Mutation> mutations;
+
+    @Setup
+    public void setup(TabletLocatorBenchmark benchmark) {
+      Random random = new Random();
+      mutations = new ArrayList<>(MUTATIONS_PER_BATCH);
+      for (int i = 0; i < MUTATIONS_PER_BATCH; i++) {
+        Mutation m = new Mutation(row(random.nextInt(benchmark.numTablets * ROWS_PER_TABLET)));
+        m.put("cf", "cq", "v");
+        mutations.add(m);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Invalidator {
+    private final Random random = new Random();
+  }
+
+  private static Map<String,TabletLocator.TabletServerMutations<Mutation>>
+      bin(TabletLocatorImpl locator, List<Mutation> mutations) throws Exception {
+    Map<String,TabletLocator.TabletServerMutations<Mutation>> binned = new HashMap<>();
+    List<Mutation> failures = new ArrayList<>();
+    locator.binMutations(null, mutations, binned, failures);
+    if (!failures.isEmpty()) {
+      throw new IllegalStateException("Failed to bin " + failures.size() + " mutations");
+    }
+    return binned;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Map<String,TabletLocator.TabletServerMutations<Mutation>> binMutations(Batch batch)
+      throws Exception {
+    return bin(locator, batch.mutations);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Map<String,TabletLocator.TabletServerMutations<Mutation>>
+      binMutationsContended(Batch batch) throws Exception {
+    return bin(locator, batch.mutations);
+  }
+
+  @Benchmark
+  @Group("invalidation")
+  @GroupThreads(7)
+  public Map<String,TabletLocator.TabletServerMutations<Mutation>>
+      binMutationsWhileInvalidating(Batch batch) throws Exception {
+    return bin(locator, batch.mutations);
+  }
+
+  @Benchmark
+  @Group("invalidation")
+  @GroupThreads(1)
+  public void invalidate(Invalidator invalidator) {
+    // simulate a steady stream of tablet migrations
+    Blackhole.consumeCPU(10_000);
+    locator.invalidateCache(extents.get(invalidator.random.nextInt(extents.size())));
+  }
+
+  /**
+   * Stands in for the metadata table locator, which always finds the single metadata tablet.
+   */
+  private static class MetadataLocator extends TabletLocator {
+    @Override
+    public TabletLocation locateTablet(ClientContext context, Text row, boolean skipRow,
+        boolean retry) {
+      return METADATA_LOCATION;
+    }
+
+    @Override
+    public <T extends Mutation> void binMutations(ClientContext context, List<T> mutations,
+        Map<String,TabletServerMutations<T>> binnedMutations, List<T> failures) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Range> binRanges(ClientContext context, List<Range> ranges,
+        Map<String,Map<KeyExtent,List<Range>>> binnedRanges) {
+      binnedRanges.computeIfAbsent(METADATA_LOCATION.tablet_location, k -> new HashMap<>())
+          .computeIfAbsent(METADATA_LOCATION.tablet_extent, k -> new ArrayList<>()).addAll(ranges);
+      return List.of();
+    }
+
+    @Override
+    public void invalidateCache(KeyExtent failedExtent) {}
+
+    @Override
+    public void invalidateCache(Collection<KeyExtent> keySet) {}
+
+    @Override
+    public void invalidateCache() {}
+
+    @Override
+    public void invalidateCache(ClientContext context, String server) {}
+  }
+
+  /**
+   * Answers location lookups from an in memory copy of the metadata table.
+   */
+  private static class InMemoryLocationObtainer implements TabletLocationObtainer {
+
+    private final NavigableMap<Text,TabletLocator.TabletLocation> metadata;
+
+    InMemoryLocationObtainer(NavigableMap<Text,TabletLocator.TabletLocation> metadata) {
+      this.metadata = metadata;
+    }
+
+    @Override
+    public TabletLocator.TabletLocations lookupTablet(ClientContext context,
+        TabletLocator.TabletLocation src, Text row, Text stopRow, TabletLocator parent) {
+      List<TabletLocator.TabletLocation> locations = new ArrayList<>();
+      for (TabletLocator.TabletLocation location : metadata.tailMap(row, true).values()) {
+        if (locations.size() == LOOKUP_BATCH) {
+          break;
+        }
+        locations.add(location);
+      }
+      return new TabletLocator.TabletLocations(locations, List.of());
+    }
+
+    @Override
+    public List<TabletLocator.TabletLocation> lookupTablets(ClientContext context, String tserver,
+        Map<KeyExtent,List<Range>> map, TabletLocator parent) {
+      List<TabletLocator.TabletLocation> locations = new ArrayList<>();
+      for (List<Range> ranges : map.values()) {
+        for (Range range : ranges) {
+          NavigableMap<Text,TabletLocator.TabletLocation> tail = range.getStartKey() == null
+              ? metadata : metadata.tailMap(range.getStartKey().getRow(), true);
+          for (Map.Entry<Text,TabletLocator.TabletLocation> entry : tail.entrySet()) {
+            Key key = new Key(entry.getKey());
+            if (range.afterEndKey(key)) {
+              break;
+            }
+            if (range.contains(key)) {
+              locations.add(entry.getValue());
+            }
+          }
+        }
+      }
+      return locations;
+    }
+  }
+
+  private static class AlwaysHeldLockChecker implements TabletServerLockChecker {
+    @Override
+    public boolean isLockHeld(String tserver, String session) {
+      return true;
+    }
+
+    @Override
+    public void invalidateCache(String server) {}
+  }
+}
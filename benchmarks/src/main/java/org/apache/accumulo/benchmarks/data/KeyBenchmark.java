@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link Key#compareTo(Key)} for keys that first differ in different fields, which
+ * determines how many bytes are compared.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyBenchmark {
+
+  @Param({"row", "family", "qualifier", "visibility", "timestamp", "equal"})
+  public String differsIn;
+
+  @Param({"16", "128"})
+  public int fieldLength;
+
+  private Key key1;
+  private Key key2;
+
+  private static String field(char prefix, int length) {
+    StringBuilder sb = new StringBuilder(length);
+    sb.append(prefix);
+    while (sb.length() < length) {
+      sb.append('x');
+    }
+    return sb.toString();
+  }
+
+  @Setup
+  public void setup() {
+    String row = field('r', fieldLength);
+    String fam = field('f', fieldLength);
+    String qual = field('q', fieldLength);
+    String vis = field('v', fieldLength);
+
+    key1 = new Key(row + "a", fam + "a", qual + "a", vis + "a", 10L);
+    switch (differsIn) {
+      case "row":
+        key2 = new Key(row + "b", fam + "a", qual + "a", vis + "a", 10L);
+        break;
+      case "family":
+        key2 = new Key(row + "a", fam + "b", qual + "a", vis + "a", 10L);
+        break;
+      case "qualifier":
+        key2 = new Key(row + "a", fam + "a", qual + "b", vis + "a", 10L);
+        break;
+      case "visibility":
+        key2 = new Key(row + "a", fam + "a", qual + "a", vis + "b", 10L);
+        break;
+      case "timestamp":
+        key2 = new Key(row + "a", fam + "a", qual + "a", vis + "a", 9L);
+        break;
+      case "equal":
+        key2 = new Key(row + "a", fam + "a", qual + "a", vis + "a", 10L);
+        break;
+      default:
+        throw new IllegalArgumentException(differsIn);
+    }
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return key1.compareTo(key2);
+  }
+}
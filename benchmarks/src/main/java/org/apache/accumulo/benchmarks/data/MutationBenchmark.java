@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.dataImpl.thrift.TMutation;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks building and serializing {@link Mutation}s, both with the Writable encoding used in
+ * write ahead logs and the Thrift conversion used to send them to tablet servers.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MutationBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int updatesPerMutation;
+
+  @Param({"16", "1024"})
+  public int valueSize;
+
+  private byte[] value;
+  private Mutation mutation;
+  private byte[] serialized;
+  private TMutation tmutation;
+  private final DataOutputBuffer out = new DataOutputBuffer();
+
+  @Setup
+  public void setup() throws IOException {
+    value = new byte[valueSize];
+    mutation = build();
+    out.reset();
+    mutation.write(out);
+    serialized = Arrays.copyOf(out.getData(), out.getLength());
+    tmutation = mutation.toThrift();
+  }
+
+  private Mutation build() {
+    Mutation m = new Mutation("row_0000000001");
+    for (int i = 0; i < updatesPerMutation; i++) {
+      m.at().family("family").qualifier("qualifier_" + i).visibility("A&B").timestamp(42L)
+          .put(value);
+    }
+    return m;
+  }
+
+  @Benchmark
+  public Mutation buildMutation() {
+    Mutation m = build();
+    // force the internal buffers to be serialized
+    m.getRow();
+    return m;
+  }
+
+  @Benchmark
+  public int write() throws IOException {
+    out.reset();
+    mutation.write(out);
+    return out.getLength();
+  }
+
+  @Benchmark
+  public void readFields(Blackhole bh) throws IOException {
+    Mutation m = new Mutation();
+    m.readFields(new DataInputStream(new ByteArrayInputStream(serialized)));
+    bh.consume(m.getUpdates());
+  }
+
+  @Benchmark
+  public TMutation toThrift() {
+    return mutation.toThrift();
+  }
+
+  @Benchmark
+  public void fromThrift(Blackhole bh) {
+    Mutation m = new Mutation(tmutation);
+    bh.consume(m.getUpdates());
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.file.rfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.file.rfile.RFileOperations;
+import org.apache.accumulo.core.spi.crypto.CryptoService;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks writing, scanning and seeking in an RFile on the local file system at different data
+ * block sizes, compression codecs and block encodings. The file does not use a block cache, so the
+ * numbers include decompression of every block that is read.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RFileBenchmark {
+
+  @Param({"16K", "100K", "1M"})
+  public String blockSize;
+
+  @Param({"none", "gz"})
+  public String compression;
+
+  @Param({"relative", "dictionary"})
+  public String encoding;
+
+  @Param({"100000"})
+  public int numEntries;
+
+  private static final int VALUE_SIZE = 64;
+
+  private ConfigurationCopy tableConf;
+  private Configuration hadoopConf;
+  private FileSystem fs;
+  private CryptoService cryptoService;
+  private File dir;
+  private String scanFile;
+  private Key[] seekKeys;
+  private FileSKVIterator reader;
+
+  static Key newKey(int i) {
+    return new Key(String.format("row_%010d", i / 4), "cf" + (i % 4), "cq" + (i % 4), "", 1L);
+  }
+
+  private void writeFile(String file) throws IOException {
+    FileSKVWriter writer = new RFileOperations().newWriterBuilder()
+        .forFile(file, fs, hadoopConf, cryptoService).withTableConfiguration(tableConf).build();
+    writer.startDefaultLocalityGroup();
+    byte[] val = new byte[VALUE_SIZE];
+    new Random(42).nextBytes(val);
+    Value value = new Value(val);
+    for (int i = 0; i < numEntries; i++) {
+      writer.append(newKey(i), value);
+    }
+    writer.close();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tableConf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    tableConf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, blockSize);
+    tableConf.set(Property.TABLE_FILE_COMPRESSION_TYPE, compression);
+    tableConf.set(Property.TABLE_FILE_BLOCK_ENCODING, encoding);
+    hadoopConf = new Configuration();
+    fs = FileSystem.getLocal(hadoopConf);
+    cryptoService = CryptoServiceFactory.newDefaultInstance();
+    dir = Files.createTempDirectory("rfile-bench").toFile();
+
+    scanFile = new File(dir, "scan." + RFile.EXTENSION).getAbsolutePath();
+    writeFile(scanFile);
+
+    Random rand = new Random(7);
+    seekKeys = new Key[1024];
+    for (int i = 0; i < seekKeys.length; i++) {
+      seekKeys[i] = newKey(rand.nextInt(numEntries));
+    }
+
+    reader = new RFileOperations().newReaderBuilder()
+        .forFile(scanFile, fs, hadoopConf, cryptoService).withTableConfiguration(tableConf).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    reader.close();
+    fs.delete(new Path(dir.getAbsolutePath()), true);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void append() throws IOException {
+    writeFile(new File(dir, "append." + RFile.EXTENSION).getAbsolutePath());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void scan(Blackhole bh) throws IOException {
+    reader.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    while (reader.hasTop()) {
+      bh.consume(reader.getTopKey());
+      bh.consume(reader.getTopValue());
+      reader.next();
+    }
+  }
+
+  private int seekIndex = 0;
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Value seek() throws IOException {
+    Key key = seekKeys[seekIndex++ & (seekKeys.length - 1)];
+    reader.seek(new Range(key, true, null, true), LocalityGroupUtil.EMPTY_CF_SET, false);
+    return reader.getTopValue();
+  }
+}
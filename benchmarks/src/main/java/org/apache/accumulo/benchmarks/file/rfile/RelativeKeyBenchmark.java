@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.file.rfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.rfile.RelativeKey;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the encoding and decoding of a run of sorted keys with {@link RelativeKey}, the way
+ * keys are stored in RFile data blocks.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RelativeKeyBenchmark {
+
+  /**
+   * The shape of the keys. "wide" keys share a row and column family and differ in long column
+   * qualifiers, "tall" keys each have their own row.
+   */
+  @Param({"wide", "tall"})
+  public String keyShape;
+
+  private static final int NUM_KEYS = 1000;
+
+  private Key[] keys;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws IOException {
+    keys = new Key[NUM_KEYS];
+    for (int i = 0; i < NUM_KEYS; i++) {
+      if (keyShape.equals("wide")) {
+        keys[i] = new Key(String.format("row_%06d", i / 100), "family",
+            String.format("a_long_column_qualifier_prefix_%08d", i), "A&B", 1000L + i);
+      } else {
+        keys[i] = new Key(String.format("row_%010d", i), "family", "qual", "A&B", 1000L);
+      }
+    }
+    encoded = encode();
+  }
+
+  private byte[] encode() throws IOException {
+    DataOutputBuffer out = new DataOutputBuffer();
+    Key prev = null;
+    for (Key key : keys) {
+      new RelativeKey(prev, key).write(out);
+      prev = key;
+    }
+    return out.getData();
+  }
+
+  @Benchmark
+  public byte[] encodeKeys() throws IOException {
+    return encode();
+  }
+
+  @Benchmark
+  public void decodeKeys(Blackhole bh) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+    RelativeKey rk = new RelativeKey();
+    Key prev = null;
+    for (int i = 0; i < NUM_KEYS; i++) {
+      rk.setPrevKey(prev);
+      rk.readFields(in);
+      prev = rk.getKey();
+      bh.consume(prev);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks merging N sorted sources with {@link MultiIterator}, the merge used for the files and
+ * in memory maps of a tablet during scans and compactions.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiIteratorBenchmark {
+
+  @Param({"1", "4", "16", "64"})
+  public int numSources;
+
+  /**
+   * How keys are spread across the sources. With "interleaved" consecutive keys come from different
+   * sources, with "runs" each source supplies runs of 100 consecutive keys.
+   */
+  @Param({"interleaved", "runs"})
+  public String distribution;
+
+  @Param({"100000"})
+  public int numEntries;
+
+  private List<TreeMap<Key,Value>> maps;
+
+  @Setup
+  public void setup() {
+    maps = new ArrayList<>();
+    for (int i = 0; i < numSources; i++) {
+      maps.add(new TreeMap<>());
+    }
+
+    Random rand = new Random(42);
+    Value value = new Value(new byte[32]);
+    int runSource = 0;
+    for (int i = 0; i < numEntries; i++) {
+      Key key = new Key(String.format("row_%010d", i), "family", "qualifier", 1L);
+      int source;
+      if (distribution.equals("interleaved")) {
+        source = rand.nextInt(numSources);
+      } else {
+        if (i % 100 == 0)
+          runSource = rand.nextInt(numSources);
+        source = runSource;
+      }
+      maps.get(source).put(key, value);
+    }
+  }
+
+  @Benchmark
+  public void mergeAll(Blackhole bh) throws IOException {
+    List<SortedKeyValueIterator<Key,Value>> sources = new ArrayList<>(numSources);
+    for (TreeMap<Key,Value> map : maps) {
+      sources.add(new SortedMapIterator(map));
+    }
+    MultiIterator iter = new MultiIterator(sources, true);
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    while (iter.hasTop()) {
+      bh.consume(iter.getTopKey());
+      iter.next();
+    }
+  }
+}
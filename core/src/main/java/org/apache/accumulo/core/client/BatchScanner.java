@@ -73,4 +73,53 @@ public interface BatchScanner extends ScannerBase {
    */
   @Override
   void setTimeout(long timeout, TimeUnit timeUnit);
+
+  /**
+   * Has tablet servers check the bloom filters of a tablet's files and its in memory map before
+   * looking up its ranges. Ranges that are definitely absent from all of them are dropped without
+   * building the tablet's iterator stack, and a tablet left with no ranges is not read at all. This
+   * helps point lookups that mostly miss on tables with {@code table.bloom.enabled} set. Ranges the
+   * table's bloom filter key functor can not check are always looked up. Disabled by default.
+   *
+   * @param enabled
+   *          true to check bloom filters before looking up ranges
+   * @since 2.1.0
+   */
+  default void setBloomFilterPrecheck(boolean enabled) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return true if bloom filters are checked before looking up ranges
+   * @see #setBloomFilterPrecheck(boolean)
+   * @since 2.1.0
+   */
+  default boolean isBloomFilterPrecheck() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Splits ranges into pieces that are scanned concurrently when there are fewer ranges than query
+   * threads. Without this, a single large range over one tablet is scanned by one thread no matter
+   * how many query threads the batch scanner has. The tablet servers pick rows that divide each
+   * range into roughly equal parts using the index of the tablet's files, which costs one extra
+   * request per range. Only rows the scanner's authorizations can read are used to split a range.
+   * Disabled by default.
+   *
+   * @param enabled
+   *          true to split ranges when there are fewer ranges than query threads
+   * @since 2.1.0
+   */
+  default void setSplitLargeRanges(boolean enabled) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return true if ranges are split when there are fewer ranges than query threads
+   * @see #setSplitLargeRanges(boolean)
+   * @since 2.1.0
+   */
+  default boolean isSplitLargeRanges() {
+    throw new UnsupportedOperationException();
+  }
 }
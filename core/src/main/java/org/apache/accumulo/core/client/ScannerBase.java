@@ -356,4 +356,39 @@ public interface ScannerBase extends Iterable<Entry<Key,Value>>, AutoCloseable {
   default void setExecutionHints(Map<String,String> hints) {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Allows the tablet server to read ahead of this scanner, keeping up to the given number of
+   * batches or bytes ready for it. Each request for more data returns all ready batches at once,
+   * which reduces round trips for long scans over slow links. Consuming the ready batches frees
+   * room in the window for the tablet server to read more. By default the tablet server reads at
+   * most one batch ahead. Tablet servers limit the window with
+   * {@code tserver.scan.readahead.window.max}. This is currently only used by {@link Scanner}.
+   *
+   * @param batches
+   *          the most batches to read ahead, one disables the window
+   * @param bytes
+   *          the most bytes to read ahead, zero means the number of batches times
+   *          {@code table.scan.max.memory}
+   * @since 2.1.0
+   */
+  default void setReadaheadWindow(int batches, long bytes) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return the number of batches set by {@link #setReadaheadWindow(int, long)}
+   * @since 2.1.0
+   */
+  default int getReadaheadWindowBatches() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return the number of bytes set by {@link #setReadaheadWindow(int, long)}
+   * @since 2.1.0
+   */
+  default long getReadaheadWindowBytes() {
+    throw new UnsupportedOperationException();
+  }
 }
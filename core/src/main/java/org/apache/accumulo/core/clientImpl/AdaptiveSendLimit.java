@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Limits how many batches a batch writer sends to one tablet server at the same time. The limit
+ * starts at one and grows by about one for each round of sends that complete normally. It is halved
+ * when a send takes much longer than is usual for the server or fails (additive increase,
+ * multiplicative decrease). A slow tablet server therefore ties up at most one send thread, leaving
+ * the rest for the servers that keep up.
+ */
+class AdaptiveSendLimit {
+
+  // a send this many times slower than the server's average is treated as a sign of overload
+  static final double SLOW_SEND_FACTOR = 2.0;
+
+  // weight of a new latency sample in the average
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  private final int maxLimit;
+  private double limit = 1;
+  private int inFlight = 0;
+  private double avgLatency = -1;
+
+  AdaptiveSendLimit(int maxLimit) {
+    Preconditions.checkArgument(maxLimit > 0);
+    this.maxLimit = maxLimit;
+  }
+
+  /**
+   * @return true if another send may start, in which case {@link #release()} must be called when it
+   *         is done
+   */
+  synchronized boolean tryAcquire() {
+    if (inFlight < getLimit()) {
+      inFlight++;
+      return true;
+    }
+    return false;
+  }
+
+  synchronized void release() {
+    Preconditions.checkState(inFlight > 0);
+    inFlight--;
+  }
+
+  /**
+   * @return true if more sends are running than the current limit allows
+   */
+  synchronized boolean isOverLimit() {
+    return inFlight > getLimit();
+  }
+
+  synchronized void sendSucceeded(long latencyMillis) {
+    if (avgLatency >= 0 && latencyMillis > SLOW_SEND_FACTOR * Math.max(avgLatency, 1)) {
+      decrease();
+    } else {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+
+    if (avgLatency < 0) {
+      avgLatency = latencyMillis;
+    } else {
+      avgLatency = (1 - LATENCY_WEIGHT) * avgLatency + LATENCY_WEIGHT * latencyMillis;
+    }
+  }
+
+  synchronized void sendFailed() {
+    decrease();
+  }
+
+  private void decrease() {
+    limit = Math.max(1, limit / 2);
+  }
+
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+}
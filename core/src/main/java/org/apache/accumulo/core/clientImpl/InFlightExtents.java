@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.accumulo.core.clientImpl.TabletLocator.TabletServerMutations;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+
+/**
+ * Tracks the tablets that the running sends to one tablet server have mutations for. A batch writer
+ * may run several sends to a server at once (see {@link AdaptiveSendLimit}). Queued mutations for a
+ * tablet that a running send already has wait for that send to finish, so that two sends never race
+ * to apply mutations to the same tablet out of order. This class is not thread safe.
+ */
+class InFlightExtents {
+
+  private final Set<KeyExtent> extents = new HashSet<>();
+
+  /**
+   * Removes the queued mutations for tablets that no running send has, and marks those tablets as
+   * in flight until {@link #sent(TabletServerMutations)} is called.
+   *
+   * @return the removed mutations, or null if all queued mutations must wait
+   */
+  <T extends Mutation> TabletServerMutations<T> take(TabletServerMutations<T> queued) {
+    TabletServerMutations<T> sendable = new TabletServerMutations<>(queued.getSession());
+    Iterator<Entry<KeyExtent,List<T>>> iter = queued.getMutations().entrySet().iterator();
+    while (iter.hasNext()) {
+      Entry<KeyExtent,List<T>> entry = iter.next();
+      if (extents.add(entry.getKey())) {
+        sendable.getMutations().put(entry.getKey(), entry.getValue());
+        iter.remove();
+      }
+    }
+    return sendable.getMutations().isEmpty() ? null : sendable;
+  }
+
+  /**
+   * Marks the tablets of a send returned by {@link #take(TabletServerMutations)} as no longer in
+   * flight.
+   */
+  void sent(TabletServerMutations<?> sent) {
+    extents.removeAll(sent.getMutations().keySet());
+  }
+
+  boolean isEmpty() {
+    return extents.isEmpty();
+  }
+}
@@ -19,8 +19,10 @@
 package org.apache.accumulo.core.clientImpl;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
@@ -84,11 +86,20 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
       range = range.bound(this.options.fetchedColumns.first(), this.options.fetchedColumns.last());
     }
 
+    Map<String,String> executionHints = options.executionHints;
+    if (options.readaheadWindowBatches > 1) {
+      executionHints = new HashMap<>(executionHints);
+      executionHints.put(ThriftScanner.READAHEAD_WINDOW_BATCHES_HINT,
+          Integer.toString(options.readaheadWindowBatches));
+      executionHints.put(ThriftScanner.READAHEAD_WINDOW_BYTES_HINT,
+          Long.toString(options.readaheadWindowBytes));
+    }
+
     scanState =
         new ScanState(context, tableId, authorizations, new Range(range), options.fetchedColumns,
             size, options.serverSideIteratorList, options.serverSideIteratorOptions, isolated,
             readaheadThreshold, options.getSamplerConfiguration(), options.batchTimeOut,
-            options.classLoaderContext, options.executionHints);
+            options.classLoaderContext, executionHints);
 
     // If we want to start readahead immediately, don't wait for hasNext to be called
     if (readaheadThreshold == 0L) {
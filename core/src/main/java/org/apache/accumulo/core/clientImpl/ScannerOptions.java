@@ -64,6 +64,14 @@ public class ScannerOptions implements ScannerBase {
 
   protected Map<String,String> executionHints = Collections.emptyMap();
 
+  protected int readaheadWindowBatches = 1;
+
+  protected long readaheadWindowBytes = 0;
+
+  protected boolean bloomFilterPrecheck = false;
+
+  protected boolean splitLargeRanges = false;
+
   protected ScannerOptions() {}
 
   public ScannerOptions(ScannerOptions so) {
@@ -181,6 +189,11 @@ public class ScannerOptions implements ScannerBase {
 
         // its an immutable map, so can avoid copy here
         dst.executionHints = src.executionHints;
+
+        dst.readaheadWindowBatches = src.readaheadWindowBatches;
+        dst.readaheadWindowBytes = src.readaheadWindowBytes;
+        dst.bloomFilterPrecheck = src.bloomFilterPrecheck;
+        dst.splitLargeRanges = src.splitLargeRanges;
       }
     }
   }
@@ -272,4 +285,26 @@ public class ScannerOptions implements ScannerBase {
     this.executionHints = Map.copyOf(Objects.requireNonNull(hints));
   }
 
+  @Override
+  public synchronized void setReadaheadWindow(int batches, long bytes) {
+    if (batches < 1) {
+      throw new IllegalArgumentException("Readahead window batches must be positive : " + batches);
+    }
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Readahead window bytes must not be negative : " + bytes);
+    }
+    this.readaheadWindowBatches = batches;
+    this.readaheadWindowBytes = bytes;
+  }
+
+  @Override
+  public synchronized int getReadaheadWindowBatches() {
+    return readaheadWindowBatches;
+  }
+
+  @Override
+  public synchronized long getReadaheadWindowBytes() {
+    return readaheadWindowBytes;
+  }
+
 }
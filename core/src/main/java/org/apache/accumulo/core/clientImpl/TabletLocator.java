@@ -31,6 +31,7 @@ import java.util.WeakHashMap;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.ClientProperty;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
@@ -146,8 +147,12 @@ public abstract class TabletLocator {
         tl = new TabletLocatorImpl(MetadataTable.ID, getLocator(context, RootTable.ID), mlo,
             new ZookeeperLockChecker(context));
       } else {
-        tl = new TabletLocatorImpl(tableId, getLocator(context, MetadataTable.ID), mlo,
-            new ZookeeperLockChecker(context));
+        TabletLocatorImpl tli = new TabletLocatorImpl(tableId,
+            getLocator(context, MetadataTable.ID), mlo, new ZookeeperLockChecker(context));
+        if (ClientProperty.LOCATION_CACHE_PREFETCH.getBoolean(context.getProperties())) {
+          tli.prefetchLocations();
+        }
+        tl = tli;
       }
       locators.put(key, tl);
     }
@@ -30,12 +30,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -54,8 +55,6 @@ import org.apache.hadoop.io.WritableComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 public class TabletLocatorImpl extends TabletLocator {
 
   private static final Logger log = LoggerFactory.getLogger(TabletLocatorImpl.class);
@@ -77,15 +76,21 @@ public class TabletLocatorImpl extends TabletLocator {
 
   protected TableId tableId;
   protected TabletLocator parent;
-  protected TreeMap<Text,TabletLocation> metaCache = new TreeMap<>(END_ROW_COMPARATOR);
+  // The cache and the set of invalidated extents are read without locking, so that binning does
+  // not contend with other threads. Only changes made from metadata lookups are serialized by the
+  // update lock.
+  protected final ConcurrentSkipListMap<Text,TabletLocation> metaCache =
+      new ConcurrentSkipListMap<>(END_ROW_COMPARATOR);
   protected TabletLocationObtainer locationObtainer;
   private TabletServerLockChecker lockChecker;
   protected Text lastTabletRow;
 
-  private TreeSet<KeyExtent> badExtents = new TreeSet<>();
-  private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-  private final Lock rLock = rwLock.readLock();
-  private final Lock wLock = rwLock.writeLock();
+  // Invalidated extents, each with the invalidation count when it was invalidated. A lookup only
+  // clears invalidations made before it started, so that one made while it read the metadata table
+  // is not lost.
+  private final ConcurrentSkipListMap<KeyExtent,Long> badExtents = new ConcurrentSkipListMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final ReentrantLock updateLock = new ReentrantLock();
 
   public interface TabletLocationObtainer {
     /**
@@ -172,33 +177,28 @@ public class TabletLocatorImpl extends TabletLocator {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be efficient rows need to be in sorted order, but always sorting is slow...
-      // therefore only sort the
-      // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
+    // for this to be efficient rows need to be in sorted order, but always sorting is slow...
+    // therefore only sort the
+    // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
 
-      // For this to be efficient, need to avoid fine grained synchronization and fine grained
-      // logging.
-      // Therefore methods called by this are not synchronized and should not log.
+    // For this to be efficient, need to avoid fine grained synchronization and fine grained
+    // logging.
+    // Therefore methods called by this are not synchronized and should not log.
 
-      for (T mutation : mutations) {
-        row.set(mutation.getRow());
-        TabletLocation tl = locateTabletInCache(row);
-        if (tl == null || !addMutation(binnedMutations, mutation, tl, lcSession))
-          notInCache.add(mutation);
-      }
-    } finally {
-      rLock.unlock();
+    for (T mutation : mutations) {
+      row.set(mutation.getRow());
+      TabletLocation tl = locateTabletInCache(row);
+      if (tl == null || !addMutation(binnedMutations, mutation, tl, lcSession))
+        notInCache.add(mutation);
     }
 
     if (!notInCache.isEmpty()) {
       notInCache.sort((o1, o2) -> WritableComparator.compareBytes(o1.getRow(), 0,
           o1.getRow().length, o2.getRow(), 0, o2.getRow().length));
 
-      wLock.lock();
+      updateLock.lock();
       try {
         boolean failed = false;
         for (T mutation : notInCache) {
@@ -219,7 +219,7 @@ public class TabletLocatorImpl extends TabletLocator {
           }
         }
       } finally {
-        wLock.unlock();
+        updateLock.unlock();
       }
     }
 
@@ -341,31 +341,25 @@ public class TabletLocatorImpl extends TabletLocator {
 
     LockCheckerSession lcSession = new LockCheckerSession();
 
-    List<Range> failures;
-    rLock.lock();
-    try {
-      processInvalidated(context, lcSession);
+    processInvalidated(context, lcSession);
 
-      // for this to be optimal, need to look ranges up in sorted order when
-      // ranges are not present in cache... however do not want to always
-      // sort ranges... therefore try binning ranges using only the cache
-      // and sort whatever fails and retry
+    // for this to be optimal, need to look ranges up in sorted order when
+    // ranges are not present in cache... however do not want to always
+    // sort ranges... therefore try binning ranges using only the cache
+    // and sort whatever fails and retry
 
-      failures = binRanges(context, ranges, binnedRanges, true, lcSession);
-    } finally {
-      rLock.unlock();
-    }
+    List<Range> failures = binRanges(context, ranges, binnedRanges, true, lcSession);
 
     if (!failures.isEmpty()) {
       // sort failures by range start key
       Collections.sort(failures);
 
       // try lookups again
-      wLock.lock();
+      updateLock.lock();
       try {
         failures = binRanges(context, failures, binnedRanges, false, lcSession);
       } finally {
-        wLock.unlock();
+        updateLock.unlock();
       }
     }
 
@@ -381,24 +375,15 @@ public class TabletLocatorImpl extends TabletLocator {
 
   @Override
   public void invalidateCache(KeyExtent failedExtent) {
-    wLock.lock();
-    try {
-      badExtents.add(failedExtent);
-    } finally {
-      wLock.unlock();
-    }
+    badExtents.put(failedExtent, invalidations.incrementAndGet());
     if (log.isTraceEnabled())
       log.trace("Invalidated extent={}", failedExtent);
   }
 
   @Override
   public void invalidateCache(Collection<KeyExtent> keySet) {
-    wLock.lock();
-    try {
-      badExtents.addAll(keySet);
-    } finally {
-      wLock.unlock();
-    }
+    long invalidation = invalidations.incrementAndGet();
+    keySet.forEach(extent -> badExtents.put(extent, invalidation));
     if (log.isTraceEnabled())
       log.trace("Invalidated {} cache entries for table {}", keySet.size(), tableId);
   }
@@ -407,16 +392,12 @@ public class TabletLocatorImpl extends TabletLocator {
   public void invalidateCache(ClientContext context, String server) {
     int invalidatedCount = 0;
 
-    wLock.lock();
-    try {
-      for (TabletLocation cacheEntry : metaCache.values())
-        if (cacheEntry.tablet_location.equals(server)) {
-          badExtents.add(cacheEntry.tablet_extent);
-          invalidatedCount++;
-        }
-    } finally {
-      wLock.unlock();
-    }
+    long invalidation = invalidations.incrementAndGet();
+    for (TabletLocation cacheEntry : metaCache.values())
+      if (cacheEntry.tablet_location.equals(server)) {
+        badExtents.put(cacheEntry.tablet_extent, invalidation);
+        invalidatedCount++;
+      }
 
     lockChecker.invalidateCache(server);
 
@@ -429,17 +410,26 @@ public class TabletLocatorImpl extends TabletLocator {
   @Override
   public void invalidateCache() {
     int invalidatedCount;
-    wLock.lock();
+    updateLock.lock();
     try {
       invalidatedCount = metaCache.size();
       metaCache.clear();
     } finally {
-      wLock.unlock();
+      updateLock.unlock();
     }
     if (log.isTraceEnabled())
       log.trace("invalidated all {} cache entries for table={}", invalidatedCount, tableId);
   }
 
+  /**
+   * Queues every tablet of the table for a location lookup. The next use of this locator then loads
+   * the locations of all of the table's tablets with one batched metadata scan, instead of locating
+   * tablets one at a time as they are needed.
+   */
+  public void prefetchLocations() {
+    invalidateCache(new KeyExtent(tableId, null, null));
+  }
+
   @Override
   public TabletLocation locateTablet(ClientContext context, Text row, boolean skipRow,
       boolean retry) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
@@ -479,6 +469,7 @@ public class TabletLocatorImpl extends TabletLocator {
   private void lookupTabletLocation(ClientContext context, Text row, boolean retry,
       LockCheckerSession lcSession)
       throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+    long invalidation = invalidations.get();
     Text metadataRow = new Text(tableId.canonical());
     metadataRow.append(new byte[] {';'}, 0, 1);
     metadataRow.append(row.getBytes(), 0, row.getLength());
@@ -528,13 +519,18 @@ public class TabletLocatorImpl extends TabletLocator {
         // save endRow for next iteration
         lastEndRow = locToCache.tablet_extent.endRow();
 
-        updateCache(locToCache, lcSession);
+        updateCache(locToCache, lcSession, invalidation);
       }
     }
 
   }
 
-  private void updateCache(TabletLocation tabletLocation, LockCheckerSession lcSession) {
+  /**
+   * @param invalidation
+   *          the invalidation count when the lookup that found the location started
+   */
+  private void updateCache(TabletLocation tabletLocation, LockCheckerSession lcSession,
+      long invalidation) {
     if (!tabletLocation.tablet_extent.tableId().equals(tableId)) {
       // sanity check
       throw new IllegalStateException(
@@ -561,10 +557,10 @@ public class TabletLocatorImpl extends TabletLocator {
     metaCache.put(er, tabletLocation);
 
     if (!badExtents.isEmpty())
-      removeOverlapping(badExtents, tabletLocation.tablet_extent);
+      removeOverlapping(badExtents, tabletLocation.tablet_extent, invalidation);
   }
 
-  static void removeOverlapping(TreeMap<Text,TabletLocation> metaCache, KeyExtent nke) {
+  static void removeOverlapping(NavigableMap<Text,TabletLocation> metaCache, KeyExtent nke) {
     Iterator<Entry<Text,TabletLocation>> iter = null;
 
     if (nke.prevEndRow() == null) {
@@ -599,9 +595,14 @@ public class TabletLocatorImpl extends TabletLocator {
     return row;
   }
 
-  static void removeOverlapping(TreeSet<KeyExtent> extents, KeyExtent nke) {
+  /**
+   * Removes the extents overlapping nke that were invalidated no later than the given invalidation
+   * count.
+   */
+  static void removeOverlapping(ConcurrentNavigableMap<KeyExtent,Long> extents, KeyExtent nke,
+      long invalidation) {
     for (KeyExtent overlapping : KeyExtent.findOverlapping(nke, extents)) {
-      extents.remove(overlapping);
+      extents.computeIfPresent(overlapping, (extent, i) -> i <= invalidation ? null : i);
     }
   }
 
@@ -627,27 +628,20 @@ public class TabletLocatorImpl extends TabletLocator {
       row.append(new byte[] {0}, 0, 1);
     }
 
-    TabletLocation tl;
-
-    if (lock) {
-      rLock.lock();
-      try {
-        tl = processInvalidatedAndCheckLock(context, lcSession, row);
-      } finally {
-        rLock.unlock();
-      }
-    } else {
-      tl = processInvalidatedAndCheckLock(context, lcSession, row);
-    }
+    TabletLocation tl = processInvalidatedAndCheckLock(context, lcSession, row);
 
     if (tl == null) {
       // not in cache, so obtain info
       if (lock) {
-        wLock.lock();
+        updateLock.lock();
         try {
-          tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
+          // another thread may have loaded the location while this one waited for the lock
+          tl = lcSession.checkLock(locateTabletInCache(row));
+          if (tl == null) {
+            tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
+          }
         } finally {
-          wLock.unlock();
+          updateLock.unlock();
         }
       } else {
         tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
@@ -671,26 +665,22 @@ public class TabletLocatorImpl extends TabletLocator {
     return lcSession.checkLock(locateTabletInCache(row));
   }
 
-  @SuppressFBWarnings(value = {"UL_UNRELEASED_LOCK", "UL_UNRELEASED_LOCK_EXCEPTION_PATH"},
-      justification = "locking is confusing, but probably correct")
   private void processInvalidated(ClientContext context, LockCheckerSession lcSession)
       throws AccumuloSecurityException, AccumuloException, TableNotFoundException {
 
     if (badExtents.isEmpty())
       return;
 
-    final boolean writeLockHeld = rwLock.isWriteLockedByCurrentThread();
+    // all invalidated extents are looked up together, in one batch per tablet server
+    updateLock.lock();
     try {
-      if (!writeLockHeld) {
-        rLock.unlock();
-        wLock.lock();
-        if (badExtents.isEmpty())
-          return;
-      }
+      if (badExtents.isEmpty())
+        return;
 
+      long invalidation = invalidations.get();
       List<Range> lookups = new ArrayList<>(badExtents.size());
 
-      for (KeyExtent be : badExtents) {
+      for (KeyExtent be : badExtents.keySet()) {
         lookups.add(be.toMetaRange());
         removeOverlapping(metaCache, be);
       }
@@ -710,14 +700,11 @@ public class TabletLocatorImpl extends TabletLocator {
             locationObtainer.lookupTablets(context, tserver, binnedRanges.get(tserver), parent);
 
         for (TabletLocation tabletLocation : locations) {
-          updateCache(tabletLocation, lcSession);
+          updateCache(tabletLocation, lcSession, invalidation);
         }
       }
     } finally {
-      if (!writeLockHeld) {
-        rLock.lock();
-        wLock.unlock();
-      }
+      updateLock.unlock();
     }
   }
 
@@ -115,4 +115,24 @@ public class TabletServerBatchReader extends ScannerOptions implements BatchScan
     return new TabletServerBatchReaderIterator(context, tableId, authorizations, ranges, numThreads,
         queryThreadPool, this, timeOut);
   }
+
+  @Override
+  public synchronized void setBloomFilterPrecheck(boolean enabled) {
+    this.bloomFilterPrecheck = enabled;
+  }
+
+  @Override
+  public synchronized boolean isBloomFilterPrecheck() {
+    return bloomFilterPrecheck;
+  }
+
+  @Override
+  public synchronized void setSplitLargeRanges(boolean enabled) {
+    this.splitLargeRanges = enabled;
+  }
+
+  @Override
+  public synchronized boolean isSplitLargeRanges() {
+    return splitLargeRanges;
+  }
 }
@@ -33,9 +33,12 @@ import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -53,6 +56,7 @@ import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.dataImpl.thrift.InitialMultiScan;
+import org.apache.accumulo.core.dataImpl.thrift.InitialScan;
 import org.apache.accumulo.core.dataImpl.thrift.MultiScanResult;
 import org.apache.accumulo.core.dataImpl.thrift.TKeyExtent;
 import org.apache.accumulo.core.dataImpl.thrift.TKeyValue;
@@ -68,6 +72,7 @@ import org.apache.accumulo.core.trace.TraceUtil;
 import org.apache.accumulo.core.util.ByteBufferUtil;
 import org.apache.accumulo.core.util.HostAndPort;
 import org.apache.accumulo.core.util.OpTimer;
+import org.apache.hadoop.io.Text;
 import org.apache.htrace.wrappers.TraceRunnable;
 import org.apache.thrift.TApplicationException;
 import org.apache.thrift.TException;
@@ -80,6 +85,26 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
 
   private static final Logger log = LoggerFactory.getLogger(TabletServerBatchReaderIterator.class);
 
+  public static final String BLOOM_FILTER_PRECHECK_HINT = "bloom_filter_precheck";
+
+  /**
+   * Execution hint that turns a single range scan into a request for at most the given number minus
+   * one rows that split the range. The rows are returned as the keys of a complete scan result
+   * whose scan id is {@link #NO_SCAN_ID}.
+   */
+  public static final String SPLIT_ROWS_HINT = "split_rows";
+
+  /**
+   * The most parts a range is split into. Tablet servers do not split a range into more parts no
+   * matter how many are asked for.
+   */
+  public static final int MAX_SPLIT_PARTS = 64;
+
+  public static final long NO_SCAN_ID = -1;
+
+  // the most milliseconds to wait for the rows that split large ranges
+  private static final long SPLIT_ROWS_MAX_WAIT = 30_000;
+
   private final ClientContext context;
   private final TableId tableId;
   private Authorizations authorizations = Authorizations.EMPTY;
@@ -362,17 +387,13 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
             options, authorizations, timeoutTracker);
         if (!tsFailures.isEmpty()) {
           locator.invalidateCache(tsFailures.keySet());
-          synchronized (failures) {
-            failures.putAll(tsFailures);
-          }
+          addFailures(failures, tsFailures);
         }
 
       } catch (IOException e) {
         if (!TabletServerBatchReaderIterator.this.queryThreadPool.isShutdown()) {
-          synchronized (failures) {
-            failures.putAll(tsFailures);
-            failures.putAll(unscanned);
-          }
+          addFailures(failures, tsFailures);
+          addFailures(failures, unscanned);
 
           locator.invalidateCache(context, tsLocation);
         }
@@ -481,7 +502,7 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
           binnedRanges.entrySet().iterator(); iterator.hasNext();) {
         Entry<String,Map<KeyExtent,List<Range>>> entry = iterator.next();
         if (timedoutServers.contains(entry.getKey())) {
-          failures.putAll(entry.getValue());
+          addFailures(failures, entry.getValue());
           iterator.remove();
         }
       }
@@ -494,10 +515,17 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
 
     List<QueryTask> queryTasks = new ArrayList<>();
 
+    if (options.splitLargeRanges) {
+      splitLargeRanges(binnedRanges, failures, receiver, columns, queryTasks);
+    }
+
     for (final String tsLocation : locations) {
 
       final Map<KeyExtent,List<Range>> tabletsRanges = binnedRanges.get(tsLocation);
-      if (maxTabletsPerRequest == Integer.MAX_VALUE || tabletsRanges.size() == 1) {
+      if (tabletsRanges.isEmpty()) {
+        // all of the tablets ranges were split into their own tasks
+        continue;
+      } else if (maxTabletsPerRequest == Integer.MAX_VALUE || tabletsRanges.size() == 1) {
         QueryTask queryTask = new QueryTask(tsLocation, tabletsRanges, failures, receiver, columns);
         queryTasks.add(queryTask);
       } else {
@@ -529,6 +557,160 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
     }
   }
 
+  /**
+   * Adds failed ranges to the shared failures. Several query tasks may have ranges of the same
+   * tablet when large ranges are split, so ranges are appended rather than replaced.
+   */
+  private static void addFailures(Map<KeyExtent,List<Range>> failures,
+      Map<KeyExtent,List<Range>> toAdd) {
+    synchronized (failures) {
+      toAdd.forEach((extent, ranges) -> failures.computeIfAbsent(extent, k -> new ArrayList<>())
+          .addAll(ranges));
+    }
+  }
+
+  /**
+   * When there are fewer ranges than query threads, splits each range at rows the tablet servers
+   * derive from their file indexes and creates a query task for every piece. Tablets whose ranges
+   * were split are removed from binnedRanges.
+   */
+  private void splitLargeRanges(Map<String,Map<KeyExtent,List<Range>>> binnedRanges,
+      Map<KeyExtent,List<Range>> failures, ResultReceiver receiver, List<Column> columns,
+      List<QueryTask> queryTasks) {
+    int numRanges = 0;
+    for (Map<KeyExtent,List<Range>> tabletsRanges : binnedRanges.values()) {
+      numRanges += sumSizes(tabletsRanges.values());
+    }
+    if (numRanges == 0 || numRanges >= numThreads) {
+      return;
+    }
+
+    int partsPerRange = Math.min(MAX_SPLIT_PARTS, (numThreads + numRanges - 1) / numRanges);
+
+    // ask for the split rows of all ranges at once, there are fewer ranges than query threads
+    Map<String,Map<KeyExtent,List<Future<List<Range>>>>> splits = new HashMap<>();
+    for (Entry<String,Map<KeyExtent,List<Range>>> entry : binnedRanges.entrySet()) {
+      String tsLocation = entry.getKey();
+      for (Entry<KeyExtent,List<Range>> tabletRanges : entry.getValue().entrySet()) {
+        KeyExtent extent = tabletRanges.getKey();
+        List<Future<List<Range>>> pieces = new ArrayList<>();
+        for (Range range : tabletRanges.getValue()) {
+          pieces.add(queryThreadPool.submit(
+              () -> splitRange(range, getSplitRows(tsLocation, extent, range, partsPerRange))));
+        }
+        splits.computeIfAbsent(tsLocation, k -> new HashMap<>()).put(extent, pieces);
+      }
+    }
+
+    // the split rows are only an optimization, so do not wait for them longer than a scan would
+    // wait for a tablet server
+    long deadline =
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(timeout, SPLIT_ROWS_MAX_WAIT));
+    for (Entry<String,Map<KeyExtent,List<Range>>> entry : binnedRanges.entrySet()) {
+      String tsLocation = entry.getKey();
+      Iterator<Entry<KeyExtent,List<Range>>> tablets = entry.getValue().entrySet().iterator();
+      while (tablets.hasNext()) {
+        Entry<KeyExtent,List<Range>> tabletRanges = tablets.next();
+        KeyExtent extent = tabletRanges.getKey();
+        List<Future<List<Range>>> futures = splits.get(tsLocation).get(extent);
+        List<Range> pieces = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+          pieces.addAll(getPieces(futures.get(i), tabletRanges.getValue().get(i), deadline));
+        }
+
+        if (pieces.size() > tabletRanges.getValue().size()) {
+          tablets.remove();
+          for (Range piece : pieces) {
+            queryTasks.add(new QueryTask(tsLocation,
+                Collections.singletonMap(extent, Collections.singletonList(piece)), failures,
+                receiver, columns));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the pieces a range was split into, or the whole range if it could not be split before
+   *         the deadline
+   */
+  static List<Range> getPieces(Future<List<Range>> future, Range range, long deadline) {
+    try {
+      return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      log.debug("Timed out getting split rows for {}, not splitting it", range);
+    } catch (ExecutionException e) {
+      log.debug("Failed to get split rows for {}, not splitting it", range, e.getCause());
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+    }
+    return List.of(range);
+  }
+
+  /**
+   * Asks a tablet server for rows that divide a range within one of its tablets into roughly equal
+   * parts. Returns no rows if the server could not provide them, in which case the range is scanned
+   * whole.
+   */
+  private List<Text> getSplitRows(String server, KeyExtent extent, Range range, int numParts) {
+    try {
+      TabletClientService.Client client = ThriftUtil.getTServerClient(
+          HostAndPort.fromString(server), context, Math.min(timeout, SPLIT_ROWS_MAX_WAIT));
+      try {
+        InitialScan is = client.startScan(TraceUtil.traceInfo(), context.rpcCreds(),
+            extent.toThrift(), range.toThrift(), Collections.emptyList(), numParts,
+            Collections.emptyList(), Collections.emptyMap(),
+            ByteBufferUtil.toByteBuffers(authorizations.getAuthorizations()), false, false,
+            Long.MAX_VALUE, null, 0, options.classLoaderContext,
+            Map.of(SPLIT_ROWS_HINT, Integer.toString(numParts)));
+
+        if (is.scanID != NO_SCAN_ID) {
+          // the server did not understand the hint and started an ordinary scan
+          if (is.result.more) {
+            client.closeScan(TraceUtil.traceInfo(), is.scanID);
+          }
+          return List.of();
+        }
+
+        List<Text> rows = new ArrayList<>(is.result.results.size());
+        for (TKeyValue kv : is.result.results) {
+          rows.add(new Key(kv.key).getRow());
+        }
+        return rows;
+      } finally {
+        ThriftUtil.returnClient(client);
+      }
+    } catch (TException e) {
+      log.debug("Failed to get split rows for {} from {}, not splitting it : {}", extent, server,
+          e.getMessage());
+      return List.of();
+    }
+  }
+
+  /**
+   * @param rows
+   *          sorted rows, each the inclusive end of a piece
+   * @return the non empty pieces of the range
+   */
+  static List<Range> splitRange(Range range, List<Text> rows) {
+    List<Range> pieces = new ArrayList<>(rows.size() + 1);
+    Text prevRow = null;
+    for (Text row : rows) {
+      Range piece = range.clip(new Range(prevRow, false, row, true), true);
+      if (piece != null) {
+        pieces.add(piece);
+      }
+      prevRow = row;
+    }
+    Range last = range.clip(new Range(prevRow, false, null, true), true);
+    if (last != null) {
+      pieces.add(last);
+    }
+    return pieces;
+  }
+
   static void trackScanning(Map<KeyExtent,List<Range>> failures,
       Map<KeyExtent,List<Range>> unscanned, MultiScanResult scanResult) {
 
@@ -673,8 +855,15 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
         Map<TKeyExtent,List<TRange>> thriftTabletRanges = Translator.translate(requested,
             Translators.KET, new Translator.ListTranslator<>(Translators.RT));
 
-        Map<String,String> execHints =
-            options.executionHints.isEmpty() ? null : options.executionHints;
+        Map<String,String> execHints = options.executionHints;
+        if (options.bloomFilterPrecheck) {
+          execHints = new HashMap<>(execHints);
+          execHints.put(BLOOM_FILTER_PRECHECK_HINT, "true");
+        }
+        if (execHints.isEmpty()) {
+          // avoid thrift serialization for empty map
+          execHints = null;
+        }
 
         InitialMultiScan imsr = client.startMultiScan(TraceUtil.traceInfo(), context.rpcCreds(),
             thriftTabletRanges, Translator.translate(columns, Translators.CT),
@@ -30,16 +30,21 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -53,15 +58,19 @@ import org.apache.accumulo.core.client.TimedOutException;
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletServerMutations;
 import org.apache.accumulo.core.clientImpl.thrift.SecurityErrorCode;
 import org.apache.accumulo.core.clientImpl.thrift.ThriftSecurityException;
+import org.apache.accumulo.core.conf.ClientProperty;
 import org.apache.accumulo.core.constraints.Violations;
 import org.apache.accumulo.core.data.ConstraintViolationSummary;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.TabletId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.PackedMutations;
 import org.apache.accumulo.core.dataImpl.TabletIdImpl;
 import org.apache.accumulo.core.dataImpl.thrift.TMutation;
 import org.apache.accumulo.core.dataImpl.thrift.UpdateErrors;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
 import org.apache.accumulo.core.master.state.tables.TableState;
 import org.apache.accumulo.core.rpc.ThriftUtil;
 import org.apache.accumulo.core.tabletserver.thrift.ConstraintViolationException;
@@ -106,6 +115,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
   private static final Logger log = LoggerFactory.getLogger(TabletServerBatchWriter.class);
 
+  private static final int BINNING_THREADS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+
   // basic configuration
   private final ClientContext context;
   private final long maxMem;
@@ -113,6 +125,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private final long timeout;
   private final Durability durability;
 
+  // when non null, the mutations for each tablet are sent packed into one compressed buffer
+  private final Algorithm packedCompression;
+
   // state
   private boolean flushing;
   private boolean closed;
@@ -148,6 +163,11 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private AtomicInteger minTabletServersBatch = new AtomicInteger(Integer.MAX_VALUE);
   private AtomicInteger maxTabletServersBatch = new AtomicInteger(Integer.MIN_VALUE);
 
+  // send latencies, bucket i counts sends that took less than 2^i milliseconds
+  private final AtomicLongArray sendLatencyHistogram = new AtomicLongArray(20);
+  private final AtomicLong maxServerQueuedBytes = new AtomicLong(0);
+  private final AtomicLong sendsDeferred = new AtomicLong(0);
+
   // error handling
   private final Violations violations = new Violations();
   private final Map<KeyExtent,Set<SecurityErrorCode>> authorizationFailures = new HashMap<>();
@@ -205,6 +225,14 @@ public class TabletServerBatchWriter implements AutoCloseable {
     this.lastProcessingStartTime = System.currentTimeMillis();
     this.durability = config.getDurability();
 
+    Properties props = context.getProperties();
+    if (ClientProperty.PACKED_MUTATIONS_ENABLED.getBoolean(props)) {
+      this.packedCompression = Compression.getCompressionAlgorithmByName(
+          ClientProperty.PACKED_MUTATIONS_COMPRESSION.getValue(props));
+    } else {
+      this.packedCompression = null;
+    }
+
     this.writer = new MutationWriter(config.getMaxWriteThreads());
 
     if (this.maxLatency != Long.MAX_VALUE) {
@@ -345,6 +373,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
     } finally {
       // make a best effort to release these resources
       writer.binningThreadPool.shutdownNow();
+      writer.binningPartitionPool.shutdownNow();
       writer.sendThreadPool.shutdownNow();
       jtimer.cancel();
     }
@@ -398,6 +427,15 @@ public class TabletServerBatchWriter implements AutoCloseable {
       log.trace(String.format("tablets per batch    : %,8.2f avg  %,6d min %,6d max",
           (float) (numBatches.get() != 0 ? (tabletBatchSum.get() / numBatches.get()) : 0),
           minTabletBatch.get(), maxTabletBatch.get()));
+      log.trace(String.format("Max queued per server: %,10d bytes", maxServerQueuedBytes.get()));
+      log.trace(String.format("Deferred sends       : %,10d", sendsDeferred.get()));
+      log.trace("Send latency histogram");
+      for (int i = 0; i < sendLatencyHistogram.length(); i++) {
+        if (sendLatencyHistogram.get(i) > 0) {
+          log.trace(
+              String.format("  < %,8d ms       : %,10d", 1L << i, sendLatencyHistogram.get(i)));
+        }
+      }
       log.trace("");
       log.trace("SYSTEM STATISTICS");
       log.trace(String.format("JVM GC Time          : %,10.2f secs",
@@ -414,6 +452,15 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private void updateSendStats(long count, long time) {
     totalSent.addAndGet(count);
     totalSendTime.addAndGet(time);
+    int bucket = Math.min(sendLatencyHistogram.length() - 1, 64 - Long.numberOfLeadingZeros(time));
+    sendLatencyHistogram.incrementAndGet(bucket);
+  }
+
+  private void updateQueuedStats(long serverQueuedBytes) {
+    long max = maxServerQueuedBytes.get();
+    while (serverQueuedBytes > max && !maxServerQueuedBytes.compareAndSet(max, serverQueuedBytes)) {
+      max = maxServerQueuedBytes.get();
+    }
   }
 
   public void updateBinningStats(int count, long time,
@@ -633,19 +680,29 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private class MutationWriter {
 
     private static final int MUTATION_BATCH_SIZE = 1 << 17;
+    // mutation sets with at least this many mutations are binned by several threads
+    private static final int PARALLEL_BINNING_THRESHOLD = 1 << 16;
     private final ExecutorService sendThreadPool;
     private final SimpleThreadPool binningThreadPool;
+    private final SimpleThreadPool binningPartitionPool;
     private final Map<String,TabletServerMutations<Mutation>> serversMutations;
-    private final Set<String> queued;
+    private final Map<String,Long> serversQueuedBytes;
+    private final Map<String,AdaptiveSendLimit> sendLimits;
+    private final Map<String,InFlightExtents> inFlightExtents;
+    private final int numSendThreads;
     private final Map<TableId,TabletLocator> locators;
 
     public MutationWriter(int numSendThreads) {
+      this.numSendThreads = numSendThreads;
       serversMutations = new HashMap<>();
-      queued = new HashSet<>();
+      serversQueuedBytes = new HashMap<>();
+      sendLimits = new ConcurrentHashMap<>();
+      inFlightExtents = new HashMap<>();
       sendThreadPool = new SimpleThreadPool(numSendThreads, this.getClass().getName());
       locators = new HashMap<>();
       binningThreadPool = new SimpleThreadPool(1, "BinMutations", new SynchronousQueue<>());
       binningThreadPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+      binningPartitionPool = new SimpleThreadPool(BINNING_THREADS, "BinMutationsPartition");
     }
 
     private synchronized TabletLocator getLocator(TableId tableId) {
@@ -719,11 +776,42 @@ public class TabletServerBatchWriter implements AutoCloseable {
       }));
     }
 
+    /**
+     * Splits a large set of mutations and bins the parts concurrently, the table locators support
+     * concurrent use.
+     */
+    private void binMutationsInParallel(MutationSet mutationsToProcess,
+        Map<String,TabletServerMutations<Mutation>> binnedMutations) {
+      List<Future<Map<String,TabletServerMutations<Mutation>>>> futures = new ArrayList<>();
+      for (MutationSet partition : mutationsToProcess.split(BINNING_THREADS)) {
+        futures.add(binningPartitionPool.submit(Trace.wrap(() -> {
+          Map<String,TabletServerMutations<Mutation>> partitionBins = new HashMap<>();
+          binMutations(partition, partitionBins);
+          return partitionBins;
+        })));
+      }
+
+      for (Future<Map<String,TabletServerMutations<Mutation>>> future : futures) {
+        try {
+          mergeMutations(future.get(), binnedMutations);
+        } catch (ExecutionException e) {
+          throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+      }
+    }
+
     private void addMutations(MutationSet mutationsToSend) {
       Map<String,TabletServerMutations<Mutation>> binnedMutations = new HashMap<>();
       try (TraceScope span = Trace.startSpan("binMutations")) {
         long t1 = System.currentTimeMillis();
-        binMutations(mutationsToSend, binnedMutations);
+        if (BINNING_THREADS > 1 && mutationsToSend.size() >= PARALLEL_BINNING_THRESHOLD) {
+          binMutationsInParallel(mutationsToSend, binnedMutations);
+        } else {
+          binMutations(mutationsToSend, binnedMutations);
+        }
         long t2 = System.currentTimeMillis();
         updateBinningStats(mutationsToSend.size(), (t2 - t1), binnedMutations);
       }
@@ -736,21 +824,12 @@ public class TabletServerBatchWriter implements AutoCloseable {
       int count = 0;
 
       // merge mutations into existing mutations for a tablet server
-      for (Entry<String,TabletServerMutations<Mutation>> entry : binnedMutations.entrySet()) {
-        String server = entry.getKey();
-
-        TabletServerMutations<Mutation> currentMutations = serversMutations.get(server);
+      mergeMutations(binnedMutations, serversMutations);
 
-        if (currentMutations == null) {
-          serversMutations.put(server, entry.getValue());
-        } else {
-          for (Entry<KeyExtent,List<Mutation>> entry2 : entry.getValue().getMutations()
-              .entrySet()) {
-            for (Mutation m : entry2.getValue()) {
-              currentMutations.addMutation(entry2.getKey(), m);
-            }
-          }
-        }
+      for (Entry<String,TabletServerMutations<Mutation>> entry : binnedMutations.entrySet()) {
+        long bytes =
+            serversQueuedBytes.merge(entry.getKey(), memoryUsed(entry.getValue()), Long::sum);
+        updateQueuedStats(bytes);
 
         if (log.isTraceEnabled())
           for (Entry<KeyExtent,List<Mutation>> entry2 : entry.getValue().getMutations().entrySet())
@@ -766,21 +845,59 @@ public class TabletServerBatchWriter implements AutoCloseable {
       ArrayList<String> servers = new ArrayList<>(binnedMutations.keySet());
       Collections.shuffle(servers);
 
+      // Start another send to a server that already has one in progress only if its limit
+      // allows. Otherwise the mutations wait for a running send to pick them up.
       for (String server : servers)
-        if (!queued.contains(server)) {
+        if (getSendLimit(server).tryAcquire()) {
           sendThreadPool.submit(Trace.wrap(new SendTask(server)));
-          queued.add(server);
+        } else {
+          sendsDeferred.incrementAndGet();
         }
     }
 
-    private synchronized TabletServerMutations<Mutation> getMutationsToSend(String server) {
-      TabletServerMutations<Mutation> tsmuts = serversMutations.remove(server);
-      if (tsmuts == null)
-        queued.remove(server);
+    private AdaptiveSendLimit getSendLimit(String server) {
+      return sendLimits.computeIfAbsent(server, s -> new AdaptiveSendLimit(numSendThreads));
+    }
+
+    /**
+     * @param sent
+     *          the mutations the calling send task just sent, or null if it has not sent any
+     */
+    private synchronized TabletServerMutations<Mutation> getMutationsToSend(String server,
+        TabletServerMutations<Mutation> sent) {
+      InFlightExtents inFlight =
+          inFlightExtents.computeIfAbsent(server, s -> new InFlightExtents());
+      if (sent != null) {
+        inFlight.sent(sent);
+      }
+
+      AdaptiveSendLimit sendLimit = getSendLimit(server);
+      TabletServerMutations<Mutation> tsmuts = null;
+      // stop this send if the server's limit was lowered, another send will continue
+      if (!sendLimit.isOverLimit()) {
+        TabletServerMutations<Mutation> queued = serversMutations.get(server);
+        if (queued != null) {
+          // mutations for a tablet that another send has are left for that send to pick up
+          tsmuts = inFlight.take(queued);
+          if (queued.getMutations().isEmpty()) {
+            serversMutations.remove(server);
+          }
+        }
+      }
+      if (tsmuts == null) {
+        sendLimit.release();
+        if (inFlight.isEmpty()) {
+          inFlightExtents.remove(server);
+        }
+      }
 
       return tsmuts;
     }
 
+    private synchronized void sent(String server, long bytes) {
+      serversQueuedBytes.computeIfPresent(server, (s, b) -> b - bytes <= 0 ? null : b - bytes);
+    }
+
     class SendTask implements Runnable {
 
       private final String location;
@@ -792,11 +909,11 @@ public class TabletServerBatchWriter implements AutoCloseable {
       @Override
       public void run() {
         try {
-          TabletServerMutations<Mutation> tsmuts = getMutationsToSend(location);
+          TabletServerMutations<Mutation> tsmuts = getMutationsToSend(location, null);
 
           while (tsmuts != null) {
             send(tsmuts);
-            tsmuts = getMutationsToSend(location);
+            tsmuts = getMutationsToSend(location, tsmuts);
           }
 
           return;
@@ -840,17 +957,13 @@ public class TabletServerBatchWriter implements AutoCloseable {
             long st1 = System.currentTimeMillis();
             failures = sendMutationsToTabletServer(location, mutationBatch, timeoutTracker);
             long st2 = System.currentTimeMillis();
+            getSendLimit(location).sendSucceeded(st2 - st1);
             if (log.isTraceEnabled())
               log.trace("sent " + String.format("%,d", count) + " mutations to " + location + " in "
                   + String.format("%.2f secs (%,.2f mutations/sec) with %,d failures",
                       (st2 - st1) / 1000.0, count / ((st2 - st1) / 1000.0), failures.size()));
 
-            long successBytes = 0;
-            for (Entry<KeyExtent,List<Mutation>> entry : mutationBatch.entrySet()) {
-              for (Mutation mutation : entry.getValue()) {
-                successBytes += mutation.estimatedMemoryUsed();
-              }
-            }
+            long successBytes = memoryUsed(tsm);
 
             if (failures.size() > 0) {
               failedMutations.add(failures);
@@ -865,6 +978,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
           if (log.isTraceEnabled())
             log.trace("failed to send mutations to {} : {}", location, e.getMessage());
 
+          // this includes the tablet server giving up on a session while holding commits
+          getSendLimit(location).sendFailed();
+
           HashSet<TableId> tables = new HashSet<>();
           for (KeyExtent ke : mutationBatch.keySet())
             tables.add(ke.tableId());
@@ -874,11 +990,22 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
           failedMutations.add(tsm);
         } finally {
+          sent(location, memoryUsed(tsm));
           Thread.currentThread().setName(oldName);
         }
       }
     }
 
+    private long memoryUsed(TabletServerMutations<Mutation> tsm) {
+      long bytes = 0;
+      for (List<Mutation> mutations : tsm.getMutations().values()) {
+        for (Mutation mutation : mutations) {
+          bytes += mutation.estimatedMemoryUsed();
+        }
+      }
+      return bytes;
+    }
+
     private MutationSet sendMutationsToTabletServer(String location,
         Map<KeyExtent,List<Mutation>> tabMuts, TimeoutTracker timeoutTracker)
         throws IOException, AccumuloSecurityException, AccumuloServerException {
@@ -922,18 +1049,27 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
             List<TMutation> updates = new ArrayList<>();
             for (Entry<KeyExtent,List<Mutation>> entry : tabMuts.entrySet()) {
-              long size = 0;
-              Iterator<Mutation> iter = entry.getValue().iterator();
-              while (iter.hasNext()) {
-                while (size < MUTATION_BATCH_SIZE && iter.hasNext()) {
-                  Mutation mutation = iter.next();
-                  updates.add(mutation.toThrift());
-                  size += mutation.numBytes();
+              List<Mutation> tabletMutations = entry.getValue();
+              int start = 0;
+              while (start < tabletMutations.size()) {
+                long size = 0;
+                int end = start;
+                while (size < MUTATION_BATCH_SIZE && end < tabletMutations.size()) {
+                  size += tabletMutations.get(end++).numBytes();
+                }
+
+                List<Mutation> batch = tabletMutations.subList(start, end);
+                if (packedCompression != null) {
+                  updates.add(PackedMutations.pack(batch, packedCompression));
+                } else {
+                  for (Mutation mutation : batch) {
+                    updates.add(mutation.toThrift());
+                  }
                 }
 
                 client.applyUpdates(tinfo, usid, entry.getKey().toThrift(), updates);
                 updates.clear();
-                size = 0;
+                start = end;
               }
             }
 
@@ -988,6 +1124,23 @@ public class TabletServerBatchWriter implements AutoCloseable {
     }
   }
 
+  private static void mergeMutations(Map<String,TabletServerMutations<Mutation>> src,
+      Map<String,TabletServerMutations<Mutation>> dst) {
+    for (Entry<String,TabletServerMutations<Mutation>> entry : src.entrySet()) {
+      TabletServerMutations<Mutation> currentMutations = dst.get(entry.getKey());
+
+      if (currentMutations == null) {
+        dst.put(entry.getKey(), entry.getValue());
+      } else {
+        for (Entry<KeyExtent,List<Mutation>> entry2 : entry.getValue().getMutations().entrySet()) {
+          for (Mutation m : entry2.getValue()) {
+            currentMutations.addMutation(entry2.getKey(), m);
+          }
+        }
+      }
+    }
+  }
+
   // END code for sending mutations to tablet servers using background threads
 
   private static class MutationSet {
@@ -1038,5 +1191,27 @@ public class TabletServerBatchWriter implements AutoCloseable {
       return memoryUsed;
     }
 
+    /**
+     * Splits the mutations of each table into at most the given number of sets.
+     */
+    List<MutationSet> split(int numPartitions) {
+      List<MutationSet> partitions = new ArrayList<>(numPartitions);
+      for (int i = 0; i < numPartitions; i++) {
+        partitions.add(new MutationSet());
+      }
+
+      for (Entry<TableId,List<Mutation>> entry : mutations.entrySet()) {
+        List<Mutation> tableMutations = entry.getValue();
+        int partitionSize = (tableMutations.size() + numPartitions - 1) / numPartitions;
+        for (int i = 0; i < numPartitions && i * partitionSize < tableMutations.size(); i++) {
+          partitions.get(i).addAll(entry.getKey(), tableMutations.subList(i * partitionSize,
+              Math.min(tableMutations.size(), (i + 1) * partitionSize)));
+        }
+      }
+
+      partitions.removeIf(partition -> partition.getMutations().isEmpty());
+      return partitions;
+    }
+
   }
 }
@@ -79,6 +79,11 @@ import org.slf4j.LoggerFactory;
 public class ThriftScanner {
   private static final Logger log = LoggerFactory.getLogger(ThriftScanner.class);
 
+  // execution hints that carry a scanner's readahead window to the tablet server, tablet servers
+  // that do not support a window ignore them
+  public static final String READAHEAD_WINDOW_BATCHES_HINT = "readahead_window_batches";
+  public static final String READAHEAD_WINDOW_BYTES_HINT = "readahead_window_bytes";
+
   public static final Map<TabletType,Set<String>> serversWaitedForWrites =
       new EnumMap<>(TabletType.class);
   private static Random secureRandom = new SecureRandom();
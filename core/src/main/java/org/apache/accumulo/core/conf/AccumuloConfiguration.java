@@ -385,14 +385,35 @@ public abstract class AccumuloConfiguration implements Iterable<Entry<String,Str
     public final OptionalInt priority;
     public final Optional<String> prioritizerClass;
     public final Map<String,String> prioritizerOpts;
+    public final OptionalInt adaptiveMinThreads;
+    public final OptionalInt adaptiveMaxThreads;
+    public final boolean fairShare;
 
     public ScanExecutorConfig(String name, int maxThreads, OptionalInt priority,
         Optional<String> comparatorFactory, Map<String,String> comparatorFactoryOpts) {
+      this(name, maxThreads, priority, comparatorFactory, comparatorFactoryOpts,
+          OptionalInt.empty(), OptionalInt.empty(), false);
+    }
+
+    public ScanExecutorConfig(String name, int maxThreads, OptionalInt priority,
+        Optional<String> comparatorFactory, Map<String,String> comparatorFactoryOpts,
+        OptionalInt adaptiveMinThreads, OptionalInt adaptiveMaxThreads, boolean fairShare) {
       this.name = name;
       this.maxThreads = maxThreads;
       this.priority = priority;
       this.prioritizerClass = comparatorFactory;
       this.prioritizerOpts = comparatorFactoryOpts;
+      this.adaptiveMinThreads = adaptiveMinThreads;
+      this.adaptiveMaxThreads = adaptiveMaxThreads;
+      this.fairShare = fairShare;
+    }
+
+    /**
+     * An adaptive executor starts with {@link #maxThreads} threads and then resizes itself between
+     * the adaptive min and max based on how much time its scans spend blocked reading files.
+     */
+    public boolean isAdaptive() {
+      return adaptiveMaxThreads.isPresent();
     }
 
     /**
@@ -537,6 +558,9 @@ public abstract class AccumuloConfiguration implements Iterable<Entry<String,Str
   private static final String SCAN_EXEC_PRIORITY = "priority";
   private static final String SCAN_EXEC_PRIORITIZER = "prioritizer";
   private static final String SCAN_EXEC_PRIORITIZER_OPTS = "prioritizer.opts.";
+  private static final String SCAN_EXEC_ADAPTIVE_MIN_THREADS = "adaptive.threads.min";
+  private static final String SCAN_EXEC_ADAPTIVE_MAX_THREADS = "adaptive.threads.max";
+  private static final String SCAN_EXEC_FAIRSHARE = "fairshare";
 
   public Collection<ScanExecutorConfig> getScanExecutors() {
 
@@ -561,6 +585,9 @@ public abstract class AccumuloConfiguration implements Iterable<Entry<String,Str
       Integer prio = null;
       String prioritizerClass = null;
       Map<String,String> prioritizerOpts = new HashMap<>();
+      Integer adaptiveMin = null;
+      Integer adaptiveMax = null;
+      boolean fairShare = false;
 
       for (Entry<String,String> subEntry : entry.getValue().entrySet()) {
         String opt = subEntry.getKey();
@@ -583,6 +610,12 @@ public abstract class AccumuloConfiguration implements Iterable<Entry<String,Str
             throw new IllegalStateException("Invalid scan executor option : " + opt);
           }
           prioritizerOpts.put(key, val);
+        } else if (opt.equals(SCAN_EXEC_ADAPTIVE_MIN_THREADS)) {
+          adaptiveMin = Integer.parseInt(val);
+        } else if (opt.equals(SCAN_EXEC_ADAPTIVE_MAX_THREADS)) {
+          adaptiveMax = Integer.parseInt(val);
+        } else if (opt.equals(SCAN_EXEC_FAIRSHARE)) {
+          fairShare = Boolean.parseBoolean(val);
         } else {
           throw new IllegalStateException("Unkown scan executor option : " + opt);
         }
@@ -591,9 +624,28 @@ public abstract class AccumuloConfiguration implements Iterable<Entry<String,Str
       Preconditions.checkArgument(threads != null && threads > 0,
           "Scan resource %s incorrectly specified threads", name);
 
+      if (adaptiveMax == null) {
+        Preconditions.checkArgument(adaptiveMin == null, "Scan resource %s set %s without %s", name,
+            SCAN_EXEC_ADAPTIVE_MIN_THREADS, SCAN_EXEC_ADAPTIVE_MAX_THREADS);
+      } else {
+        if (adaptiveMin == null) {
+          adaptiveMin = 1;
+        }
+        Preconditions.checkArgument(
+            0 < adaptiveMin && adaptiveMin <= threads && threads <= adaptiveMax,
+            "Scan resource %s must have 0 < adaptive min threads <= threads <= adaptive max threads",
+            name);
+      }
+
+      Preconditions.checkArgument(
+          !fairShare || prioritizerClass == null || prioritizerClass.isEmpty(),
+          "Scan resource %s can not use fair share admission and a prioritizer", name);
+
       scanResources.add(new ScanExecutorConfig(name, threads,
           prio == null ? OptionalInt.empty() : OptionalInt.of(prio),
-          Optional.ofNullable(prioritizerClass), prioritizerOpts));
+          Optional.ofNullable(prioritizerClass), prioritizerOpts,
+          adaptiveMin == null ? OptionalInt.empty() : OptionalInt.of(adaptiveMin),
+          adaptiveMax == null ? OptionalInt.empty() : OptionalInt.of(adaptiveMax), fairShare));
     }
 
     return scanResources;
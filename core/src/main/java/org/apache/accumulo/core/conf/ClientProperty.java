@@ -73,6 +73,14 @@ public enum ClientProperty {
           + "change the durability for the BatchWriter session. A value of \"default\" will"
           + " use the table's durability setting. ",
       "2.0.0", false),
+  PACKED_MUTATIONS_ENABLED("batch.writer.packed.enabled", "false", PropertyType.BOOLEAN,
+      "Send the mutations for each tablet packed into a single buffer instead of one thrift"
+          + " object per mutation. Requires tablet servers that support packed mutations.",
+      "2.1.0", false),
+  PACKED_MUTATIONS_COMPRESSION("batch.writer.packed.compression", "none", PropertyType.STRING,
+      "Compression algorithm used for packed mutations. One of none, gz, snappy, zstd or lzo."
+          + " Only used when batch.writer.packed.enabled is true.",
+      "2.1.0", false),
 
   // Scanner
   SCANNER_BATCH_SIZE("scanner.batch.size", "1000", PropertyType.COUNT,
@@ -82,6 +90,12 @@ public enum ClientProperty {
   BATCH_SCANNER_NUM_QUERY_THREADS("batch.scanner.num.query.threads", "3", PropertyType.COUNT,
       "Number of concurrent query threads to spawn for querying", "2.0.0", false),
 
+  // Tablet locations
+  LOCATION_CACHE_PREFETCH("location.cache.prefetch", "false", PropertyType.BOOLEAN,
+      "Load the locations of all of a table's tablets with one metadata scan the first time the"
+          + " table is used, instead of locating tablets one at a time as they are needed.",
+      "2.1.0", false),
+
   // Bulk load
   BULK_LOAD_THREADS("bulk.threads", ImportMappingOptions.BULK_LOAD_THREADS_DEFAULT,
       PropertyType.COUNT,
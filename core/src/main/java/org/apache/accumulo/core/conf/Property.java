@@ -327,14 +327,35 @@ public enum Property {
   TSERV_CACHE_MANAGER_IMPL("tserver.cache.manager.class",
       "org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager", PropertyType.STRING,
       "Specifies the class name of the block cache factory implementation."
-          + " Alternative implementation is"
-          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager"),
+          + " Alternative implementations are"
+          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager and"
+          + " org.apache.accumulo.core.file.blockfile.cache.tiered.TieredBlockCacheManager. The"
+          + " tiered cache spills blocks evicted from the heap into direct memory or a memory"
+          + " mapped file, sized by tserver.cache.config.tiered.<type>.l2.size"),
   TSERV_DATACACHE_SIZE("tserver.cache.data.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for RFile data blocks."),
   TSERV_INDEXCACHE_SIZE("tserver.cache.index.size", "25%", PropertyType.MEMORY,
       "Specifies the size of the cache for RFile index blocks."),
   TSERV_SUMMARYCACHE_SIZE("tserver.cache.summary.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for summary data on each tablet server."),
+  TSERV_RESULTCACHE_SIZE("tserver.cache.result.size", "0", PropertyType.MEMORY,
+      "Specifies the size of the cache for the results of batch scan lookups on tables that"
+          + " enable it with table.cache.result.enable. Zero disables the cache."),
+  TSERV_CACHE_WARM_DIR("tserver.cache.warm.dir", "", PropertyType.URI,
+      "A directory shared by all tablet servers, such as hdfs://namenode/accumulo/cachewarm, where"
+          + " each tablet server periodically saves the names of its most frequently read index"
+          + " and data blocks. When a tablet is loaded, the blocks of its files that were hot"
+          + " on the tablet server that last hosted it are read into the block caches in the"
+          + " background. An empty value disables cache warming."),
+  TSERV_CACHE_WARM_INTERVAL("tserver.cache.warm.interval", "5m", PropertyType.TIMEDURATION,
+      "How often a tablet server saves the names of its hot blocks to"
+          + " tserver.cache.warm.dir."),
+  TSERV_CACHE_WARM_BLOCKS("tserver.cache.warm.blocks", "10000", PropertyType.COUNT,
+      "The number of block names tracked and saved for each of the index and data caches when"
+          + " tserver.cache.warm.dir is set."),
+  TSERV_CACHE_WARM_RATE("tserver.cache.warm.rate", "10M", PropertyType.BYTES,
+      "The number of bytes per second a tablet server reads from files to warm its block"
+          + " caches. Zero removes the limit."),
   TSERV_PORTSEARCH("tserver.port.search", "false", PropertyType.BOOLEAN,
       "if the ports above are in use, search higher ports until one is available"),
   TSERV_CLIENTPORT("tserver.port.client", "9997", PropertyType.PORT,
@@ -372,6 +393,25 @@ public enum Property {
       "The maximum amount of time to wait after a failure to create or write a write-ahead log."),
   TSERV_SCAN_MAX_OPENFILES("tserver.scan.files.open.max", "100", PropertyType.COUNT,
       "Maximum total RFiles that all tablets in a tablet server can open for scans. "),
+  TSERV_SCAN_READAHEAD_BLOCKS("tserver.scan.readahead.blocks", "0", PropertyType.COUNT,
+      "The number of RFile data blocks to read and decompress in the background ahead of"
+          + " a scan or major compaction that is reading a file sequentially. This hides"
+          + " the latency of reading each block for long scans. A value of 0 disables"
+          + " readahead."),
+  TSERV_SCAN_READAHEAD_THRESHOLD("tserver.scan.readahead.threshold", "2", PropertyType.COUNT,
+      "The number of consecutive data blocks a file reader must read without seeking"
+          + " elsewhere before blocks are read ahead for it."),
+  TSERV_SCAN_READAHEAD_THREADS("tserver.scan.readahead.threads", "4", PropertyType.COUNT,
+      "The number of threads on each tablet server that read data blocks ahead of scans"
+          + " and major compactions."),
+  TSERV_SCAN_READAHEAD_WINDOW_MAX("tserver.scan.readahead.window.max", "8", PropertyType.COUNT,
+      "The most batches a tablet server will read ahead of a scanner that requests a readahead"
+          + " window. The window's bytes are limited to this many times table.scan.max.memory."),
+  TSERV_SCAN_VISIBILITY_CACHE_SIZE("tserver.scan.visibility.cache.size", "10000",
+      PropertyType.COUNT,
+      "The number of compiled column visibility expressions kept by a tablet server, and the"
+          + " number of evaluation results kept for each distinct set of scan authorizations."
+          + " Scans with the same authorizations share results."),
   TSERV_MAX_IDLE("tserver.files.open.idle", "1m", PropertyType.TIMEDURATION,
       "Tablet servers leave previously used RFiles open for future queries."
           + " This setting determines how much time an unused RFile should be kept open"
@@ -379,6 +419,17 @@ public enum Property {
   TSERV_NATIVEMAP_ENABLED("tserver.memory.maps.native.enabled", "true", PropertyType.BOOLEAN,
       "An in-memory data store for accumulo implemented in c++ that increases"
           + " the amount of data accumulo can hold in memory and avoids Java GC" + " pauses."),
+  TSERV_OFFHEAPMAP_ENABLED("tserver.memory.maps.offheap.enabled", "false", PropertyType.BOOLEAN,
+      "An in-memory data store for accumulo implemented in Java that keeps its"
+          + " data and index in direct memory outside of the Java heap, avoiding Java GC"
+          + " pauses without needing native libraries. When enabled, this takes precedence"
+          + " over tserver.memory.maps.native.enabled. The JVM option"
+          + " -XX:MaxDirectMemorySize should be set large enough to hold"
+          + " tserver.memory.maps.max."),
+  TSERV_OFFHEAPMAP_CHUNK_SIZE("tserver.memory.maps.offheap.chunk.size", "8M", PropertyType.BYTES,
+      "The maximum size of the direct memory chunks that the off-heap in-memory map"
+          + " allocates its entries from. Chunks start small and double in size up to"
+          + " this limit as a tablet's in-memory map grows."),
   TSERV_MAXMEM("tserver.memory.maps.max", "33%", PropertyType.MEMORY,
       "Maximum amount of memory that can be used to buffer data written to a"
           + " tablet server. There are two other properties that can effectively limit"
@@ -401,7 +452,15 @@ public enum Property {
           + "`tserver.scan.executors.<name>.threads=<number>`.  Optionally, can also set "
           + "`tserver.scan.executors.<name>.priority=<number 1 to 10>`, "
           + "`tserver.scan.executors.<name>.prioritizer=<class name>`, and "
-          + "`tserver.scan.executors.<name>.prioritizer.opts.<key>=<value>`"),
+          + "`tserver.scan.executors.<name>.prioritizer.opts.<key>=<value>`. Setting "
+          + "`tserver.scan.executors.<name>.adaptive.threads.max=<number>` makes the executor "
+          + "adaptive. It starts with the configured threads and periodically resizes itself, "
+          + "between `tserver.scan.executors.<name>.adaptive.threads.min` (defaults to 1) and the "
+          + "max, to keep the cores busy given how much time its scans spend blocked reading "
+          + "files. Setting `tserver.scan.executors.<name>.fairshare=true` puts fair share "
+          + "admission control in front of the executor, see "
+          + "`tserver.scan.fairshare.user.share.` and `table.scan.fairshare.share`. Fair share "
+          + "admission can not be combined with a prioritizer."),
   TSERV_SCAN_EXECUTORS_DEFAULT_THREADS("tserver.scan.executors.default.threads", "16",
       PropertyType.COUNT,
       "The number of threads for the scan executor that tables use by default."),
@@ -412,6 +471,18 @@ public enum Property {
           + ScanPrioritizer.class.getName() + " to configure one."),
   TSERV_SCAN_EXECUTORS_META_THREADS("tserver.scan.executors.meta.threads", "8", PropertyType.COUNT,
       "The number of threads for the metadata table scan executor."),
+  TSERV_SCAN_FAIRSHARE_USER_SHARE_PREFIX("tserver.scan.fairshare.user.share.", null,
+      PropertyType.PREFIX,
+      "Prefix for the share of a fair share scan executor each user gets, set as"
+          + " `tserver.scan.fairshare.user.share.<principal>=<number>`. Queued scans are admitted"
+          + " using weighted fair queuing, where the weight of a scan is its user's share times"
+          + " its table's `table.scan.fairshare.share`. Users without a share have a share of 1."),
+  TSERV_SCAN_FAIRSHARE_USER_MAX_CONCURRENT_PREFIX("tserver.scan.fairshare.user.concurrent.max.",
+      null, PropertyType.PREFIX,
+      "Prefix for limiting how many of a user's scans a fair share scan executor runs at once,"
+          + " set as `tserver.scan.fairshare.user.concurrent.max.<principal>=<number>`. Scans"
+          + " over the limit wait in the queue while other users' scans are admitted. Users"
+          + " without a limit are not limited."),
   TSERV_MIGRATE_MAXCONCURRENT("tserver.migrations.concurrent.max", "1", PropertyType.COUNT,
       "The maximum number of concurrent tablet migrations for a tablet server"),
   TSERV_MAJC_DELAY("tserver.compaction.major.delay", "30s", PropertyType.TIMEDURATION,
@@ -466,6 +537,10 @@ public enum Property {
   TSERV_MAJC_THROUGHPUT("tserver.compaction.major.throughput", "0B", PropertyType.BYTES,
       "Maximum number of bytes to read or write per second over all major"
           + " compactions on a TabletServer, or 0B for unlimited."),
+  TSERV_MAJC_PARTITION_THREADS("tserver.compaction.major.partition.threads", "4",
+      PropertyType.COUNT,
+      "The number of threads shared by all tablets for writing the key range partitions of"
+          + " major compactions. See table.compaction.major.partitions."),
   TSERV_MINC_MAXCONCURRENT("tserver.compaction.minor.concurrent.max", "4", PropertyType.COUNT,
       "The maximum number of concurrent minor compactions for a tablet server"),
   TSERV_MAJC_TRACE_PERCENT("tserver.compaction.major.trace.percent", "0.1", PropertyType.FRACTION,
@@ -529,13 +604,25 @@ public enum Property {
   TSERV_RECOVERY_MAX_CONCURRENT("tserver.recovery.concurrent.max", "2", PropertyType.COUNT,
       "The maximum number of threads to use to sort logs during" + " recovery"),
   TSERV_SORT_BUFFER_SIZE("tserver.sort.buffer.size", "10%", PropertyType.MEMORY,
-      "The amount of memory to use when sorting logs during recovery."),
+      "The amount of memory to use when sorting logs during recovery. It is shared by the part"
+          + " of the log being read and the parts being sorted."),
+  TSERV_SORT_THREADS("tserver.sort.threads", "2", PropertyType.COUNT,
+      "The number of threads used to sort and write the parts of a log during recovery, while"
+          + " the next part is read from the log."),
   TSERV_WORKQ_THREADS("tserver.workq.threads", "2", PropertyType.COUNT,
       "The number of threads for the distributed work queue. These threads are"
           + " used for copying failed bulk import RFiles."),
   TSERV_WAL_SYNC("tserver.wal.sync", "true", PropertyType.BOOLEAN,
       "Use the SYNC_BLOCK create flag to sync WAL writes to disk. Prevents"
           + " problems recovering from sudden system resets."),
+  TSERV_WAL_SYNC_BATCH_WAIT("tserver.wal.sync.batch.wait.micros", "0", PropertyType.COUNT,
+      "The maximum time in microseconds the write-ahead log sync thread waits for more writes"
+          + " to arrive before issuing a sync or flush, so that concurrent writers share it."
+          + " The thread only waits when the previous sync was shared by more than one write,"
+          + " so a single writer does not pay for the wait. A value of 0 disables waiting."),
+  TSERV_WAL_SYNC_BATCH_MAX("tserver.wal.sync.batch.max", "0", PropertyType.COUNT,
+      "The maximum number of writes a single write-ahead log sync or flush is shared by. A"
+          + " value of 0 means no limit."),
   TSERV_ASSIGNMENT_DURATION_WARNING("tserver.assignment.duration.warning", "10m",
       PropertyType.TIMEDURATION,
       "The amount of time an assignment can run before the server will print a"
@@ -680,6 +767,17 @@ public enum Property {
   TABLE_MAJC_RATIO("table.compaction.major.ratio", "3", PropertyType.FRACTION,
       "Minimum ratio of total input size to maximum input RFile size for"
           + " running a major compaction. "),
+  TABLE_MAJC_PARTITIONS("table.compaction.major.partitions", "1", PropertyType.COUNT,
+      "The number of key range partitions a major compaction of a single tablet is split into."
+          + " Partition boundaries are rows taken from the index of the input files, and each"
+          + " partition writes its own output file in parallel with the others. All output"
+          + " files replace the input files in the same metadata update, and later compactions"
+          + " are planned as if they were one file. A value of 1 compacts the tablet in a single"
+          + " thread."),
+  TABLE_MAJC_PARTITION_SIZE_MIN("table.compaction.major.partition.size.min", "256M",
+      PropertyType.BYTES,
+      "Major compactions whose input RFiles are smaller than this are not split into"
+          + " partitions, even if table.compaction.major.partitions is greater than 1."),
   @Deprecated(since = "2.1.0", forRemoval = true)
   TABLE_MAJC_COMPACTALL_IDLETIME("table.compaction.major.everything.idle", "1h",
       PropertyType.TIMEDURATION,
@@ -736,6 +834,19 @@ public enum Property {
   TABLE_SCAN_MAXMEM("table.scan.max.memory", "512k", PropertyType.BYTES,
       "The maximum amount of memory that will be used to cache results of a client query/scan. "
           + "Once this limit is reached, the buffered data is sent to the client."),
+  TABLE_SCAN_FAIRSHARE_SHARE("table.scan.fairshare.share", "1", PropertyType.COUNT,
+      "The share of a fair share scan executor this table's scans get, relative to other"
+          + " tables. See `tserver.scan.fairshare.user.share.`"),
+  TABLE_SCAN_FAIRSHARE_MAX_CONCURRENT("table.scan.fairshare.concurrent.max", "0",
+      PropertyType.COUNT,
+      "The most scans of this table that a fair share scan executor runs at once. Scans over"
+          + " the limit wait in the queue while other tables' scans are admitted. A value of 0"
+          + " does not limit the table."),
+  TABLE_SYSTEM_ITERATOR_BATCH_SIZE("table.system.iterator.batch.size", "0", PropertyType.COUNT,
+      "The number of key/value pairs the system iterators read and filter at a time for scans"
+          + " and compactions, before the entries are passed to the table's configured"
+          + " iterators. Reading in batches avoids a chain of method calls through the system"
+          + " iterators for every entry. A value of 0 reads one entry at a time."),
   TABLE_FILE_TYPE("table.file.type", RFile.EXTENSION, PropertyType.STRING,
       "Change the type of file a table writes"),
   TABLE_LOAD_BALANCER("table.balancer",
@@ -745,6 +856,14 @@ public enum Property {
   TABLE_FILE_COMPRESSION_TYPE("table.file.compress.type", "gz", PropertyType.STRING,
       "Compression algorithm used on index and data blocks before they are"
           + " written. Possible values: zstd, gz, snappy, lzo, none"),
+  TABLE_FILE_BLOCK_ENCODING("table.file.encoding", "relative", PropertyType.BLOCK_ENCODING,
+      "Encoding used for the keys and values in RFile data blocks. The relative encoding"
+          + " stores each key relative to the previous key. The dictionary encoding stores"
+          + " each block one key field at a time, dictionary encoding column families and"
+          + " visibilities and delta encoding timestamps, which produces smaller blocks for"
+          + " wide rows and for visibilities drawn from a small set. RFiles written with the"
+          + " dictionary encoding can not be read by versions of Accumulo before 2.1.0."
+          + " Possible values: relative, dictionary"),
   TABLE_FILE_COMPRESSED_BLOCK_SIZE("table.file.compress.blocksize", "100k", PropertyType.BYTES,
       "The maximum size of data blocks in RFiles before they are compressed and written."),
   TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX("table.file.compress.blocksize.index", "128k",
@@ -828,6 +947,21 @@ public enum Property {
       "Determines whether index block cache is enabled for a table."),
   TABLE_BLOCKCACHE_ENABLED("table.cache.block.enable", "false", PropertyType.BOOLEAN,
       "Determines whether data block cache is enabled for a table."),
+  TABLE_BLOCKCACHE_PARTITION("table.cache.block.partition", "", PropertyType.STRING,
+      "The partition of the index and data block caches that the blocks of a table are added to,"
+          + " when the cache is partitioned. The default uses a partition per table. Setting"
+          + " the same value on a namespace gives all tables of that namespace one partition."
+          + " The LRU block cache is partitioned with"
+          + " tserver.cache.config.lru.default.partitioned=true."),
+  TABLE_BLOCKCACHE_PARTITION_WEIGHT("table.cache.block.partition.weight", "1", PropertyType.COUNT,
+      "The weight of the block cache partition of a table, relative to the weights of the other"
+          + " partitions. When the cache is full, each partition is guaranteed a share of the"
+          + " cache proportional to its weight. Tables that share a partition should use the"
+          + " same weight."),
+  TABLE_RESULTCACHE_ENABLED("table.cache.result.enable", "false", PropertyType.BOOLEAN,
+      "Determines whether the results of batch scan lookups are cached for a table. A cached"
+          + " result is used until the tablet's data changes, so this is best suited to tables"
+          + " that see the same small lookups repeatedly and are written infrequently."),
   TABLE_ITERATOR_PREFIX("table.iterator.", null, PropertyType.PREFIX,
       "Properties in this category specify iterators that are applied at"
           + " various stages (scopes) of interaction with a table. These properties"
@@ -1277,9 +1411,9 @@ public enum Property {
             || key.startsWith(TABLE_COMPACTION_SELECTOR_OPTS.getKey())));
   }
 
-  private static final EnumSet<Property> fixedProperties =
-      EnumSet.of(Property.TSERV_CLIENTPORT, Property.TSERV_NATIVEMAP_ENABLED,
-          Property.TSERV_SCAN_MAX_OPENFILES, Property.MASTER_CLIENTPORT, Property.GC_PORT);
+  private static final EnumSet<Property> fixedProperties = EnumSet.of(Property.TSERV_CLIENTPORT,
+      Property.TSERV_NATIVEMAP_ENABLED, Property.TSERV_OFFHEAPMAP_ENABLED,
+      Property.TSERV_SCAN_MAX_OPENFILES, Property.MASTER_CLIENTPORT, Property.GC_PORT);
 
   /**
    * Checks if the given property may be changed via Zookeeper, but not recognized until the restart
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.dataImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.dataImpl.thrift.TMutation;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
+import org.apache.accumulo.core.util.ByteBufferUtil;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+
+/**
+ * Packs a list of mutations for a single tablet into one {@link TMutation}, so that a batch is sent
+ * as one length prefixed buffer instead of one thrift object per mutation. The packed form is
+ * marked by an entries count of {@value #PACKED_ENTRIES}. Its row holds the name of the compression
+ * algorithm and its data holds the mutation count followed by each mutation in the form written by
+ * {@link Mutation#write(java.io.DataOutput)}, compressed as a whole.
+ *
+ * <p>
+ * Only tablet servers that understand this form can accept it, so clients must opt in.
+ */
+public class PackedMutations {
+
+  public static final int PACKED_ENTRIES = -1;
+
+  private PackedMutations() {}
+
+  public static boolean isPacked(TMutation tmutation) {
+    return tmutation.getEntries() == PACKED_ENTRIES;
+  }
+
+  public static TMutation pack(List<Mutation> mutations, Algorithm algorithm) {
+    long size = 0;
+    for (Mutation m : mutations) {
+      size += m.numBytes();
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.min(size + 64, 1 << 20));
+    Compressor compressor = algorithm.getCompressor();
+    try {
+      OutputStream cout = algorithm.createCompressionStream(baos, compressor, 0);
+      try (DataOutputStream out = new DataOutputStream(cout)) {
+        out.writeInt(mutations.size());
+        for (Mutation m : mutations) {
+          m.write(out);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      algorithm.returnCompressor(compressor);
+    }
+
+    return new TMutation(ByteBuffer.wrap(algorithm.getName().getBytes(UTF_8)),
+        ByteBuffer.wrap(baos.toByteArray()), Collections.emptyList(), PACKED_ENTRIES);
+  }
+
+  /**
+   * Returns the mutations in a packed {@link TMutation}. Mutations are decoded one at a time as the
+   * returned iterable is consumed. Errors reading the packed data are thrown as
+   * {@link UncheckedIOException}.
+   */
+  public static Iterable<Mutation> unpack(TMutation packed) {
+    if (!isPacked(packed)) {
+      throw new IllegalArgumentException("Not a packed mutation");
+    }
+    Algorithm algorithm =
+        Compression.getCompressionAlgorithmByName(ByteBufferUtil.toString(packed.row));
+    return () -> new MutationIterator(algorithm, packed.data);
+  }
+
+  private static class MutationIterator implements Iterator<Mutation> {
+
+    private final Algorithm algorithm;
+    private Decompressor decompressor;
+    private DataInputStream in;
+    private int remaining;
+
+    MutationIterator(Algorithm algorithm, ByteBuffer data) {
+      this.algorithm = algorithm;
+      this.decompressor = algorithm.getDecompressor();
+      try {
+        InputStream din = algorithm.createDecompressionStream(
+            ByteBufferUtil.toByteArrayInputStream(data), decompressor, 0);
+        in = new DataInputStream(din);
+        remaining = in.readInt();
+      } catch (IOException e) {
+        release();
+        throw new UncheckedIOException(e);
+      }
+      if (remaining == 0) {
+        release();
+      }
+    }
+
+    private void release() {
+      algorithm.returnDecompressor(decompressor);
+      decompressor = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public Mutation next() {
+      if (remaining <= 0) {
+        throw new NoSuchElementException();
+      }
+      Mutation m = new Mutation();
+      try {
+        m.readFields(in);
+      } catch (IOException e) {
+        remaining = 0;
+        release();
+        throw new UncheckedIOException(e);
+      }
+      if (--remaining == 0) {
+        release();
+      }
+      return m;
+    }
+  }
+}
@@ -46,6 +46,7 @@ import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.keyfunctor.KeyFunctor;
 import org.apache.accumulo.core.file.rfile.RFile;
@@ -363,6 +364,13 @@ public class BloomFilterLayer {
 
     private boolean checkSuper = true;
 
+    /**
+     * @return false if the bloom filter shows the range can not contain data, otherwise true
+     */
+    public boolean probablyHasKey(Range range) {
+      return bfl.probablyHasKey(range);
+    }
+
     @Override
     public boolean hasTop() {
       return checkSuper ? reader.hasTop() : false;
@@ -448,6 +456,11 @@ public class BloomFilterLayer {
     public void setCacheProvider(CacheProvider cacheProvider) {
       reader.setCacheProvider(cacheProvider);
     }
+
+    @Override
+    public void setReadahead(BlockReadahead readahead) {
+      reader.setReadahead(readahead);
+    }
   }
 
   public static void main(String[] args) throws IOException {
@@ -22,6 +22,7 @@ import java.io.DataInputStream;
 import java.io.IOException;
 
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
@@ -39,6 +40,11 @@ public interface FileSKVIterator extends InterruptibleIterator, AutoCloseable {
 
   void setCacheProvider(CacheProvider cacheProvider);
 
+  /**
+   * Sets where to read data blocks ahead of sequential reads, null disables readahead.
+   */
+  default void setReadahead(BlockReadahead readahead) {}
+
   @Override
   void close() throws IOException;
 }
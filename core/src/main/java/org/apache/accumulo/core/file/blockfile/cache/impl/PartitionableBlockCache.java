@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.impl;
+
+import org.apache.accumulo.core.spi.cache.BlockCache;
+
+/**
+ * A block cache that can be divided into weighted partitions. When the cache is full, each
+ * partition keeps a share of the cache proportional to its weight, so blocks read for one partition
+ * can not push the blocks of another partition below its share out of the cache.
+ */
+public interface PartitionableBlockCache extends BlockCache {
+
+  /**
+   * Returns a view of this cache that adds blocks to the given partition. Blocks are still found
+   * through any view of the cache, no matter which partition they were added to.
+   *
+   * @param partition
+   *          name of the partition, for example a table id
+   * @param weight
+   *          weight of the partition relative to the other partitions, replaces any weight given
+   *          earlier for the same partition
+   * @return a view of the partition, or this cache if it is not partitioned
+   */
+  BlockCache getPartition(String partition, int weight);
+}
@@ -37,7 +37,7 @@ import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
 public class CachedBlock implements HeapSize, Comparable<CachedBlock> {
 
   public static final long PER_BLOCK_OVERHEAD =
-      ClassSize.align(ClassSize.OBJECT + (3 * ClassSize.REFERENCE) + (2 * SizeConstants.SIZEOF_LONG)
+      ClassSize.align(ClassSize.OBJECT + (4 * ClassSize.REFERENCE) + (2 * SizeConstants.SIZEOF_LONG)
           + ClassSize.STRING + ClassSize.BYTE_BUFFER + ClassSize.REFERENCE);
 
   public static enum BlockPriority {
@@ -57,14 +57,26 @@ public class CachedBlock implements HeapSize, Comparable<CachedBlock> {
 
   private byte[] buffer;
   private final String blockName;
+  private final String partition;
   private volatile long accessTime;
   private volatile long recordedSize;
   private BlockPriority priority;
   private Weighable index;
 
   public CachedBlock(String blockName, byte[] buf, long accessTime, boolean inMemory) {
+    this(blockName, buf, accessTime, inMemory, null);
+  }
+
+  /**
+   * @param partition
+   *          the partition of the cache the block was added to, null if the block was not added
+   *          through a partition
+   */
+  public CachedBlock(String blockName, byte[] buf, long accessTime, boolean inMemory,
+      String partition) {
     this.buffer = buf;
     this.blockName = blockName;
+    this.partition = partition;
     this.accessTime = accessTime;
     if (inMemory) {
       this.priority = BlockPriority.MEMORY;
@@ -113,6 +125,10 @@ public class CachedBlock implements HeapSize, Comparable<CachedBlock> {
     return this.blockName;
   }
 
+  public String getPartition() {
+    return this.partition;
+  }
+
   public BlockPriority getPriority() {
     return this.priority;
   }
@@ -23,6 +23,12 @@ import static org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize.CONCU
 import static org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize.CONCURRENT_HASHMAP_SEGMENT;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +40,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.PartitionableBlockCache;
 import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
@@ -41,6 +48,8 @@ import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -80,8 +89,21 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  * fewest least-recently-used blocks necessary from each of the three priorities (would be 3 times
  * bytes to free). It then uses the priority chunk sizes to evict fairly according to the relative
  * sizes and usage.
+ *
+ * <p>
+ * When the cache is configured to be partitioned, blocks added through a view returned by
+ * {@link #getPartition(String, int)} are bucketed by partition instead of by priority. Each
+ * partition that holds blocks is given a chunk of the minimum size proportional to its weight, and
+ * blocks are only evicted from partitions that use more than their chunk.
+ *
+ * <p>
+ * When a ghost factor is configured, a block is only admitted to a cache that has reached its
+ * minimum size when its name is found among the names of recently rejected blocks. So a block has
+ * to be read twice within a short time to push another block out, and a single pass over a large
+ * file leaves the cache mostly untouched.
  */
-public class LruBlockCache extends SynchronousLoadingBlockCache implements BlockCache, HeapSize {
+public class LruBlockCache extends SynchronousLoadingBlockCache
+    implements PartitionableBlockCache, HeapSize {
 
   private static final Logger log = LoggerFactory.getLogger(LruBlockCache.class);
 
@@ -121,6 +143,12 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
 
   private final LruBlockCacheConfiguration conf;
 
+  /** Partitions of the cache by name */
+  private final ConcurrentHashMap<String,Partition> partitions = new ConcurrentHashMap<>();
+
+  /** Names of recently rejected blocks, null when all blocks are admitted */
+  private final GhostList ghost;
+
   /**
    * Default constructor. Specify maximum size and expected average block size (approximation is
    * fine).
@@ -148,6 +176,14 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
         calculateOverhead(conf.getMaxSize(), conf.getBlockSize(), conf.getMapConcurrencyLevel());
     this.size = new AtomicLong(this.overhead);
 
+    if (conf.getGhostFactor() > 0) {
+      int ghostSize =
+          (int) Math.ceil(conf.getGhostFactor() * conf.getMaxSize() / conf.getBlockSize());
+      this.ghost = new GhostList(ghostSize, conf.getMapConcurrencyLevel());
+    } else {
+      this.ghost = null;
+    }
+
     if (conf.isUseEvictionThread()) {
       this.evictionThread = new EvictionThread(this);
       this.evictionThread.start();
@@ -198,6 +234,153 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
     }
   }
 
+  /*
+   * Returned for blocks that were not admitted to the cache.
+   */
+  private static class UncachedEntry implements CacheEntry {
+    private final byte[] buffer;
+
+    UncachedEntry(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      return null;
+    }
+
+    @Override
+    public void indexWeightChanged() {}
+  }
+
+  /*
+   * Remembers the names of the most recently rejected blocks. The names are split over stripes that
+   * are locked separately, so concurrent misses rarely wait on each other. Each stripe forgets its
+   * oldest names first.
+   */
+  private static class GhostList {
+    private final GhostMap[] stripes;
+
+    GhostList(int maxEntries, int concurrencyLevel) {
+      // a small list is not striped, so that it forgets names in the order they were added
+      stripes = new GhostMap[Math.max(1, Math.min(concurrencyLevel, maxEntries / 64))];
+      int stripeEntries = Math.max(1, (int) Math.ceil(maxEntries / (double) stripes.length));
+      for (int i = 0; i < stripes.length; i++) {
+        stripes[i] = new GhostMap(stripeEntries);
+      }
+    }
+
+    /**
+     * @return true if the name was rejected recently, in which case it is forgotten, otherwise the
+     *         name is remembered and false is returned
+     */
+    boolean removeOrAdd(String blockName) {
+      int hash = blockName.hashCode();
+      GhostMap stripe = stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+      synchronized (stripe) {
+        if (stripe.remove(blockName) != null) {
+          return true;
+        }
+        stripe.put(blockName, Boolean.TRUE);
+        return false;
+      }
+    }
+  }
+
+  private static class GhostMap extends LinkedHashMap<String,Boolean> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxEntries;
+
+    GhostMap(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Entry<String,Boolean> eldest) {
+      return size() > maxEntries;
+    }
+  }
+
+  /*
+   * A view of the cache that adds blocks to a partition. Blocks are looked up in the whole cache.
+   */
+  private class Partition implements BlockCache {
+    private final String name;
+    private volatile int weight;
+
+    Partition(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public CacheEntry cacheBlock(String blockName, byte[] buf) {
+      // eviction drops partitions without blocks, so make sure this partition's weight is known
+      if (partitions.get(name) == null) {
+        partitions.putIfAbsent(name, this);
+      }
+      return LruBlockCache.this.cacheBlock(blockName, buf, false, name);
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName) {
+      return LruBlockCache.this.getBlock(blockName);
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName, Loader loader) {
+      return LruBlockCache.this.getBlock(blockName, loader, this::cacheBlock);
+    }
+
+    @Override
+    public long getMaxHeapSize() {
+      return LruBlockCache.this.getMaxHeapSize();
+    }
+
+    @Override
+    public long getMaxSize() {
+      return LruBlockCache.this.getMaxSize();
+    }
+
+    @Override
+    public Stats getStats() {
+      return LruBlockCache.this.getStats();
+    }
+  }
+
+  @Override
+  public BlockCache getPartition(String partition, int weight) {
+    Preconditions.checkArgument(weight > 0, "partition weight must be positive");
+    if (!conf.isPartitioned()) {
+      return this;
+    }
+    Partition p = partitions.computeIfAbsent(partition, Partition::new);
+    p.weight = weight;
+    return p;
+  }
+
+  private int partitionWeight(String partition) {
+    Partition p = partition == null ? null : partitions.get(partition);
+    return p == null ? conf.getDefaultPartitionWeight() : p.weight;
+  }
+
+  /**
+   * Decides if a block that is not in the cache yet is added to it. Blocks are always admitted
+   * until the cache reaches its minimum size. After that a block is only admitted if it was
+   * rejected recently.
+   */
+  private boolean admit(String blockName) {
+    if (ghost == null || size.get() < minSize()) {
+      return true;
+    }
+    return ghost.removeOrAdd(blockName);
+  }
+
   private CacheEntry wrap(CachedBlock cb) {
     if (cb == null) {
       return null;
@@ -223,12 +406,20 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
    *          if block is in-memory
    */
   public CacheEntry cacheBlock(String blockName, byte[] buf, boolean inMemory) {
+    return cacheBlock(blockName, buf, inMemory, null);
+  }
+
+  private CacheEntry cacheBlock(String blockName, byte[] buf, boolean inMemory, String partition) {
     CachedBlock cb = map.get(blockName);
     if (cb != null) {
       stats.duplicateReads();
       cb.access(count.incrementAndGet());
     } else {
-      cb = new CachedBlock(blockName, buf, count.incrementAndGet(), inMemory);
+      if (!inMemory && !admit(blockName)) {
+        stats.rejected();
+        return new UncachedEntry(buf);
+      }
+      cb = new CachedBlock(blockName, buf, count.incrementAndGet(), inMemory, partition);
       CachedBlock currCb = map.putIfAbsent(blockName, cb);
       if (currCb != null) {
         stats.duplicateReads();
@@ -331,6 +522,11 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
       if (bytesToFree <= 0)
         return;
 
+      if (conf.isPartitioned()) {
+        evictPartitions(bytesToFree);
+        return;
+      }
+
       // Instantiate priority buckets
       BlockBucket bucketSingle = new BlockBucket(bytesToFree, conf.getBlockSize(), singleSize());
       BlockBucket bucketMulti = new BlockBucket(bytesToFree, conf.getBlockSize(), multiSize());
@@ -357,19 +553,7 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
       bucketQueue.add(bucketMulti);
       bucketQueue.add(bucketMemory);
 
-      int remainingBuckets = 3;
-      long bytesFreed = 0;
-
-      BlockBucket bucket;
-      while ((bucket = bucketQueue.poll()) != null) {
-        long overflow = bucket.overflow();
-        if (overflow > 0) {
-          long bucketBytesToFree = Math.min(overflow,
-              (long) Math.ceil((bytesToFree - bytesFreed) / (double) remainingBuckets));
-          bytesFreed += bucket.free(bucketBytesToFree);
-        }
-        remainingBuckets--;
-      }
+      long bytesFreed = free(bucketQueue, bytesToFree);
 
       float singleMB = ((float) bucketSingle.totalSize()) / ((float) (1024 * 1024));
       float multiMB = ((float) bucketMulti.totalSize()) / ((float) (1024 * 1024));
@@ -388,6 +572,63 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
     }
   }
 
+  /**
+   * Evicts blocks from the partitions that use more than their chunk of the cache. Only the
+   * partitions that currently hold blocks are given a chunk, blocks that were not added through a
+   * partition are treated as a partition of the default weight.
+   */
+  private void evictPartitions(long bytesToFree) {
+    Map<String,List<CachedBlock>> blocksByPartition = new HashMap<>();
+    for (CachedBlock cachedBlock : map.values()) {
+      blocksByPartition.computeIfAbsent(cachedBlock.getPartition(), k -> new ArrayList<>())
+          .add(cachedBlock);
+    }
+
+    // forget partitions that no longer hold blocks, such as those of deleted tables
+    partitions.keySet().removeIf(partition -> !blocksByPartition.containsKey(partition));
+
+    long totalWeight = 0;
+    for (String partition : blocksByPartition.keySet()) {
+      totalWeight += partitionWeight(partition);
+    }
+
+    PriorityQueue<BlockBucket> bucketQueue = new PriorityQueue<>();
+    for (Entry<String,List<CachedBlock>> entry : blocksByPartition.entrySet()) {
+      long bucketSize =
+          (long) Math.floor(minSize() * partitionWeight(entry.getKey()) / (double) totalWeight);
+      BlockBucket bucket = new BlockBucket(bytesToFree, conf.getBlockSize(), bucketSize);
+      entry.getValue().forEach(bucket::add);
+      bucketQueue.add(bucket);
+    }
+
+    long bytesFreed = free(bucketQueue, bytesToFree);
+
+    log.trace("Block cache LRU eviction completed. Freed {} bytes from {} partitions", bytesFreed,
+        blocksByPartition.size());
+  }
+
+  /**
+   * Frees bytes from the buckets that are over their size, splitting the bytes to free evenly
+   * between them. Buckets that are only slightly over their size free less, which leaves more to
+   * free for the other buckets.
+   */
+  private long free(PriorityQueue<BlockBucket> bucketQueue, long bytesToFree) {
+    int remainingBuckets = bucketQueue.size();
+    long bytesFreed = 0;
+
+    BlockBucket bucket;
+    while ((bucket = bucketQueue.poll()) != null) {
+      long overflow = bucket.overflow();
+      if (overflow > 0) {
+        long bucketBytesToFree = Math.min(overflow,
+            (long) Math.ceil((bytesToFree - bytesFreed) / (double) remainingBuckets));
+        bytesFreed += bucket.free(bucketBytesToFree);
+      }
+      remainingBuckets--;
+    }
+    return bytesFreed;
+  }
+
   /**
    * Used to group blocks into priority buckets. There will be a BlockBucket for each priority
    * (single, multi, memory). Once bucketed, the eviction algorithm takes the appropriate number of
@@ -506,6 +747,13 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
     return this.stats.getEvictedCount();
   }
 
+  /**
+   * Get the number of blocks that were not admitted to the cache during its lifetime.
+   */
+  public long getRejectedCount() {
+    return this.stats.getRejectedCount();
+  }
+
   /**
    * Eviction thread. Sits in waiting state until an eviction is triggered when the cache size grows
    * above the acceptable level.
@@ -581,11 +829,11 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
         "Cache Stats: Sizes: Total={}MB ({}), Free={}MB ({}), Max={}MB"
             + " ({}), Counts: Blocks={}, Access={}, Hit={}, Miss={}, Evictions={},"
             + " Evicted={},Ratios: Hit Ratio={}%, Miss Ratio={}%, Evicted/Run={},"
-            + " Duplicate Reads={}",
+            + " Duplicate Reads={}, Rejected={}",
         sizeMB, totalSize, freeMB, freeSize, maxMB, this.conf.getMaxSize(), size(),
         stats.requestCount(), stats.hitCount(), stats.getMissCount(), stats.getEvictionCount(),
         stats.getEvictedCount(), stats.getHitRatio() * 100, stats.getMissRatio() * 100,
-        stats.evictedPerEviction(), stats.getDuplicateReads());
+        stats.evictedPerEviction(), stats.getDuplicateReads(), stats.getRejectedCount());
   }
 
   /**
@@ -606,6 +854,7 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
     private final AtomicLong evictionCount = new AtomicLong(0);
     private final AtomicLong evictedCount = new AtomicLong(0);
     private final AtomicLong duplicateReads = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
 
     public void miss() {
       missCount.incrementAndGet();
@@ -629,6 +878,10 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
       evictedCount.incrementAndGet();
     }
 
+    public void rejected() {
+      rejectedCount.incrementAndGet();
+    }
+
     @Override
     public long requestCount() {
       return accessCount.get();
@@ -655,6 +908,10 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
       return evictedCount.get();
     }
 
+    public long getRejectedCount() {
+      return rejectedCount.get();
+    }
+
     public double getHitRatio() {
       return ((float) hitCount() / (float) requestCount());
     }
@@ -669,7 +926,7 @@ public class LruBlockCache extends SynchronousLoadingBlockCache implements Block
   }
 
   public static final long CACHE_FIXED_OVERHEAD =
-      ClassSize.align((3 * SizeConstants.SIZEOF_LONG) + (8 * ClassSize.REFERENCE)
+      ClassSize.align((3 * SizeConstants.SIZEOF_LONG) + (10 * ClassSize.REFERENCE)
           + (5 * SizeConstants.SIZEOF_FLOAT) + SizeConstants.SIZEOF_BOOLEAN + ClassSize.OBJECT);
 
   // HeapSize implementation
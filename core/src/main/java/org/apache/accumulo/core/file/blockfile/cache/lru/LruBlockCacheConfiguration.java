@@ -47,6 +47,12 @@ public final class LruBlockCacheConfiguration {
   public static final Float DEFAULT_MULTI_FACTOR = 0.50f;
   public static final Float DEFAULT_MEMORY_FACTOR = 0.25f;
 
+  /** Partitions */
+  public static final Integer DEFAULT_PARTITION_WEIGHT = 1;
+
+  /** Admission, no ghost entries are kept by default */
+  public static final Float DEFAULT_GHOST_FACTOR = 0f;
+
   // property names
   public static final String ACCEPTABLE_FACTOR_PROPERTY = "acceptable.factor";
   public static final String MIN_FACTOR_PROPERTY = "min.factor";
@@ -56,6 +62,9 @@ public final class LruBlockCacheConfiguration {
   public static final String MAP_LOAD_PROPERTY = "map.load";
   public static final String MAP_CONCURRENCY_PROPERTY = "map.concurrency";
   public static final String EVICTION_THREAD_PROPERTY = "eviction.thread";
+  public static final String PARTITIONED_PROPERTY = "partitioned";
+  public static final String DEFAULT_PARTITION_WEIGHT_PROPERTY = "partition.default.weight";
+  public static final String GHOST_FACTOR_PROPERTY = "ghost.factor";
 
   /** Acceptable size of cache (no evictions if size < acceptable) */
   private final float acceptableFactor;
@@ -80,6 +89,15 @@ public final class LruBlockCacheConfiguration {
 
   private final boolean useEvictionThread;
 
+  /** Divide the cache into weighted partitions, for example one per table */
+  private final boolean partitioned;
+
+  /** Weight of the blocks that are not cached through a partition */
+  private final int defaultPartitionWeight;
+
+  /** Number of rejected block names to remember, as a multiple of the blocks that fit the cache */
+  private final float ghostFactor;
+
   private final Configuration conf;
 
   private final Map<String,String> props;
@@ -111,6 +129,11 @@ public final class LruBlockCacheConfiguration {
     this.mapConcurrencyLevel = get(MAP_CONCURRENCY_PROPERTY).map(Integer::valueOf)
         .filter(i -> i > 0).orElse(DEFAULT_CONCURRENCY_LEVEL);
     this.useEvictionThread = get(EVICTION_THREAD_PROPERTY).map(Boolean::valueOf).orElse(true);
+    this.partitioned = get(PARTITIONED_PROPERTY).map(Boolean::valueOf).orElse(false);
+    this.defaultPartitionWeight = get(DEFAULT_PARTITION_WEIGHT_PROPERTY).map(Integer::valueOf)
+        .filter(i -> i > 0).orElse(DEFAULT_PARTITION_WEIGHT);
+    this.ghostFactor = get(GHOST_FACTOR_PROPERTY).map(Float::valueOf).filter(f -> f >= 0)
+        .orElse(DEFAULT_GHOST_FACTOR);
 
     if (this.getSingleFactor() + this.getMultiFactor() + this.getMemoryFactor() != 1) {
       throw new IllegalArgumentException(
@@ -156,6 +179,18 @@ public final class LruBlockCacheConfiguration {
     return useEvictionThread;
   }
 
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  public int getDefaultPartitionWeight() {
+    return defaultPartitionWeight;
+  }
+
+  public float getGhostFactor() {
+    return ghostFactor;
+  }
+
   public static class Builder {
     private Map<String,String> props = new HashMap<>();
     private String prefix;
@@ -215,6 +250,23 @@ public final class LruBlockCacheConfiguration {
       return this;
     }
 
+    public Builder partitioned(boolean p) {
+      props.put(prefix + PARTITIONED_PROPERTY, p + "");
+      return this;
+    }
+
+    public Builder defaultPartitionWeight(int w) {
+      Preconditions.checkArgument(w > 0);
+      props.put(prefix + DEFAULT_PARTITION_WEIGHT_PROPERTY, w + "");
+      return this;
+    }
+
+    public Builder ghostFactor(float gf) {
+      Preconditions.checkArgument(gf >= 0);
+      set(GHOST_FACTOR_PROPERTY, gf);
+      return this;
+    }
+
     public Map<String,String> buildMap() {
       return Map.copyOf(props);
     }
@@ -230,7 +282,9 @@ public final class LruBlockCacheConfiguration {
         + this.getMinFactor() + ", singleFactor: " + this.getSingleFactor() + ", multiFactor: "
         + this.getMultiFactor() + ", memoryFactor: " + this.getMemoryFactor() + ", mapLoadFactor: "
         + this.getMapLoadFactor() + ", mapConcurrencyLevel: " + this.getMapConcurrencyLevel()
-        + ", useEvictionThread: " + this.isUseEvictionThread();
+        + ", useEvictionThread: " + this.isUseEvictionThread() + ", partitioned: "
+        + this.isPartitioned() + ", defaultPartitionWeight: " + this.getDefaultPartitionWeight()
+        + ", ghostFactor: " + this.getGhostFactor();
   }
 
   public long getMaxSize() {
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
@@ -52,7 +53,8 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
     this(2017);
   }
 
-  private Map<String,byte[]> resolveDependencies(Map<String,Loader> loaderDeps) {
+  private Map<String,byte[]> resolveDependencies(Map<String,Loader> loaderDeps,
+      BiFunction<String,byte[],CacheEntry> cacher) {
     Map<String,byte[]> depData;
 
     switch (loaderDeps.size()) {
@@ -61,7 +63,7 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
         break;
       case 1: {
         Entry<String,Loader> entry = loaderDeps.entrySet().iterator().next();
-        CacheEntry dce = getBlock(entry.getKey(), entry.getValue());
+        CacheEntry dce = getBlock(entry.getKey(), entry.getValue(), cacher);
         if (dce == null) {
           depData = null;
         } else {
@@ -73,7 +75,7 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
         depData = new HashMap<>();
         Set<Entry<String,Loader>> es = loaderDeps.entrySet();
         for (Entry<String,Loader> entry : es) {
-          CacheEntry dce = getBlock(entry.getKey(), entry.getValue());
+          CacheEntry dce = getBlock(entry.getKey(), entry.getValue(), cacher);
           if (dce == null) {
             depData = null;
             break;
@@ -99,6 +101,15 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
 
   @Override
   public CacheEntry getBlock(String blockName, Loader loader) {
+    return getBlock(blockName, loader, this::cacheBlock);
+  }
+
+  /**
+   * Works like {@link #getBlock(String, Loader)}, but adds the loaded block and any loaded
+   * dependencies to the cache with the given function.
+   */
+  protected CacheEntry getBlock(String blockName, Loader loader,
+      BiFunction<String,byte[],CacheEntry> cacher) {
 
     CacheEntry ce = getBlock(blockName);
     if (ce != null) {
@@ -106,7 +117,7 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
     }
 
     // intentionally done before getting lock
-    Map<String,byte[]> depData = resolveDependencies(loader.getDependencies());
+    Map<String,byte[]> depData = resolveDependencies(loader.getDependencies(), cacher);
     if (depData == null) {
       return null;
     }
@@ -130,7 +141,7 @@ public abstract class SynchronousLoadingBlockCache implements BlockCache {
       }
 
       // attempt to add data to cache
-      return cacheBlock(blockName, data);
+      return cacher.apply(blockName, data);
     } finally {
       loadLock.unlock();
     }
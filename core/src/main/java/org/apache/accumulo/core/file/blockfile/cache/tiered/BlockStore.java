@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The second tier of a {@link TieredBlockCache}. Blocks are stored outside of the Java heap, either
+ * in direct byte buffers or in a memory mapped file on local disk.
+ *
+ * <p>
+ * The store is a ring of fixed size segments that blocks are appended to. When the ring is full the
+ * oldest blocks are overwritten, so eviction is first in first out. This suits a victim cache,
+ * because every block in it was already evicted from the first tier, and it means the store never
+ * has to track or compact free space. Writes are serialized, reads do not take any locks.
+ */
+final class BlockStore {
+
+  private static final class Location {
+    final String blockName;
+    final long position;
+    final int length;
+
+    Location(String blockName, long position, int length) {
+      this.blockName = blockName;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  private final ByteBuffer[] segments;
+  private final int segmentSize;
+  private final long capacity;
+  // A block's space is only written after the block is removed from the index, so a reader that
+  // copied a block and still finds it in the index afterwards read consistent data
+  private final ConcurrentHashMap<String,Location> index = new ConcurrentHashMap<>();
+
+  // the following are guarded by appendLock. Positions only ever increase, the physical location
+  // of a position is position modulo capacity.
+  private final Lock appendLock = new ReentrantLock();
+  private final ArrayDeque<Location> log = new ArrayDeque<>();
+  private long writePosition = 0;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder evicted = new LongAdder();
+
+  private BlockStore(ByteBuffer[] segments, int segmentSize) {
+    this.segments = segments;
+    this.segmentSize = segmentSize;
+    this.capacity = (long) segments.length * segmentSize;
+  }
+
+  private static int segmentSize(long size, long segmentSize) {
+    Preconditions.checkArgument(size > 0, "size must be positive");
+    Preconditions.checkArgument(segmentSize > 0 && segmentSize <= Integer.MAX_VALUE,
+        "segment size must be between 1 and %s", Integer.MAX_VALUE);
+    return (int) Math.min(size, segmentSize);
+  }
+
+  private static int numSegments(long size, int segmentSize) {
+    return (int) ((size + segmentSize - 1) / segmentSize);
+  }
+
+  /**
+   * Creates a store that keeps blocks in direct byte buffers.
+   */
+  static BlockStore offHeap(long size, long maxSegmentSize) {
+    int segmentSize = segmentSize(size, maxSegmentSize);
+    ByteBuffer[] segments = new ByteBuffer[numSegments(size, segmentSize)];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = ByteBuffer.allocateDirect(segmentSize);
+    }
+    return new BlockStore(segments, segmentSize);
+  }
+
+  /**
+   * Creates a store that keeps blocks in a file in the given directory that is memory mapped. The
+   * file is deleted as soon as it is mapped, so nothing is left behind when the process exits.
+   */
+  static BlockStore mapped(Path dir, long size, long maxSegmentSize) {
+    int segmentSize = segmentSize(size, maxSegmentSize);
+    ByteBuffer[] segments = new ByteBuffer[numSegments(size, segmentSize)];
+    try {
+      Files.createDirectories(dir);
+      Path file = Files.createTempFile(dir, "block-cache-", ".l2");
+      try {
+        Files.delete(file);
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE)) {
+          for (int i = 0; i < segments.length; i++) {
+            segments[i] = channel.map(MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+          }
+        }
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to create block cache file in " + dir, e);
+    }
+    return new BlockStore(segments, segmentSize);
+  }
+
+  long getMaxSize() {
+    return capacity;
+  }
+
+  /**
+   * Stores a copy of a block, overwriting the oldest blocks in the store if needed.
+   *
+   * @return false if the block is larger than a segment and was not stored
+   */
+  boolean put(String blockName, byte[] buffer) {
+    if (buffer.length > segmentSize) {
+      return false;
+    }
+
+    appendLock.lock();
+    try {
+      long offset = writePosition % segmentSize;
+      if (offset + buffer.length > segmentSize) {
+        // blocks do not span segments, skip the rest of this one
+        writePosition += segmentSize - offset;
+      }
+
+      // evict everything written a lap ago that overlaps the space about to be written
+      while (!log.isEmpty()
+          && log.peekFirst().position + capacity < writePosition + buffer.length) {
+        Location oldest = log.removeFirst();
+        if (index.remove(oldest.blockName, oldest)) {
+          evicted.increment();
+        }
+      }
+
+      // do not let the writes below become visible before the evictions above
+      VarHandle.fullFence();
+
+      Location location = new Location(blockName, writePosition, buffer.length);
+      segment(location).put(buffer);
+      log.addLast(location);
+      index.put(blockName, location);
+      writePosition += buffer.length;
+    } finally {
+      appendLock.unlock();
+    }
+
+    admitted.increment();
+    return true;
+  }
+
+  private ByteBuffer segment(Location location) {
+    long physical = location.position % capacity;
+    ByteBuffer segment = segments[(int) (physical / segmentSize)].duplicate();
+    segment.position((int) (physical % segmentSize));
+    return segment;
+  }
+
+  /**
+   * @return a copy of the block or null if the block is not in the store
+   */
+  byte[] get(String blockName) {
+    requests.increment();
+    Location location = index.get(blockName);
+    if (location == null) {
+      return null;
+    }
+
+    byte[] buffer = new byte[location.length];
+    segment(location).get(buffer);
+    // do not let the copy above be reordered after the check below
+    VarHandle.acquireFence();
+    // the space may have been reused while it was copied
+    if (index.get(blockName) != location) {
+      return null;
+    }
+    hits.increment();
+    return buffer;
+  }
+
+  boolean contains(String blockName) {
+    return index.containsKey(blockName);
+  }
+
+  /**
+   * Forgets about a block. Its space is reclaimed when the ring wraps around to it.
+   */
+  void remove(String blockName) {
+    index.remove(blockName);
+  }
+
+  int getBlockCount() {
+    return index.size();
+  }
+
+  long getRequestCount() {
+    return requests.sum();
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getAdmissionCount() {
+    return admitted.sum();
+  }
+
+  long getEvictionCount() {
+    return evicted.sum();
+  }
+}
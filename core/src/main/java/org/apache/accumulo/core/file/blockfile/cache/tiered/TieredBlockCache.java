@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A block cache with two tiers. The first tier holds hot blocks on the Java heap and is bounded
+ * using the W-TinyLFU eviction algorithm, like {@code TinyLfuBlockCache}. Blocks evicted from the
+ * first tier are copied into a much larger second tier that lives outside of the heap, in direct
+ * byte buffers or in a memory mapped file on local disk, where they do not add to garbage
+ * collection pauses. A block found in the second tier is copied back into the first tier and also
+ * stays in the second tier, so evicting it from the first tier again does not copy it again.
+ */
+public final class TieredBlockCache implements BlockCache {
+  private static final Logger log = LoggerFactory.getLogger(TieredBlockCache.class);
+  private static final int STATS_PERIOD_SEC = 60;
+
+  /** Statistics of one tier of the cache. */
+  public interface TierStats extends BlockCache.Stats {
+
+    /**
+     * Returns the number of blocks that were added to the tier.
+     */
+    long admissionCount();
+
+    /**
+     * Returns the number of blocks that were evicted from the tier to make room for other blocks.
+     */
+    long evictionCount();
+  }
+
+  /**
+   * Statistics of the cache. The hit and request counts cover both tiers. A request is only sent to
+   * the second tier when it misses the first tier.
+   */
+  public interface Stats extends BlockCache.Stats {
+
+    TierStats l1();
+
+    /**
+     * @return the statistics of the second tier, all zero if it is disabled
+     */
+    TierStats l2();
+  }
+
+  private final CacheType type;
+  private final Cache<String,Block> cache;
+  private final Policy.Eviction<String,Block> policy;
+  private final BlockStore l2;
+  private final LongAdder l1Admitted = new LongAdder();
+  private final ScheduledExecutorService statsExecutor;
+
+  public TieredBlockCache(TieredBlockCacheConfiguration conf, CacheType type) {
+    this(conf, type, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param executor
+   *          runs the cache maintenance that spills blocks evicted from the first tier
+   */
+  TieredBlockCache(TieredBlockCacheConfiguration conf, CacheType type, Executor executor) {
+    this.type = type;
+    if (conf.getL2Size() == 0) {
+      l2 = null;
+    } else if (conf.getL2Type().equals(TieredBlockCacheConfiguration.L2_TYPE_FILE)) {
+      l2 = BlockStore.mapped(conf.getL2Dir(), conf.getL2Size(), conf.getL2SegmentSize());
+    } else {
+      l2 = BlockStore.offHeap(conf.getL2Size(), conf.getL2SegmentSize());
+    }
+
+    cache = Caffeine.newBuilder()
+        .initialCapacity((int) Math.ceil(1.2 * conf.getL1Size() / conf.getBlockSize()))
+        .weigher((String blockName, Block block) -> {
+          int keyWeight = ClassSize.align(blockName.length()) + ClassSize.STRING;
+          return keyWeight + block.weight();
+        }).maximumWeight(conf.getL1Size())
+        // Evicted blocks are spilled by the executor, off the caller's thread and outside of
+        // Caffeine's eviction lock. A block being spilled is briefly in neither tier.
+        .executor(executor).removalListener(this::onRemoval).recordStats().build();
+    policy = cache.policy().eviction().get();
+    statsExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("TieredBlockCacheStatsExecutor").setDaemon(true).build());
+    statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC, STATS_PERIOD_SEC,
+        TimeUnit.SECONDS);
+  }
+
+  private void onRemoval(String blockName, Block block, RemovalCause cause) {
+    if (cause == RemovalCause.SIZE && l2 != null && blockName != null && block != null
+        && !l2.contains(blockName)) {
+      l2.put(blockName, block.getBuffer());
+    }
+  }
+
+  @Override
+  public long getMaxHeapSize() {
+    return policy.getMaximum();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return policy.getMaximum() + (l2 == null ? 0 : l2.getMaxSize());
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    Block block = cache.getIfPresent(blockName);
+    if (block == null) {
+      byte[] buffer = getFromL2(blockName);
+      if (buffer != null) {
+        block = promote(blockName, buffer);
+      }
+    }
+    return wrap(blockName, block);
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buffer) {
+    if (l2 != null) {
+      l2.remove(blockName);
+    }
+    return wrap(blockName, cache.asMap().compute(blockName, (key, block) -> admit(buffer)));
+  }
+
+  private Block admit(byte[] buffer) {
+    l1Admitted.increment();
+    return new Block(buffer);
+  }
+
+  /**
+   * Copies a block found in the second tier into the first tier. This uses putIfAbsent because it
+   * does not record another miss in the stats of the first tier.
+   */
+  private Block promote(String blockName, byte[] buffer) {
+    Block block = new Block(buffer);
+    Block existing = cache.asMap().putIfAbsent(blockName, block);
+    if (existing != null) {
+      return existing;
+    }
+    l1Admitted.increment();
+    return block;
+  }
+
+  private byte[] getFromL2(String blockName) {
+    return l2 == null ? null : l2.get(blockName);
+  }
+
+  @Override
+  public Stats getStats() {
+    CacheStats l1Stats = cache.stats();
+    long l1Admissions = l1Admitted.sum();
+    TierStats l1 = new TierStats() {
+      @Override
+      public long hitCount() {
+        return l1Stats.hitCount();
+      }
+
+      @Override
+      public long requestCount() {
+        return l1Stats.requestCount();
+      }
+
+      @Override
+      public long admissionCount() {
+        return l1Admissions;
+      }
+
+      @Override
+      public long evictionCount() {
+        return l1Stats.evictionCount();
+      }
+    };
+
+    long l2Hits = l2 == null ? 0 : l2.getHitCount();
+    long l2Requests = l2 == null ? 0 : l2.getRequestCount();
+    long l2Admissions = l2 == null ? 0 : l2.getAdmissionCount();
+    long l2Evictions = l2 == null ? 0 : l2.getEvictionCount();
+    TierStats l2Stats = new TierStats() {
+      @Override
+      public long hitCount() {
+        return l2Hits;
+      }
+
+      @Override
+      public long requestCount() {
+        return l2Requests;
+      }
+
+      @Override
+      public long admissionCount() {
+        return l2Admissions;
+      }
+
+      @Override
+      public long evictionCount() {
+        return l2Evictions;
+      }
+    };
+
+    return new Stats() {
+      @Override
+      public long hitCount() {
+        return l1.hitCount() + l2Stats.hitCount();
+      }
+
+      @Override
+      public long requestCount() {
+        return l1.requestCount();
+      }
+
+      @Override
+      public TierStats l1() {
+        return l1;
+      }
+
+      @Override
+      public TierStats l2() {
+        return l2Stats;
+      }
+    };
+  }
+
+  private void logStats() {
+    double maxMB = ((double) policy.getMaximum()) / ((double) (1024 * 1024));
+    double sizeMB = ((double) policy.weightedSize().getAsLong()) / ((double) (1024 * 1024));
+    Stats stats = getStats();
+    log.debug("{} L1 Size={}MB, Max={}MB, Blocks={}, Hits={}, Requests={}, Admitted={}, Evicted={}",
+        type, sizeMB, maxMB, cache.estimatedSize(), stats.l1().hitCount(),
+        stats.l1().requestCount(), stats.l1().admissionCount(), stats.l1().evictionCount());
+    if (l2 != null) {
+      log.debug("{} L2 Max={}MB, Blocks={}, Hits={}, Requests={}, Admitted={}, Evicted={}", type,
+          l2.getMaxSize() / (1024 * 1024), l2.getBlockCount(), stats.l2().hitCount(),
+          stats.l2().requestCount(), stats.l2().admissionCount(), stats.l2().evictionCount());
+    }
+  }
+
+  private static final class Block {
+
+    private final byte[] buffer;
+    private Weighable index;
+    private volatile int lastIndexWeight;
+
+    Block(byte[] buffer) {
+      this.buffer = buffer;
+      this.lastIndexWeight = buffer.length / 100;
+    }
+
+    int weight() {
+      int indexWeight = lastIndexWeight + SizeConstants.SIZEOF_INT + ClassSize.REFERENCE;
+      return indexWeight + ClassSize.align(getBuffer().length) + SizeConstants.SIZEOF_LONG
+          + ClassSize.REFERENCE + ClassSize.OBJECT + ClassSize.ARRAY;
+    }
+
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (index == null) {
+        index = supplier.get();
+      }
+
+      return (T) index;
+    }
+
+    public synchronized boolean indexWeightChanged() {
+      if (index != null) {
+        int indexWeight = index.weight();
+        if (indexWeight > lastIndexWeight) {
+          lastIndexWeight = indexWeight;
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+
+  private CacheEntry wrap(String cacheKey, Block block) {
+    if (block != null) {
+      return new TieredCacheEntry(cacheKey, block);
+    }
+
+    return null;
+  }
+
+  private class TieredCacheEntry implements CacheEntry {
+
+    private final String cacheKey;
+    private final Block block;
+
+    TieredCacheEntry(String k, Block b) {
+      this.cacheKey = k;
+      this.block = b;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return block.getBuffer();
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      return block.getIndex(supplier);
+    }
+
+    @Override
+    public void indexWeightChanged() {
+      if (block.indexWeightChanged()) {
+        // update weight
+        cache.put(cacheKey, block);
+      }
+    }
+  }
+
+  private Block load(String blockName, Loader loader, Map<String,byte[]> resolvedDeps) {
+    byte[] data = getFromL2(blockName);
+    if (data == null) {
+      data = loader.load((int) Math.min(Integer.MAX_VALUE, policy.getMaximum()), resolvedDeps);
+      if (data == null) {
+        return null;
+      }
+    }
+
+    return admit(data);
+  }
+
+  private Map<String,byte[]> resolveDependencies(Map<String,Loader> deps) {
+    if (deps.size() == 1) {
+      Entry<String,Loader> entry = deps.entrySet().iterator().next();
+      CacheEntry ce = getBlock(entry.getKey(), entry.getValue());
+      if (ce == null) {
+        return null;
+      }
+      return Collections.singletonMap(entry.getKey(), ce.getBuffer());
+    } else {
+      HashMap<String,byte[]> resolvedDeps = new HashMap<>();
+      for (Entry<String,Loader> entry : deps.entrySet()) {
+        CacheEntry ce = getBlock(entry.getKey(), entry.getValue());
+        if (ce == null) {
+          return null;
+        }
+        resolvedDeps.put(entry.getKey(), ce.getBuffer());
+      }
+      return resolvedDeps;
+    }
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    Map<String,Loader> deps = loader.getDependencies();
+    Block block;
+    if (deps.isEmpty()) {
+      block = cache.get(blockName, k -> load(k, loader, Collections.emptyMap()));
+    } else {
+      // Loading dependencies will access the cache and cache load functions should not access the
+      // cache, so dependencies are loaded outside of the load function. A block that is in the
+      // second tier does not need its dependencies.
+      block = cache.getIfPresent(blockName);
+
+      if (block == null) {
+        byte[] buffer = getFromL2(blockName);
+        if (buffer != null) {
+          block = promote(blockName, buffer);
+        } else {
+          Map<String,byte[]> resolvedDeps = resolveDependencies(deps);
+          if (resolvedDeps == null) {
+            return null;
+          }
+
+          // Use asMap because it will not increment stats, getIfPresent recorded a miss above. Use
+          // computeIfAbsent because it is possible another thread loaded the data since this
+          // thread called getIfPresent.
+          block = cache.asMap().computeIfAbsent(blockName, k -> load(k, loader, resolvedDeps));
+        }
+      }
+    }
+
+    return wrap(blockName, block);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheType;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Configuration of a {@link TieredBlockCache}. The size of the on heap first tier comes from the
+ * existing cache size properties, for example {@code tserver.cache.data.size}. The second tier is
+ * configured with properties like the following and is disabled unless a size is set.
+ *
+ * <pre>
+ * tserver.cache.config.tiered.default.l2.type=file
+ * tserver.cache.config.tiered.default.l2.dir=/local/ssd/accumulo
+ * tserver.cache.config.tiered.data.l2.size=64G
+ * tserver.cache.config.tiered.index.l2.size=4G
+ * </pre>
+ */
+public final class TieredBlockCacheConfiguration {
+
+  public static final String PROPERTY_PREFIX = "tiered";
+
+  // property names
+  public static final String L2_SIZE_PROPERTY = "l2.size";
+  public static final String L2_TYPE_PROPERTY = "l2.type";
+  public static final String L2_DIR_PROPERTY = "l2.dir";
+  public static final String L2_SEGMENT_SIZE_PROPERTY = "l2.segment.size";
+
+  /** Keep the second tier in direct byte buffers */
+  public static final String L2_TYPE_OFFHEAP = "offheap";
+  /** Keep the second tier in a memory mapped file under {@value #L2_DIR_PROPERTY} */
+  public static final String L2_TYPE_FILE = "file";
+
+  public static final String DEFAULT_L2_SEGMENT_SIZE = "256M";
+
+  private final long l1Size;
+  private final long blockSize;
+  private final long l2Size;
+  private final String l2Type;
+  private final Path l2Dir;
+  private final long l2SegmentSize;
+
+  public TieredBlockCacheConfiguration(Configuration conf, CacheType type) {
+    Map<String,String> props = conf.getProperties(PROPERTY_PREFIX, type);
+
+    this.l1Size = conf.getMaxSize(type);
+    this.blockSize = conf.getBlockSize();
+    this.l2Size = Optional.ofNullable(props.get(L2_SIZE_PROPERTY))
+        .map(ConfigurationTypeHelper::getFixedMemoryAsBytes).orElse(0L);
+    this.l2Type = props.getOrDefault(L2_TYPE_PROPERTY, L2_TYPE_OFFHEAP);
+    this.l2Dir =
+        Paths.get(props.getOrDefault(L2_DIR_PROPERTY, System.getProperty("java.io.tmpdir")));
+    this.l2SegmentSize = ConfigurationTypeHelper.getFixedMemoryAsBytes(
+        props.getOrDefault(L2_SEGMENT_SIZE_PROPERTY, DEFAULT_L2_SEGMENT_SIZE));
+
+    if (l2Size < 0) {
+      throw new IllegalArgumentException(L2_SIZE_PROPERTY + " must not be negative");
+    }
+    if (!l2Type.equals(L2_TYPE_OFFHEAP) && !l2Type.equals(L2_TYPE_FILE)) {
+      throw new IllegalArgumentException(L2_TYPE_PROPERTY + " must be " + L2_TYPE_OFFHEAP + " or "
+          + L2_TYPE_FILE + " but was " + l2Type);
+    }
+    if (l2SegmentSize <= 0 || l2SegmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          L2_SEGMENT_SIZE_PROPERTY + " must be between 1 and " + Integer.MAX_VALUE);
+    }
+  }
+
+  public long getL1Size() {
+    return l1Size;
+  }
+
+  public long getBlockSize() {
+    return blockSize;
+  }
+
+  public long getL2Size() {
+    return l2Size;
+  }
+
+  public String getL2Type() {
+    return l2Type;
+  }
+
+  public Path getL2Dir() {
+    return l2Dir;
+  }
+
+  public long getL2SegmentSize() {
+    return l2SegmentSize;
+  }
+
+  public static class Builder {
+    private Map<String,String> props = new HashMap<>();
+    private String prefix;
+
+    private Builder(String prefix) {
+      this.prefix = prefix;
+    }
+
+    public Builder l2Size(long size) {
+      Preconditions.checkArgument(size >= 0);
+      props.put(prefix + L2_SIZE_PROPERTY, Long.toString(size));
+      return this;
+    }
+
+    public Builder l2Type(String type) {
+      Preconditions.checkArgument(type.equals(L2_TYPE_OFFHEAP) || type.equals(L2_TYPE_FILE));
+      props.put(prefix + L2_TYPE_PROPERTY, type);
+      return this;
+    }
+
+    public Builder l2Dir(String dir) {
+      props.put(prefix + L2_DIR_PROPERTY, dir);
+      return this;
+    }
+
+    public Builder l2SegmentSize(long size) {
+      Preconditions.checkArgument(size > 0 && size <= Integer.MAX_VALUE);
+      props.put(prefix + L2_SEGMENT_SIZE_PROPERTY, Long.toString(size));
+      return this;
+    }
+
+    public Map<String,String> buildMap() {
+      return Map.copyOf(props);
+    }
+  }
+
+  public static Builder builder(CacheType ct) {
+    return new Builder(BlockCacheManager.getFullyQualifiedPropertyPrefix(PROPERTY_PREFIX, ct));
+  }
+
+  @Override
+  public String toString() {
+    return "l1Size: " + l1Size + ", l2Size: " + l2Size + ", l2Type: " + l2Type + ", l2Dir: " + l2Dir
+        + ", l2SegmentSize: " + l2SegmentSize;
+  }
+}
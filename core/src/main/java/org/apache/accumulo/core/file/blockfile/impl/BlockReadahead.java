@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+
+/**
+ * Reads data blocks in the background for file readers that are reading a file sequentially. One
+ * instance is shared by all of the readers in a process. The executor bounds the number of blocks
+ * being read at once and each reader bounds how many blocks it reads ahead of itself.
+ */
+public class BlockReadahead {
+
+  private final ExecutorService executor;
+  private final int blocks;
+  private final int threshold;
+
+  private final LongAdder blocksQueued = new LongAdder();
+  private final LongAdder blocksUsed = new LongAdder();
+  private final LongAdder blocksWasted = new LongAdder();
+
+  /**
+   * @param blocks
+   *          the number of blocks to read ahead of a reader
+   * @param threshold
+   *          the number of blocks a reader must read in order before blocks are read ahead
+   */
+  public BlockReadahead(ExecutorService executor, int blocks, int threshold) {
+    this.executor = executor;
+    this.blocks = blocks;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @return a readahead configured from the tserver.scan.readahead properties, or null if readahead
+   *         is disabled
+   */
+  public static BlockReadahead fromConfig(AccumuloConfiguration conf, ExecutorService executor) {
+    int blocks = conf.getCount(Property.TSERV_SCAN_READAHEAD_BLOCKS);
+    if (blocks <= 0) {
+      return null;
+    }
+    return new BlockReadahead(executor, blocks,
+        conf.getCount(Property.TSERV_SCAN_READAHEAD_THRESHOLD));
+  }
+
+  public int getBlocks() {
+    return blocks;
+  }
+
+  public int getThreshold() {
+    return threshold;
+  }
+
+  public <T> Future<T> submit(Callable<T> blockReader) {
+    Future<T> future = executor.submit(blockReader);
+    blocksQueued.increment();
+    return future;
+  }
+
+  /**
+   * Records that a reader used a block that was read ahead for it.
+   */
+  public void blockUsed() {
+    blocksUsed.increment();
+  }
+
+  /**
+   * Records that a block read ahead for a reader was not used, because the reader sought elsewhere
+   * or reached the block before it was read.
+   */
+  public void blockWasted() {
+    blocksWasted.increment();
+  }
+
+  public long getBlocksQueued() {
+    return blocksQueued.sum();
+  }
+
+  public long getBlocksUsed() {
+    return blocksUsed.sum();
+  }
+
+  public long getBlocksWasted() {
+    return blocksWasted.sum();
+  }
+}
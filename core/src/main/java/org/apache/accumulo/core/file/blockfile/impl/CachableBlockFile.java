@@ -38,6 +38,7 @@ import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.accumulo.core.spi.crypto.CryptoService;
 import org.apache.accumulo.core.util.ratelimit.RateLimiter;
 import org.apache.hadoop.conf.Configuration;
@@ -451,6 +452,70 @@ public class CachableBlockFile {
       return new CachedBlockRead(_currBlock);
     }
 
+    /**
+     * Loads a block of this file into the index or data cache using the name the block was cached
+     * under when it was last read. Blocks that were cached by offset can not be loaded this way,
+     * because their size is only known to the index of the file format, see
+     * {@link #getRawBlockOffset(String)}.
+     *
+     * @param type
+     *          the cache the block name was recorded from, only {@link CacheType#INDEX} and
+     *          {@link CacheType#DATA} are supported
+     * @param blockName
+     *          the full name of the block in the cache
+     * @return true if the block is now in the cache, false if the name does not refer to a block of
+     *         this file that can be loaded or the cache is not configured
+     */
+    public boolean prefetch(CacheType type, String blockName) throws IOException {
+      if (!blockName.startsWith(cacheId) || blockName.length() == cacheId.length()) {
+        return false;
+      }
+
+      String suffix = blockName.substring(cacheId.length());
+      try {
+        if (type == CacheType.INDEX) {
+          BlockCache _iCache = cacheProvider.getIndexCache();
+          if (_iCache == null) {
+            return false;
+          } else if (suffix.equals(ROOT_BLOCK_NAME)) {
+            return _iCache.getBlock(blockName, new BCFileLoader()) != null;
+          } else if (suffix.charAt(0) == 'M') {
+            return _iCache.getBlock(blockName, new MetaBlockLoader(suffix.substring(1))) != null;
+          }
+        } else if (type == CacheType.DATA && suffix.charAt(0) == 'O') {
+          BlockCache _dCache = cacheProvider.getDataCache();
+          int blockIndex = Integer.parseInt(suffix.substring(1));
+          return _dCache != null && blockIndex >= 0 && blockIndex < getBCFile().getBlockCount()
+              && _dCache.getBlock(blockName, new OffsetBlockLoader(blockIndex, false)) != null;
+        }
+      } catch (NumberFormatException e) {
+        return false;
+      } catch (UncheckedIOException uioe) {
+        if (uioe.getCause() instanceof MetaBlockDoesNotExist) {
+          return false;
+        }
+        throw uioe.getCause();
+      }
+      return false;
+    }
+
+    /**
+     * @return the offset of the block if the name is the cache name of a block of this file read by
+     *         {@link #getMetaBlock(long, long, long)} or {@link #getDataBlock(long, long, long)},
+     *         otherwise -1
+     */
+    public long getRawBlockOffset(String blockName) {
+      if (blockName.length() > cacheId.length() + 1 && blockName.startsWith(cacheId)
+          && blockName.charAt(cacheId.length()) == 'R') {
+        try {
+          return Long.parseLong(blockName.substring(cacheId.length() + 1));
+        } catch (NumberFormatException e) {
+          return -1;
+        }
+      }
+      return -1;
+    }
+
     @Override
     public synchronized void close() throws IOException {
       if (closed)
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Writer.BlockAppender;
+
+/**
+ * The encodings that can be used for the keys and values in RFile data blocks. The encoding of each
+ * locality group is recorded in the RFile, so the id of an encoding must never change once files
+ * have been written with it.
+ */
+public enum BlockEncoding {
+
+  /**
+   * Each key is encoded relative to the previous key, see {@link RelativeKey}. This is the only
+   * encoding used by RFiles before version 9.
+   */
+  RELATIVE("relative", 0) {
+    @Override
+    Encoder newEncoder(BlockAppender out) {
+      return new Encoder() {
+        @Override
+        public void append(Key prevKey, Key key, Value value) throws IOException {
+          new RelativeKey(prevKey, key).write(out);
+          value.write(out);
+        }
+
+        @Override
+        public long getRawSize() {
+          return out.getRawSize();
+        }
+
+        @Override
+        public void finish() {}
+      };
+    }
+  },
+
+  /**
+   * Each block is stored one key field at a time. Column families and visibilities are dictionary
+   * encoded, timestamps are stored as deltas, see {@link DictionaryBlock}.
+   */
+  DICTIONARY("dictionary", 1) {
+    @Override
+    Encoder newEncoder(BlockAppender out) {
+      return new DictionaryBlock.Encoder(out);
+    }
+  };
+
+  /**
+   * Writes the entries of a single data block.
+   */
+  interface Encoder {
+    /**
+     * @param prevKey
+     *          the previous key appended to the block, or null if this is the first key
+     */
+    void append(Key prevKey, Key key, Value value) throws IOException;
+
+    /**
+     * @return the number of bytes the block will have before compression, possibly estimated if the
+     *         encoder buffers entries
+     */
+    long getRawSize();
+
+    /**
+     * Writes any buffered entries, must be called before the block is closed.
+     */
+    void finish() throws IOException;
+  }
+
+  private final String name;
+  private final int id;
+
+  BlockEncoding(String name, int id) {
+    this.name = name;
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  abstract Encoder newEncoder(BlockAppender out);
+
+  void write(DataOutput out) throws IOException {
+    out.writeByte(id);
+  }
+
+  static BlockEncoding forId(int id) throws IOException {
+    for (BlockEncoding encoding : values()) {
+      if (encoding.id == id) {
+        return encoding;
+      }
+    }
+    throw new IOException("Unknown block encoding id " + id);
+  }
+
+  public static BlockEncoding forName(String name) {
+    for (BlockEncoding encoding : values()) {
+      if (encoding.name.equals(name)) {
+        return encoding;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported block encoding name: " + name);
+  }
+}
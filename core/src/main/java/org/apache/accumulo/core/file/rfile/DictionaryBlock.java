@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
+import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Writer.BlockAppender;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A data block written with {@link BlockEncoding#DICTIONARY}. Instead of writing key after key, the
+ * block is written one field at a time:
+ *
+ * <pre>
+ * vint   number of entries
+ * column rows
+ * column column families
+ * column column qualifiers
+ * column column visibilities
+ * vlong  first timestamp, followed by a vlong delta from the previous timestamp for each entry
+ * bytes  delete flags, one bit per entry
+ * vint   value length for each entry, followed by the bytes of all values
+ * </pre>
+ *
+ * Each column starts with a byte giving its mode, followed by runs of consecutive entries that have
+ * the same field. In prefix mode each run stores the length of the prefix its field shares with the
+ * field of the previous run and the remaining bytes. In dictionary mode the distinct fields are
+ * stored once and each run stores an index into them. Rows always use prefix mode, column families
+ * and visibilities always use dictionary mode, and column qualifiers use whichever mode is smaller
+ * for the block.
+ *
+ * <p>
+ * A block is decoded all at once. When the block came from the cache the decoded block is cached
+ * with it, so a block that is read repeatedly is only decoded once.
+ */
+class DictionaryBlock implements Weighable, KeyFields {
+
+  private static final byte PREFIX_MODE = 0;
+  private static final byte DICTIONARY_MODE = 1;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final byte[][] rows;
+  private final byte[][] families;
+  private final byte[][] qualifiers;
+  private final byte[][] visibilities;
+  private final long[] timestamps;
+  private final byte[] deleted;
+  private final byte[][] values;
+  private final int weight;
+
+  private DictionaryBlock(DataInput in) throws IOException {
+    int numEntries = WritableUtils.readVInt(in);
+    long[] bytesRead = new long[1];
+
+    rows = readColumn(in, numEntries, bytesRead);
+    families = readColumn(in, numEntries, bytesRead);
+    qualifiers = readColumn(in, numEntries, bytesRead);
+    visibilities = readColumn(in, numEntries, bytesRead);
+
+    timestamps = new long[numEntries];
+    long ts = 0;
+    for (int i = 0; i < numEntries; i++) {
+      ts += WritableUtils.readVLong(in);
+      timestamps[i] = ts;
+    }
+
+    deleted = new byte[(numEntries + 7) / 8];
+    in.readFully(deleted);
+
+    values = new byte[numEntries][];
+    for (int i = 0; i < numEntries; i++) {
+      values[i] = new byte[WritableUtils.readVInt(in)];
+    }
+    for (byte[] value : values) {
+      in.readFully(value);
+      bytesRead[0] += ClassSize.align(ClassSize.ARRAY + value.length);
+    }
+
+    long perEntry = 5 * ClassSize.REFERENCE + SizeConstants.SIZEOF_LONG;
+    weight = (int) Math.min(Integer.MAX_VALUE, ClassSize.OBJECT + 7 * ClassSize.ARRAY
+        + numEntries * perEntry + deleted.length + bytesRead[0]);
+  }
+
+  private static byte[][] readColumn(DataInput in, int numEntries, long[] bytesRead)
+      throws IOException {
+    byte[][] column = new byte[numEntries][];
+    byte mode = in.readByte();
+    if (mode == PREFIX_MODE) {
+      byte[] prev = EMPTY;
+      int i = 0;
+      while (i < numEntries) {
+        int runLength = readRunLength(in, i, numEntries);
+        int prefixLen = WritableUtils.readVInt(in);
+        int remainingLen = WritableUtils.readVInt(in);
+        byte[] field = new byte[prefixLen + remainingLen];
+        System.arraycopy(prev, 0, field, 0, prefixLen);
+        in.readFully(field, prefixLen, remainingLen);
+        bytesRead[0] += ClassSize.align(ClassSize.ARRAY + field.length);
+        Arrays.fill(column, i, i + runLength, field);
+        i += runLength;
+        prev = field;
+      }
+    } else if (mode == DICTIONARY_MODE) {
+      byte[][] dictionary = new byte[WritableUtils.readVInt(in)][];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = new byte[WritableUtils.readVInt(in)];
+        in.readFully(dictionary[i]);
+        bytesRead[0] += ClassSize.align(ClassSize.ARRAY + dictionary[i].length);
+      }
+      int i = 0;
+      while (i < numEntries) {
+        int runLength = readRunLength(in, i, numEntries);
+        Arrays.fill(column, i, i + runLength, dictionary[WritableUtils.readVInt(in)]);
+        i += runLength;
+      }
+    } else {
+      throw new IOException("Unknown column mode " + mode);
+    }
+    return column;
+  }
+
+  private static int readRunLength(DataInput in, int pos, int numEntries) throws IOException {
+    int runLength = WritableUtils.readVInt(in);
+    if (runLength <= 0 || runLength > numEntries - pos) {
+      throw new IOException("Invalid run length " + runLength + " at entry " + pos);
+    }
+    return runLength;
+  }
+
+  /**
+   * Decodes the block, using the copy cached with the block when possible.
+   */
+  static DictionaryBlock read(CachedBlockRead block) throws IOException {
+    if (block.isIndexable()) {
+      boolean[] decoded = {false};
+      DictionaryBlock dictBlock;
+      try {
+        dictBlock = block.getIndex(() -> {
+          try {
+            decoded[0] = true;
+            return new DictionaryBlock(
+                new DataInputStream(new ByteArrayInputStream(block.getBuffer())));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      if (dictBlock != null) {
+        if (decoded[0]) {
+          block.indexWeightChanged();
+        }
+        return dictBlock;
+      }
+    }
+
+    return new DictionaryBlock(block);
+  }
+
+  int size() {
+    return timestamps.length;
+  }
+
+  Key getKey(int i) {
+    return new Key(rows[i], families[i], qualifiers[i], visibilities[i], timestamps[i],
+        isDeleted(i), false);
+  }
+
+  Value getValue(int i) {
+    // the decoded block may be cached, so callers must not be able to change its values
+    return new Value(values[i], true);
+  }
+
+  @Override
+  public int compareField(int pos, int field, ByteSequence bs) {
+    byte[] bytes;
+    switch (field) {
+      case ROW:
+        bytes = rows[pos];
+        break;
+      case FAMILY:
+        bytes = families[pos];
+        break;
+      case QUALIFIER:
+        bytes = qualifiers[pos];
+        break;
+      default:
+        bytes = visibilities[pos];
+        break;
+    }
+    return WritableComparator.compareBytes(bytes, 0, bytes.length, bs.getBackingArray(),
+        bs.offset(), bs.length());
+  }
+
+  @Override
+  public long getTimestamp(int pos) {
+    return timestamps[pos];
+  }
+
+  @Override
+  public boolean isDeleted(int pos) {
+    return (deleted[pos >>> 3] & (1 << (pos & 7))) != 0;
+  }
+
+  /**
+   * @return the position of the first key at or after {@code from} that is greater than or equal to
+   *         the given key, or {@link #size()} if there is no such key
+   */
+  int seek(Key key, int from) {
+    ByteSequence row = key.getRowData();
+    ByteSequence fam = key.getColumnFamilyData();
+    ByteSequence qual = key.getColumnQualifierData();
+    ByteSequence vis = key.getColumnVisibilityData();
+    long timestamp = key.getTimestamp();
+    boolean isDeleted = key.isDeleted();
+
+    int low = from;
+    int high = size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compare(mid, row, fam, qual, vis, timestamp, isDeleted) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public int weight() {
+    return weight;
+  }
+
+  /**
+   * Buffers the entries of a block and writes them when the block is finished.
+   */
+  static class Encoder implements BlockEncoding.Encoder {
+
+    private final BlockAppender out;
+    private final List<Key> keys = new ArrayList<>();
+    private final List<byte[]> vals = new ArrayList<>();
+
+    // estimate of the encoded size of the buffered entries
+    private long rawSize = 0;
+    private final Map<ByteSequence,Integer> familyEstimate = new HashMap<>();
+    private final Map<ByteSequence,Integer> visibilityEstimate = new HashMap<>();
+
+    Encoder(BlockAppender out) {
+      this.out = out;
+    }
+
+    @Override
+    public void append(Key prevKey, Key key, Value value) {
+      Key copy = new Key(key);
+      keys.add(copy);
+      vals.add(value.get().clone());
+
+      if (prevKey == null) {
+        rawSize += prefixSize(null, copy.getRowData());
+        rawSize += dictionarySize(familyEstimate, copy.getColumnFamilyData());
+        rawSize += prefixSize(null, copy.getColumnQualifierData());
+        rawSize += dictionarySize(visibilityEstimate, copy.getColumnVisibilityData());
+      } else {
+        // a field that is the same as the previous one extends the current run, which is close
+        // enough to free for an estimate
+        if (!copy.equals(prevKey, PartialKey.ROW)) {
+          rawSize += prefixSize(prevKey.getRowData(), copy.getRowData());
+        }
+        if (!copy.getColumnFamilyData().equals(prevKey.getColumnFamilyData())) {
+          rawSize += dictionarySize(familyEstimate, copy.getColumnFamilyData());
+        }
+        if (!copy.getColumnQualifierData().equals(prevKey.getColumnQualifierData())) {
+          rawSize += prefixSize(prevKey.getColumnQualifierData(), copy.getColumnQualifierData());
+        }
+        if (!copy.getColumnVisibilityData().equals(prevKey.getColumnVisibilityData())) {
+          rawSize += dictionarySize(visibilityEstimate, copy.getColumnVisibilityData());
+        }
+      }
+      rawSize += WritableUtils
+          .getVIntSize(copy.getTimestamp() - (prevKey == null ? 0 : prevKey.getTimestamp()));
+      rawSize += WritableUtils.getVIntSize(value.getSize()) + value.getSize();
+      if (keys.size() % 8 == 1) {
+        rawSize++;
+      }
+    }
+
+    private static int prefixSize(ByteSequence prev, ByteSequence field) {
+      int prefixLen = commonPrefix(prev, field);
+      int remainingLen = field.length() - prefixLen;
+      return 1 + WritableUtils.getVIntSize(prefixLen) + WritableUtils.getVIntSize(remainingLen)
+          + remainingLen;
+    }
+
+    private static int dictionarySize(Map<ByteSequence,Integer> dictionary, ByteSequence field) {
+      Integer index = dictionary.get(field);
+      if (index == null) {
+        index = dictionary.size();
+        dictionary.put(field, index);
+        return WritableUtils.getVIntSize(field.length()) + field.length() + 1
+            + WritableUtils.getVIntSize(index);
+      }
+      return 1 + WritableUtils.getVIntSize(index);
+    }
+
+    private static int commonPrefix(ByteSequence prev, ByteSequence field) {
+      if (prev == null) {
+        return 0;
+      }
+      int max = Math.min(prev.length(), field.length());
+      int i = 0;
+      while (i < max && prev.byteAt(i) == field.byteAt(i)) {
+        i++;
+      }
+      return i;
+    }
+
+    @Override
+    public long getRawSize() {
+      return out.getRawSize() + rawSize;
+    }
+
+    @Override
+    public void finish() throws IOException {
+      int numEntries = keys.size();
+      WritableUtils.writeVInt(out, numEntries);
+
+      writePrefixColumn(out, Key::getRowData);
+      writeDictionaryColumn(out, Key::getColumnFamilyData);
+
+      // qualifiers in wide rows often repeat from row to row, which prefix encoding can not take
+      // advantage of, so use whichever mode is smaller
+      ByteArrayOutputStream prefixed = new ByteArrayOutputStream();
+      writePrefixColumn(new DataOutputStream(prefixed), Key::getColumnQualifierData);
+      ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+      writeDictionaryColumn(new DataOutputStream(dictionary), Key::getColumnQualifierData);
+      (prefixed.size() <= dictionary.size() ? prefixed : dictionary).writeTo(out);
+
+      writeDictionaryColumn(out, Key::getColumnVisibilityData);
+
+      long prevTs = 0;
+      for (Key key : keys) {
+        WritableUtils.writeVLong(out, key.getTimestamp() - prevTs);
+        prevTs = key.getTimestamp();
+      }
+
+      byte[] deleted = new byte[(numEntries + 7) / 8];
+      for (int i = 0; i < numEntries; i++) {
+        if (keys.get(i).isDeleted()) {
+          deleted[i >>> 3] |= (byte) (1 << (i & 7));
+        }
+      }
+      out.write(deleted);
+
+      for (byte[] val : vals) {
+        WritableUtils.writeVInt(out, val.length);
+      }
+      for (byte[] val : vals) {
+        out.write(val);
+      }
+
+      keys.clear();
+      vals.clear();
+      rawSize = 0;
+    }
+
+    private void writePrefixColumn(DataOutput dos, Function<Key,ByteSequence> field)
+        throws IOException {
+      dos.writeByte(PREFIX_MODE);
+      ByteSequence prev = null;
+      int i = 0;
+      while (i < keys.size()) {
+        ByteSequence bs = field.apply(keys.get(i));
+        int runLength = runLength(field, i, bs);
+        int prefixLen = commonPrefix(prev, bs);
+        WritableUtils.writeVInt(dos, runLength);
+        WritableUtils.writeVInt(dos, prefixLen);
+        WritableUtils.writeVInt(dos, bs.length() - prefixLen);
+        dos.write(bs.getBackingArray(), bs.offset() + prefixLen, bs.length() - prefixLen);
+        prev = bs;
+        i += runLength;
+      }
+    }
+
+    private int runLength(Function<Key,ByteSequence> field, int start, ByteSequence bs) {
+      int end = start + 1;
+      while (end < keys.size() && field.apply(keys.get(end)).equals(bs)) {
+        end++;
+      }
+      return end - start;
+    }
+
+    private void writeDictionaryColumn(DataOutput dos, Function<Key,ByteSequence> field)
+        throws IOException {
+      dos.writeByte(DICTIONARY_MODE);
+      Map<ByteSequence,Integer> dictionary = new HashMap<>();
+      List<ByteSequence> distinct = new ArrayList<>();
+      List<int[]> runs = new ArrayList<>();
+      int i = 0;
+      while (i < keys.size()) {
+        ByteSequence bs = field.apply(keys.get(i));
+        Integer index = dictionary.get(bs);
+        if (index == null) {
+          index = distinct.size();
+          dictionary.put(bs, index);
+          distinct.add(bs);
+        }
+        int runLength = runLength(field, i, bs);
+        runs.add(new int[] {runLength, index});
+        i += runLength;
+      }
+
+      WritableUtils.writeVInt(dos, distinct.size());
+      for (ByteSequence bs : distinct) {
+        WritableUtils.writeVInt(dos, bs.length());
+        dos.write(bs.getBackingArray(), bs.offset(), bs.length());
+      }
+      for (int[] run : runs) {
+        WritableUtils.writeVInt(dos, run[0]);
+        WritableUtils.writeVInt(dos, run[1]);
+      }
+    }
+  }
+}
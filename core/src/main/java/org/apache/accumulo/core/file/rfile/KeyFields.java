@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * Keys stored as separate fields, which can be compared to a key without creating a {@link Key}.
+ */
+interface KeyFields {
+
+  int ROW = 0;
+  int FAMILY = 1;
+  int QUALIFIER = 2;
+  int VISIBILITY = 3;
+
+  /**
+   * Compares a field of the key at the given position to the bytes of the same field of another
+   * key.
+   */
+  int compareField(int pos, int field, ByteSequence bs);
+
+  long getTimestamp(int pos);
+
+  boolean isDeleted(int pos);
+
+  /**
+   * Compares the key at the given position to a key, the same way {@link Key#compareTo(Key)} does.
+   */
+  default int compare(int pos, ByteSequence row, ByteSequence fam, ByteSequence qual,
+      ByteSequence vis, long timestamp, boolean isDeleted) {
+    int result = compareField(pos, ROW, row);
+    if (result != 0)
+      return result;
+    result = compareField(pos, FAMILY, fam);
+    if (result != 0)
+      return result;
+    result = compareField(pos, QUALIFIER, qual);
+    if (result != 0)
+      return result;
+    result = compareField(pos, VISIBILITY, vis);
+    if (result != 0)
+      return result;
+    result = Long.compare(timestamp, getTimestamp(pos));
+    if (result != 0)
+      return result;
+    if (isDeleted(pos))
+      return isDeleted ? 0 : -1;
+    return isDeleted ? 1 : 0;
+  }
+}
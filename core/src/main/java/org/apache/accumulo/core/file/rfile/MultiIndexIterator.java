@@ -31,6 +31,7 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -108,4 +109,9 @@ class MultiIndexIterator extends HeapIterator implements FileSKVIterator {
   public void setCacheProvider(CacheProvider cacheProvider) {
     source.setCacheProvider(cacheProvider);
   }
+
+  @Override
+  public void setReadahead(BlockReadahead readahead) {
+    source.setReadahead(readahead);
+  }
 }
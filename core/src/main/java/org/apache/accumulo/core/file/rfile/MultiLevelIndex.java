@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.RandomAccess;
+import java.util.Set;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
@@ -273,6 +274,10 @@ public class MultiLevelIndex {
     private int indexOffset;
     private boolean newFormat;
 
+    // the parsed entries, once the block was cached or searched more than once
+    private volatile ParsedIndex parsedIndex;
+    private int searches;
+
     public IndexBlock(int level, int totalAdded) {
       // System.out.println("IndexBlock("+level+","+levelCount+","+totalAdded+")");
 
@@ -316,7 +321,7 @@ public class MultiLevelIndex {
     public void readFields(DataInput in, int version) throws IOException {
 
       if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7
-          || version == RFile.RINDEX_VER_8) {
+          || version == RFile.RINDEX_VER_8 || version == RFile.RINDEX_VER_9) {
         level = in.readInt();
         offset = in.readInt();
         hasNext = in.readBoolean();
@@ -338,6 +343,7 @@ public class MultiLevelIndex {
           if (skipped != indexSize) {
             throw new IOException("Skipped less than expected " + skipped + " " + indexSize);
           }
+          newFormat = true;
         } else {
           numOffsets = in.readInt();
           offsetsArray = new int[numOffsets];
@@ -413,6 +419,47 @@ public class MultiLevelIndex {
       }
     }
 
+    /**
+     * Parses the entries of this block and keeps them with the cached block it was read from, if
+     * the block is cached.
+     */
+    void parse(CachableBlockFile.CachedBlockRead in) {
+      if (in.isIndexable()) {
+        ParsedIndex[] parsed = new ParsedIndex[1];
+        parsedIndex = in.getIndex(() -> parsed[0] = new ParsedIndex(getIndex()));
+        if (parsed[0] != null) {
+          // let the cache account for the parsed entries
+          in.indexWeightChanged();
+        }
+      }
+    }
+
+    /**
+     * @return the entries of this block, parsed if they were parsed before and deserialized on
+     *         demand otherwise
+     */
+    List<IndexEntry> getEntries() {
+      ParsedIndex parsed = parsedIndex;
+      return parsed == null ? getIndex() : parsed;
+    }
+
+    /**
+     * Searches the keys of this block. A block that is searched more than once, like the root
+     * block, is parsed so that later searches do not deserialize keys.
+     */
+    int binarySearch(Key key) {
+      ParsedIndex parsed = parsedIndex;
+      if (parsed == null && newFormat && ++searches > 1) {
+        parsed = new ParsedIndex(getIndex());
+        parsedIndex = parsed;
+      }
+
+      if (parsed != null) {
+        return parsed.binarySearch(key);
+      }
+      return Collections.binarySearch(getKeyIndex(), key, Comparator.naturalOrder());
+    }
+
     public List<Key> getKeyIndex() {
       // create KeyIndex on demand as each has an internal input stream over byte array... keeping a
       // KeyIndex ref for the object could lead to problems with
@@ -607,13 +654,12 @@ public class MultiLevelIndex {
       }
 
       private Node lookup(Key key) throws IOException {
-        int pos =
-            Collections.binarySearch(indexBlock.getKeyIndex(), key, Comparator.naturalOrder());
+        int pos = indexBlock.binarySearch(key);
 
         if (pos < 0)
           pos = (pos * -1) - 1;
 
-        if (pos == indexBlock.getIndex().size()) {
+        if (pos == indexBlock.getEntries().size()) {
           if (parent != null)
             throw new IllegalStateException();
           this.currentPos = pos;
@@ -626,17 +672,17 @@ public class MultiLevelIndex {
           return this;
         }
 
-        IndexEntry ie = indexBlock.getIndex().get(pos);
+        IndexEntry ie = indexBlock.getEntries().get(pos);
         Node child = new Node(this, getIndexBlock(ie));
         return child.lookup(key);
       }
 
       private Node getLast() throws IOException {
-        currentPos = indexBlock.getIndex().size() - 1;
+        currentPos = indexBlock.getEntries().size() - 1;
         if (indexBlock.getLevel() == 0)
           return this;
 
-        IndexEntry ie = indexBlock.getIndex().get(currentPos);
+        IndexEntry ie = indexBlock.getEntries().get(currentPos);
         Node child = new Node(this, getIndexBlock(ie));
         return child.getLast();
       }
@@ -646,7 +692,7 @@ public class MultiLevelIndex {
         if (indexBlock.getLevel() == 0)
           return this;
 
-        IndexEntry ie = indexBlock.getIndex().get(currentPos);
+        IndexEntry ie = indexBlock.getEntries().get(currentPos);
         Node child = new Node(this, getIndexBlock(ie));
         return child.getFirst();
       }
@@ -657,19 +703,19 @@ public class MultiLevelIndex {
 
         currentPos--;
 
-        IndexEntry ie = indexBlock.getIndex().get(currentPos);
+        IndexEntry ie = indexBlock.getEntries().get(currentPos);
         Node child = new Node(this, getIndexBlock(ie));
         return child.getLast();
 
       }
 
       private Node getNext() throws IOException {
-        if (currentPos == indexBlock.getIndex().size() - 1)
+        if (currentPos == indexBlock.getEntries().size() - 1)
           return parent.getNext();
 
         currentPos++;
 
-        IndexEntry ie = indexBlock.getIndex().get(currentPos);
+        IndexEntry ie = indexBlock.getEntries().get(currentPos);
         Node child = new Node(this, getIndexBlock(ie));
         return child.getFirst();
 
@@ -711,7 +757,7 @@ public class MultiLevelIndex {
 
       public IndexIterator(Node node) {
         this.node = node;
-        liter = node.indexBlock.getIndex().listIterator(node.currentPos);
+        liter = node.indexBlock.getEntries().listIterator(node.currentPos);
       }
 
       @Override
@@ -743,7 +789,7 @@ public class MultiLevelIndex {
       public IndexEntry next() {
         if (!liter.hasNext()) {
           node = getNextNode();
-          liter = node.indexBlock.getIndex().listIterator();
+          liter = node.indexBlock.getEntries().listIterator();
         }
 
         return liter.next();
@@ -765,7 +811,7 @@ public class MultiLevelIndex {
       public IndexEntry previous() {
         if (!liter.hasPrevious()) {
           node = getPrevNode();
-          liter = node.indexBlock.getIndex().listIterator(node.indexBlock.getIndex().size());
+          liter = node.indexBlock.getEntries().listIterator(node.indexBlock.getEntries().size());
         }
 
         return liter.previous();
@@ -809,6 +855,7 @@ public class MultiLevelIndex {
       CachableBlockFile.CachedBlockRead in =
           blockStore.getMetaBlock(ie.getOffset(), ie.getCompressedSize(), ie.getRawSize());
       iblock.readFields(in, version);
+      iblock.parse(in);
       in.close();
 
       return iblock;
@@ -824,7 +871,7 @@ public class MultiLevelIndex {
       size = 0;
 
       if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7
-          || version == RFile.RINDEX_VER_8) {
+          || version == RFile.RINDEX_VER_8 || version == RFile.RINDEX_VER_9) {
         size = in.readInt();
       }
 
@@ -869,6 +916,29 @@ public class MultiLevelIndex {
       getIndexInfo(rootBlock, sizes, counts);
     }
 
+    private void findBlocks(IndexBlock ib, Set<Long> offsets, Map<Long,IndexEntry> found)
+        throws IOException {
+      for (IndexEntry ie : ib.getIndex()) {
+        if (found.size() == offsets.size()) {
+          return;
+        }
+        if (offsets.contains(ie.getOffset())) {
+          found.put(ie.getOffset(), ie);
+        }
+        if (ib.getLevel() > 0) {
+          findBlocks(getIndexBlock(ie), offsets, found);
+        }
+      }
+    }
+
+    /**
+     * Finds the entries pointing to the index or data blocks that start at the given offsets. Index
+     * blocks are read while walking the index, the walk stops once all offsets are found.
+     */
+    public void findBlocks(Set<Long> offsets, Map<Long,IndexEntry> found) throws IOException {
+      findBlocks(rootBlock, offsets, found);
+    }
+
     private void printIndex(IndexBlock ib, String prefix, PrintStream out) throws IOException {
       List<IndexEntry> index = ib.getIndex();
 
@@ -911,7 +981,8 @@ public class MultiLevelIndex {
     }
 
     public Key getLastKey() {
-      return rootBlock.getIndex().get(rootBlock.getIndex().size() - 1).getKey();
+      List<IndexEntry> index = rootBlock.getEntries();
+      return index.get(index.size() - 1).getKey();
     }
   }
 }
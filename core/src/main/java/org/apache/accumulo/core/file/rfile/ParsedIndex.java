@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.hadoop.io.WritableComparator;
+
+/**
+ * The entries of an index block parsed into flat arrays. The fields of all keys are packed into a
+ * single byte array, so a lookup can binary search the keys without deserializing or creating a key
+ * for each comparison. When the index block is cached, this is kept with the cached block and the
+ * block is only parsed again after it was evicted.
+ */
+final class ParsedIndex extends AbstractList<IndexEntry>
+    implements RandomAccess, Weighable, KeyFields {
+
+  // the row, family, qualifier and visibility of each key, one key after another
+  private final byte[] keyData;
+  // where each field of each key starts in keyData, four per key, followed by the end of the data
+  private final int[] fieldStarts;
+  private final long[] timestamps;
+  private final boolean[] deleted;
+  private final int[] numEntries;
+  private final long[] offsets;
+  private final long[] compressedSizes;
+  private final long[] rawSizes;
+
+  ParsedIndex(List<IndexEntry> index) {
+    IndexEntry[] entries = index.toArray(new IndexEntry[0]);
+    int size = entries.length;
+
+    int keyBytes = 0;
+    for (IndexEntry ie : entries) {
+      keyBytes += ie.getKey().getSize();
+    }
+
+    keyData = new byte[keyBytes];
+    fieldStarts = new int[size * 4 + 1];
+    timestamps = new long[size];
+    deleted = new boolean[size];
+    numEntries = new int[size];
+    offsets = new long[size];
+    compressedSizes = new long[size];
+    rawSizes = new long[size];
+
+    int pos = 0;
+    for (int i = 0; i < size; i++) {
+      IndexEntry ie = entries[i];
+      Key key = ie.getKey();
+      fieldStarts[i * 4] = pos;
+      pos = append(key.getRowData(), pos);
+      fieldStarts[i * 4 + 1] = pos;
+      pos = append(key.getColumnFamilyData(), pos);
+      fieldStarts[i * 4 + 2] = pos;
+      pos = append(key.getColumnQualifierData(), pos);
+      fieldStarts[i * 4 + 3] = pos;
+      pos = append(key.getColumnVisibilityData(), pos);
+      timestamps[i] = key.getTimestamp();
+      deleted[i] = key.isDeleted();
+      numEntries[i] = ie.getNumEntries();
+      offsets[i] = ie.getOffset();
+      compressedSizes[i] = ie.getCompressedSize();
+      rawSizes[i] = ie.getRawSize();
+    }
+    fieldStarts[size * 4] = pos;
+  }
+
+  private int append(ByteSequence field, int pos) {
+    System.arraycopy(field.getBackingArray(), field.offset(), keyData, pos, field.length());
+    return pos + field.length();
+  }
+
+  @Override
+  public int compareField(int pos, int field, ByteSequence bs) {
+    int start = fieldStarts[pos * 4 + field];
+    return WritableComparator.compareBytes(keyData, start, fieldStarts[pos * 4 + field + 1] - start,
+        bs.getBackingArray(), bs.offset(), bs.length());
+  }
+
+  @Override
+  public long getTimestamp(int pos) {
+    return timestamps[pos];
+  }
+
+  @Override
+  public boolean isDeleted(int pos) {
+    return deleted[pos];
+  }
+
+  /**
+   * Searches the keys of the index for a key, with the same result as
+   * {@link java.util.Collections#binarySearch(List, Object)} on a list of the keys.
+   */
+  int binarySearch(Key key) {
+    ByteSequence row = key.getRowData();
+    ByteSequence fam = key.getColumnFamilyData();
+    ByteSequence qual = key.getColumnQualifierData();
+    ByteSequence vis = key.getColumnVisibilityData();
+    long timestamp = key.getTimestamp();
+    boolean isDeleted = key.isDeleted();
+
+    int low = 0;
+    int high = timestamps.length - 1;
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(mid, row, fam, qual, vis, timestamp, isDeleted);
+      if (cmp < 0)
+        low = mid + 1;
+      else if (cmp > 0)
+        high = mid - 1;
+      else
+        return mid;
+    }
+    return -(low + 1);
+  }
+
+  @Override
+  public IndexEntry get(int index) {
+    int field = index * 4;
+    int rowStart = fieldStarts[field];
+    int famStart = fieldStarts[field + 1];
+    int qualStart = fieldStarts[field + 2];
+    int visStart = fieldStarts[field + 3];
+    Key key = new Key(keyData, rowStart, famStart - rowStart, keyData, famStart,
+        qualStart - famStart, keyData, qualStart, visStart - qualStart, keyData, visStart,
+        fieldStarts[field + 4] - visStart, timestamps[index]);
+    key.setDeleted(deleted[index]);
+    return new IndexEntry(key, numEntries[index], offsets[index], compressedSizes[index],
+        rawSizes[index]);
+  }
+
+  @Override
+  public int size() {
+    return timestamps.length;
+  }
+
+  private static long arraySize(int length, int elementSize) {
+    return ClassSize.align(ClassSize.ARRAY + (long) length * elementSize);
+  }
+
+  @Override
+  public int weight() {
+    int size = size();
+    // the list's modification count is the only field besides the arrays
+    long weight =
+        ClassSize.align(ClassSize.OBJECT + 8 * ClassSize.REFERENCE + SizeConstants.SIZEOF_INT)
+            + arraySize(keyData.length, 1) + arraySize(fieldStarts.length, SizeConstants.SIZEOF_INT)
+            + arraySize(size, SizeConstants.SIZEOF_LONG) * 4 + arraySize(size, 1)
+            + arraySize(size, SizeConstants.SIZEOF_INT);
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+}
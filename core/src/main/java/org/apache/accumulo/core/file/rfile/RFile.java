@@ -20,12 +20,15 @@ package org.apache.accumulo.core.file.rfile;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,6 +41,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
@@ -53,6 +59,7 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
 import org.apache.accumulo.core.file.NoSuchMetaStoreException;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.rfile.BlockIndex.BlockIndexEntry;
@@ -62,16 +69,20 @@ import org.apache.accumulo.core.file.rfile.RelativeKey.SkippR;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Writer.BlockAppender;
 import org.apache.accumulo.core.file.rfile.bcfile.MetaBlockDoesNotExist;
+import org.apache.accumulo.core.file.streams.BlockReadTimer;
 import org.apache.accumulo.core.iterators.IterationInterruptedException;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.HeapIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.KeyValueBatch;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroup;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroupContext;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroupSeekCache;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.accumulo.core.util.LocalityGroupUtil;
 import org.apache.accumulo.core.util.MutableByteSequence;
 import org.apache.commons.lang3.mutable.MutableLong;
@@ -81,6 +92,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 
 public class RFile {
 
@@ -92,6 +104,10 @@ public class RFile {
 
   private static final int RINDEX_MAGIC = 0x20637474;
 
+  static final int RINDEX_VER_9 = 9; // Added pluggable data block encodings. Each locality group
+                                     // records the BlockEncoding used for its data blocks. Files
+                                     // that only use relative encoding are still written as
+                                     // version 8, so older versions of Accumulo can read them.
   static final int RINDEX_VER_8 = 8; // Added sample storage. There is a sample locality group for
                                      // each locality group. Sample are built using a Sampler and
                                      // sampler configuration. The Sampler and its configuration are
@@ -160,6 +176,7 @@ public class RFile {
     private MultiLevelIndex.BufferedWriter indexWriter;
     private MultiLevelIndex.Reader indexReader;
     private int version;
+    private BlockEncoding encoding = BlockEncoding.RELATIVE;
 
     public LocalityGroupMetadata(int version, CachableBlockFile.Reader br) {
       columnFamilies = new HashMap<>();
@@ -167,8 +184,11 @@ public class RFile {
       this.version = version;
     }
 
-    public LocalityGroupMetadata(Set<ByteSequence> pcf, int indexBlockSize, BCFile.Writer bfw) {
+    public LocalityGroupMetadata(Set<ByteSequence> pcf, int indexBlockSize, BCFile.Writer bfw,
+        int version, BlockEncoding encoding) {
       isDefaultLG = true;
+      this.version = version;
+      this.encoding = encoding;
       columnFamilies = new HashMap<>();
       previousColumnFamilies = pcf;
 
@@ -177,8 +197,10 @@ public class RFile {
     }
 
     public LocalityGroupMetadata(String name, Set<ByteSequence> cfset, int indexBlockSize,
-        BCFile.Writer bfw) {
+        BCFile.Writer bfw, int version, BlockEncoding encoding) {
       this.name = name;
+      this.version = version;
+      this.encoding = encoding;
       isDefaultLG = false;
       columnFamilies = new HashMap<>();
       for (ByteSequence cf : cfset) {
@@ -251,6 +273,10 @@ public class RFile {
         name = in.readUTF();
       }
 
+      if (version == RINDEX_VER_9) {
+        encoding = BlockEncoding.forId(in.readByte());
+      }
+
       if (version == RINDEX_VER_3 || version == RINDEX_VER_4 || version == RINDEX_VER_6
           || version == RINDEX_VER_7) {
         startBlock = in.readInt();
@@ -298,6 +324,10 @@ public class RFile {
         out.writeUTF(name);
       }
 
+      if (version == RINDEX_VER_9) {
+        encoding.write(out);
+      }
+
       if (isDefaultLG && columnFamilies == null) {
         // only expect null when default LG, otherwise let a NPE occur
         out.writeInt(-1);
@@ -327,6 +357,9 @@ public class RFile {
           || version == RINDEX_VER_7) {
         out.printf("\t%-22s : %d\n", "Start block", startBlock);
       }
+      if (version == RINDEX_VER_9) {
+        out.printf("\t%-22s : %s\n", "Block encoding", encoding.getName());
+      }
       out.printf("\t%-22s : %,d\n", "Num   blocks", indexReader.size());
       TreeMap<Integer,Long> sizesByLevel = new TreeMap<>();
       TreeMap<Integer,Long> countsByLevel = new TreeMap<>();
@@ -427,6 +460,7 @@ public class RFile {
 
     private BCFile.Writer fileWriter;
     private BlockAppender blockWriter;
+    private BlockEncoding.Encoder blockEncoder;
 
     private final long blockSize;
     private final long maxBlockSize;
@@ -453,6 +487,11 @@ public class RFile {
       this.sample = sample;
     }
 
+    private void prepareDataBlock() throws IOException {
+      blockWriter = fileWriter.prepareDataBlock();
+      blockEncoder = currentLocalityGroup.encoding.newEncoder(blockWriter);
+    }
+
     private boolean isGiantKey(Key k) {
       double mean = keyLenStats.getMean();
       double stddev = keyLenStats.getStandardDeviation();
@@ -477,8 +516,8 @@ public class RFile {
       }
 
       if (blockWriter == null) {
-        blockWriter = fileWriter.prepareDataBlock();
-      } else if (blockWriter.getRawSize() > blockSize) {
+        prepareDataBlock();
+      } else if (blockEncoder.getRawSize() > blockSize) {
 
         // Look for a key that's short to put in the index, defining short as average or below.
         if (averageKeySize == 0) {
@@ -490,28 +529,25 @@ public class RFile {
         // shortened, it may not be below average.
         Key closeKey = KeyShortener.shorten(prevKey, key);
 
-        if ((closeKey.getSize() <= averageKeySize || blockWriter.getRawSize() > maxBlockSize)
+        if ((closeKey.getSize() <= averageKeySize || blockEncoder.getRawSize() > maxBlockSize)
             && !isGiantKey(closeKey)) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          prepareDataBlock();
           // set average to zero so its recomputed for the next block
           averageKeySize = 0;
           // To constrain the growth of data blocks, we limit our worst case scenarios to closing
           // blocks if they reach the maximum configurable block size of Integer.MAX_VALUE.
           // 128 bytes added for metadata overhead
-        } else if (((long) key.getSize() + (long) value.getSize() + blockWriter.getRawSize() + 128L)
-            >= Integer.MAX_VALUE) {
+        } else if (((long) key.getSize() + (long) value.getSize() + blockEncoder.getRawSize()
+            + 128L) >= Integer.MAX_VALUE) {
           closeBlock(closeKey, false);
-          blockWriter = fileWriter.prepareDataBlock();
+          prepareDataBlock();
           averageKeySize = 0;
 
         }
       }
 
-      RelativeKey rk = new RelativeKey(lastKeyInBlock, key);
-
-      rk.write(blockWriter);
-      value.write(blockWriter);
+      blockEncoder.append(lastKeyInBlock, key, value);
       entries++;
 
       keyLenStats.addValue(key.getSize());
@@ -522,6 +558,7 @@ public class RFile {
     }
 
     private void closeBlock(Key key, boolean lastBlock) throws IOException {
+      blockEncoder.finish();
       blockWriter.close();
 
       if (lastBlock)
@@ -535,6 +572,7 @@ public class RFile {
         sample.flushIfNeeded();
 
       blockWriter = null;
+      blockEncoder = null;
       lastKeyInBlock = null;
       entries = 0;
     }
@@ -578,6 +616,9 @@ public class RFile {
     private SamplerConfigurationImpl samplerConfig;
     private Sampler sampler;
 
+    private final BlockEncoding encoding;
+    private final int version;
+
     public Writer(BCFile.Writer bfw, int blockSize) throws IOException {
       this(bfw, blockSize, (int) DefaultConfiguration.getInstance()
           .getAsBytes(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX), null, null);
@@ -585,6 +626,11 @@ public class RFile {
 
     public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
         SamplerConfigurationImpl samplerConfig, Sampler sampler) {
+      this(bfw, blockSize, indexBlockSize, samplerConfig, sampler, BlockEncoding.RELATIVE);
+    }
+
+    public Writer(BCFile.Writer bfw, int blockSize, int indexBlockSize,
+        SamplerConfigurationImpl samplerConfig, Sampler sampler, BlockEncoding encoding) {
       this.blockSize = blockSize;
       this.maxBlockSize = (long) (blockSize * MAX_BLOCK_MULTIPLIER);
       this.indexBlockSize = indexBlockSize;
@@ -592,6 +638,8 @@ public class RFile {
       previousColumnFamilies = new HashSet<>();
       this.samplerConfig = samplerConfig;
       this.sampler = sampler;
+      this.encoding = encoding;
+      this.version = encoding == BlockEncoding.RELATIVE ? RINDEX_VER_8 : RINDEX_VER_9;
     }
 
     @Override
@@ -606,7 +654,7 @@ public class RFile {
       BlockAppender mba = fileWriter.prepareMetaBlock("RFile.index");
 
       mba.writeInt(RINDEX_MAGIC);
-      mba.writeInt(RINDEX_VER_8);
+      mba.writeInt(version);
 
       if (currentLocalityGroup != null) {
         localityGroups.add(currentLocalityGroup);
@@ -690,10 +738,10 @@ public class RFile {
 
       if (columnFamilies == null) {
         startedDefaultLocalityGroup = true;
-        currentLocalityGroup =
-            new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize, fileWriter);
-        sampleLocalityGroup =
-            new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize, fileWriter);
+        currentLocalityGroup = new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize,
+            fileWriter, version, encoding);
+        sampleLocalityGroup = new LocalityGroupMetadata(previousColumnFamilies, indexBlockSize,
+            fileWriter, version, encoding);
       } else {
         if (!Collections.disjoint(columnFamilies, previousColumnFamilies)) {
           HashSet<ByteSequence> overlap = new HashSet<>(columnFamilies);
@@ -701,10 +749,10 @@ public class RFile {
           throw new IllegalArgumentException(
               "Column families over lap with previous locality group : " + overlap);
         }
-        currentLocalityGroup =
-            new LocalityGroupMetadata(name, columnFamilies, indexBlockSize, fileWriter);
-        sampleLocalityGroup =
-            new LocalityGroupMetadata(name, columnFamilies, indexBlockSize, fileWriter);
+        currentLocalityGroup = new LocalityGroupMetadata(name, columnFamilies, indexBlockSize,
+            fileWriter, version, encoding);
+        sampleLocalityGroup = new LocalityGroupMetadata(name, columnFamilies, indexBlockSize,
+            fileWriter, version, encoding);
         previousColumnFamilies.addAll(columnFamilies);
       }
 
@@ -746,7 +794,8 @@ public class RFile {
     }
   }
 
-  private static class LocalityGroupReader extends LocalityGroup implements FileSKVIterator {
+  private static class LocalityGroupReader extends LocalityGroup
+      implements FileSKVIterator, BatchIterator {
 
     private CachableBlockFile.Reader reader;
     private MultiLevelIndex.Reader index;
@@ -755,6 +804,7 @@ public class RFile {
     private int startBlock;
     private boolean closed = false;
     private int version;
+    private BlockEncoding encoding;
     private boolean checkRange = true;
 
     private LocalityGroupReader(CachableBlockFile.Reader reader, LocalityGroupMetadata lgm,
@@ -765,6 +815,7 @@ public class RFile {
       this.startBlock = lgm.startBlock;
       blockCount = index.size();
       this.version = version;
+      this.encoding = lgm.encoding;
 
       this.reader = reader;
 
@@ -778,6 +829,8 @@ public class RFile {
       this.blockCount = lgr.blockCount;
       this.reader = lgr.reader;
       this.version = lgr.version;
+      this.encoding = lgr.encoding;
+      this.readahead = lgr.readahead;
     }
 
     Iterator<IndexEntry> getIndex() throws IOException {
@@ -788,6 +841,7 @@ public class RFile {
     public void close() throws IOException {
       closed = true;
       hasTop = false;
+      discardPrefetchedBlocks();
       if (currBlock != null)
         currBlock.close();
 
@@ -796,16 +850,25 @@ public class RFile {
     private IndexIterator iiter;
     private int entriesLeft;
     private CachableBlockFile.CachedBlockRead currBlock;
+    // only set for blocks using relative encoding
     private RelativeKey rk;
+    // only set for blocks using dictionary encoding
+    private DictionaryBlock dictBlock;
+    private Key topKey;
     private Value val;
     private Key prevKey = null;
     private Range range = null;
     private boolean hasTop = false;
     private AtomicBoolean interruptFlag;
+    private BlockReadahead readahead;
+    // the number of blocks read in order since the last seek to another part of the file
+    private int sequentialBlocks = 0;
+    // blocks being read ahead, in the order they follow the current block
+    private final ArrayDeque<PrefetchedBlock> prefetchedBlocks = new ArrayDeque<>();
 
     @Override
     public Key getTopKey() {
-      return rk.getKey();
+      return topKey;
     }
 
     @Override
@@ -828,6 +891,19 @@ public class RFile {
       }
     }
 
+    @Override
+    public void nextBatch(KeyValueBatch batch) throws IOException {
+      while (hasTop && !batch.isFull()) {
+        // keys are never reused, dictionary block values are not either
+        batch.add(topKey, val);
+        if (dictBlock == null) {
+          // values in relative blocks are read in place
+          val = new Value();
+        }
+        next();
+      }
+    }
+
     private void _next() throws IOException {
 
       if (!hasTop)
@@ -841,6 +917,7 @@ public class RFile {
         if (iiter.hasNext()) {
           IndexEntry indexEntry = iiter.next();
           entriesLeft = indexEntry.getNumEntries();
+          sequentialBlocks++;
           currBlock = getDataBlock(indexEntry);
 
           checkRange = range.afterEndKey(indexEntry.getKey());
@@ -849,22 +926,31 @@ public class RFile {
 
         } else {
           rk = null;
+          dictBlock = null;
+          topKey = null;
           val = null;
           hasTop = false;
           return;
         }
       }
 
-      prevKey = rk.getKey();
-      rk.readFields(currBlock);
-      val.readFields(currBlock);
+      prevKey = topKey;
+      if (dictBlock != null) {
+        int pos = dictBlock.size() - entriesLeft;
+        topKey = dictBlock.getKey(pos);
+        val = dictBlock.getValue(pos);
+      } else {
+        rk.readFields(currBlock);
+        val.readFields(currBlock);
+        topKey = rk.getKey();
+      }
 
       if (metricsGatherer != null)
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(topKey, val);
 
       entriesLeft--;
       if (checkRange)
-        hasTop = !range.afterEndKey(rk.getKey());
+        hasTop = !range.afterEndKey(topKey);
     }
 
     private CachableBlockFile.CachedBlockRead getDataBlock(IndexEntry indexEntry)
@@ -872,12 +958,157 @@ public class RFile {
       if (interruptFlag != null && interruptFlag.get())
         throw new IterationInterruptedException();
 
-      if (version == RINDEX_VER_3 || version == RINDEX_VER_4)
-        return reader.getDataBlock(startBlock + iiter.previousIndex());
-      else
-        return reader.getDataBlock(indexEntry.getOffset(), indexEntry.getCompressedSize(),
-            indexEntry.getRawSize());
+      CachableBlockFile.CachedBlockRead block;
+      if (version == RINDEX_VER_3 || version == RINDEX_VER_4) {
+        block = reader.getDataBlock(startBlock + iiter.previousIndex());
+      } else {
+        block = takePrefetchedBlock(indexEntry.getOffset());
+        if (block == null) {
+          block = reader.getDataBlock(indexEntry.getOffset(), indexEntry.getCompressedSize(),
+              indexEntry.getRawSize());
+        }
+        readAhead(indexEntry);
+      }
 
+      if (encoding == BlockEncoding.DICTIONARY) {
+        try {
+          dictBlock = DictionaryBlock.read(block);
+        } catch (IOException | RuntimeException e) {
+          block.close();
+          throw e;
+        }
+      } else {
+        dictBlock = null;
+      }
+
+      return block;
+    }
+
+    private static class PrefetchedBlock {
+      final long offset;
+      // set by whichever of the scan thread or the readahead thread gets to the block first
+      final AtomicBoolean claimed = new AtomicBoolean(false);
+      Future<CachableBlockFile.CachedBlockRead> future;
+
+      PrefetchedBlock(long offset) {
+        this.offset = offset;
+      }
+    }
+
+    /**
+     * Queues reads of the blocks after the current block once this reader has read enough blocks in
+     * order. Blocks past the end of the range are not read. The index iterator is left where it
+     * was.
+     */
+    private void readAhead(IndexEntry current) {
+      if (readahead == null || sequentialBlocks < readahead.getThreshold()
+          || range.afterEndKey(current.getKey())) {
+        return;
+      }
+
+      int steps = 0;
+      try {
+        while (steps < readahead.getBlocks() && iiter.hasNext()) {
+          IndexEntry indexEntry = iiter.next();
+          steps++;
+          // blocks up to the number already queued were queued by an earlier call
+          if (steps > prefetchedBlocks.size()) {
+            PrefetchedBlock pb = new PrefetchedBlock(indexEntry.getOffset());
+            long compressedSize = indexEntry.getCompressedSize();
+            long rawSize = indexEntry.getRawSize();
+            pb.future = readahead.submit(() -> pb.claimed.compareAndSet(false, true)
+                ? readBlockFully(pb.offset, compressedSize, rawSize) : null);
+            prefetchedBlocks.add(pb);
+          }
+
+          if (range.afterEndKey(indexEntry.getKey())) {
+            // the range ends in this block
+            break;
+          }
+        }
+      } catch (RejectedExecutionException e) {
+        // the executor is shutting down, keep reading blocks on the scan thread
+        log.debug("Failed to queue block readahead", e);
+      } finally {
+        for (; steps > 0; steps--) {
+          iiter.previous();
+        }
+      }
+    }
+
+    private CachableBlockFile.CachedBlockRead readBlockFully(long offset, long compressedSize,
+        long rawSize) throws IOException {
+      CachableBlockFile.CachedBlockRead block =
+          reader.getDataBlock(offset, compressedSize, rawSize);
+      if (block.isIndexable()) {
+        // the block came from the cache, so it is already in memory
+        return block;
+      }
+
+      // decompress the whole block now so the scan thread does not have to
+      try (block) {
+        byte[] data = new byte[(int) rawSize];
+        block.readFully(data);
+        return new CachableBlockFile.CachedBlockRead(new ByteArrayInputStream(data));
+      }
+    }
+
+    /**
+     * @return the block at the given offset if it was read ahead, otherwise null. Blocks queued
+     *         before it are discarded.
+     */
+    private CachableBlockFile.CachedBlockRead takePrefetchedBlock(long offset) throws IOException {
+      while (!prefetchedBlocks.isEmpty()) {
+        PrefetchedBlock pb = prefetchedBlocks.poll();
+        if (pb.offset != offset) {
+          discard(pb);
+          continue;
+        }
+
+        if (pb.claimed.compareAndSet(false, true)) {
+          // no thread has started reading the block, it is quicker to read it here than to wait
+          readahead.blockWasted();
+          return null;
+        }
+
+        // the wait for a block being read ahead is block read time of this thread
+        long t1 = System.nanoTime();
+        try {
+          CachableBlockFile.CachedBlockRead block = pb.future.get();
+          readahead.blockUsed();
+          return block;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for block read ahead");
+        } catch (ExecutionException e) {
+          // the failure will be seen again when reading the block on this thread
+          log.debug("Failed to read block ahead", e);
+          readahead.blockWasted();
+          return null;
+        } finally {
+          BlockReadTimer.record(System.nanoTime() - t1);
+        }
+      }
+      return null;
+    }
+
+    private void discard(PrefetchedBlock pb) {
+      if (!pb.claimed.compareAndSet(false, true)) {
+        pb.future.cancel(false);
+      }
+      readahead.blockWasted();
+    }
+
+    private void discardPrefetchedBlocks() {
+      while (!prefetchedBlocks.isEmpty()) {
+        discard(prefetchedBlocks.poll());
+      }
+    }
+
+    @Override
+    public void setReadahead(BlockReadahead readahead) {
+      discardPrefetchedBlocks();
+      this.readahead = readahead;
     }
 
     @Override
@@ -904,6 +1135,8 @@ public class RFile {
 
     private void reset() {
       rk = null;
+      dictBlock = null;
+      topKey = null;
       hasTop = false;
       if (currBlock != null) {
         try {
@@ -926,6 +1159,8 @@ public class RFile {
       if (blockCount == 0) {
         // its an empty file
         rk = null;
+        dictBlock = null;
+        topKey = null;
         return;
       }
 
@@ -941,7 +1176,7 @@ public class RFile {
         reseek = false;
       }
 
-      if (rk != null) {
+      if (topKey != null) {
         if (range.beforeStartKey(prevKey) && range.afterEndKey(getTopKey())) {
           // range is between the two keys in the file where the last range seeked to stopped, so
           // there is
@@ -964,14 +1199,23 @@ public class RFile {
           // causing the build of an index... doing this could slow down some use cases and
           // and speed up others.
 
-          MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
-          SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
-          if (skippr.skipped > 0) {
-            entriesLeft -= skippr.skipped;
-            val = new Value(valbs.toArray());
-            prevKey = skippr.prevKey;
-            rk = skippr.rk;
+          if (dictBlock != null) {
+            int top = dictBlock.size() - entriesLeft - 1;
+            int skipTo = Math.min(dictBlock.seek(startKey, top), dictBlock.size() - 1);
+            if (skipTo > top) {
+              positionInDictBlock(skipTo);
+            }
+          } else {
+            MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
+            SkippR skippr =
+                RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
+            if (skippr.skipped > 0) {
+              entriesLeft -= skippr.skipped;
+              val = new Value(valbs.toArray());
+              prevKey = skippr.prevKey;
+              rk = skippr.rk;
+              topKey = rk.getKey();
+            }
           }
 
           reseek = false;
@@ -1000,6 +1244,7 @@ public class RFile {
         iiter = index.lookup(startKey);
 
         reset();
+        sequentialBlocks = 0;
 
         if (iiter.hasNext()) {
 
@@ -1024,56 +1269,78 @@ public class RFile {
           if (!checkRange)
             hasTop = true;
 
-          MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
-
-          Key currKey = null;
-
-          if (currBlock.isIndexable()) {
-            BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
-            if (blockIndex != null) {
-              BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
-              if (bie != null) {
-                // we are seeked to the current position of the key in the index
-                // need to prime the read process and read this key from the block
-                RelativeKey tmpRk = new RelativeKey();
-                tmpRk.setPrevKey(bie.getPrevKey());
-                tmpRk.readFields(currBlock);
-                val = new Value();
-
-                val.readFields(currBlock);
-                valbs = new MutableByteSequence(val.get(), 0, val.getSize());
-
-                // just consumed one key from the input stream, so subtract one from entries left
-                entriesLeft = bie.getEntriesLeft() - 1;
-                prevKey = new Key(bie.getPrevKey());
-                currKey = tmpRk.getKey();
-              }
-            }
+          if (dictBlock != null) {
+            positionInDictBlock(Math.min(dictBlock.seek(startKey, 0), dictBlock.size() - 1));
+          } else {
+            seekRelativeBlock(startKey, indexEntry);
           }
-
-          SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
-          prevKey = skippr.prevKey;
-          entriesLeft -= skippr.skipped;
-          val = new Value(valbs.toArray());
-          // set rk when everything above is successful, if exception
-          // occurs rk will not be set
-          rk = skippr.rk;
         } else {
           // past the last key
         }
       }
 
-      hasTop = rk != null && !range.afterEndKey(rk.getKey());
+      hasTop = topKey != null && !range.afterEndKey(topKey);
 
       while (hasTop() && range.beforeStartKey(getTopKey())) {
         next();
       }
 
       if (metricsGatherer != null) {
-        metricsGatherer.startLocalityGroup(rk.getKey().getColumnFamily());
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.startLocalityGroup(topKey.getColumnFamily());
+        metricsGatherer.addMetric(topKey, val);
+      }
+    }
+
+    /**
+     * Positions this reader on the entry at the given position in the current dictionary encoded
+     * block. The entries before it are treated as consumed.
+     */
+    private void positionInDictBlock(int pos) {
+      if (pos > 0) {
+        prevKey = dictBlock.getKey(pos - 1);
+      }
+      topKey = dictBlock.getKey(pos);
+      val = dictBlock.getValue(pos);
+      entriesLeft = dictBlock.size() - pos - 1;
+    }
+
+    private void seekRelativeBlock(Key startKey, IndexEntry indexEntry) throws IOException {
+      MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
+
+      Key currKey = null;
+
+      if (currBlock.isIndexable()) {
+        BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
+        if (blockIndex != null) {
+          BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
+          if (bie != null) {
+            // we are seeked to the current position of the key in the index
+            // need to prime the read process and read this key from the block
+            RelativeKey tmpRk = new RelativeKey();
+            tmpRk.setPrevKey(bie.getPrevKey());
+            tmpRk.readFields(currBlock);
+            val = new Value();
+
+            val.readFields(currBlock);
+            valbs = new MutableByteSequence(val.get(), 0, val.getSize());
+
+            // just consumed one key from the input stream, so subtract one from entries left
+            entriesLeft = bie.getEntriesLeft() - 1;
+            prevKey = new Key(bie.getPrevKey());
+            currKey = tmpRk.getKey();
+          }
+        }
       }
+
+      SkippR skippr =
+          RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
+      prevKey = skippr.prevKey;
+      entriesLeft -= skippr.skipped;
+      val = new Value(valbs.toArray());
+      // set rk when everything above is successful, if exception
+      // occurs rk will not be set
+      rk = skippr.rk;
+      topKey = rk.getKey();
     }
 
     @Override
@@ -1168,8 +1435,8 @@ public class RFile {
 
         if (magic != RINDEX_MAGIC)
           throw new IOException("Did not see expected magic number, saw " + magic);
-        if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
-            && ver != RINDEX_VER_3)
+        if (ver != RINDEX_VER_9 && ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6
+            && ver != RINDEX_VER_4 && ver != RINDEX_VER_3)
           throw new IOException("Did not see expected version, saw " + ver);
 
         int size = mb.readInt();
@@ -1187,7 +1454,7 @@ public class RFile {
 
         readers = currentReaders;
 
-        if (ver == RINDEX_VER_8 && mb.readBoolean()) {
+        if ((ver == RINDEX_VER_9 || ver == RINDEX_VER_8) && mb.readBoolean()) {
           sampleReaders = new LocalityGroupReader[size];
 
           for (int i = 0; i < size; i++) {
@@ -1355,6 +1622,55 @@ public class RFile {
       }
     }
 
+    /**
+     * Loads blocks of this file into the index or data cache by the names they were cached under,
+     * for example to warm the caches with blocks that were frequently read before a restart. Names
+     * that do not belong to this file are ignored.
+     *
+     * @param type
+     *          the cache the names were recorded from
+     * @return the number of blocks that were loaded
+     */
+    public int prefetch(CacheType type, Collection<String> blockNames) throws IOException {
+      int loaded = 0;
+      Set<Long> offsets = new HashSet<>();
+      for (String blockName : blockNames) {
+        long offset = reader.getRawBlockOffset(blockName);
+        if (offset >= 0) {
+          offsets.add(offset);
+        } else if (reader.prefetch(type, blockName)) {
+          loaded++;
+        }
+      }
+
+      if (offsets.isEmpty() || (type != CacheType.INDEX && type != CacheType.DATA)) {
+        return loaded;
+      }
+
+      // blocks cached by offset are only described by the index, so walk it to find their sizes
+      Map<Long,IndexEntry> entries = new HashMap<>();
+      for (LocalityGroupMetadata lgm : Iterables.concat(localityGroups, sampleGroups)) {
+        if (entries.size() == offsets.size()) {
+          break;
+        }
+        lgm.indexReader.findBlocks(offsets, entries);
+      }
+
+      for (IndexEntry ie : entries.values()) {
+        CachableBlockFile.CachedBlockRead block;
+        if (type == CacheType.INDEX) {
+          block = reader.getMetaBlock(ie.getOffset(), ie.getCompressedSize(), ie.getRawSize());
+        } else {
+          block = reader.getDataBlock(ie.getOffset(), ie.getCompressedSize(), ie.getRawSize());
+        }
+        if (block.isIndexable()) {
+          loaded++;
+        }
+        block.close();
+      }
+      return loaded;
+    }
+
     @Override
     public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
       if (env != null && env.isSamplingEnabled()) {
@@ -1522,5 +1838,22 @@ public class RFile {
     public void setCacheProvider(CacheProvider cacheProvider) {
       reader.setCacheProvider(cacheProvider);
     }
+
+    @Override
+    public void setReadahead(BlockReadahead readahead) {
+      for (LocalityGroupReader lgr : readers) {
+        lgr.setReadahead(readahead);
+      }
+      if (sampleReaders != null) {
+        for (LocalityGroupReader lgr : sampleReaders) {
+          lgr.setReadahead(readahead);
+        }
+      }
+      for (Reader deepCopy : deepCopies) {
+        for (LocalityGroupReader lgr : deepCopy.currentReaders) {
+          lgr.setReadahead(readahead);
+        }
+      }
+    }
   }
 }
@@ -134,6 +134,9 @@ public class RFileOperations extends FileOperations {
     BCFile.Writer _cbw = new BCFile.Writer(outputStream, options.getRateLimiter(), compression,
         conf, options.cryptoService);
 
-    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler);
+    BlockEncoding encoding = BlockEncoding.forName(acuconf.get(Property.TABLE_FILE_BLOCK_ENCODING));
+
+    return new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, samplerConfig, sampler,
+        encoding);
   }
 }
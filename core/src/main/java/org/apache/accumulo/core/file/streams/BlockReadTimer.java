@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+/**
+ * Keeps a per thread total of the time spent blocked reading file blocks from the underlying file
+ * system, or waiting for another thread to read them. Code that wants to know how much of some unit
+ * of work was spent waiting on reads can sample {@link #currentThreadNanos()} before and after the
+ * work and take the difference.
+ */
+public final class BlockReadTimer {
+
+  private static final ThreadLocal<long[]> READ_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+  private BlockReadTimer() {}
+
+  /**
+   * @return the total nanoseconds the current thread has spent reading file blocks
+   */
+  public static long currentThreadNanos() {
+    return READ_NANOS.get()[0];
+  }
+
+  /**
+   * Adds to the current thread's total, for time spent waiting on a block that another thread
+   * reads.
+   */
+  public static void record(long nanos) {
+    READ_NANOS.get()[0] += nanos;
+  }
+}
@@ -95,8 +95,14 @@ public class BoundedRangeFileInputStream extends InputStream {
       if (closed) {
         throw new IOException("Stream closed");
       }
-      ((Seekable) in).seek(pos);
-      ret = in.read(b, off, n);
+      // waiting for the lock is not counted, only the read itself
+      long t1 = System.nanoTime();
+      try {
+        ((Seekable) in).seek(pos);
+        ret = in.read(b, off, n);
+      } finally {
+        BlockReadTimer.record(System.nanoTime() - t1);
+      }
     }
     if (ret < 0) {
       end = pos;
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * Reads a stack of system iterators in batches and hands the entries out one at a time, so the
+ * iterators above it do not need to support batches. After a seek the first batch is small and each
+ * following batch doubles in size up to the configured size, so iterators that seek often do not
+ * pay for reading entries they skip over. Like {@link VisibilityFilter}, which it usually wraps,
+ * access is synchronized.
+ */
+public class BatchBufferingIterator implements SortedKeyValueIterator<Key,Value> {
+
+  private static final int INITIAL_BATCH_SIZE = 16;
+  // bound the memory used when values are large
+  private static final long MAX_BATCH_BYTES = 1 << 20;
+
+  private final SortedKeyValueIterator<Key,Value> source;
+  private final KeyValueBatch batch;
+  private int pos = 0;
+
+  private BatchBufferingIterator(SortedKeyValueIterator<Key,Value> source, int batchSize) {
+    this.source = source;
+    this.batch = new KeyValueBatch(batchSize, MAX_BATCH_BYTES);
+  }
+
+  /**
+   * Wraps the source if {@link Property#TABLE_SYSTEM_ITERATOR_BATCH_SIZE} is set, otherwise returns
+   * the source.
+   */
+  public static SortedKeyValueIterator<Key,Value> wrap(SortedKeyValueIterator<Key,Value> source,
+      AccumuloConfiguration conf) {
+    int batchSize = conf.getCount(Property.TABLE_SYSTEM_ITERATOR_BATCH_SIZE);
+    if (batchSize <= 1) {
+      return source;
+    }
+    return new BatchBufferingIterator(source, batchSize);
+  }
+
+  private void fill() throws IOException {
+    batch.clear();
+    pos = 0;
+    BatchIterator.fill(source, batch);
+    batch.setLimit(batch.getLimit() * 2);
+  }
+
+  @Override
+  public synchronized void seek(Range range, Collection<ByteSequence> columnFamilies,
+      boolean inclusive) throws IOException {
+    source.seek(range, columnFamilies, inclusive);
+    batch.setLimit(INITIAL_BATCH_SIZE);
+    fill();
+  }
+
+  @Override
+  public synchronized boolean hasTop() {
+    return pos < batch.size();
+  }
+
+  @Override
+  public synchronized Key getTopKey() {
+    return batch.getKey(pos);
+  }
+
+  @Override
+  public synchronized Value getTopValue() {
+    return batch.getValue(pos);
+  }
+
+  @Override
+  public synchronized void next() throws IOException {
+    if (!hasTop()) {
+      throw new IllegalStateException("Called next() when there is no top");
+    }
+    pos++;
+    if (pos == batch.size()) {
+      fill();
+    }
+  }
+
+  @Override
+  public synchronized SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+    return new BatchBufferingIterator(source.deepCopy(env), batch.getCapacity());
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+      IteratorEnvironment env) {
+    throw new UnsupportedOperationException();
+  }
+}
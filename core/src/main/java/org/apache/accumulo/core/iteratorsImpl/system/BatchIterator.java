@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import java.io.IOException;
+import java.util.function.BiPredicate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * An optional interface for system iterators that can produce many entries per call. Reading in
+ * batches lets an iterator decode or filter a run of entries in a tight loop instead of paying for
+ * a chain of {@link SortedKeyValueIterator#next()}, {@link SortedKeyValueIterator#getTopKey()} and
+ * {@link SortedKeyValueIterator#getTopValue()} calls through every iterator in the stack for each
+ * entry.
+ */
+public interface BatchIterator {
+
+  /**
+   * Appends entries to the batch, starting with the current top entry, and advances this iterator
+   * past them. Stops when the batch is full or this iterator has no top. If this iterator has a top
+   * and the batch is not full, at least one entry is appended. The appended keys and values belong
+   * to the batch and are not modified by this iterator afterwards.
+   */
+  void nextBatch(KeyValueBatch batch) throws IOException;
+
+  /**
+   * Fills the batch from the source, using {@link #nextBatch(KeyValueBatch)} when the source
+   * supports it. Otherwise entries are copied one at a time, because iterators are allowed to reuse
+   * the objects returned by getTopKey() and getTopValue().
+   */
+  static void fill(SortedKeyValueIterator<Key,Value> source, KeyValueBatch batch)
+      throws IOException {
+    if (source instanceof BatchIterator) {
+      ((BatchIterator) source).nextBatch(batch);
+    } else {
+      while (source.hasTop() && !batch.isFull()) {
+        batch.add(new Key(source.getTopKey()), new Value(source.getTopValue()));
+        source.next();
+      }
+    }
+  }
+
+  /**
+   * Fills the batch with the entries from the source that are accepted by a filter. The source's
+   * top entry must be accepted when this is called, and it is left on an accepted entry.
+   */
+  static void fillFiltered(SortedKeyValueIterator<Key,Value> source, KeyValueBatch batch,
+      BiPredicate<Key,Value> accept) throws IOException {
+    while (source.hasTop() && !batch.isFull()) {
+      int start = batch.size();
+      fill(source, batch);
+      batch.filter(start, accept);
+      while (source.hasTop() && !accept.test(source.getTopKey(), source.getTopValue())) {
+        source.next();
+      }
+    }
+  }
+}
@@ -35,7 +35,7 @@ import org.apache.accumulo.core.iterators.ServerSkippingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
 public class ColumnFamilySkippingIterator extends ServerSkippingIterator
-    implements InterruptibleIterator {
+    implements InterruptibleIterator, BatchIterator {
 
   protected Set<ByteSequence> colFamSet = null;
   protected TreeSet<ByteSequence> sortedColFams = null;
@@ -92,6 +92,27 @@ public class ColumnFamilySkippingIterator extends ServerSkippingIterator
       }
   }
 
+  @Override
+  public void nextBatch(KeyValueBatch batch) throws IOException {
+    if (inclusive) {
+      while (source.hasTop() && !batch.isFull()) {
+        int start = batch.size();
+        BatchIterator.fill(source, batch);
+        batch.filter(start, (k, v) -> colFamSet.contains(k.getColumnFamilyData()));
+        consume();
+      }
+    } else if (colFamSet != null && !colFamSet.isEmpty()) {
+      while (source.hasTop() && !batch.isFull()) {
+        int start = batch.size();
+        BatchIterator.fill(source, batch);
+        batch.filter(start, (k, v) -> !colFamSet.contains(k.getColumnFamilyData()));
+        consume();
+      }
+    } else {
+      BatchIterator.fill(source, batch);
+    }
+  }
+
   private void reseek(Key key) throws IOException {
     if (range.afterEndKey(key)) {
       range = new Range(range.getEndKey(), true, range.getEndKey(), range.isEndKeyInclusive());
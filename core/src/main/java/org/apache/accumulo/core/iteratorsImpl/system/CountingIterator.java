@@ -27,7 +27,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.WrappingIterator;
 
-public class CountingIterator extends WrappingIterator {
+public class CountingIterator extends WrappingIterator implements BatchIterator {
 
   private long count;
 
@@ -58,6 +58,13 @@ public class CountingIterator extends WrappingIterator {
     count++;
   }
 
+  @Override
+  public void nextBatch(KeyValueBatch batch) throws IOException {
+    int before = batch.size();
+    BatchIterator.fill(getSource(), batch);
+    count += batch.size() - before;
+  }
+
   public long getCount() {
     return count;
   }
@@ -34,9 +34,11 @@ import org.apache.accumulo.core.iterators.IteratorUtil;
 import org.apache.accumulo.core.iterators.ServerWrappingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
-public class DeletingIterator extends ServerWrappingIterator {
+public class DeletingIterator extends ServerWrappingIterator implements BatchIterator {
   private boolean propogateDeletes;
   private Key workKey = new Key();
+  // the most recent delete seen while filtering a batch
+  private Key batchDelete = null;
 
   public enum Behavior {
     PROCESS, FAIL
@@ -87,6 +89,43 @@ public class DeletingIterator extends ServerWrappingIterator {
     }
   }
 
+  @Override
+  public void nextBatch(KeyValueBatch batch) throws IOException {
+    while (source.hasTop() && !batch.isFull()) {
+      int start = batch.size();
+      BatchIterator.fill(source, batch);
+      batch.filter(start, this::acceptInBatch);
+
+      // the rest of a deleted column may not have fit in the batch
+      while (batchDelete != null && source.hasTop()
+          && source.getTopKey().equals(batchDelete, PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+        source.next();
+      }
+      batchDelete = null;
+      findTop();
+    }
+  }
+
+  /**
+   * Mirrors {@link #next()} and {@link #findTop()} for entries that are already in a batch: a
+   * delete hides the older entries in its column and is itself only kept when deletes are
+   * propagated.
+   */
+  private boolean acceptInBatch(Key key, Value value) {
+    if (batchDelete != null) {
+      if (key.equals(batchDelete, PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+        return false;
+      }
+      batchDelete = null;
+    }
+
+    if (key.isDeleted()) {
+      batchDelete = key;
+      return propogateDeletes;
+    }
+    return true;
+  }
+
   private void findTop() throws IOException {
     if (!propogateDeletes) {
       while (source.hasTop() && source.getTopKey().isDeleted()) {
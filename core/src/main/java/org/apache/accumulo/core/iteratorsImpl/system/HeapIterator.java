@@ -19,23 +19,37 @@
 package org.apache.accumulo.core.iteratorsImpl.system;
 
 import java.io.IOException;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
 /**
- * Constructs a {@link PriorityQueue} of multiple SortedKeyValueIterators. Provides a simple way to
+ * Merges multiple SortedKeyValueIterators into a single sorted stream. Provides a simple way to
  * interact with multiple SortedKeyValueIterators in sorted order.
+ *
+ * <p>
+ * The source with the smallest key is held outside of a tournament (winner) tree that contains the
+ * remaining sources. While that source is still the minimum after {@link #next()} only a single
+ * comparison against the smallest key in the tree is needed. When another source takes over, the
+ * previous top source replaces the winner in its leaf and only the path from that leaf to the root
+ * is replayed, which costs one comparison per level instead of the two a binary heap needs when
+ * sifting down.
  */
-public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value> {
-  private PriorityQueue<SortedKeyValueIterator<Key,Value>> heap;
+public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>, BatchIterator {
+  // leaves of the tournament tree, null for a leaf without a source
+  private SortedKeyValueIterator<Key,Value>[] leaves;
+  // winner[n] is the index of the leaf with the smallest key below internal node n, the root is 1
+  private int[] winner;
+  // stack of leaves that do not have a source
+  private int[] freeLeaves;
+  private int numFree;
   private SortedKeyValueIterator<Key,Value> topIdx = null;
   private Key nextKey;
 
   protected HeapIterator() {
-    heap = null;
+    leaves = null;
   }
 
   protected HeapIterator(int maxSize) {
@@ -43,11 +57,73 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
   }
 
   protected void createHeap(int maxSize) {
-    if (heap != null)
+    if (leaves != null)
       throw new IllegalStateException("heap already exist");
 
-    heap = new PriorityQueue<>(maxSize == 0 ? 1 : maxSize,
-        (si1, si2) -> si1.getTopKey().compareTo(si2.getTopKey()));
+    initTree(maxSize);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void initTree(int maxSize) {
+    // use at least two leaves so the root is always an internal node
+    int capacity = 2;
+    while (capacity < maxSize) {
+      capacity <<= 1;
+    }
+
+    leaves = new SortedKeyValueIterator[capacity];
+    winner = new int[capacity];
+    freeLeaves = new int[capacity];
+    resetTree();
+  }
+
+  private void resetTree() {
+    Arrays.fill(leaves, null);
+    for (int node = winner.length - 1; node > 0; node--) {
+      winner[node] = winnerOf(node << 1);
+    }
+    numFree = leaves.length;
+    for (int i = 0; i < numFree; i++) {
+      freeLeaves[i] = numFree - 1 - i;
+    }
+  }
+
+  private void growTree() {
+    SortedKeyValueIterator<Key,Value>[] sources = leaves;
+    initTree(sources.length * 2);
+    for (SortedKeyValueIterator<Key,Value> source : sources) {
+      if (source != null) {
+        setLeaf(freeLeaves[--numFree], source);
+      }
+    }
+  }
+
+  private int winnerOf(int node) {
+    return node >= leaves.length ? node - leaves.length : winner[node];
+  }
+
+  /**
+   * Places a source in a leaf, or empties it when source is null, and replays the matches on the
+   * path from that leaf to the root.
+   */
+  private void setLeaf(int leaf, SortedKeyValueIterator<Key,Value> source) {
+    leaves[leaf] = source;
+    for (int node = (leaf + leaves.length) >>> 1; node > 0; node >>>= 1) {
+      int left = winnerOf(node << 1);
+      int right = winnerOf((node << 1) + 1);
+      SortedKeyValueIterator<Key,Value> ls = leaves[left];
+      SortedKeyValueIterator<Key,Value> rs = leaves[right];
+      if (rs == null || (ls != null && ls.getTopKey().compareTo(rs.getTopKey()) <= 0)) {
+        winner[node] = left;
+      } else {
+        winner[node] = right;
+      }
+    }
+  }
+
+  private void updateNextKey() {
+    SortedKeyValueIterator<Key,Value> min = leaves[winner[1]];
+    nextKey = min == null ? null : min.getTopKey();
   }
 
   @Override
@@ -72,6 +148,13 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
     }
 
     topIdx.next();
+    advanced();
+  }
+
+  /**
+   * Restores the order of the sources after the top source moved to its next entry.
+   */
+  private void advanced() {
     if (topIdx.hasTop()) {
       if (nextKey == null) {
         // topIdx is the only iterator
@@ -79,14 +162,14 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
       }
 
       if (nextKey.compareTo(topIdx.getTopKey()) < 0) {
-        // Grab the next top iterator and put the current top iterator back on the heap
-        // This updating of references is special-cased to save on percolation on edge cases
-        // since the current top is guaranteed to not be the minimum
-        SortedKeyValueIterator<Key,Value> nextTopIdx = heap.remove();
-        heap.add(topIdx);
+        // Grab the next top iterator and put the current top iterator in its leaf, so only one
+        // path of the tree has to be replayed
+        int leaf = winner[1];
+        SortedKeyValueIterator<Key,Value> nextTopIdx = leaves[leaf];
+        setLeaf(leaf, topIdx);
 
         topIdx = nextTopIdx;
-        nextKey = heap.peek().getTopKey();
+        updateNextKey();
       }
     } else {
       if (nextKey == null) {
@@ -99,29 +182,62 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
     }
   }
 
-  private void pullReferencesFromHeap() {
-    topIdx = heap.remove();
-    if (heap.isEmpty()) {
-      nextKey = null;
-    } else {
-      nextKey = heap.peek().getTopKey();
+  @Override
+  public void nextBatch(KeyValueBatch batch) throws IOException {
+    while (topIdx != null && !batch.isFull()) {
+      if (nextKey == null && topIdx instanceof BatchIterator) {
+        // only one source is left, so there is nothing to merge
+        ((BatchIterator) topIdx).nextBatch(batch);
+        if (!topIdx.hasTop()) {
+          topIdx = null;
+        }
+      } else if (topIdx instanceof BatchIterator) {
+        // Let the top source hand over its entry instead of copying it, sources never modify the
+        // entries they add to a batch. Limit the batch to one more entry, because the next entry
+        // of the top source may not be the smallest.
+        int limit = batch.getLimit();
+        batch.setLimit(batch.size() + 1);
+        ((BatchIterator) topIdx).nextBatch(batch);
+        batch.setLimit(limit);
+        advanced();
+      } else {
+        batch.add(new Key(topIdx.getTopKey()), new Value(topIdx.getTopValue()));
+        next();
+      }
     }
   }
 
+  private void pullReferencesFromHeap() {
+    int leaf = winner[1];
+    topIdx = leaves[leaf];
+    setLeaf(leaf, null);
+    freeLeaves[numFree++] = leaf;
+    updateNextKey();
+  }
+
   protected final void clear() {
-    heap.clear();
+    resetTree();
     topIdx = null;
     nextKey = null;
   }
 
   protected final void addSource(SortedKeyValueIterator<Key,Value> source) {
     if (source.hasTop()) {
-      heap.add(source);
-      if (topIdx != null) {
-        heap.add(topIdx);
+      if (topIdx == null) {
+        topIdx = source;
+      } else {
+        if (numFree == 0) {
+          growTree();
+        }
+        int leaf = freeLeaves[--numFree];
+        if (source.getTopKey().compareTo(topIdx.getTopKey()) < 0) {
+          setLeaf(leaf, topIdx);
+          topIdx = source;
+        } else {
+          setLeaf(leaf, source);
+        }
       }
-
-      pullReferencesFromHeap();
+      updateNextKey();
     }
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import java.util.Arrays;
+import java.util.function.BiPredicate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * A reusable buffer of key/value pairs that a {@link BatchIterator} appends to. A batch is full
+ * when it holds its current limit of entries or its entries reach a maximum number of bytes.
+ */
+public class KeyValueBatch {
+
+  private final Key[] keys;
+  private final Value[] values;
+  private final long maxBytes;
+
+  private int limit;
+  private int size = 0;
+  private long bytes = 0;
+
+  public KeyValueBatch(int capacity, long maxBytes) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive : " + capacity);
+    }
+    this.keys = new Key[capacity];
+    this.values = new Value[capacity];
+    this.maxBytes = maxBytes;
+    this.limit = capacity;
+  }
+
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /**
+   * Sets the number of entries at which this batch is considered full, bounded by the capacity.
+   */
+  public void setLimit(int limit) {
+    this.limit = Math.max(1, Math.min(limit, keys.length));
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public boolean isFull() {
+    return size >= limit || bytes >= maxBytes;
+  }
+
+  /**
+   * Appends an entry. The batch takes ownership of the key and value, so the caller must not modify
+   * them afterwards.
+   */
+  public void add(Key key, Value value) {
+    if (size == keys.length) {
+      throw new IllegalStateException("Batch is at capacity " + keys.length);
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    bytes += key.getSize() + value.getSize();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Key getKey(int i) {
+    return keys[i];
+  }
+
+  public Value getValue(int i) {
+    return values[i];
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0, size, null);
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+    bytes = 0;
+  }
+
+  /**
+   * Removes the entries at or after {@code start} that are not accepted, keeping the remaining
+   * entries in order. The predicate is called on the entries in order, so it may carry state from
+   * one entry to the next.
+   */
+  public void filter(int start, BiPredicate<Key,Value> accept) {
+    int dest = start;
+    for (int i = start; i < size; i++) {
+      if (accept.test(keys[i], values[i])) {
+        keys[dest] = keys[i];
+        values[dest] = values[i];
+        dest++;
+      } else {
+        bytes -= keys[i].getSize() + values[i].getSize();
+      }
+    }
+    Arrays.fill(keys, dest, size, null);
+    Arrays.fill(values, dest, size, null);
+    size = dest;
+  }
+}
@@ -30,16 +30,27 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.ServerWrappingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
-public class StatsIterator extends ServerWrappingIterator {
+public class StatsIterator extends ServerWrappingIterator implements BatchIterator {
 
   private int numRead = 0;
   private AtomicLong seekCounter;
+  private AtomicLong tabletSeekCounter;
   private AtomicLong readCounter;
 
   public StatsIterator(SortedKeyValueIterator<Key,Value> source, AtomicLong seekCounter,
       AtomicLong readCounter) {
+    this(source, seekCounter, null, readCounter);
+  }
+
+  /**
+   * @param tabletSeekCounter
+   *          an additional counter of seeks for a single tablet, may be null
+   */
+  public StatsIterator(SortedKeyValueIterator<Key,Value> source, AtomicLong seekCounter,
+      AtomicLong tabletSeekCounter, AtomicLong readCounter) {
     super(source);
     this.seekCounter = seekCounter;
+    this.tabletSeekCounter = tabletSeekCounter;
     this.readCounter = readCounter;
   }
 
@@ -54,9 +65,21 @@ public class StatsIterator extends ServerWrappingIterator {
     }
   }
 
+  @Override
+  public void nextBatch(KeyValueBatch batch) throws IOException {
+    int before = batch.size();
+    BatchIterator.fill(source, batch);
+    numRead += batch.size() - before;
+
+    if (numRead >= 23) {
+      readCounter.addAndGet(numRead);
+      numRead = 0;
+    }
+  }
+
   @Override
   public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
-    return new StatsIterator(source.deepCopy(env), seekCounter, readCounter);
+    return new StatsIterator(source.deepCopy(env), seekCounter, tabletSeekCounter, readCounter);
   }
 
   @Override
@@ -64,6 +87,9 @@ public class StatsIterator extends ServerWrappingIterator {
       throws IOException {
     source.seek(range, columnFamilies, inclusive);
     seekCounter.incrementAndGet();
+    if (tabletSeekCounter != null) {
+      tabletSeekCounter.incrementAndGet();
+    }
     readCounter.addAndGet(numRead);
     numRead = 0;
   }
@@ -18,6 +18,8 @@
  */
 package org.apache.accumulo.core.iteratorsImpl.system;
 
+import java.io.IOException;
+
 import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -26,9 +28,8 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.SynchronizedServerFilter;
 import org.apache.accumulo.core.security.Authorizations;
-import org.apache.accumulo.core.security.ColumnVisibility;
-import org.apache.accumulo.core.security.VisibilityEvaluator;
 import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.accumulo.core.securityImpl.VisibilityCache;
 import org.apache.accumulo.core.util.BadArgumentException;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
@@ -42,26 +43,33 @@ import org.slf4j.LoggerFactory;
  * .loadIterators(). For performance reasons, the synchronization was pushed down the stack to this
  * class.
  */
-public class VisibilityFilter extends SynchronizedServerFilter {
-  protected VisibilityEvaluator ve;
+public class VisibilityFilter extends SynchronizedServerFilter implements BatchIterator {
+  protected VisibilityCache.Evaluator ve;
   protected ByteSequence defaultVisibility;
   protected LRUMap<ByteSequence,Boolean> cache;
   protected Authorizations authorizations;
 
   private static final Logger log = LoggerFactory.getLogger(VisibilityFilter.class);
 
-  private VisibilityFilter(SortedKeyValueIterator<Key,Value> iterator,
+  private VisibilityFilter(SortedKeyValueIterator<Key,Value> iterator, VisibilityCache.Evaluator ve,
       Authorizations authorizations, byte[] defaultVisibility) {
     super(iterator);
-    this.ve = new VisibilityEvaluator(authorizations);
+    this.ve = ve;
     this.authorizations = authorizations;
     this.defaultVisibility = new ArrayByteSequence(defaultVisibility);
+    // a small cache private to this scan in front of the shared one
     this.cache = new LRUMap<>(1000);
   }
 
   @Override
   public synchronized SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
-    return new VisibilityFilter(source.deepCopy(env), authorizations, defaultVisibility.toArray());
+    return new VisibilityFilter(source.deepCopy(env), ve, authorizations,
+        defaultVisibility.toArray());
+  }
+
+  @Override
+  public synchronized void nextBatch(KeyValueBatch batch) throws IOException {
+    BatchIterator.fillFiltered(source, batch, (k, v) -> k.isDeleted() || accept(k, v));
   }
 
   @Override
@@ -78,7 +86,7 @@ public class VisibilityFilter extends SynchronizedServerFilter {
       return b;
 
     try {
-      boolean bb = ve.evaluate(new ColumnVisibility(testVis.toArray()));
+      boolean bb = ve.evaluate(testVis);
       cache.put(testVis, bb);
       return bb;
     } catch (VisibilityParseException e) {
@@ -90,7 +98,8 @@ public class VisibilityFilter extends SynchronizedServerFilter {
     }
   }
 
-  private static class EmptyAuthsVisibilityFilter extends SynchronizedServerFilter {
+  private static class EmptyAuthsVisibilityFilter extends SynchronizedServerFilter
+      implements BatchIterator {
 
     public EmptyAuthsVisibilityFilter(SortedKeyValueIterator<Key,Value> source) {
       super(source);
@@ -101,6 +110,11 @@ public class VisibilityFilter extends SynchronizedServerFilter {
       return new EmptyAuthsVisibilityFilter(source.deepCopy(env));
     }
 
+    @Override
+    public synchronized void nextBatch(KeyValueBatch batch) throws IOException {
+      BatchIterator.fillFiltered(source, batch, (k, v) -> k.isDeleted() || accept(k, v));
+    }
+
     @Override
     protected boolean accept(Key k, Value v) {
       return k.getColumnVisibilityData().length() == 0;
@@ -109,10 +123,16 @@ public class VisibilityFilter extends SynchronizedServerFilter {
 
   public static SortedKeyValueIterator<Key,Value> wrap(SortedKeyValueIterator<Key,Value> source,
       Authorizations authorizations, byte[] defaultVisibility) {
+    return wrap(source, authorizations, defaultVisibility, VisibilityCache.getInstance());
+  }
+
+  public static SortedKeyValueIterator<Key,Value> wrap(SortedKeyValueIterator<Key,Value> source,
+      Authorizations authorizations, byte[] defaultVisibility, VisibilityCache visibilityCache) {
     if (authorizations.isEmpty() && defaultVisibility.length == 0) {
       return new EmptyAuthsVisibilityFilter(source);
     } else {
-      return new VisibilityFilter(source, authorizations, defaultVisibility);
+      return new VisibilityFilter(source, visibilityCache.getEvaluator(authorizations),
+          authorizations, defaultVisibility);
     }
   }
 }
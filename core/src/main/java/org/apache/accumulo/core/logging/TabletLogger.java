@@ -138,8 +138,9 @@ public class TabletLogger {
     }
   }
 
-  public static void compacted(KeyExtent extent, CompactionJob job, TabletFile output) {
-    fileLog.debug("Compacted {} for {} created {} from {}", extent, job.getKind(), output,
+  public static void compacted(KeyExtent extent, CompactionJob job,
+      Collection<? extends TabletFile> outputs) {
+    fileLog.debug("Compacted {} for {} created {} from {}", extent, job.getKind(), outputs,
         asFileNames(job.getFiles()));
   }
 
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.securityImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.AuthorizationContainer;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.ColumnVisibility.Node;
+import org.apache.accumulo.core.security.VisibilityParseException;
+
+/**
+ * A column visibility expression compiled into a flat program over the expression's distinct terms.
+ * Evaluation first maps each term to a bit using the authorizations, then evaluates the program
+ * with bit tests instead of walking the parse tree.
+ */
+public final class CompiledVisibility {
+
+  private static final int AND = -1;
+  private static final int OR = -2;
+
+  // the distinct terms of the expression, escaped as they appear in it
+  private final ByteSequence[] terms;
+
+  // A term is encoded as its index in terms. AND and OR nodes are encoded as the operation, the
+  // number of children and the position after the last child, followed by the children.
+  private final int[] program;
+
+  private CompiledVisibility(ByteSequence[] terms, int[] program) {
+    this.terms = terms;
+    this.program = program;
+  }
+
+  /**
+   * @throws org.apache.accumulo.core.util.BadArgumentException
+   *           if the expression can not be parsed
+   */
+  public static CompiledVisibility compile(byte[] expression) throws VisibilityParseException {
+    Node root = new ColumnVisibility(expression).getParseTree();
+    Map<ByteSequence,Integer> termIds = new HashMap<>();
+    List<Integer> program = new ArrayList<>();
+    if (expression.length > 0) {
+      compile(expression, root, termIds, program);
+    }
+
+    ByteSequence[] terms = new ByteSequence[termIds.size()];
+    termIds.forEach((term, id) -> terms[id] = term);
+    return new CompiledVisibility(terms, program.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  private static void compile(byte[] expression, Node node, Map<ByteSequence,Integer> termIds,
+      List<Integer> program) throws VisibilityParseException {
+    switch (node.getType()) {
+      case TERM:
+        program.add(termIds.computeIfAbsent(node.getTerm(expression), t -> termIds.size()));
+        break;
+      case AND:
+      case OR:
+        if (node.getChildren().size() < 2)
+          throw new VisibilityParseException(node.getType() + " has less than 2 children",
+              expression, node.getTermStart());
+        program.add(node.getType() == ColumnVisibility.NodeType.AND ? AND : OR);
+        program.add(node.getChildren().size());
+        int endPos = program.size();
+        program.add(-1);
+        for (Node child : node.getChildren()) {
+          compile(expression, child, termIds, program);
+        }
+        program.set(endPos, program.size());
+        break;
+      default:
+        throw new VisibilityParseException("No such node type", expression, node.getTermStart());
+    }
+  }
+
+  /**
+   * @param auths
+   *          authorizations escaped the same way as terms in an expression, see
+   *          {@link org.apache.accumulo.core.security.VisibilityEvaluator#escape(byte[], boolean)}
+   */
+  public boolean evaluate(AuthorizationContainer auths) {
+    if (program.length == 0) {
+      return true;
+    }
+
+    long[] bits = new long[(terms.length + 63) >>> 6];
+    for (int i = 0; i < terms.length; i++) {
+      if (auths.contains(terms[i])) {
+        bits[i >>> 6] |= 1L << i;
+      }
+    }
+    return evaluate(0, bits);
+  }
+
+  private boolean evaluate(int pos, long[] bits) {
+    int code = program[pos];
+    if (code >= 0) {
+      return (bits[code >>> 6] & (1L << code)) != 0;
+    }
+
+    int children = program[pos + 1];
+    int child = pos + 3;
+    for (int i = 0; i < children; i++) {
+      boolean result = evaluate(child, bits);
+      if (code == AND && !result) {
+        return false;
+      } else if (code == OR && result) {
+        return true;
+      }
+      child = program[child] >= 0 ? child + 1 : program[child + 2];
+    }
+    return code == AND;
+  }
+}
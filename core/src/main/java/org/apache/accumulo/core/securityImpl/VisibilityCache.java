@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.securityImpl;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+/**
+ * Caches compiled column visibilities and their evaluation results, shared by all scans in a
+ * process. Compiled visibilities do not depend on authorizations. Results are kept per set of
+ * authorizations, so scans with the same authorizations reuse each other's results.
+ */
+public class VisibilityCache {
+
+  private static final VisibilityCache instance = new VisibilityCache(
+      Integer.parseInt(Property.TSERV_SCAN_VISIBILITY_CACHE_SIZE.getDefaultValue()));
+
+  // the most distinct sets of authorizations results are kept for
+  private static final int MAX_AUTHORIZATION_SETS = 100;
+
+  private volatile int maxSize;
+  private final Cache<ByteSequence,CompiledVisibility> compiled;
+  private final LoadingCache<Authorizations,Evaluator> evaluators;
+
+  VisibilityCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.compiled = Caffeine.newBuilder().maximumSize(maxSize).build();
+    this.evaluators = Caffeine.newBuilder().maximumSize(MAX_AUTHORIZATION_SETS)
+        .expireAfterAccess(10, TimeUnit.MINUTES).build(Evaluator::new);
+  }
+
+  public static VisibilityCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the shared cache, resized if the configured size changed.
+   */
+  public static VisibilityCache getInstance(AccumuloConfiguration conf) {
+    instance.setMaxSize(conf.getCount(Property.TSERV_SCAN_VISIBILITY_CACHE_SIZE));
+    return instance;
+  }
+
+  private void setMaxSize(int newSize) {
+    if (newSize != maxSize) {
+      maxSize = newSize;
+      compiled.policy().eviction().ifPresent(e -> e.setMaximum(newSize));
+      // evaluators pick up the new size as they are replaced
+    }
+  }
+
+  public Evaluator getEvaluator(Authorizations authorizations) {
+    return evaluators.get(authorizations);
+  }
+
+  /**
+   * Evaluates column visibilities against one set of authorizations.
+   */
+  public class Evaluator {
+    private final Authorizations escapedAuths;
+    private final Cache<ByteSequence,Boolean> results;
+
+    private Evaluator(Authorizations authorizations) {
+      ArrayList<byte[]> escaped = new ArrayList<>(authorizations.size());
+      for (byte[] auth : authorizations) {
+        escaped.add(VisibilityEvaluator.escape(auth, false));
+      }
+      this.escapedAuths = new Authorizations(escaped);
+      this.results = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * @throws org.apache.accumulo.core.util.BadArgumentException
+     *           if the visibility can not be parsed
+     */
+    public boolean evaluate(ByteSequence visibility) throws VisibilityParseException {
+      Boolean result = results.getIfPresent(visibility);
+      if (result != null) {
+        return result;
+      }
+
+      // the visibility may point into a buffer that is reused, so copy it before caching
+      ByteSequence copy = new ArrayByteSequence(visibility.toArray());
+      CompiledVisibility cv = compiled.getIfPresent(copy);
+      if (cv == null) {
+        cv = CompiledVisibility.compile(copy.toArray());
+        compiled.put(copy, cv);
+      }
+
+      result = cv.evaluate(escapedAuths);
+      results.put(copy, result);
+      return result;
+    }
+  }
+}
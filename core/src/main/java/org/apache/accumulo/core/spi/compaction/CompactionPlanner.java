@@ -118,6 +118,17 @@ public interface CompactionPlanner {
      */
     Map<String,String> getExecutionHints();
 
+    /**
+     * @return the recent rate, in seeks per second, at which scans seek the tablet. Every seek
+     *         merges all of the tablet's files, so this rate times the number of files approximates
+     *         the read amplification the tablet's files cause. Returns 0 when the tablet was not
+     *         seeked recently or the rate is not known.
+     * @since 2.1.0
+     */
+    default double getSeekRate() {
+      return 0;
+    }
+
     /**
      * @return A compaction plan builder that must be used to create a compaction plan.
      */
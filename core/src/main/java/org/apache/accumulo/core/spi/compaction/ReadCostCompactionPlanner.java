@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.spi.compaction;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.accumulo.core.client.admin.compaction.CompactableFile;
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.spi.common.ServiceEnvironment;
+import org.apache.accumulo.core.util.compaction.CompactionJobPrioritizer;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A compaction planner that weighs the read amplification a tablet's files cause against the bytes
+ * a compaction rewrites. Every seek into a tablet merges all of its files, so removing files from a
+ * tablet that is seeked often saves much more work than removing them from a tablet that is rarely
+ * read.
+ *
+ * <p>
+ * For system compactions this planner scales the table's compaction ratio by
+ * {@code hotSeekRate / seekRate}, where the seek rate comes from
+ * {@link CompactionPlanner.PlanningParameters#getSeekRate()}. A tablet seeked more often than
+ * {@code hotSeekRate} gets a lower ratio, down to {@code minRatio}, which lets compactions rewrite
+ * more bytes per file removed. A tablet seeked less often gets a higher ratio, up to the table's
+ * ratio times {@code maxRatioScale}, which rewrites fewer bytes and leaves it more files. The files
+ * are then chosen the same way {@link DefaultCompactionPlanner} chooses them. A ratio of 1 would
+ * let every new file rewrite all of a tablet's data, so the ratio is never lowered below
+ * {@code minRatio}, which must be greater than 1. This keeps the number of times a byte is
+ * rewritten logarithmic in the size of the tablet, with {@code minRatio} rather than the table's
+ * ratio as the base. Jobs are prioritized by the number of files times the seek rate, so the
+ * executors run compactions for hot tablets first.
+ *
+ * <p>
+ * System compactions can also be limited to a write budget. The budget is a token bucket that fills
+ * at {@code maxWriteRate} bytes per second and holds at most a minute of writes. Each new system
+ * job is charged the size of its files. Jobs for tablets seeked at least {@code hotSeekRate} times
+ * per second run while the bucket is not empty, other jobs only run while the bucket is at least
+ * half full. Jobs that do not run are planned again later. User, selector, and chop compactions are
+ * always planned and are charged against the budget.
+ *
+ * <p>
+ * This planner supports the {@code executors} and {@code maxOpen} options of
+ * {@link DefaultCompactionPlanner} and the following additional options. Replace {@code <service>}
+ * with the name of the compaction service you are configuring.
+ *
+ * <ul>
+ * <li>{@code tserver.compaction.major.service.<service>.opts.hotSeekRate} The seeks per second at
+ * which a tablet uses the table's compaction ratio unchanged. Defaults to 10.
+ * <li>{@code tserver.compaction.major.service.<service>.opts.minRatio} The lowest compaction ratio
+ * a tablet that is seeked often is given, must be greater than 1. A table whose ratio is already
+ * lower keeps its ratio. Defaults to 1.5.
+ * <li>{@code tserver.compaction.major.service.<service>.opts.maxRatioScale} The most the compaction
+ * ratio of a tablet that is rarely seeked is multiplied by. Defaults to 2.
+ * <li>{@code tserver.compaction.major.service.<service>.opts.maxWriteRate} The bytes per second
+ * that system compactions planned by this compaction service may write on a tablet server. Can have
+ * a suffix of K,M,G. There is no limit when not set.
+ * </ul>
+ *
+ * @since 2.1.0
+ * @see org.apache.accumulo.core.spi.compaction
+ */
+public class ReadCostCompactionPlanner extends DefaultCompactionPlanner {
+
+  // how many seconds of writes the budget can save up
+  private static final long BURST_SECONDS = 60;
+
+  // how many recently charged jobs are remembered, so that planning the same job again is free
+  private static final int MAX_CHARGED = 10_000;
+
+  private final LongSupplier nanoTime;
+
+  private double hotSeekRate;
+  private double minRatio;
+  private double maxRatioScale;
+  private long maxWriteRate;
+
+  private long burst;
+  private double tokens;
+  private long lastRefill;
+  private final Set<Set<CompactableFile>> charged =
+      Collections.newSetFromMap(new LinkedHashMap<>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<CompactableFile>,Boolean> eldest) {
+          return size() > MAX_CHARGED;
+        }
+      });
+
+  public ReadCostCompactionPlanner() {
+    this(System::nanoTime);
+  }
+
+  ReadCostCompactionPlanner(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  @Override
+  public void init(InitParameters params) {
+    super.init(params);
+
+    var options = params.getOptions();
+    hotSeekRate = Double.parseDouble(options.getOrDefault("hotSeekRate", "10"));
+    minRatio = Double.parseDouble(options.getOrDefault("minRatio", "1.5"));
+    maxRatioScale = Double.parseDouble(options.getOrDefault("maxRatioScale", "2"));
+    Preconditions.checkArgument(hotSeekRate > 0, "hotSeekRate must be positive : %s", hotSeekRate);
+    Preconditions.checkArgument(minRatio > 1, "minRatio must be greater than 1 : %s", minRatio);
+    Preconditions.checkArgument(maxRatioScale >= 1, "maxRatioScale must be at least 1 : %s",
+        maxRatioScale);
+
+    String rate = options.get("maxWriteRate");
+    maxWriteRate = rate == null ? 0 : ConfigurationTypeHelper.getFixedMemoryAsBytes(rate);
+    Preconditions.checkArgument(maxWriteRate >= 0, "maxWriteRate must not be negative : %s", rate);
+    burst = maxWriteRate * BURST_SECONDS;
+    tokens = burst;
+    lastRefill = nanoTime.getAsLong();
+  }
+
+  @Override
+  public CompactionPlan makePlan(PlanningParameters params) {
+    double seekRate = params.getSeekRate();
+
+    CompactionPlan plan = super.makePlan(params.getKind() == CompactionKind.SYSTEM
+        ? new ScaledRatioParameters(params, getRatio(params.getRatio(), seekRate)) : params);
+
+    var builder = params.createPlanBuilder();
+    long priority = createPriority(params.getKind(), params.getAll().size(), seekRate);
+    for (CompactionJob job : plan.getJobs()) {
+      if (admit(job, seekRate >= hotSeekRate)) {
+        builder.addJob(priority, job.getExecutor(), job.getFiles());
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the table's compaction ratio scaled by how often the tablet is seeked compared to
+   *         {@code hotSeekRate}, never lower than {@code minRatio} unless the table's ratio is
+   */
+  double getRatio(double ratio, double seekRate) {
+    double min = Math.min(ratio, minRatio);
+    double max = ratio * maxRatioScale;
+    if (seekRate <= 0) {
+      return max;
+    }
+    return Math.max(min, Math.min(max, ratio * hotSeekRate / seekRate));
+  }
+
+  static long createPriority(CompactionKind kind, int totalFiles, double seekRate) {
+    // the read cost of the files, which is the number of files when the tablet is not seeked
+    double readCost = totalFiles * (1 + seekRate);
+    return CompactionJobPrioritizer.createPriority(kind,
+        (int) Math.min(Integer.MAX_VALUE, Math.round(readCost)));
+  }
+
+  /**
+   * Charges a job against the write budget the first time it is planned.
+   *
+   * @return true if the job should be planned
+   */
+  private synchronized boolean admit(CompactionJob job, boolean hot) {
+    if (maxWriteRate == 0 || charged.contains(job.getFiles())) {
+      return true;
+    }
+
+    long now = nanoTime.getAsLong();
+    tokens = Math.min(burst,
+        tokens + maxWriteRate * ((now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1)));
+    lastRefill = now;
+
+    if (job.getKind() == CompactionKind.SYSTEM && (hot ? tokens <= 0 : tokens < burst / 2.0)) {
+      return false;
+    }
+
+    // the bucket can go into debt so that jobs larger than the bucket can still run
+    tokens -= job.getFiles().stream().mapToLong(CompactableFile::getEstimatedSize).sum();
+    charged.add(Set.copyOf(job.getFiles()));
+    return true;
+  }
+
+  private static class ScaledRatioParameters implements PlanningParameters {
+
+    private final PlanningParameters params;
+    private final double ratio;
+
+    ScaledRatioParameters(PlanningParameters params, double ratio) {
+      this.params = params;
+      this.ratio = ratio;
+    }
+
+    @Override
+    public TableId getTableId() {
+      return params.getTableId();
+    }
+
+    @Override
+    public ServiceEnvironment getServiceEnvironment() {
+      return params.getServiceEnvironment();
+    }
+
+    @Override
+    public CompactionKind getKind() {
+      return params.getKind();
+    }
+
+    @Override
+    public double getRatio() {
+      return ratio;
+    }
+
+    @Override
+    public Collection<CompactableFile> getAll() {
+      return params.getAll();
+    }
+
+    @Override
+    public Collection<CompactableFile> getCandidates() {
+      return params.getCandidates();
+    }
+
+    @Override
+    public Collection<CompactionJob> getRunningCompactions() {
+      return params.getRunningCompactions();
+    }
+
+    @Override
+    public Map<String,String> getExecutionHints() {
+      return params.getExecutionHints();
+    }
+
+    @Override
+    public double getSeekRate() {
+      return params.getSeekRate();
+    }
+
+    @Override
+    public CompactionPlan.Builder createPlanBuilder() {
+      return params.createPlanBuilder();
+    }
+  }
+}
@@ -49,6 +49,11 @@ class DefaultScanDirectives extends ScanDirectivesImpl {
     return new ScanDirectivesImpl().setDataCacheUsage(usage);
   }
 
+  @Override
+  public Builder setResultCacheUsage(CacheUsage usage) {
+    return new ScanDirectivesImpl().setResultCacheUsage(usage);
+  }
+
   @Override
   public ScanDirectives build() {
     return this;
@@ -59,6 +59,8 @@ public interface ScanDirectives {
 
   public CacheUsage getIndexCacheUsage();
 
+  public CacheUsage getResultCacheUsage();
+
   /**
    * @since 2.1.0
    */
@@ -94,6 +96,16 @@ public interface ScanDirectives {
      */
     public Builder setDataCacheUsage(CacheUsage usage);
 
+    /**
+     * If this is not called, then {@link CacheUsage#TABLE} should be used.
+     *
+     * @param usage
+     *          a non null usage indicating how the scan should use the tablet server's cache of
+     *          batch scan lookup results
+     * @return may return self or a new object
+     */
+    public Builder setResultCacheUsage(CacheUsage usage);
+
     /**
      * @return an immutable {@link ScanDirectives} object.
      */
@@ -37,11 +37,13 @@ class ScanDirectivesImpl implements ScanDirectives, Builder {
   private String executorName;
   private CacheUsage indexCacheUsage;
   private CacheUsage dataCacheUsage;
+  private CacheUsage resultCacheUsage;
 
   ScanDirectivesImpl() {
     executorName = SimpleScanDispatcher.DEFAULT_SCAN_EXECUTOR_NAME;
     indexCacheUsage = CacheUsage.TABLE;
     dataCacheUsage = CacheUsage.TABLE;
+    resultCacheUsage = CacheUsage.TABLE;
   }
 
   @Override
@@ -78,6 +80,13 @@ class ScanDirectivesImpl implements ScanDirectives, Builder {
     return this;
   }
 
+  @Override
+  public Builder setResultCacheUsage(CacheUsage usage) {
+    Preconditions.checkState(!built);
+    this.resultCacheUsage = Objects.requireNonNull(usage);
+    return this;
+  }
+
   @Override
   public CacheUsage getDataCacheUsage() {
     Preconditions.checkState(built);
@@ -90,9 +99,16 @@ class ScanDirectivesImpl implements ScanDirectives, Builder {
     return indexCacheUsage;
   }
 
+  @Override
+  public CacheUsage getResultCacheUsage() {
+    Preconditions.checkState(built);
+    return resultCacheUsage;
+  }
+
   @Override
   public String toString() {
     return "{executorName=" + executorName + ", indexCacheUsage=" + indexCacheUsage
-        + ", dataCacheUsage=" + dataCacheUsage + ", built=" + built + "}";
+        + ", dataCacheUsage=" + dataCacheUsage + ", resultCacheUsage=" + resultCacheUsage
+        + ", built=" + built + "}";
   }
 }
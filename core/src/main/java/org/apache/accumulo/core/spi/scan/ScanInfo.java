@@ -88,6 +88,28 @@ public interface ScanInfo {
    */
   Stats getIdleTimeStats(long currentTime);
 
+  /**
+   * Returns statistics about the portion of each run that was spent blocked reading file blocks,
+   * for example waiting on the distributed file system. Reads satisfied by the block cache are not
+   * included. Comparing this to {@link #getIteratorTimeStats()} indicates if a scan is I/O or CPU
+   * bound.
+   *
+   * @since 2.1.0
+   */
+  default Stats getBlockReadTimeStats() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns statistics about the portion of each run that was not spent reading file blocks. This
+   * is mostly time spent running iterators and filling the batch of data returned to the client.
+   *
+   * @since 2.1.0
+   */
+  default Stats getIteratorTimeStats() {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * This method returns what column were fetched by a scan. When a family is fetched, a Column
    * object where everything but the family is null is in the set.
@@ -49,6 +49,9 @@ import com.google.common.collect.ImmutableMap;
  * takes precedence over all other settings. See {@link ScannerBase#setExecutionHints(Map)}</LI>
  * <LI>{@code table.scan.dispatcher.opts.cacheUsage.<type>[.index|.data]=enabled|disabled|opportunistic|table}
  * : for scans that set the hint {@code scan_type=<type>} determines how the scan will use cache.
+ * <LI>{@code table.scan.dispatcher.opts.cacheUsage.<type>.result=enabled|disabled|opportunistic|table}
+ * : for scans that set the hint {@code scan_type=<type>} determines how batch scan lookups will use
+ * the tablet server's result cache. This is not set by the {@code cacheUsage.<type>} option.
  * </UL>
  *
  * The {@code multi_executor} and {@code single_executor} options override the {@code executor}
@@ -65,7 +68,8 @@ public class SimpleScanDispatcher implements ScanDispatcher {
   private ScanDirectives multiDirectives;
   private Map<String,Map<ScanInfo.Type,ScanDirectives>> hintDirectives;
 
-  private static Pattern CACHE_PATTERN = Pattern.compile("cacheUsage[.](\\w+)([.](index|data))?");
+  private static Pattern CACHE_PATTERN =
+      Pattern.compile("cacheUsage[.](\\w+)([.](index|data|result))?");
 
   public static final String DEFAULT_SCAN_EXECUTOR_NAME = "default";
 
@@ -75,6 +79,7 @@ public class SimpleScanDispatcher implements ScanDispatcher {
 
     Map<String,CacheUsage> indexCacheUsage = new HashMap<>();
     Map<String,CacheUsage> dataCacheUsage = new HashMap<>();
+    Map<String,CacheUsage> resultCacheUsage = new HashMap<>();
     Map<String,String> scanExecutors = new HashMap<>();
     Set<String> hintScanTypes = new HashSet<>();
 
@@ -97,6 +102,8 @@ public class SimpleScanDispatcher implements ScanDispatcher {
           indexCacheUsage.put(hintScanType, usage);
         } else if ("data".equals(cacheType)) {
           dataCacheUsage.put(hintScanType, usage);
+        } else if ("result".equals(cacheType)) {
+          resultCacheUsage.put(hintScanType, usage);
         } else {
           indexCacheUsage.put(hintScanType, usage);
           dataCacheUsage.put(hintScanType, usage);
@@ -123,17 +130,23 @@ public class SimpleScanDispatcher implements ScanDispatcher {
     for (String hintScanType : hintScanTypes) {
       EnumMap<ScanInfo.Type,ScanDirectives> precomupted = new EnumMap<>(ScanInfo.Type.class);
 
-      precomupted.put(ScanInfo.Type.SINGLE, ScanDirectives.builder()
-          .setExecutorName(
-              scanExecutors.getOrDefault(hintScanType, singleDirectives.getExecutorName()))
-          .setIndexCacheUsage(indexCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
-          .setDataCacheUsage(dataCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE)).build());
-
-      precomupted.put(ScanInfo.Type.MULTI, ScanDirectives.builder()
-          .setExecutorName(
-              scanExecutors.getOrDefault(hintScanType, multiDirectives.getExecutorName()))
-          .setIndexCacheUsage(indexCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
-          .setDataCacheUsage(dataCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE)).build());
+      precomupted.put(ScanInfo.Type.SINGLE,
+          ScanDirectives.builder()
+              .setExecutorName(
+                  scanExecutors.getOrDefault(hintScanType, singleDirectives.getExecutorName()))
+              .setIndexCacheUsage(indexCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .setDataCacheUsage(dataCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .setResultCacheUsage(resultCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .build());
+
+      precomupted.put(ScanInfo.Type.MULTI,
+          ScanDirectives.builder()
+              .setExecutorName(
+                  scanExecutors.getOrDefault(hintScanType, multiDirectives.getExecutorName()))
+              .setIndexCacheUsage(indexCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .setDataCacheUsage(dataCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .setResultCacheUsage(resultCacheUsage.getOrDefault(hintScanType, CacheUsage.TABLE))
+              .build());
 
       stpb.put(hintScanType, precomupted);
     }
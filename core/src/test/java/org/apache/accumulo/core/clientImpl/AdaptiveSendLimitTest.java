@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AdaptiveSendLimitTest {
+
+  @Test
+  public void testAdditiveIncrease() {
+    AdaptiveSendLimit limit = new AdaptiveSendLimit(4);
+    assertEquals(1, limit.getLimit());
+    assertTrue(limit.tryAcquire());
+    assertFalse(limit.tryAcquire());
+
+    // a steady latency grows the limit up to the max
+    for (int i = 0; i < 100; i++) {
+      limit.sendSucceeded(10);
+    }
+    assertEquals(4, limit.getLimit());
+    assertTrue(limit.tryAcquire());
+    assertTrue(limit.tryAcquire());
+    assertTrue(limit.tryAcquire());
+    assertFalse(limit.tryAcquire());
+    assertEquals(4, limit.getInFlight());
+  }
+
+  @Test
+  public void testMultiplicativeDecrease() {
+    AdaptiveSendLimit limit = new AdaptiveSendLimit(16);
+    for (int i = 0; i < 200; i++) {
+      limit.sendSucceeded(10);
+    }
+    assertEquals(16, limit.getLimit());
+
+    // a send much slower than usual halves the limit
+    limit.sendSucceeded(100);
+    assertEquals(8, limit.getLimit());
+
+    limit.sendFailed();
+    assertEquals(4, limit.getLimit());
+    limit.sendFailed();
+    limit.sendFailed();
+    limit.sendFailed();
+    assertEquals(1, limit.getLimit());
+  }
+
+  @Test
+  public void testOverLimit() {
+    AdaptiveSendLimit limit = new AdaptiveSendLimit(8);
+    for (int i = 0; i < 20; i++) {
+      limit.sendSucceeded(10);
+    }
+    int max = limit.getLimit();
+    for (int i = 0; i < max; i++) {
+      assertTrue(limit.tryAcquire());
+    }
+    assertFalse(limit.isOverLimit());
+
+    limit.sendFailed();
+    assertTrue(limit.isOverLimit());
+    while (limit.isOverLimit()) {
+      limit.release();
+    }
+    assertEquals(limit.getLimit(), limit.getInFlight());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.accumulo.core.clientImpl.TabletLocator.TabletServerMutations;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class InFlightExtentsTest {
+
+  private static KeyExtent extent(String endRow) {
+    return new KeyExtent(TableId.of("1"), new Text(endRow), null);
+  }
+
+  private static Mutation mutation(String row) {
+    Mutation m = new Mutation(row);
+    m.put("cf", "cq", "v");
+    return m;
+  }
+
+  @Test
+  public void testTabletsInFlightWait() {
+    InFlightExtents inFlight = new InFlightExtents();
+    TabletServerMutations<Mutation> queued = new TabletServerMutations<>("session");
+    queued.addMutation(extent("a"), mutation("1"));
+    queued.addMutation(extent("b"), mutation("2"));
+
+    TabletServerMutations<Mutation> first = inFlight.take(queued);
+    assertEquals(Set.of(extent("a"), extent("b")), first.getMutations().keySet());
+    assertTrue(queued.getMutations().isEmpty());
+
+    // a second send only gets the tablets the first send does not have
+    queued.addMutation(extent("a"), mutation("3"));
+    queued.addMutation(extent("c"), mutation("4"));
+    TabletServerMutations<Mutation> second = inFlight.take(queued);
+    assertEquals(Set.of(extent("c")), second.getMutations().keySet());
+    assertEquals(Set.of(extent("a")), queued.getMutations().keySet());
+    assertNull(inFlight.take(queued));
+
+    inFlight.sent(first);
+    TabletServerMutations<Mutation> third = inFlight.take(queued);
+    assertEquals(Set.of(extent("a")), third.getMutations().keySet());
+    assertEquals("session", third.getSession());
+    assertTrue(queued.getMutations().isEmpty());
+
+    inFlight.sent(second);
+    inFlight.sent(third);
+    assertTrue(inFlight.isEmpty());
+  }
+
+  private static void apply(TabletServerMutations<Mutation> send,
+      Map<KeyExtent,List<Integer>> applied) {
+    send.getMutations()
+        .forEach((extent, mutations) -> mutations
+            .forEach(m -> applied.computeIfAbsent(extent, k -> new ArrayList<>())
+                .add(Integer.parseInt(new String(m.getRow(), UTF_8)))));
+  }
+
+  @Test
+  public void testMutationsForATabletAreSentInOrder() {
+    Random rand = new Random(42);
+    List<KeyExtent> extents = List.of(extent("a"), extent("b"), extent("c"), extent("d"));
+
+    InFlightExtents inFlight = new InFlightExtents();
+    TabletServerMutations<Mutation> queued = new TabletServerMutations<>("session");
+    List<TabletServerMutations<Mutation>> running = new ArrayList<>();
+    Map<KeyExtent,List<Integer>> added = new HashMap<>();
+    Map<KeyExtent,List<Integer>> applied = new HashMap<>();
+
+    for (int i = 0; i < 10_000; i++) {
+      int action = rand.nextInt(3);
+      if (action == 0) {
+        KeyExtent extent = extents.get(rand.nextInt(extents.size()));
+        queued.addMutation(extent, mutation(Integer.toString(i)));
+        added.computeIfAbsent(extent, k -> new ArrayList<>()).add(i);
+      } else if (action == 1) {
+        TabletServerMutations<Mutation> send = inFlight.take(queued);
+        if (send != null) {
+          running.add(send);
+        }
+      } else if (!running.isEmpty()) {
+        // sends finish in any order
+        TabletServerMutations<Mutation> send = running.remove(rand.nextInt(running.size()));
+        apply(send, applied);
+        inFlight.sent(send);
+      }
+
+      // no two running sends have mutations for the same tablet
+      Set<KeyExtent> seen = new HashSet<>();
+      for (TabletServerMutations<Mutation> send : running) {
+        assertTrue(Collections.disjoint(seen, send.getMutations().keySet()));
+        seen.addAll(send.getMutations().keySet());
+      }
+    }
+
+    for (TabletServerMutations<Mutation> send : running) {
+      apply(send, applied);
+      inFlight.sent(send);
+    }
+    TabletServerMutations<Mutation> last = inFlight.take(queued);
+    if (last != null) {
+      apply(last, applied);
+    }
+
+    assertEquals(added, applied);
+  }
+}
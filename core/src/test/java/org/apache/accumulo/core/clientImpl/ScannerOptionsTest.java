@@ -19,6 +19,9 @@
 package org.apache.accumulo.core.clientImpl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.SortedSet;
@@ -85,4 +88,38 @@ public class ScannerOptionsTest {
       options.fetchColumn(null);
     }
   }
+
+  @Test
+  public void testReadaheadWindow() {
+    try (ScannerOptions options = new ScannerOptions()) {
+      assertEquals(1, options.getReadaheadWindowBatches());
+      assertEquals(0, options.getReadaheadWindowBytes());
+      options.setReadaheadWindow(4, 1 << 20);
+
+      ScannerOptions copy = new ScannerOptions(options);
+      assertEquals(4, copy.getReadaheadWindowBatches());
+      assertEquals(1 << 20, copy.getReadaheadWindowBytes());
+
+      assertThrows(IllegalArgumentException.class, () -> options.setReadaheadWindow(0, 0));
+      assertThrows(IllegalArgumentException.class, () -> options.setReadaheadWindow(2, -1));
+    }
+  }
+
+  @Test
+  public void testBloomFilterPrecheckCopied() {
+    try (ScannerOptions options = new ScannerOptions()) {
+      assertFalse(new ScannerOptions(options).bloomFilterPrecheck);
+      options.bloomFilterPrecheck = true;
+      assertTrue(new ScannerOptions(options).bloomFilterPrecheck);
+    }
+  }
+
+  @Test
+  public void testSplitLargeRangesCopied() {
+    try (ScannerOptions options = new ScannerOptions()) {
+      assertFalse(new ScannerOptions(options).splitLargeRanges);
+      options.splitLargeRanges = true;
+      assertTrue(new ScannerOptions(options).splitLargeRanges);
+    }
+  }
 }
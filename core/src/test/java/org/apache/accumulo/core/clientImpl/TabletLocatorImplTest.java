@@ -35,6 +35,11 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocation;
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletLocations;
@@ -1413,4 +1418,96 @@ public class TabletLocatorImplTest {
     runTest(ranges, metaCache, expected);
   }
 
+  @Test
+  public void testPrefetch() throws Exception {
+    TServers tservers = new TServers();
+    KeyExtent ke1 = nke("foo", "g", null);
+    KeyExtent ke2 = nke("foo", "r", "g");
+    KeyExtent ke3 = nke("foo", null, "r");
+    TabletLocatorImpl metaCache =
+        createLocators(tservers, "tserver1", "tserver2", "foo", ke1, "l1", ke2, "l2", ke3, "l3");
+
+    metaCache.prefetchLocations();
+
+    // locating the last tablet loads the locations of the whole table
+    locateTabletTest(metaCache, "z", ke3, "l3");
+
+    // with the metadata tablet gone, the other locations can only come from the cache
+    deleteServer(tservers, "tserver2");
+    locateTabletTest(metaCache, "a", ke1, "l1");
+    locateTabletTest(metaCache, "h", ke2, "l2");
+  }
+
+  @Test
+  public void testConcurrentBinningAndInvalidation() throws Exception {
+    KeyExtent ke1 = nke("foo", "g", null);
+    KeyExtent ke2 = nke("foo", "r", "g");
+    KeyExtent ke3 = nke("foo", null, "r");
+    TabletLocatorImpl metaCache = createLocators("foo", ke1, "l1", ke2, "l2", ke3, "l3");
+
+    List<Mutation> ml = nml(nm("a", "cf1:cq1=v1"), nm("h", "cf1:cq1=v2"), nm("z", "cf1:cq1=v3"));
+    Map<String,Map<KeyExtent,List<String>>> emb =
+        cemb(nol("a", "l1", ke1), nol("h", "l2", ke2), nol("z", "l3", ke3));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 3; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            runTest(metaCache, ml, emb);
+          }
+          return null;
+        }));
+      }
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          metaCache.invalidateCache(i % 2 == 0 ? ke2 : ke3);
+        }
+      }));
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testInvalidationDuringLookup() throws Exception {
+    TServers tservers = new TServers();
+    KeyExtent ke1 = nke("foo", null, null);
+    AtomicReference<TabletLocatorImpl> cacheRef = new AtomicReference<>();
+    AtomicBoolean invalidate = new AtomicBoolean(false);
+    TestTabletLocationObtainer ttlo = new TestTabletLocationObtainer(tservers) {
+      @Override
+      public List<TabletLocation> lookupTablets(ClientContext context, String tserver,
+          Map<KeyExtent,List<Range>> map, TabletLocator parent) {
+        List<TabletLocation> locations = super.lookupTablets(context, tserver, map, parent);
+        // the tablet is reported to have moved after the lookup read its old location
+        if (invalidate.getAndSet(false)) {
+          cacheRef.get().invalidateCache(ke1);
+        }
+        return locations;
+      }
+    };
+
+    TabletLocatorImpl rootTabletCache = new TabletLocatorImpl(MetadataTable.ID,
+        new TestRootTabletLocator(), ttlo, new YesLockChecker());
+    TabletLocatorImpl metaCache =
+        new TabletLocatorImpl(TableId.of("foo"), rootTabletCache, ttlo, new YesLockChecker());
+    cacheRef.set(metaCache);
+
+    setLocation(tservers, "tserver1", RTE, MTE, "tserver2");
+    setLocation(tservers, "tserver2", MTE, ke1, "l1");
+    locateTabletTest(metaCache, "a", ke1, "l1");
+
+    metaCache.invalidateCache(ke1);
+    invalidate.set(true);
+    locateTabletTest(metaCache, "a", ke1, "l1");
+
+    // the invalidation made during the lookup was kept, so the new location is looked up
+    setLocation(tservers, "tserver2", MTE, ke1, "l2");
+    locateTabletTest(metaCache, "a", ke1, "l2");
+  }
 }
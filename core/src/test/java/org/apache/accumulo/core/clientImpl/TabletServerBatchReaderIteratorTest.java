@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.apache.accumulo.core.clientImpl.TabletServerBatchReaderIterator.getPieces;
+import static org.apache.accumulo.core.clientImpl.TabletServerBatchReaderIterator.splitRange;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class TabletServerBatchReaderIteratorTest {
+
+  private static List<Text> rows(String... rows) {
+    return Stream.of(rows).map(Text::new).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testSplitRange() {
+    assertEquals(List.of(new Range()), splitRange(new Range(), List.of()));
+
+    assertEquals(List.of(new Range(null, false, "b", true), new Range("b", false, "m", true),
+        new Range("m", false, null, true)), splitRange(new Range(), rows("b", "m")));
+
+    // the first and last pieces keep the bounds of the range
+    Range range = new Range(new Key("a", "f", "q"), false, new Key("z", "f", "q"), true);
+    List<Range> pieces = splitRange(range, rows("c"));
+    assertEquals(2, pieces.size());
+    assertEquals(new Range(range.getStartKey(), false, new Range("a", "c").getEndKey(), false),
+        pieces.get(0));
+    assertEquals(
+        new Range(new Range("c", false, "z", true).getStartKey(), true, range.getEndKey(), true),
+        pieces.get(1));
+  }
+
+  @Test
+  public void testSplitRangeOutsideRows() {
+    // rows outside of the range do not create empty pieces
+    Range range = new Range("d", true, "f", true);
+    assertEquals(List.of(new Range("d", true, "e", true), new Range("e", false, "f", true)),
+        splitRange(range, rows("a", "e", "x")));
+  }
+
+  @Test
+  public void testGetPieces() {
+    Range range = new Range("a", "z");
+    List<Range> pieces = List.of(new Range("a", "m"), new Range("m", false, "z", true));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    assertEquals(pieces, getPieces(CompletableFuture.completedFuture(pieces), range, deadline));
+
+    // a range that could not be split is scanned whole
+    assertEquals(List.of(range),
+        getPieces(CompletableFuture.failedFuture(new IllegalStateException()), range, deadline));
+
+    // as is a range whose split rows did not arrive before the deadline
+    CompletableFuture<List<Range>> slow = new CompletableFuture<>();
+    assertEquals(List.of(range), getPieces(slow, range, System.nanoTime()));
+    assertTrue(slow.isCancelled());
+  }
+}
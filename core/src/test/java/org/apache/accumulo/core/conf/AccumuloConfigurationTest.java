@@ -368,4 +368,52 @@ public class AccumuloConfigurationTest {
         tc.getScanExecutors().stream().filter(c -> c.name.equals("hulksmash")).findFirst().get();
     assertEquals(44, sec8.maxThreads);
   }
+
+  @Test
+  public void testAdaptiveScanExecutors() {
+    TestConfiguration tc = new TestConfiguration(DefaultConfiguration.getInstance());
+    String prefix = Property.TSERV_SCAN_EXECUTORS_PREFIX.getKey();
+
+    ScanExecutorConfig sec = tc.getScanExecutors().stream()
+        .filter(c -> c.name.equals(SimpleScanDispatcher.DEFAULT_SCAN_EXECUTOR_NAME)).findFirst()
+        .get();
+    assertFalse(sec.isAdaptive());
+
+    tc.set(prefix + "io.threads", "8");
+    tc.set(prefix + "io.adaptive.threads.max", "32");
+    sec = tc.getScanExecutors().stream().filter(c -> c.name.equals("io")).findFirst().get();
+    assertTrue(sec.isAdaptive());
+    assertEquals(8, sec.maxThreads);
+    assertEquals(1, sec.adaptiveMinThreads.getAsInt());
+    assertEquals(32, sec.adaptiveMaxThreads.getAsInt());
+
+    tc.set(prefix + "io.adaptive.threads.min", "4");
+    sec = tc.getScanExecutors().stream().filter(c -> c.name.equals("io")).findFirst().get();
+    assertEquals(4, sec.adaptiveMinThreads.getAsInt());
+
+    // the configured threads must be within the adaptive bounds
+    tc.set(prefix + "io.adaptive.threads.min", "10");
+    assertThrows(IllegalArgumentException.class, tc::getScanExecutors);
+    tc.set(prefix + "io.adaptive.threads.min", "4");
+    tc.set(prefix + "io.adaptive.threads.max", "6");
+    assertThrows(IllegalArgumentException.class, tc::getScanExecutors);
+  }
+
+  @Test
+  public void testFairShareScanExecutors() {
+    TestConfiguration tc = new TestConfiguration(DefaultConfiguration.getInstance());
+    String prefix = Property.TSERV_SCAN_EXECUTORS_PREFIX.getKey();
+
+    assertTrue(tc.getScanExecutors().stream().noneMatch(c -> c.fairShare));
+
+    tc.set(prefix + "shared.threads", "8");
+    tc.set(prefix + "shared.fairshare", "true");
+    ScanExecutorConfig sec =
+        tc.getScanExecutors().stream().filter(c -> c.name.equals("shared")).findFirst().get();
+    assertTrue(sec.fairShare);
+
+    // fair share admission orders the queue, so it can not be used with a prioritizer
+    tc.set(prefix + "shared.prioritizer", "com.foo.ScanPrioritizer");
+    assertThrows(IllegalArgumentException.class, tc::getScanExecutors);
+  }
 }
@@ -144,6 +144,12 @@ public class PropertyTypeTest {
     invalid("", "other");
   }
 
+  @Test
+  public void testTypeBLOCK_ENCODING() {
+    valid(null, "relative", "dictionary");
+    invalid("", "other", "Dictionary");
+  }
+
   @Test
   public void testTypeGC_POST_ACTION() {
     valid(null, "none", "flush", "compact");
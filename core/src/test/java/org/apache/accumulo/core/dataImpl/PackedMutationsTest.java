@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.dataImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.dataImpl.thrift.TMutation;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Test;
+
+public class PackedMutationsTest {
+
+  private static List<Mutation> newMutations(int count) {
+    Random rand = new Random(42);
+    List<Mutation> mutations = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Mutation m = new Mutation(String.format("r%06d", i));
+      m.put("f1", "q1", new ColumnVisibility("A&B"), i, new Value("v" + i));
+      m.putDelete("f2", "q2");
+      if (i % 10 == 0) {
+        // large values are kept out of the mutation data buffer
+        byte[] big = new byte[1 << 16];
+        rand.nextBytes(big);
+        m.put("f3", "q3", new Value(big));
+      }
+      mutations.add(m);
+    }
+    return mutations;
+  }
+
+  private static void runTest(String algorithmName) {
+    Algorithm algorithm = Compression.getCompressionAlgorithmByName(algorithmName);
+    List<Mutation> expected = newMutations(100);
+
+    TMutation packed = PackedMutations.pack(expected, algorithm);
+    assertTrue(PackedMutations.isPacked(packed));
+
+    List<Mutation> actual = new ArrayList<>();
+    PackedMutations.unpack(packed).forEach(actual::add);
+    assertEquals(expected, actual);
+
+    // the packed data can be read more than once
+    List<Mutation> again = new ArrayList<>();
+    PackedMutations.unpack(packed).forEach(again::add);
+    assertEquals(expected, again);
+  }
+
+  @Test
+  public void testUncompressed() {
+    runTest(Compression.COMPRESSION_NONE);
+  }
+
+  @Test
+  public void testCompressed() {
+    runTest(Compression.COMPRESSION_GZ);
+  }
+
+  @Test
+  public void testEmpty() {
+    TMutation packed = PackedMutations.pack(List.of(),
+        Compression.getCompressionAlgorithmByName(Compression.COMPRESSION_NONE));
+    assertFalse(PackedMutations.unpack(packed).iterator().hasNext());
+  }
+
+  @Test
+  public void testNotPacked() {
+    Mutation m = new Mutation("r1");
+    m.put("f", "q", "v");
+    TMutation tmutation = m.toThrift();
+    assertFalse(PackedMutations.isPacked(tmutation));
+    assertThrows(IllegalArgumentException.class, () -> PackedMutations.unpack(tmutation));
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.core.file;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -146,6 +147,71 @@ public class BloomFilterLayerLookupTest {
     assertTrue(rate1 > rate2);
   }
 
+  @Test
+  public void testProbablyHasKey() throws Exception {
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_KEY_FUNCTOR, ColumnFamilyFunctor.class.getName());
+    acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1");
+    acuconf.set(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT, "1");
+
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.get(conf);
+
+    String suffix = FileOperations.getNewFileExtension(acuconf);
+    String fname = new File(tempDir.getRoot(), testName + "." + suffix).getAbsolutePath();
+    FileSKVWriter bmfw = FileOperations.getInstance().newWriterBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+    bmfw.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      bmfw.append(new Key(new Text(String.format("r%05d", i)), new Text("cf1")), new Value("v"));
+    }
+    bmfw.close();
+
+    BloomFilterLayer.Reader bmfr = (BloomFilterLayer.Reader) FileOperations.getInstance()
+        .newReaderBuilder().forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+
+    // the first check starts loading the bloom filter, until it is loaded every range may have keys
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (bmfr.probablyHasKey(familyRange("s00000", "cf1"))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    int ruledOut = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (!bmfr.probablyHasKey(familyRange(String.format("s%05d", i), "cf1"))) {
+        ruledOut++;
+      }
+    }
+    // most keys that are not in the file are ruled out
+    assertTrue(ruledOut > 900);
+
+    // a key that is in the file is never ruled out
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(bmfr.probablyHasKey(familyRange(String.format("r%05d", i), "cf1")));
+    }
+
+    // no bloom key can be built for a range over many rows, so it may have keys
+    int mayHaveKeys = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (bmfr.probablyHasKey(new Range(String.format("s%05d", i), String.format("t%05d", i)))) {
+        mayHaveKeys++;
+      }
+    }
+    assertEquals(1000, mayHaveKeys);
+
+    bmfr.close();
+  }
+
+  private static Range familyRange(String row, String family) {
+    Key k = new Key(new Text(row), new Text(family));
+    return new Range(k, true, k.followingKey(PartialKey.ROW_COLFAM), false);
+  }
+
   private void seek(FileSKVIterator bmfr, int row) throws IOException {
     String fi = String.format("%010d", row);
     // bmfr.seek(new Range(new Text("r"+fi)));
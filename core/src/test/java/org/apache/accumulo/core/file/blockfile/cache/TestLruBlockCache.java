@@ -22,10 +22,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Random;
 
 import org.apache.accumulo.core.conf.ConfigurationCopy;
@@ -39,6 +41,7 @@ import org.apache.accumulo.core.file.blockfile.cache.lru.HeapSize;
 import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCache;
 import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheConfiguration;
 import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
 import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.cache.CacheType;
@@ -492,6 +495,138 @@ public class TestLruBlockCache {
     manager.stop();
   }
 
+  private LruBlockCache startPartitionedCache(BlockCacheManager manager, long maxSize,
+      long blockSize, LruBlockCacheConfiguration.Builder builder) throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, LruBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Long.toString(blockSize));
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(maxSize));
+    builder.useEvictionThread(false).minFactor(0.6f).acceptableFactor(0.99f).buildMap()
+        .forEach(cc::set);
+    manager.start(new BlockCacheConfiguration(cc));
+    return (LruBlockCache) manager.getBlockCache(CacheType.INDEX);
+  }
+
+  private int countCached(LruBlockCache cache, Block[] blocks) {
+    int cached = 0;
+    for (Block block : blocks) {
+      if (cache.getBlock(block.blockName) != null) {
+        cached++;
+      }
+    }
+    return cached;
+  }
+
+  @Test
+  public void testPartitions() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSize(maxSize, 10);
+
+    BlockCacheManager manager = new LruBlockCacheManager();
+    LruBlockCache cache = startPartitionedCache(manager, maxSize, blockSize,
+        LruBlockCacheConfiguration.builder(CacheType.INDEX).partitioned(true));
+
+    BlockCache t1 = cache.getPartition("t1", 3);
+    BlockCache t2 = cache.getPartition("t2", 1);
+
+    Block[] t1Blocks = generateFixedBlocks(5, blockSize, "t1");
+    Block[] t2Blocks = generateFixedBlocks(40, blockSize, "t2");
+
+    for (Block block : t1Blocks) {
+      t1.cacheBlock(block.blockName, block.buf);
+    }
+
+    // a scan over many blocks of the second table only evicts its own blocks once the first
+    // table is down to its share of the cache
+    for (Block block : t2Blocks) {
+      t2.cacheBlock(block.blockName, block.buf);
+    }
+
+    assertEquals(8, cache.getEvictionCount());
+    assertEquals(40, cache.getEvictedCount());
+    // the first partition keeps three quarters of the minimum size, which is room for 4 blocks
+    assertEquals(4, countCached(cache, t1Blocks));
+    assertEquals(1, countCached(cache, t2Blocks));
+
+    // blocks loaded through a partition are added to it
+    Block[] loaded = generateFixedBlocks(40, blockSize, "loaded");
+    for (Block block : loaded) {
+      assertNotNull(t1.getBlock(block.blockName, new BlockCache.Loader() {
+        @Override
+        public Map<String,BlockCache.Loader> getDependencies() {
+          return Map.of();
+        }
+
+        @Override
+        public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+          return block.buf;
+        }
+      }));
+    }
+    // the blocks of the first partition replaced each other, the second partition kept its share
+    assertEquals(0, countCached(cache, t1Blocks));
+    assertEquals(4, countCached(cache, loaded));
+    assertEquals(1, countCached(cache, t2Blocks));
+
+    manager.stop();
+  }
+
+  @Test
+  public void testPartitionsDisabled() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSize(maxSize, 10);
+
+    BlockCacheManager manager = new LruBlockCacheManager();
+    LruBlockCache cache = startPartitionedCache(manager, maxSize, blockSize,
+        LruBlockCacheConfiguration.builder(CacheType.INDEX));
+
+    assertSame(cache, cache.getPartition("t1", 1));
+
+    manager.stop();
+  }
+
+  @Test
+  public void testGhostAdmission() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSize(maxSize, 10);
+
+    BlockCacheManager manager = new LruBlockCacheManager();
+    LruBlockCache cache = startPartitionedCache(manager, maxSize, blockSize,
+        LruBlockCacheConfiguration.builder(CacheType.INDEX).ghostFactor(1.0f));
+
+    Block[] hotBlocks = generateFixedBlocks(6, blockSize, "hot");
+    Block[] scanBlocks = generateFixedBlocks(40, blockSize, "scan");
+
+    for (Block block : hotBlocks) {
+      cache.cacheBlock(block.blockName, block.buf);
+    }
+    // blocks are admitted until the cache reaches its minimum size
+    assertEquals(6, cache.size());
+    assertEquals(0, cache.getRejectedCount());
+
+    for (Block block : scanBlocks) {
+      CacheEntry ce = cache.cacheBlock(block.blockName, block.buf);
+      assertSame(block.buf, ce.getBuffer());
+    }
+    // blocks that are read once are handed back without being cached
+    assertEquals(6, countCached(cache, hotBlocks));
+    assertEquals(0, countCached(cache, scanBlocks));
+    assertEquals(40, cache.getRejectedCount());
+    assertEquals(0, cache.getEvictedCount());
+
+    // a block that is read again while its name is remembered is admitted
+    cache.cacheBlock(scanBlocks[39].blockName, scanBlocks[39].buf);
+    assertNotNull(cache.getBlock(scanBlocks[39].blockName));
+    assertEquals(40, cache.getRejectedCount());
+
+    // the name of a block rejected long ago is forgotten
+    cache.cacheBlock(scanBlocks[0].blockName, scanBlocks[0].buf);
+    assertNull(cache.getBlock(scanBlocks[0].blockName));
+    assertEquals(41, cache.getRejectedCount());
+
+    manager.stop();
+  }
+
   private Block[] generateFixedBlocks(int numBlocks, int size, String pfx) {
     Block[] blocks = new Block[numBlocks];
     for (int i = 0; i < numBlocks; i++) {
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BlockStoreTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static byte[] block(int fill, int length) {
+    byte[] b = new byte[length];
+    Arrays.fill(b, (byte) fill);
+    return b;
+  }
+
+  @Test
+  public void testEvictsOldestWhenFull() {
+    // three segments of 100 bytes, each holds two 40 byte blocks
+    BlockStore store = BlockStore.offHeap(300, 100);
+    assertEquals(300, store.getMaxSize());
+
+    for (int i = 0; i < 6; i++) {
+      assertTrue(store.put("b" + i, block(i, 40)));
+    }
+    for (int i = 0; i < 6; i++) {
+      assertArrayEquals(block(i, 40), store.get("b" + i));
+    }
+    assertEquals(0, store.getEvictionCount());
+
+    // wraps around to the first segment, overwriting b0
+    assertTrue(store.put("b6", block(6, 40)));
+    assertNull(store.get("b0"));
+    assertArrayEquals(block(1, 40), store.get("b1"));
+    assertArrayEquals(block(6, 40), store.get("b6"));
+
+    // does not fit in the rest of the first segment, so b1 is dropped with the segment and the
+    // block is written over b2 at the start of the second segment
+    assertTrue(store.put("b7", block(7, 70)));
+    assertNull(store.get("b1"));
+    assertNull(store.get("b2"));
+    assertNull(store.get("b3"));
+    assertArrayEquals(block(7, 70), store.get("b7"));
+    assertArrayEquals(block(4, 40), store.get("b4"));
+    assertArrayEquals(block(6, 40), store.get("b6"));
+
+    assertEquals(4, store.getEvictionCount());
+    assertEquals(8, store.getAdmissionCount());
+    assertEquals(4, store.getBlockCount());
+  }
+
+  @Test
+  public void testRemoveAndReplace() {
+    BlockStore store = BlockStore.offHeap(100, 100);
+    assertTrue(store.put("a", block(1, 30)));
+    assertTrue(store.put("b", block(2, 30)));
+    store.remove("a");
+    assertNull(store.get("a"));
+    assertTrue(store.put("b", block(3, 30)));
+    assertArrayEquals(block(3, 30), store.get("b"));
+
+    // overwriting the space of the removed and replaced blocks is not an eviction
+    assertTrue(store.put("c", block(4, 30)));
+    assertTrue(store.put("d", block(5, 30)));
+    assertEquals(0, store.getEvictionCount());
+    assertArrayEquals(block(3, 30), store.get("b"));
+
+    assertFalse(store.put("huge", block(6, 101)));
+    assertNull(store.get("huge"));
+  }
+
+  @Test
+  public void testMappedFile() throws Exception {
+    File dir = tempFolder.newFolder();
+    BlockStore store = BlockStore.mapped(dir.toPath(), 1000, 256);
+    // rounded up to whole segments, which hold two blocks each
+    assertEquals(1024, store.getMaxSize());
+    for (int i = 0; i < 50; i++) {
+      assertTrue(store.put("b" + i, block(i, 100)));
+    }
+    for (int i = 42; i < 50; i++) {
+      assertArrayEquals(block(i, 100), store.get("b" + i));
+    }
+    assertEquals(0, dir.list().length);
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.tiered;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TieredBlockCacheTest {
+
+  private static final int BLOCK_SIZE = 16 * 1024;
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static ConfigurationCopy newConfig(Map<String,String> props) {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, TieredBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Integer.toString(BLOCK_SIZE));
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(1024 * 1024));
+    props.forEach(cc::set);
+    return cc;
+  }
+
+  /**
+   * Creates a cache that spills evicted blocks on the calling thread, so the tests can check the
+   * second tier right away.
+   */
+  private static TieredBlockCache startCache(Map<String,String> props) {
+    TieredBlockCacheConfiguration conf = new TieredBlockCacheConfiguration(
+        new BlockCacheConfiguration(newConfig(props)), CacheType.DATA);
+    return new TieredBlockCache(conf, CacheType.DATA, Runnable::run);
+  }
+
+  private static byte[] block(int i) {
+    byte[] b = new byte[BLOCK_SIZE];
+    Arrays.fill(b, (byte) i);
+    return b;
+  }
+
+  private static void verifySpillAndPromote(TieredBlockCache cache) {
+    // four times as many blocks as fit on the heap, but fewer than fit in both tiers
+    int numBlocks = 256;
+    for (int i = 0; i < numBlocks; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+
+    TieredBlockCache.Stats stats = cache.getStats();
+    assertTrue(stats.l1().evictionCount() > 0);
+    assertEquals(stats.l1().evictionCount(), stats.l2().admissionCount());
+    assertEquals(numBlocks, stats.l1().admissionCount());
+
+    for (int i = 0; i < numBlocks; i++) {
+      CacheEntry entry = cache.getBlock("b" + i);
+      assertNotNull("b" + i, entry);
+      assertArrayEquals(block(i), entry.getBuffer());
+    }
+
+    stats = cache.getStats();
+    assertEquals(numBlocks, stats.requestCount());
+    assertEquals(numBlocks, stats.hitCount());
+    assertTrue(stats.l2().hitCount() > 0);
+    assertEquals(numBlocks - stats.l1().hitCount(), stats.l2().requestCount());
+    assertEquals(0, stats.l2().evictionCount());
+    // blocks copied back to the heap stay in the second tier, so none were written to it twice
+    assertTrue(stats.l2().admissionCount() <= numBlocks);
+  }
+
+  @Test
+  public void testOffHeap() throws Exception {
+    TieredBlockCache cache = startCache(TieredBlockCacheConfiguration.builder(CacheType.DATA)
+        .l2Size(8 * 1024 * 1024).l2SegmentSize(1024 * 1024).buildMap());
+    assertEquals(1024 * 1024, cache.getMaxHeapSize());
+    assertEquals(9 * 1024 * 1024, cache.getMaxSize());
+    verifySpillAndPromote(cache);
+  }
+
+  @Test
+  public void testMappedFile() throws Exception {
+    File dir = tempFolder.newFolder();
+    TieredBlockCache cache = startCache(TieredBlockCacheConfiguration.builder(CacheType.DATA)
+        .l2Size(8 * 1024 * 1024).l2Type(TieredBlockCacheConfiguration.L2_TYPE_FILE)
+        .l2Dir(dir.getAbsolutePath()).buildMap());
+    verifySpillAndPromote(cache);
+  }
+
+  @Test
+  public void testLoaderNotCalledForSecondTierHit() throws Exception {
+    TieredBlockCache cache = startCache(
+        TieredBlockCacheConfiguration.builder(CacheType.DATA).l2Size(8 * 1024 * 1024).buildMap());
+    for (int i = 0; i < 256; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+
+    int[] loads = new int[1];
+    for (int i = 0; i < 256; i++) {
+      int fill = i;
+      CacheEntry entry = cache.getBlock("b" + i, new BlockCache.Loader() {
+        @Override
+        public Map<String,BlockCache.Loader> getDependencies() {
+          return Collections.emptyMap();
+        }
+
+        @Override
+        public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+          loads[0]++;
+          return block(fill);
+        }
+      });
+      assertArrayEquals(block(i), entry.getBuffer());
+    }
+    assertEquals(0, loads[0]);
+  }
+
+  @Test
+  public void testWithoutSecondTier() throws Exception {
+    TieredBlockCache cache = startCache(Collections.emptyMap());
+    assertEquals(cache.getMaxHeapSize(), cache.getMaxSize());
+    for (int i = 0; i < 256; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+    assertEquals(0, cache.getStats().l2().admissionCount());
+  }
+
+  @Test
+  public void testManager() throws Exception {
+    ConfigurationCopy cc = newConfig(
+        TieredBlockCacheConfiguration.builder(CacheType.DATA).l2Size(8 * 1024 * 1024).buildMap());
+    BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(new BlockCacheConfiguration(cc));
+    BlockCache data = manager.getBlockCache(CacheType.DATA);
+    BlockCache index = manager.getBlockCache(CacheType.INDEX);
+    assertEquals(9 * 1024 * 1024, data.getMaxSize());
+    // the second tier was only configured for data blocks
+    assertEquals(index.getMaxHeapSize(), index.getMaxSize());
+    manager.stop();
+  }
+
+  @Test
+  public void testInvalidType() {
+    assertThrows(IllegalArgumentException.class,
+        () -> startCache(Map.of(BlockCacheManager
+            .getFullyQualifiedPropertyPrefix(TieredBlockCacheConfiguration.PROPERTY_PREFIX)
+            + TieredBlockCacheConfiguration.L2_TYPE_PROPERTY, "ramdisk")));
+  }
+}
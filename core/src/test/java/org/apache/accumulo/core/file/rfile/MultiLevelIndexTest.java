@@ -20,17 +20,26 @@ package org.apache.accumulo.core.file.rfile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.SecureRandom;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
 import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.crypto.CryptoServiceFactory;
 import org.apache.accumulo.core.crypto.CryptoServiceFactory.ClassloaderType;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
 import org.apache.accumulo.core.file.rfile.MultiLevelIndex.BufferedWriter;
@@ -40,6 +49,10 @@ import org.apache.accumulo.core.file.rfile.MultiLevelIndex.Reader.IndexIterator;
 import org.apache.accumulo.core.file.rfile.MultiLevelIndex.Writer;
 import org.apache.accumulo.core.file.rfile.RFileTest.SeekableByteArrayInputStream;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -61,7 +74,70 @@ public class MultiLevelIndexTest {
     runTest(1, 100);
   }
 
+  @Test
+  public void testCachedIndex() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, "10M");
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(cc));
+
+    BlockCache indexCache = manager.getBlockCache(CacheType.INDEX);
+    Set<String> indexBlocks = new HashSet<>();
+    BlockCache recordingCache = new BlockCache() {
+      @Override
+      public CacheEntry cacheBlock(String blockName, byte[] buf) {
+        return indexCache.cacheBlock(blockName, buf);
+      }
+
+      @Override
+      public CacheEntry getBlock(String blockName) {
+        return indexCache.getBlock(blockName);
+      }
+
+      @Override
+      public CacheEntry getBlock(String blockName, Loader loader) {
+        if (blockName.contains("R")) {
+          indexBlocks.add(blockName);
+        }
+        return indexCache.getBlock(blockName, loader);
+      }
+
+      @Override
+      public long getMaxHeapSize() {
+        return indexCache.getMaxHeapSize();
+      }
+
+      @Override
+      public long getMaxSize() {
+        return indexCache.getMaxSize();
+      }
+
+      @Override
+      public Stats getStats() {
+        return indexCache.getStats();
+      }
+    };
+
+    runTest(500, 100, recordingCache);
+    runTest(500, 10000, recordingCache);
+    runTest(1, 100, recordingCache);
+
+    // index blocks read from the cache keep their parsed entries with the cached block
+    assertFalse(indexBlocks.isEmpty());
+    for (String blockName : indexBlocks) {
+      CacheEntry ce = indexCache.getBlock(blockName);
+      assertNotNull(blockName, ce);
+      assertTrue(blockName, ce.getIndex(() -> null) instanceof ParsedIndex);
+    }
+
+    manager.stop();
+  }
+
   private void runTest(int maxBlockSize, int num) throws IOException {
+    runTest(maxBlockSize, num, null);
+  }
+
+  private void runTest(int maxBlockSize, int num, BlockCache indexCache) throws IOException {
     AccumuloConfiguration aconf = DefaultConfiguration.getInstance();
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     FSDataOutputStream dos = new FSDataOutputStream(baos, new FileSystem.Statistics("a"));
@@ -86,7 +162,9 @@ public class MultiLevelIndexTest {
     byte[] data = baos.toByteArray();
     SeekableByteArrayInputStream bais = new SeekableByteArrayInputStream(data);
     FSDataInputStream in = new FSDataInputStream(bais);
-    CachableBuilder cb = new CachableBuilder().input(in).length(data.length).conf(hadoopConf)
+    CachableBuilder cb = new CachableBuilder().cacheId("index-" + maxBlockSize + "-" + num)
+        .input(in).length(data.length).conf(hadoopConf)
+        .cacheProvider(new BasicCacheProvider(indexCache, null))
         .cryptoService(CryptoServiceFactory.newInstance(aconf, ClassloaderType.JAVA));
     CachableBlockFile.Reader _cbr = new CachableBlockFile.Reader(cb);
 
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
+import org.junit.Test;
+
+public class ParsedIndexTest {
+
+  private static Key newKey(Random rand) {
+    Key key = new Key("r" + rand.nextInt(20), "f" + rand.nextInt(3), "q" + rand.nextInt(3),
+        rand.nextBoolean() ? "" : "A&B", rand.nextInt(3));
+    key.setDeleted(rand.nextBoolean());
+    return key;
+  }
+
+  @Test
+  public void testBinarySearch() {
+    Random rand = new Random(42);
+
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      keys.add(newKey(rand));
+    }
+    // the index can contain the same key more than once
+    keys.addAll(keys.subList(0, 50));
+    Collections.sort(keys);
+
+    List<IndexEntry> entries = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      entries.add(new IndexEntry(keys.get(i), i, i * 100L, i * 10L, i * 20L));
+    }
+
+    ParsedIndex parsed = new ParsedIndex(entries);
+    assertEquals(entries.size(), parsed.size());
+
+    for (int i = 0; i < entries.size(); i++) {
+      IndexEntry ie = parsed.get(i);
+      assertEquals(keys.get(i), ie.getKey());
+      assertEquals(keys.get(i).isDeleted(), ie.getKey().isDeleted());
+      assertEquals(i, ie.getNumEntries());
+      assertEquals(i * 100L, ie.getOffset());
+      assertEquals(i * 10L, ie.getCompressedSize());
+      assertEquals(i * 20L, ie.getRawSize());
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      Key key = newKey(rand);
+      assertEquals(Collections.binarySearch(keys, key), parsed.binarySearch(key));
+    }
+    for (Key key : keys) {
+      assertEquals(Collections.binarySearch(keys, key), parsed.binarySearch(key));
+    }
+    assertEquals(-1, parsed.binarySearch(new Key()));
+    assertEquals(-(keys.size() + 1), parsed.binarySearch(new Key("s")));
+
+    assertTrue(parsed.weight() > keys.size() * 40);
+  }
+
+  @Test
+  public void testEmpty() {
+    ParsedIndex parsed = new ParsedIndex(List.of());
+    assertEquals(0, parsed.size());
+    assertEquals(-1, parsed.binarySearch(new Key("a")));
+  }
+}
@@ -47,6 +47,9 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.accumulo.core.client.sample.RowSampler;
 import org.apache.accumulo.core.client.sample.Sampler;
@@ -70,6 +73,8 @@ import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFacto
 import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCache;
 import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
 import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
@@ -82,7 +87,9 @@ import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.Se
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.TabletColumnFamily;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
+import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -247,7 +254,8 @@ public class RFileTest {
     public void openWriter(boolean startDLG, int blockSize) throws IOException {
       baos = new ByteArrayOutputStream();
       dos = new FSDataOutputStream(baos, new FileSystem.Statistics("a"));
-      BCFile.Writer _cbw = new BCFile.Writer(dos, null, "gz", conf,
+      BCFile.Writer _cbw = new BCFile.Writer(dos, null,
+          accumuloConfiguration.get(Property.TABLE_FILE_COMPRESSION_TYPE), conf,
           CryptoServiceFactory.newInstance(accumuloConfiguration, ClassloaderType.JAVA));
 
       SamplerConfigurationImpl samplerConfig =
@@ -258,7 +266,10 @@ public class RFileTest {
         sampler = SamplerFactory.newSampler(samplerConfig, accumuloConfiguration);
       }
 
-      writer = new RFile.Writer(_cbw, blockSize, 1000, samplerConfig, sampler);
+      BlockEncoding encoding =
+          BlockEncoding.forName(accumuloConfiguration.get(Property.TABLE_FILE_BLOCK_ENCODING));
+
+      writer = new RFile.Writer(_cbw, blockSize, 1000, samplerConfig, sampler, encoding);
 
       if (startDLG)
         writer.startDefaultLocalityGroup();
@@ -556,7 +567,13 @@ public class RFileTest {
       count++;
       iiter.next();
     }
-    assertEquals(20, count);
+    // the number of blocks depends on how compactly the keys are encoded
+    if (trf.accumuloConfiguration.get(Property.TABLE_FILE_BLOCK_ENCODING)
+        .equals(BlockEncoding.RELATIVE.getName())) {
+      assertEquals(20, count);
+    } else {
+      assertTrue(count > 1 && count < 20);
+    }
 
     trf.closeReader();
   }
@@ -1945,6 +1962,204 @@ public class RFileTest {
     conf = null;
   }
 
+  private static ConfigurationCopy getEncodingConfig(BlockEncoding encoding) {
+    ConfigurationCopy cfg = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cfg.set(Property.TABLE_FILE_BLOCK_ENCODING, encoding.getName());
+    return cfg;
+  }
+
+  @Test
+  public void testDictionaryEncodedRFiles() throws Exception {
+    conf = getEncodingConfig(BlockEncoding.DICTIONARY);
+    test1();
+    test2();
+    test3();
+    test4();
+    test5();
+    test6();
+    test7();
+    test8();
+    test9();
+    test10();
+    test11();
+    test12();
+    test13();
+    test14();
+    test16();
+    test17();
+    test18();
+    test19();
+    conf = null;
+  }
+
+  private long writeWideRows(BlockEncoding encoding, List<Key> expectedKeys,
+      List<Value> expectedValues) throws IOException {
+    // compression would hide the difference between the encodings
+    ConfigurationCopy cfg = getEncodingConfig(encoding);
+    cfg.set(Property.TABLE_FILE_COMPRESSION_TYPE, "none");
+    TestRFile trf = new TestRFile(cfg);
+    trf.openWriter(false, 100_000);
+    trf.writer.startDefaultLocalityGroup();
+    String[] visibilities = {"", "PRIVATE", "PUBLIC|ADMIN"};
+    for (int row = 0; row < 500; row++) {
+      for (int col = 0; col < 20; col++) {
+        Key k = newKey(formatString("r_", row), "attributes",
+            String.format("long_repeated_column_qualifier_%02d", col),
+            visibilities[(row + col) % 3], 1_600_000_000_000L + row * 20 + col);
+        Value v = newValue("" + col);
+        trf.writer.append(k, v);
+        if (expectedKeys != null) {
+          expectedKeys.add(k);
+          expectedValues.add(v);
+        }
+      }
+    }
+    trf.closeWriter();
+    return trf.baos.size();
+  }
+
+  @Test
+  public void testDictionaryEncodingWideRows() throws Exception {
+    List<Key> expectedKeys = new ArrayList<>();
+    List<Value> expectedValues = new ArrayList<>();
+    long dictionarySize = writeWideRows(BlockEncoding.DICTIONARY, expectedKeys, expectedValues);
+    long relativeSize = writeWideRows(BlockEncoding.RELATIVE, null, null);
+    assertTrue("dictionary " + dictionarySize + " relative " + relativeSize,
+        dictionarySize < relativeSize);
+
+    conf = getEncodingConfig(BlockEncoding.DICTIONARY);
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter(false, 100);
+    trf.writer.startDefaultLocalityGroup();
+    for (int i = 0; i < expectedKeys.size(); i++) {
+      trf.writer.append(expectedKeys.get(i), expectedValues.get(i));
+    }
+    trf.closeWriter();
+    trf.openReader();
+
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    verify(trf, expectedKeys.iterator(), expectedValues.iterator());
+
+    // seek forward and backward through the file, the forward seeks can be satisfied from the
+    // current block
+    Random rand = new SecureRandom();
+    for (int i = 0; i < 200; i++) {
+      int index = rand.nextInt(expectedKeys.size());
+      trf.seek(expectedKeys.get(index));
+      assertTrue(trf.iter.hasTop());
+      assertEquals(expectedKeys.get(index), trf.iter.getTopKey());
+      assertEquals(expectedValues.get(index), trf.iter.getTopValue());
+
+      int next = Math.min(index + rand.nextInt(10), expectedKeys.size() - 1);
+      trf.seek(expectedKeys.get(next));
+      assertEquals(expectedKeys.get(next), trf.iter.getTopKey());
+      assertEquals(expectedValues.get(next), trf.iter.getTopValue());
+    }
+    trf.closeReader();
+    conf = null;
+  }
+
+  @Test
+  public void testReadahead() throws Exception {
+    List<Key> expectedKeys = new ArrayList<>();
+    List<Value> expectedValues = new ArrayList<>();
+    for (int r = 0; r < 2000; r++) {
+      for (int c = 0; c < 2; c++) {
+        expectedKeys.add(newKey(r, c));
+        expectedValues.add(newValue(r, c));
+      }
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (BlockEncoding encoding : BlockEncoding.values()) {
+        for (boolean useDataCache : new boolean[] {true, false}) {
+          conf = getEncodingConfig(encoding);
+          TestRFile trf = new TestRFile(conf);
+          trf.openWriter(true, 100);
+          for (int i = 0; i < expectedKeys.size(); i++) {
+            trf.writer.append(expectedKeys.get(i), expectedValues.get(i));
+          }
+          trf.closeWriter();
+          trf.openReader();
+          if (!useDataCache) {
+            trf.reader.setCacheProvider(new BasicCacheProvider(null, null));
+          }
+
+          BlockReadahead readahead = new BlockReadahead(executor, 3, 2);
+          trf.reader.setReadahead(readahead);
+
+          trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+          verify(trf, expectedKeys.iterator(), expectedValues.iterator());
+          assertTrue(readahead.getBlocksUsed() > 0);
+          // nothing is left queued after reading to the end of the file
+          assertEquals(readahead.getBlocksQueued(),
+              readahead.getBlocksUsed() + readahead.getBlocksWasted());
+
+          // blocks past the end of a range are not read ahead
+          readahead = new BlockReadahead(executor, 3, 2);
+          trf.reader.setReadahead(readahead);
+          trf.iter.seek(new Range(expectedKeys.get(100), true, expectedKeys.get(1000), true),
+              EMPTY_COL_FAMS, false);
+          verify(trf, expectedKeys.subList(100, 1001).iterator(),
+              expectedValues.subList(100, 1001).iterator());
+          assertTrue(readahead.getBlocksQueued() > 0);
+          assertEquals(readahead.getBlocksQueued(),
+              readahead.getBlocksUsed() + readahead.getBlocksWasted());
+
+          // short scans from random locations, some of which discard blocks read ahead
+          Random rand = new SecureRandom();
+          for (int i = 0; i < 100; i++) {
+            int index = rand.nextInt(expectedKeys.size());
+            trf.seek(expectedKeys.get(index));
+            int end = Math.min(index + rand.nextInt(200), expectedKeys.size());
+            for (int j = index; j < end; j++) {
+              assertTrue(trf.iter.hasTop());
+              assertEquals(expectedKeys.get(j), trf.iter.getTopKey());
+              assertEquals(expectedValues.get(j), trf.iter.getTopValue());
+              trf.iter.next();
+            }
+          }
+          trf.closeReader();
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      conf = null;
+    }
+  }
+
+  @Test
+  public void testDictionaryValuesAreCopied() throws Exception {
+    conf = getEncodingConfig(BlockEncoding.DICTIONARY);
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter();
+    for (int i = 0; i < 10; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf", "cq", "", 1), newValue("v" + i));
+    }
+    trf.closeWriter();
+    trf.openReader();
+
+    // change the values returned by the first scan, which decodes and caches the block
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    while (trf.iter.hasTop()) {
+      byte[] val = trf.iter.getTopValue().get();
+      Arrays.fill(val, (byte) 'x');
+      trf.iter.next();
+    }
+
+    // the second scan reads the decoded block from the cache
+    trf.iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(newValue("v" + i), trf.iter.getTopValue());
+      trf.iter.next();
+    }
+    assertFalse(trf.iter.hasTop());
+
+    trf.closeReader();
+    conf = null;
+  }
+
   private Key newKey(int r, int c) {
     String row = String.format("r%06d", r);
     switch (c) {
@@ -2394,4 +2609,136 @@ public class RFileTest {
 
     conf = null;
   }
+
+  /**
+   * Delegates to another cache and remembers the names of the blocks that were asked for.
+   */
+  private static class RecordingBlockCache implements BlockCache {
+    private final BlockCache cache;
+    private final Set<String> names = new TreeSet<>();
+
+    RecordingBlockCache(BlockCache cache) {
+      this.cache = cache;
+    }
+
+    @Override
+    public CacheEntry cacheBlock(String blockName, byte[] buf) {
+      return cache.cacheBlock(blockName, buf);
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName) {
+      names.add(blockName);
+      return cache.getBlock(blockName);
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName, Loader loader) {
+      names.add(blockName);
+      return cache.getBlock(blockName, loader);
+    }
+
+    @Override
+    public long getMaxHeapSize() {
+      return cache.getMaxHeapSize();
+    }
+
+    @Override
+    public long getMaxSize() {
+      return cache.getMaxSize();
+    }
+
+    @Override
+    public Stats getStats() {
+      return cache.getStats();
+    }
+  }
+
+  private static BlockCacheManager startCacheManager() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, LruBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Long.toString(100000));
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(100000000));
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(100000000));
+    BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(new BlockCacheConfiguration(cc));
+    return manager;
+  }
+
+  private static CachableBlockFile.Reader newCachableReader(byte[] data, BlockCache indexCache,
+      BlockCache dataCache) {
+    FSDataInputStream in = new FSDataInputStream(new SeekableByteArrayInputStream(data));
+    return new CachableBlockFile.Reader(
+        new CachableBuilder().cacheId("source-1").input(in).length(data.length).conf(hadoopConf)
+            .cacheProvider(new BasicCacheProvider(indexCache, dataCache))
+            .cryptoService(CryptoServiceFactory.newInstance(DefaultConfiguration.getInstance(),
+                ClassloaderType.JAVA)));
+  }
+
+  private static void readAll(Reader reader) throws IOException {
+    reader.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (reader.hasTop()) {
+      count++;
+      reader.next();
+    }
+    assertEquals(5000, count);
+
+    for (int i = 0; i < 5000; i += 397) {
+      reader.seek(new Range(formatString("r_", i)), EMPTY_COL_FAMS, false);
+      assertTrue(reader.hasTop());
+      assertEquals(newValue("" + i), reader.getTopValue());
+    }
+  }
+
+  private static long missCount(BlockCache cache) {
+    return cache.getStats().requestCount() - cache.getStats().hitCount();
+  }
+
+  @Test
+  public void testPrefetchBlocks() throws Exception {
+    TestRFile trf = new TestRFile(conf);
+    trf.openWriter(100);
+    for (int i = 0; i < 5000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf", "cq", "", 1), newValue("" + i));
+    }
+    trf.closeWriter();
+    byte[] data = trf.baos.toByteArray();
+
+    // read the file once and record the names of all blocks it asked the caches for
+    BlockCacheManager manager = startCacheManager();
+    RecordingBlockCache indexNames =
+        new RecordingBlockCache(manager.getBlockCache(CacheType.INDEX));
+    RecordingBlockCache dataNames = new RecordingBlockCache(manager.getBlockCache(CacheType.DATA));
+    Reader reader = new Reader(newCachableReader(data, indexNames, dataNames));
+    readAll(reader);
+    reader.close();
+    manager.stop();
+
+    // the file has a multi level index, so some index blocks are data blocks of the bcfile
+    assertTrue(indexNames.names.stream().anyMatch(name -> name.startsWith("source-1R")));
+    assertTrue(dataNames.names.size() > 10);
+
+    // loading the recorded blocks into empty caches should avoid any misses when reading again
+    manager = startCacheManager();
+    BlockCache indexCache = manager.getBlockCache(CacheType.INDEX);
+    BlockCache dataCache = manager.getBlockCache(CacheType.DATA);
+    reader = new Reader(newCachableReader(data, indexCache, dataCache));
+    assertEquals(indexNames.names.size(), reader.prefetch(CacheType.INDEX, indexNames.names));
+    assertEquals(dataNames.names.size(), reader.prefetch(CacheType.DATA, dataNames.names));
+
+    // names of other files, blocks that do not exist or other caches are ignored
+    assertEquals(0, reader.prefetch(CacheType.DATA, List.of("source-2R0", "source-1R1",
+        "source-1Rxyz", "source-1O100000", "source-1Mmissing")));
+    assertEquals(0, reader.prefetch(CacheType.INDEX, List.of("source-1Mmissing")));
+    assertEquals(0, reader.prefetch(CacheType.SUMMARY, dataNames.names));
+
+    long indexMisses = missCount(indexCache);
+    long dataMisses = missCount(dataCache);
+    readAll(reader);
+    assertEquals(indexMisses, missCount(indexCache));
+    assertEquals(dataMisses, missCount(dataCache));
+    reader.close();
+    manager.stop();
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.fs.Seekable;
+import org.junit.Test;
+
+public class BlockReadTimerTest {
+
+  private static class SlowSeekableStream extends ByteArrayInputStream implements Seekable {
+
+    SlowSeekableStream(byte[] buf) {
+      super(buf);
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      return super.read(b, off, len);
+    }
+
+    @Override
+    public synchronized void seek(long newPos) {
+      pos = (int) newPos;
+    }
+
+    @Override
+    public synchronized long getPos() {
+      return pos;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) {
+      return false;
+    }
+  }
+
+  @Test
+  public void testReadsAreTimed() throws IOException {
+    BoundedRangeFileInputStream in =
+        new BoundedRangeFileInputStream(new SlowSeekableStream(new byte[100]), 10, 50);
+
+    long start = BlockReadTimer.currentThreadNanos();
+    byte[] b = new byte[20];
+    assertEquals(20, in.read(b));
+    assertEquals(20, in.read(b));
+    long elapsed = BlockReadTimer.currentThreadNanos() - start;
+    assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(10));
+
+    // other threads keep their own totals
+    long[] otherThread = new long[1];
+    Thread t = new Thread(() -> otherThread[0] = BlockReadTimer.currentThreadNanos());
+    t.start();
+    try {
+      t.join();
+    } catch (InterruptedException e) {
+      throw new AssertionError(e);
+    }
+    assertEquals(0, otherThread[0]);
+  }
+
+  @Test
+  public void testLockWaitIsNotTimed() throws Exception {
+    SlowSeekableStream stream = new SlowSeekableStream(new byte[100]);
+    BoundedRangeFileInputStream in = new BoundedRangeFileInputStream(stream, 10, 50);
+
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> {
+      // another reader of the same file holds the stream
+      synchronized (stream) {
+        locked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+      }
+    });
+    holder.start();
+    locked.await();
+
+    long[] elapsed = new long[1];
+    Thread reader = new Thread(() -> {
+      try {
+        long start = BlockReadTimer.currentThreadNanos();
+        in.read(new byte[20]);
+        elapsed[0] = BlockReadTimer.currentThreadNanos() - start;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    reader.start();
+    Thread.sleep(200);
+    release.countDown();
+    reader.join();
+    holder.join();
+
+    assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(5));
+    assertTrue(elapsed[0] < TimeUnit.MILLISECONDS.toNanos(200));
+  }
+}
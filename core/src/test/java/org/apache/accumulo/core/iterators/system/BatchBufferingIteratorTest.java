@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iterators.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.rfile.RFileTest.TestRFile;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchBufferingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.ColumnFamilySkippingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator.Behavior;
+import org.apache.accumulo.core.iteratorsImpl.system.KeyValueBatch;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.SystemIteratorUtil;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Test;
+
+public class BatchBufferingIteratorTest {
+
+  private static final String[] VISIBILITIES = {"", "A", "B", "A&B"};
+
+  private static TreeMap<Key,Value> randomData(Random rand, int numRows) {
+    TreeMap<Key,Value> data = new TreeMap<>();
+    for (int r = 0; r < numRows; r++) {
+      String row = String.format("r%04d", r);
+      int numCols = 1 + rand.nextInt(20);
+      for (int c = 0; c < numCols; c++) {
+        Key k = new Key(row, "f" + rand.nextInt(5), "q" + rand.nextInt(10),
+            new ColumnVisibility(VISIBILITIES[rand.nextInt(VISIBILITIES.length)]), rand.nextInt(6));
+        k.setDeleted(rand.nextInt(8) == 0);
+        data.put(k, new Value("v" + rand.nextInt(1000)));
+      }
+    }
+    return data;
+  }
+
+  private static TestRFile writeRFile(TreeMap<Key,Value> data) throws IOException {
+    TestRFile trf = new TestRFile(DefaultConfiguration.getInstance());
+    trf.openWriter(true, 500);
+    for (Entry<Key,Value> e : data.entrySet()) {
+      trf.writer.append(e.getKey(), e.getValue());
+    }
+    trf.closeWriter();
+    trf.openReader(false);
+    return trf;
+  }
+
+  private static AccumuloConfiguration batchConf(int batchSize) {
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    conf.set(Property.TABLE_SYSTEM_ITERATOR_BATCH_SIZE, "" + batchSize);
+    return conf;
+  }
+
+  private static List<Entry<Key,Value>> read(SortedKeyValueIterator<Key,Value> iter, Range range,
+      Collection<ByteSequence> families, boolean inclusive) throws IOException {
+    List<Entry<Key,Value>> entries = new ArrayList<>();
+    iter.seek(range, families, inclusive);
+    while (iter.hasTop()) {
+      entries.add(
+          new SimpleImmutableEntry<>(new Key(iter.getTopKey()), new Value(iter.getTopValue())));
+      iter.next();
+    }
+    return entries;
+  }
+
+  private static void checkScans(SortedKeyValueIterator<Key,Value> source) throws IOException {
+    List<Set<Column>> columnSets =
+        List.of(Collections.emptySet(), Set.of(new Column("f1".getBytes(), null, null)),
+            Set.of(new Column("f2".getBytes(), "q3".getBytes(), null),
+                new Column("f4".getBytes(), null, null)));
+    List<Range> ranges = List.of(new Range(), new Range("r0010", "r0050"),
+        new Range(new Key("r0020", "f2", "q5"), true, new Key("r0090", "f3"), false));
+    List<Authorizations> authSets =
+        List.of(Authorizations.EMPTY, new Authorizations("A"), new Authorizations("A", "B"));
+
+    for (Set<Column> cols : columnSets) {
+      Set<ByteSequence> families = new HashSet<>();
+      cols.forEach(c -> families.add(new ArrayByteSequence(c.getColumnFamily())));
+      for (Authorizations auths : authSets) {
+        for (Range range : ranges) {
+          List<Entry<Key,Value>> expected = read(SystemIteratorUtil.setupSystemScanIterators(source,
+              cols, auths, new byte[0], batchConf(0)), range, families, !families.isEmpty());
+          for (int batchSize : new int[] {2, 7, 1000}) {
+            SortedKeyValueIterator<Key,Value> stack = SystemIteratorUtil
+                .setupSystemScanIterators(source, cols, auths, new byte[0], batchConf(batchSize));
+            assertTrue(stack instanceof BatchBufferingIterator);
+            assertEquals(expected, read(stack, range, families, !families.isEmpty()));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testScanStackOverMap() throws IOException {
+    checkScans(new SortedMapIterator(randomData(new Random(42), 100)));
+  }
+
+  @Test
+  public void testScanStackOverRFile() throws IOException {
+    TestRFile trf = writeRFile(randomData(new Random(43), 100));
+    checkScans(trf.reader);
+    trf.closeReader();
+  }
+
+  @Test
+  public void testScanStackOverMultipleRFiles() throws IOException {
+    Random rand = new Random(44);
+    TestRFile trf1 = writeRFile(randomData(rand, 100));
+    TestRFile trf2 = writeRFile(randomData(rand, 100));
+    checkScans(new MultiIterator(List.of(trf1.reader, trf2.reader), false));
+    trf1.closeReader();
+    trf2.closeReader();
+  }
+
+  @Test
+  public void testPropagatedDeletes() throws IOException {
+    TreeMap<Key,Value> data = randomData(new Random(45), 100);
+    TestRFile trf = writeRFile(data);
+
+    Function<AccumuloConfiguration,SortedKeyValueIterator<Key,Value>> compactionStack =
+        conf -> BatchBufferingIterator.wrap(new ColumnFamilySkippingIterator(
+            DeletingIterator.wrap(trf.reader, true, Behavior.PROCESS)), conf);
+
+    List<Entry<Key,Value>> expected =
+        read(compactionStack.apply(batchConf(0)), new Range(), Set.of(), false);
+    assertTrue(expected.stream().anyMatch(e -> e.getKey().isDeleted()));
+    for (int batchSize : new int[] {2, 7, 1000}) {
+      assertEquals(expected,
+          read(compactionStack.apply(batchConf(batchSize)), new Range(), Set.of(), false));
+    }
+    trf.closeReader();
+  }
+
+  /**
+   * A source whose returned keys and values are never reused, like the RFile reader.
+   */
+  private static class StableMapIterator extends SortedMapIterator implements BatchIterator {
+    StableMapIterator(TreeMap<Key,Value> map) {
+      super(map);
+    }
+
+    @Override
+    public void nextBatch(KeyValueBatch batch) throws IOException {
+      while (hasTop() && !batch.isFull()) {
+        batch.add(getTopKey(), getTopValue());
+        next();
+      }
+    }
+  }
+
+  @Test
+  public void testMergedBatchesAreNotCopied() throws IOException {
+    TreeMap<Key,Value> all = randomData(new Random(46), 100);
+    // interleave the entries of the two sources
+    TreeMap<Key,Value> data1 = new TreeMap<>();
+    TreeMap<Key,Value> data2 = new TreeMap<>();
+    all.forEach((k, v) -> (data1.size() <= data2.size() ? data1 : data2).put(k, v));
+
+    MultiIterator iter = new MultiIterator(
+        List.of(new StableMapIterator(data1), new StableMapIterator(data2)), false);
+    iter.seek(new Range(), Set.of(), false);
+
+    List<Key> keys = new ArrayList<>();
+    KeyValueBatch batch = new KeyValueBatch(64, Long.MAX_VALUE);
+    while (iter.hasTop()) {
+      batch.clear();
+      iter.nextBatch(batch);
+      for (int i = 0; i < batch.size(); i++) {
+        Key key = batch.getKey(i);
+        // the entries are the ones the sources returned, not copies of them
+        assertTrue(
+            data1.containsKey(key) ? data1.ceilingKey(key) == key : data2.ceilingKey(key) == key);
+        keys.add(key);
+      }
+    }
+    assertEquals(new ArrayList<>(all.keySet()), keys);
+  }
+
+  @Test
+  public void testDisabled() {
+    SortedKeyValueIterator<Key,Value> source = new SortedMapIterator(new TreeMap<>());
+    assertSame(source, BatchBufferingIterator.wrap(source, batchConf(0)));
+  }
+
+  @Test
+  public void testBatchLimits() {
+    KeyValueBatch batch = new KeyValueBatch(8, 100);
+    batch.setLimit(2);
+    batch.add(new Key("r1"), new Value("v1"));
+    assertFalse(batch.isFull());
+    batch.add(new Key("r2"), new Value("v2"));
+    assertTrue(batch.isFull());
+
+    batch.setLimit(100);
+    assertEquals(8, batch.getLimit());
+    assertFalse(batch.isFull());
+    batch.add(new Key("r3"), new Value(new byte[100]));
+    // full because of its size in bytes
+    assertTrue(batch.isFull());
+
+    batch.filter(1, (k, v) -> !k.getRow().toString().equals("r2"));
+    assertEquals(2, batch.size());
+    assertEquals(new Key("r1"), batch.getKey(0));
+    assertEquals(new Key("r3"), batch.getKey(1));
+
+    batch.filter(0, (k, v) -> v.getSize() < 100);
+    assertEquals(1, batch.size());
+    assertFalse(batch.isFull());
+
+    batch.clear();
+    assertEquals(0, batch.size());
+  }
+}
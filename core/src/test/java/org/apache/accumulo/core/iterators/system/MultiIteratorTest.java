@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
 import java.util.TreeMap;
 
 import org.apache.accumulo.core.data.ByteSequence;
@@ -420,4 +422,54 @@ public class MultiIteratorTest {
     mi.seek(r7, EMPTY_COL_FAMS, false);
     assertFalse(mi.hasTop());
   }
+
+  @Test
+  public void testManySources() throws IOException {
+    // more sources than fit in a small tree, some empty, with both interleaved keys and long runs
+    Random rand = new Random(17);
+    TreeMap<Key,Value> expected = new TreeMap<>();
+    List<TreeMap<Key,Value>> maps = new ArrayList<>();
+    for (int s = 0; s < 37; s++) {
+      TreeMap<Key,Value> tm = new TreeMap<>();
+      if (s % 9 != 4) {
+        boolean runs = s % 2 == 0;
+        for (int i = 0; i < 50; i++) {
+          int row = runs ? s * 50 + i : i * 37 + s;
+          Key k = new Key(newRow(row), new Text("cf"), new Text("cq" + rand.nextInt(3) + "_" + s),
+              rand.nextInt(5));
+          Value v = new Value("v" + s + "_" + i);
+          tm.put(k, v);
+          expected.put(k, v);
+        }
+      }
+      maps.add(tm);
+    }
+
+    List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>(maps.size());
+    for (TreeMap<Key,Value> map : maps) {
+      iters.add(new SortedMapIterator(map));
+    }
+    MultiIterator mi = new MultiIterator(iters, false);
+
+    List<Key> keys = new ArrayList<>(expected.keySet());
+    for (int i = 0; i < 50; i++) {
+      Key start = keys.get(rand.nextInt(keys.size()));
+      mi.seek(new Range(start, null), EMPTY_COL_FAMS, false);
+      for (Entry<Key,Value> entry : expected.tailMap(start).entrySet()) {
+        assertTrue(mi.hasTop());
+        assertEquals(entry.getKey(), mi.getTopKey());
+        assertEquals(entry.getValue(), mi.getTopValue());
+        mi.next();
+      }
+      assertFalse(mi.hasTop());
+    }
+
+    mi.seek(new Range(), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (mi.hasTop()) {
+      count++;
+      mi.next();
+    }
+    assertEquals(expected.size(), count);
+  }
 }
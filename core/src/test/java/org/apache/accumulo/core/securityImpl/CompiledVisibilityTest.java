@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.securityImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.accumulo.core.security.ColumnVisibility.quote;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.accumulo.core.util.BadArgumentException;
+import org.junit.Test;
+
+public class CompiledVisibilityTest {
+
+  private static final Authorizations AUTHS =
+      new Authorizations("one", "two", "three", "four", "a\"b", "c\\d", "five six");
+
+  private static void assertSameResult(VisibilityCache.Evaluator evaluator, String expression)
+      throws VisibilityParseException {
+    boolean expected = new VisibilityEvaluator(AUTHS).evaluate(new ColumnVisibility(expression));
+    assertEquals(expression, expected, evaluator.evaluate(new ArrayByteSequence(expression)));
+    // a second time from the result cache
+    assertEquals(expression, expected, evaluator.evaluate(new ArrayByteSequence(expression)));
+  }
+
+  @Test
+  public void testMatchesVisibilityEvaluator() throws VisibilityParseException {
+    VisibilityCache.Evaluator evaluator = new VisibilityCache(100).getEvaluator(AUTHS);
+
+    for (String expression : new String[] {"", "one", "five", "one&two", "one&five", "foo|four",
+        "(one&two)|(foo&bar)", "(one|foo)&three", "one|foo|bar", "((one|foo)|bar)&two",
+        "((one|foo)|bar)&goober", "one&two&three&four", "one&two&three&five",
+        new String(quote("a\"b".getBytes(UTF_8)), UTF_8) + "&one",
+        new String(quote("c\\d".getBytes(UTF_8)), UTF_8) + "|five", "\"five six\"&(foo|\"one\")"}) {
+      assertSameResult(evaluator, expression);
+    }
+  }
+
+  @Test
+  public void testRandomExpressions() throws VisibilityParseException {
+    Random rand = new Random(3);
+    String[] terms = {"one", "two", "three", "four", "x", "y", "z"};
+    VisibilityCache.Evaluator evaluator = new VisibilityCache(10).getEvaluator(AUTHS);
+    for (int i = 0; i < 1000; i++) {
+      assertSameResult(evaluator, randomExpression(rand, terms, 3));
+    }
+  }
+
+  private static String randomExpression(Random rand, String[] terms, int depth) {
+    if (depth == 0 || rand.nextInt(3) == 0) {
+      return terms[rand.nextInt(terms.length)];
+    }
+    String op = rand.nextBoolean() ? "&" : "|";
+    int children = 2 + rand.nextInt(3);
+    StringBuilder sb = new StringBuilder("(");
+    for (int i = 0; i < children; i++) {
+      if (i > 0) {
+        sb.append(op);
+      }
+      sb.append(randomExpression(rand, terms, depth - 1));
+    }
+    return sb.append(")").toString();
+  }
+
+  @Test
+  public void testManyTerms() throws VisibilityParseException {
+    // more terms than fit in a single word of bits
+    List<String> terms = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      terms.add("t" + i);
+    }
+    String or = String.join("|", terms);
+    String and = String.join("&", terms);
+
+    CompiledVisibility orVis = CompiledVisibility.compile(or.getBytes(UTF_8));
+    CompiledVisibility andVis = CompiledVisibility.compile(and.getBytes(UTF_8));
+
+    assertTrue(orVis.evaluate(new Authorizations("t149")));
+    assertFalse(orVis.evaluate(new Authorizations("t150")));
+    assertFalse(andVis.evaluate(new Authorizations("t149")));
+    assertTrue(andVis.evaluate(new Authorizations(terms.toArray(new String[0]))));
+  }
+
+  @Test
+  public void testInvalidExpression() {
+    VisibilityCache.Evaluator evaluator = new VisibilityCache(100).getEvaluator(AUTHS);
+    assertThrows(BadArgumentException.class,
+        () -> evaluator.evaluate(new ArrayByteSequence("one(five)")));
+    assertThrows(BadArgumentException.class,
+        () -> evaluator.evaluate(new ArrayByteSequence("(one&")));
+  }
+
+  @Test
+  public void testSharedByAuthorizations() {
+    VisibilityCache cache = new VisibilityCache(100);
+    assertTrue(cache.getEvaluator(AUTHS) == cache.getEvaluator(
+        new Authorizations("one", "two", "three", "four", "a\"b", "c\\d", "five six")));
+    assertFalse(cache.getEvaluator(AUTHS) == cache.getEvaluator(new Authorizations("one")));
+  }
+}
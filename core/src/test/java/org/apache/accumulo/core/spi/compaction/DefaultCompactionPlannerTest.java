@@ -240,7 +240,7 @@ public class DefaultCompactionPlannerTest {
         .next();
   }
 
-  private static Set<CompactableFile> createCFs(String... namesSizePairs) {
+  static Set<CompactableFile> createCFs(String... namesSizePairs) {
     Set<CompactableFile> files = new HashSet<>();
 
     for (int i = 0; i < namesSizePairs.length; i += 2) {
@@ -284,6 +284,12 @@ public class DefaultCompactionPlannerTest {
   private static CompactionPlanner.PlanningParameters createPlanningParams(Set<CompactableFile> all,
       Set<CompactableFile> candidates, Set<CompactionJob> compacting, double ratio,
       CompactionKind kind) {
+    return createPlanningParams(all, candidates, compacting, ratio, kind, 0);
+  }
+
+  static CompactionPlanner.PlanningParameters createPlanningParams(Set<CompactableFile> all,
+      Set<CompactableFile> candidates, Set<CompactionJob> compacting, double ratio,
+      CompactionKind kind, double seekRate) {
     return new CompactionPlanner.PlanningParameters() {
 
       @Override
@@ -316,6 +322,11 @@ public class DefaultCompactionPlannerTest {
         return Map.of();
       }
 
+      @Override
+      public double getSeekRate() {
+        return seekRate;
+      }
+
       @Override
       public Collection<CompactableFile> getCandidates() {
         return candidates;
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.spi.compaction;
+
+import static org.apache.accumulo.core.spi.compaction.DefaultCompactionPlannerTest.createCFs;
+import static org.apache.accumulo.core.spi.compaction.DefaultCompactionPlannerTest.createPlanningParams;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.spi.common.ServiceEnvironment;
+import org.apache.accumulo.core.spi.common.ServiceEnvironment.Configuration;
+import org.apache.accumulo.core.util.compaction.CompactionJobPrioritizer;
+import org.apache.hadoop.shaded.com.google.common.collect.Iterables;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class ReadCostCompactionPlannerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  public void testRatio() {
+    var planner = createPlanner(Map.of());
+
+    // a tablet seeked at the hot rate uses the table's ratio
+    assertEquals(3.0, planner.getRatio(3.0, 10), 0.0);
+    // hotter tablets use a lower ratio, but never less than minRatio
+    assertEquals(2.0, planner.getRatio(3.0, 15), 0.0001);
+    assertEquals(1.5, planner.getRatio(3.0, 20), 0.0);
+    assertEquals(1.5, planner.getRatio(3.0, 1000), 0.0);
+    // a table ratio below minRatio is not raised
+    assertEquals(1.2, planner.getRatio(1.2, 1000), 0.0);
+    // colder tablets use a higher ratio, up to maxRatioScale times the table's ratio
+    assertEquals(4.5, planner.getRatio(3.0, 20.0 / 3), 0.0001);
+    assertEquals(6.0, planner.getRatio(3.0, 1), 0.0);
+    assertEquals(6.0, planner.getRatio(3.0, 0), 0.0);
+
+    planner = createPlanner(Map.of("hotSeekRate", "1", "maxRatioScale", "1"));
+    assertEquals(3.0, planner.getRatio(3.0, 0), 0.0);
+    assertEquals(1.5, planner.getRatio(3.0, 2), 0.0);
+
+    planner = createPlanner(Map.of("minRatio", "2"));
+    assertEquals(2.0, planner.getRatio(3.0, 1000), 0.0);
+  }
+
+  @Test
+  public void testHotTablet() {
+    var planner = createPlanner(Map.of());
+    var all = createCFs("F1", "1M", "F2", "2M", "F3", "4M", "F4", "8M");
+
+    // these files do not meet the table's compaction ratio
+    var params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 10);
+    assertTrue(planner.makePlan(params).getJobs().isEmpty());
+
+    // a hot tablet compacts them
+    params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 40);
+    var job = Iterables.getOnlyElement(planner.makePlan(params).getJobs());
+    assertEquals(all, job.getFiles());
+    assertEquals(CompactionExecutorId.of("small"), job.getExecutor());
+  }
+
+  @Test
+  public void testColdTablet() {
+    var planner = createPlanner(Map.of());
+    var all = createCFs("F1", "10M", "F2", "10M", "F3", "10M");
+
+    // these files meet the table's compaction ratio
+    var params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 10);
+    var job = Iterables.getOnlyElement(planner.makePlan(params).getJobs());
+    assertEquals(all, job.getFiles());
+
+    // a tablet that is not read does not rewrite them
+    params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 0);
+    assertTrue(planner.makePlan(params).getJobs().isEmpty());
+
+    // but a user compaction still compacts them
+    params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.USER, 0);
+    job = Iterables.getOnlyElement(planner.makePlan(params).getJobs());
+    assertEquals(all, job.getFiles());
+  }
+
+  @Test
+  public void testPriority() {
+    var planner = createPlanner(Map.of());
+    var all = createCFs("F1", "10M", "F2", "10M", "F3", "10M");
+
+    var params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 10);
+    var hot = Iterables.getOnlyElement(planner.makePlan(params).getJobs());
+    params = createPlanningParams(all, all, Set.of(), 2, CompactionKind.SYSTEM, 8);
+    var cold = Iterables.getOnlyElement(planner.makePlan(params).getJobs());
+
+    assertTrue(hot.getPriority() > cold.getPriority());
+    assertEquals(CompactionJobPrioritizer.createPriority(CompactionKind.SYSTEM, 33),
+        hot.getPriority());
+
+    // the read cost of a tablet that is not seeked is its number of files
+    assertEquals(CompactionJobPrioritizer.createPriority(CompactionKind.SYSTEM, 3),
+        ReadCostCompactionPlanner.createPriority(CompactionKind.SYSTEM, 3, 0));
+  }
+
+  @Test
+  public void testWriteBudget() {
+    // the budget holds a minute of writes, so 60M
+    var planner = createPlanner(Map.of("maxWriteRate", "1M"));
+
+    // a hot tablet can use the whole budget
+    var hotFiles = createCFs("H1", "20M", "H2", "20M", "H3", "10M");
+    var params = createPlanningParams(hotFiles, hotFiles, Set.of(), 2, CompactionKind.SYSTEM, 10);
+    assertEquals(hotFiles, Iterables.getOnlyElement(planner.makePlan(params).getJobs()).getFiles());
+
+    // planning the same job again is not charged again
+    assertEquals(hotFiles, Iterables.getOnlyElement(planner.makePlan(params).getJobs()).getFiles());
+
+    // only 10M is left, so a cold tablet has to wait until the budget is half full again
+    var coldFiles = createCFs("C1", "10M", "C2", "10M", "C3", "10M");
+    var coldParams =
+        createPlanningParams(coldFiles, coldFiles, Set.of(), 2, CompactionKind.SYSTEM, 8);
+    assertTrue(planner.makePlan(coldParams).getJobs().isEmpty());
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(19));
+    assertTrue(planner.makePlan(coldParams).getJobs().isEmpty());
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(coldFiles,
+        Iterables.getOnlyElement(planner.makePlan(coldParams).getJobs()).getFiles());
+
+    // the budget is empty, so even hot tablets have to wait
+    hotFiles = createCFs("H4", "1M", "H5", "1M");
+    params = createPlanningParams(hotFiles, hotFiles, Set.of(), 2, CompactionKind.SYSTEM, 20);
+    assertTrue(planner.makePlan(params).getJobs().isEmpty());
+
+    // user compactions are not limited by the budget
+    var userFiles = createCFs("U1", "1M", "U2", "1M");
+    var userParams =
+        createPlanningParams(userFiles, userFiles, Set.of(), 2, CompactionKind.USER, 0);
+    assertEquals(userFiles,
+        Iterables.getOnlyElement(planner.makePlan(userParams).getJobs()).getFiles());
+
+    // the user compaction went into debt, once that is paid off hot tablets can compact again
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    assertTrue(planner.makePlan(params).getJobs().isEmpty());
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(hotFiles, Iterables.getOnlyElement(planner.makePlan(params).getJobs()).getFiles());
+  }
+
+  private ReadCostCompactionPlanner createPlanner(Map<String,String> opts) {
+    ReadCostCompactionPlanner planner = new ReadCostCompactionPlanner(clock::get);
+    Configuration conf = EasyMock.createMock(Configuration.class);
+    EasyMock.expect(conf.isSet(EasyMock.anyString())).andReturn(false).anyTimes();
+
+    ServiceEnvironment senv = EasyMock.createMock(ServiceEnvironment.class);
+    EasyMock.expect(senv.getConfiguration()).andReturn(conf).anyTimes();
+
+    EasyMock.replay(conf, senv);
+
+    String executors =
+        ("[{'name':'small','maxSize':'32M','numThreads':1}," + "{'name':'large','numThreads':2}]")
+            .replaceAll("'", "\"");
+
+    Map<String,String> options = new HashMap<>(opts);
+    options.put("executors", executors);
+
+    planner.init(new CompactionPlanner.InitParameters() {
+
+      @Override
+      public ServiceEnvironment getServiceEnvironment() {
+        return senv;
+      }
+
+      @Override
+      public Map<String,String> getOptions() {
+        return options;
+      }
+
+      @Override
+      public String getFullyQualifiedOption(String key) {
+        return Property.TSERV_COMPACTION_SERVICE_PREFIX.getKey() + "cs1.planner.opts." + key;
+      }
+
+      @Override
+      public ExecutorManager getExecutorManager() {
+        return (name, threads) -> CompactionExecutorId.of(name);
+      }
+    });
+
+    return planner;
+  }
+}
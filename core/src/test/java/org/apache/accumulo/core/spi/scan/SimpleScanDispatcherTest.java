@@ -75,6 +75,12 @@ public class SimpleScanDispatcherTest {
 
   private void runTest(Map<String,String> opts, Map<String,String> hints, String expectedSingle,
       String expectedMulti, CacheUsage expectedIndexCU, CacheUsage expectedDataCU) {
+    runTest(opts, hints, expectedSingle, expectedMulti, expectedIndexCU, expectedDataCU, TABLE);
+  }
+
+  private void runTest(Map<String,String> opts, Map<String,String> hints, String expectedSingle,
+      String expectedMulti, CacheUsage expectedIndexCU, CacheUsage expectedDataCU,
+      CacheUsage expectedResultCU) {
     TestScanInfo msi = new TestScanInfo("a", Type.MULTI, 4);
     msi.executionHints = hints;
     TestScanInfo ssi = new TestScanInfo("a", Type.SINGLE, 4);
@@ -109,11 +115,13 @@ public class SimpleScanDispatcherTest {
     assertEquals(expectedMulti, multiPrefs.getExecutorName());
     assertEquals(expectedIndexCU, multiPrefs.getIndexCacheUsage());
     assertEquals(expectedDataCU, multiPrefs.getDataCacheUsage());
+    assertEquals(expectedResultCU, multiPrefs.getResultCacheUsage());
 
     ScanDirectives singlePrefs = ssd1.dispatch(new DispatchParametersImps(ssi, executors));
     assertEquals(expectedSingle, singlePrefs.getExecutorName());
     assertEquals(expectedIndexCU, singlePrefs.getIndexCacheUsage());
     assertEquals(expectedDataCU, singlePrefs.getDataCacheUsage());
+    assertEquals(expectedResultCU, singlePrefs.getResultCacheUsage());
   }
 
   private void runTest(Map<String,String> opts, String expectedSingle, String expectedMulti) {
@@ -163,4 +171,16 @@ public class SimpleScanDispatcherTest {
         "cacheUsage.slow.data", "disabled", "cacheUsage.fast", "enabled"), Map.of(), "E1", "E1",
         TABLE, TABLE);
   }
+
+  @Test
+  public void testResultCache() {
+    String dname = SimpleScanDispatcher.DEFAULT_SCAN_EXECUTOR_NAME;
+
+    runTest(Map.of("cacheUsage.lookup.result", "enabled", "cacheUsage.slow", "disabled"),
+        Map.of("scan_type", "lookup"), dname, dname, TABLE, TABLE, ENABLED);
+    runTest(Map.of("cacheUsage.lookup.result", "enabled", "cacheUsage.slow", "disabled"),
+        Map.of("scan_type", "slow"), dname, dname, DISABLED, DISABLED, TABLE);
+    runTest(Map.of("cacheUsage.lookup.result", "enabled"), Map.of(), dname, dname, TABLE, TABLE,
+        TABLE);
+  }
 }
@@ -39,6 +39,13 @@ public class ServerMutation extends Mutation {
     super(tmutation);
   }
 
+  /**
+   * Creates a server mutation that shares the serialized data of the given mutation.
+   */
+  public ServerMutation(Mutation m) {
+    super(m);
+  }
+
   public ServerMutation(Text key) {
     super(key);
   }
@@ -399,6 +399,53 @@ public class FileUtil {
     }
   }
 
+  /**
+   * Uses the index of the given files to find rows that divide the data between prevEndRow and
+   * endRow into roughly equal sized partitions. Like {@link #findMidPoint}, the result is only as
+   * accurate as the index intervals of the files are similar.
+   *
+   * @return at most numPartitions - 1 distinct rows in sorted order, each greater than prevEndRow
+   *         and less than endRow. Each row is the inclusive end of a partition. Fewer rows are
+   *         returned when the index does not have enough distinct rows.
+   */
+  public static List<Text> findPartitionRows(ServerContext context, Text prevEndRow, Text endRow,
+      Collection<? extends TabletFile> mapFiles, int numPartitions) throws IOException {
+    ArrayList<FileSKVIterator> readers = new ArrayList<>(mapFiles.size());
+    try {
+      long numKeys = countIndexEntries(context, prevEndRow, endRow, mapFiles, true, readers);
+      List<Text> rows = new ArrayList<>();
+      if (numKeys == 0 || numPartitions <= 1) {
+        return rows;
+      }
+
+      List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>(readers);
+      MultiIterator mmfi = new MultiIterator(iters, true);
+
+      // skip the prevEndRow
+      while (mmfi.hasTop() && prevEndRow != null && mmfi.getTopKey().compareRow(prevEndRow) <= 0)
+        mmfi.next();
+
+      long keysRead = 0;
+      while (mmfi.hasTop() && rows.size() < numPartitions - 1) {
+        Key key = mmfi.getTopKey();
+        if (endRow != null && key.compareRow(endRow) >= 0)
+          break;
+
+        if (keysRead >= (rows.size() + 1) * numKeys / numPartitions
+            && (rows.isEmpty() || key.compareRow(rows.get(rows.size() - 1)) > 0)) {
+          rows.add(key.getRow());
+        }
+
+        keysRead++;
+        mmfi.next();
+      }
+
+      return rows;
+    } finally {
+      cleanupIndexOp(null, context.getVolumeManager(), readers);
+    }
+  }
+
   protected static void cleanupIndexOp(Path tmpDir, VolumeManager fs,
       ArrayList<FileSKVIterator> readers) throws IOException {
     // close all of the index sequence files
@@ -424,8 +471,8 @@ public class FileUtil {
   }
 
   private static long countIndexEntries(ServerContext context, Text prevEndRow, Text endRow,
-      Collection<TabletFile> mapFiles, boolean useIndex, ArrayList<FileSKVIterator> readers)
-      throws IOException {
+      Collection<? extends TabletFile> mapFiles, boolean useIndex,
+      ArrayList<FileSKVIterator> readers) throws IOException {
 
     AccumuloConfiguration acuConf = context.getConfiguration();
 
@@ -180,9 +180,9 @@ public class MasterMetadataUtil {
   }
 
   public static void replaceDatafiles(ServerContext context, KeyExtent extent,
-      Set<StoredTabletFile> datafilesToDelete, Set<StoredTabletFile> scanFiles, TabletFile path,
-      Long compactionId, DataFileValue size, String address, TServerInstance lastLocation,
-      ZooLock zooLock) {
+      Set<StoredTabletFile> datafilesToDelete, Set<StoredTabletFile> scanFiles,
+      Map<TabletFile,DataFileValue> newFiles, Long compactionId, String address,
+      TServerInstance lastLocation, ZooLock zooLock) {
 
     context.getAmple().putGcCandidates(extent.tableId(), datafilesToDelete);
 
@@ -191,8 +191,10 @@ public class MasterMetadataUtil {
     datafilesToDelete.forEach(tablet::deleteFile);
     scanFiles.forEach(tablet::putScan);
 
-    if (size.getNumEntries() > 0)
-      tablet.putFile(path, size);
+    newFiles.forEach((path, size) -> {
+      if (size.getNumEntries() > 0)
+        tablet.putFile(path, size);
+    });
 
     if (compactionId != null)
       tablet.putCompactionId(compactionId);
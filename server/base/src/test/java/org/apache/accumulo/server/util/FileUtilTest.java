@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.server.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -25,10 +26,24 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.metadata.TabletFile;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -178,4 +193,68 @@ public class FileUtilTest {
       assertFalse("Expected " + tmp2 + " to be cleaned up but it wasn't", tmp2.exists());
     }
   }
+
+  private TabletFile writeFile(VolumeManager vm, String name, int firstRow, int rowStep)
+      throws IOException {
+    File tabletDir = new File(accumuloDir, "tables/1/t-0001");
+    assertTrue(tabletDir.mkdirs() || tabletDir.isDirectory());
+    TabletFile file = new TabletFile(new Path(new File(tabletDir, name).toURI()));
+
+    // small blocks, so the index has many entries
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    conf.set(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE, "256B");
+
+    FileSystem ns = vm.getFileSystemByPath(file.getPath());
+    FileSKVWriter writer = FileOperations.getInstance().newWriterBuilder()
+        .forFile(file.getPathStr(), ns, ns.getConf(), CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(conf).build();
+    writer.startDefaultLocalityGroup();
+    for (int row = firstRow; row < 1000; row += rowStep) {
+      for (int col = 0; col < 4; col++) {
+        writer.append(new Key(String.format("r%04d", row), "cf", "cq" + col), new Value("v"));
+      }
+    }
+    writer.close();
+    return file;
+  }
+
+  @Test
+  public void testFindPartitionRows() throws IOException {
+    try (var vm = VolumeManagerImpl.getLocalForTesting(accumuloDir.getAbsolutePath())) {
+      ServerContext context = EasyMock.createMock(ServerContext.class);
+      EasyMock.expect(context.getConfiguration()).andReturn(DefaultConfiguration.getInstance())
+          .anyTimes();
+      EasyMock.expect(context.getVolumeManager()).andReturn(vm).anyTimes();
+      EasyMock.expect(context.getCryptoService())
+          .andReturn(CryptoServiceFactory.newDefaultInstance()).anyTimes();
+      EasyMock.replay(context);
+
+      List<TabletFile> files =
+          List.of(writeFile(vm, "A0000.rf", 0, 2), writeFile(vm, "A0001.rf", 1, 2));
+
+      List<Text> rows = FileUtil.findPartitionRows(context, null, null, files, 4);
+      assertEquals(3, rows.size());
+      for (int i = 0; i < rows.size(); i++) {
+        int row = Integer.parseInt(rows.get(i).toString().substring(1));
+        int expected = (i + 1) * 250;
+        assertTrue("Unexpected partition row " + rows, Math.abs(row - expected) < 50);
+      }
+
+      rows = FileUtil.findPartitionRows(context, new Text("r0500"), new Text("r0600"), files, 2);
+      assertEquals(1, rows.size());
+      assertTrue(rows.get(0).compareTo(new Text("r0500")) > 0);
+      assertTrue(rows.get(0).compareTo(new Text("r0600")) < 0);
+
+      // asking for more partitions than the index has rows returns distinct rows in order
+      rows = FileUtil.findPartitionRows(context, null, null, files, 100_000);
+      assertFalse(rows.isEmpty());
+      for (int i = 1; i < rows.size(); i++) {
+        assertTrue(rows.get(i - 1).compareTo(rows.get(i)) < 0);
+      }
+
+      assertTrue(FileUtil.findPartitionRows(context, null, null, files, 1).isEmpty());
+
+      EasyMock.verify(context);
+    }
+  }
 }
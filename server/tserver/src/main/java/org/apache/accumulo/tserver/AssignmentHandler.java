@@ -187,6 +187,10 @@ class AssignmentHandler implements Runnable {
           server.recentlyUnloadedCache.remove(tablet.getExtent());
         }
       }
+      server.resourceManager.warmCaches(extent,
+          tabletMetadata.getLast() == null ? null
+              : tabletMetadata.getLast().getHostAndPort().toString(),
+          tablet.getDatafiles().keySet());
       tablet = null; // release this reference
       successful = true;
     } catch (Throwable e) {
@@ -28,6 +28,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -35,10 +36,13 @@ import java.util.stream.Collectors;
 import org.apache.accumulo.core.client.SampleNotPresentException;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.file.BloomFilterLayer;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
@@ -105,6 +109,8 @@ public class FileManager {
 
   private Cache<String,Long> fileLenCache;
 
+  private final BlockReadahead readahead;
+
   private long maxIdleTime;
   private long slowFilePermitMillis;
 
@@ -149,12 +155,14 @@ public class FileManager {
 
   }
 
-  public FileManager(ServerContext context, int maxOpen, Cache<String,Long> fileLenCache) {
+  public FileManager(ServerContext context, int maxOpen, Cache<String,Long> fileLenCache,
+      BlockReadahead readahead) {
 
     if (maxOpen <= 0)
       throw new IllegalArgumentException("maxOpen <= 0");
     this.context = context;
     this.fileLenCache = fileLenCache;
+    this.readahead = readahead;
 
     this.filePermits = new Semaphore(maxOpen, false);
     this.maxOpen = maxOpen;
@@ -305,6 +313,9 @@ public class FileManager {
             .forFile(path.toString(), ns, ns.getConf(), context.getCryptoService())
             .withTableConfiguration(context.getTableConfiguration(tablet.tableId()))
             .withCacheProvider(cacheProvider).withFileLenCache(fileLenCache).build();
+        if (readahead != null) {
+          reader.setReadahead(readahead);
+        }
         readersReserved.put(reader, file);
       } catch (Exception e) {
 
@@ -547,6 +558,19 @@ public class FileManager {
       return iters;
     }
 
+    /**
+     * Returns the subset of the given ranges that may contain data in at least one of the files,
+     * according to the files bloom filters. Files without a bloom filter match every range. The
+     * files stay open until {@link #releaseOpenFiles(boolean)} is called.
+     */
+    public synchronized List<Range> rangesPossiblyInFiles(Collection<TabletFile> files,
+        List<Range> ranges) throws IOException {
+      Set<FileSKVIterator> readers =
+          openFiles(files.stream().map(TabletFile::getPathStr).collect(Collectors.toList()))
+              .keySet();
+      return rangesPossiblyIn(readers, ranges);
+    }
+
     public synchronized void detach() {
 
       releaseReaders(tablet, tabletReservedReaders, false);
@@ -589,6 +613,25 @@ public class FileManager {
     }
   }
 
+  /**
+   * Returns the subset of the given ranges that may contain data in at least one of the readers,
+   * according to their bloom filters. Readers without a bloom filter match every range.
+   */
+  public static List<Range> rangesPossiblyIn(Collection<FileSKVIterator> readers,
+      List<Range> ranges) {
+    List<Range> possible = new ArrayList<>();
+    for (Range range : ranges) {
+      for (FileSKVIterator reader : readers) {
+        if (!(reader instanceof BloomFilterLayer.Reader)
+            || ((BloomFilterLayer.Reader) reader).probablyHasKey(range)) {
+          possible.add(range);
+          break;
+        }
+      }
+    }
+    return possible;
+  }
+
   public ScanFileManager newScanFileManager(KeyExtent tablet, CacheProvider cacheProvider) {
     return new ScanFileManager(tablet, cacheProvider);
   }
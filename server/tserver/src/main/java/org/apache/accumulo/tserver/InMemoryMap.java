@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +37,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
 import org.apache.accumulo.core.client.sample.Sampler;
@@ -105,9 +107,11 @@ public class InMemoryMap {
   }
 
   public static final String TYPE_NATIVE_MAP_WRAPPER = "NativeMapWrapper";
+  public static final String TYPE_OFF_HEAP_MAP_WRAPPER = "OffHeapMapWrapper";
   public static final String TYPE_DEFAULT_MAP = "DefaultMap";
   public static final String TYPE_LOCALITY_GROUP_MAP = "LocalityGroupMap";
   public static final String TYPE_LOCALITY_GROUP_MAP_NATIVE = "LocalityGroupMap with native";
+  public static final String TYPE_LOCALITY_GROUP_MAP_OFF_HEAP = "LocalityGroupMap with off-heap";
 
   private AtomicReference<Pair<SamplerConfigurationImpl,Sampler>> samplerRef =
       new AtomicReference<>(null);
@@ -131,7 +135,9 @@ public class InMemoryMap {
 
   public InMemoryMap(AccumuloConfiguration config, ServerContext serverContext, TableId tableId) {
 
-    boolean useNativeMap = config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED);
+    boolean useOffHeapMap = config.getBoolean(Property.TSERV_OFFHEAPMAP_ENABLED);
+    // check the off heap setting first so the native library is not loaded when it is not used
+    boolean useNativeMap = !useOffHeapMap && config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED);
 
     this.memDumpDir = config.get(Property.TSERV_MEMDUMP_DIR);
     this.lggroups = LocalityGroupUtil.getLocalityGroupsIgnoringErrors(config, tableId);
@@ -139,17 +145,32 @@ public class InMemoryMap {
     this.config = config;
     this.context = serverContext;
 
+    Supplier<SimpleMap> mapFactory;
+    if (useOffHeapMap) {
+      int chunkSize =
+          (int) Math.min(config.getAsBytes(Property.TSERV_OFFHEAPMAP_CHUNK_SIZE), 1 << 30);
+      mapFactory = () -> new OffHeapMapWrapper(chunkSize);
+    } else {
+      mapFactory = () -> newMap(useNativeMap);
+    }
+
     SimpleMap allMap;
     SimpleMap sampleMap;
 
     if (lggroups.isEmpty()) {
-      allMap = newMap(useNativeMap);
-      sampleMap = newMap(useNativeMap);
-      mapType = useNativeMap ? TYPE_NATIVE_MAP_WRAPPER : TYPE_DEFAULT_MAP;
+      allMap = mapFactory.get();
+      sampleMap = mapFactory.get();
+      if (useOffHeapMap)
+        mapType = TYPE_OFF_HEAP_MAP_WRAPPER;
+      else
+        mapType = useNativeMap ? TYPE_NATIVE_MAP_WRAPPER : TYPE_DEFAULT_MAP;
     } else {
-      allMap = new LocalityGroupMap(lggroups, useNativeMap);
-      sampleMap = new LocalityGroupMap(lggroups, useNativeMap);
-      mapType = useNativeMap ? TYPE_LOCALITY_GROUP_MAP_NATIVE : TYPE_LOCALITY_GROUP_MAP;
+      allMap = new LocalityGroupMap(lggroups, mapFactory);
+      sampleMap = new LocalityGroupMap(lggroups, mapFactory);
+      if (useOffHeapMap)
+        mapType = TYPE_LOCALITY_GROUP_MAP_OFF_HEAP;
+      else
+        mapType = useNativeMap ? TYPE_LOCALITY_GROUP_MAP_NATIVE : TYPE_LOCALITY_GROUP_MAP;
     }
 
     map = new SampleMap(allMap, sampleMap);
@@ -170,10 +191,12 @@ public class InMemoryMap {
   /**
    * Description of the type of SimpleMap that is created.
    * <p>
-   * If no locality groups are present, the SimpleMap is either TYPE_DEFAULT_MAP or
-   * TYPE_NATIVE_MAP_WRAPPER. If there is one more locality groups, then the InMemoryMap has an
-   * array for simple maps that either contain either TYPE_LOCALITY_GROUP_MAP which contains
-   * DefaultMaps or TYPE_LOCALITY_GROUP_MAP_NATIVE which contains NativeMapWrappers.
+   * If no locality groups are present, the SimpleMap is either TYPE_DEFAULT_MAP,
+   * TYPE_NATIVE_MAP_WRAPPER or TYPE_OFF_HEAP_MAP_WRAPPER. If there is one more locality groups,
+   * then the InMemoryMap has an array for simple maps that either contain either
+   * TYPE_LOCALITY_GROUP_MAP which contains DefaultMaps, TYPE_LOCALITY_GROUP_MAP_NATIVE which
+   * contains NativeMapWrappers or TYPE_LOCALITY_GROUP_MAP_OFF_HEAP which contains
+   * OffHeapMapWrappers.
    *
    * @return String that describes the Map type
    */
@@ -283,15 +306,13 @@ public class InMemoryMap {
     // the last map in the array is the default locality group
     private SimpleMap[] maps;
     private Partitioner partitioner;
-    private PreAllocatedArray<List<Mutation>> partitioned;
 
-    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap) {
+    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, Supplier<SimpleMap> mapFactory) {
       this.groupFams = new PreAllocatedArray<>(groups.size());
       this.maps = new SimpleMap[groups.size() + 1];
-      this.partitioned = new PreAllocatedArray<>(groups.size() + 1);
 
       for (int i = 0; i < maps.length; i++) {
-        maps[i] = newMap(useNativeMap);
+        maps[i] = mapFactory.get();
       }
 
       int count = 0;
@@ -303,10 +324,6 @@ public class InMemoryMap {
       }
 
       partitioner = new LocalityGroupUtil.Partitioner(this.groupFams);
-
-      for (int i = 0; i < partitioned.length; i++) {
-        partitioned.set(i, new ArrayList<>());
-      }
     }
 
     @Override
@@ -348,25 +365,21 @@ public class InMemoryMap {
     }
 
     @Override
-    public synchronized void mutate(List<Mutation> mutations, int kvCount) {
-      // this method is synchronized because it reuses objects to avoid allocation,
-      // currently, the method that calls this is synchronized so there is no
-      // loss in parallelism.... synchronization was added here for future proofing
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      // the partition lists are allocated per call so that concurrent writers do not have to
+      // serialize on this map
+      PreAllocatedArray<List<Mutation>> partitioned = new PreAllocatedArray<>(maps.length);
+      for (int i = 0; i < partitioned.length; i++) {
+        partitioned.set(i, new ArrayList<>());
+      }
 
-      try {
-        partitioner.partition(mutations, partitioned);
+      partitioner.partition(mutations, partitioned);
 
-        for (int i = 0; i < partitioned.length; i++) {
-          if (!partitioned.get(i).isEmpty()) {
-            maps[i].mutate(partitioned.get(i), kvCount);
-            for (Mutation m : partitioned.get(i))
-              kvCount += m.getUpdates().size();
-          }
-        }
-      } finally {
-        // clear immediately so mutations can be garbage collected
-        for (List<Mutation> list : partitioned) {
-          list.clear();
+      for (int i = 0; i < partitioned.length; i++) {
+        if (!partitioned.get(i).isEmpty()) {
+          maps[i].mutate(partitioned.get(i), kvCount);
+          for (Mutation m : partitioned.get(i))
+            kvCount += m.getUpdates().size();
         }
       }
     }
@@ -470,30 +483,118 @@ public class InMemoryMap {
     }
   }
 
-  private AtomicInteger nextKVCount = new AtomicInteger(1);
-  private AtomicInteger kvCount = new AtomicInteger(0);
+  /**
+   * Stores the map in off heap memory, see {@link OffHeapMap}.
+   */
+  private static class OffHeapMapWrapper implements SimpleMap {
+    private OffHeapMap offHeapMap;
+
+    OffHeapMapWrapper(int chunkSize) {
+      offHeapMap = new OffHeapMap(chunkSize);
+    }
+
+    @Override
+    public int size() {
+      return offHeapMap.size();
+    }
 
-  private Object writeSerializer = new Object();
+    @Override
+    public InterruptibleIterator skvIterator(SamplerConfigurationImpl samplerConfig) {
+      if (samplerConfig != null)
+        throw new SampleNotPresentException();
+      return offHeapMap.skvIterator();
+    }
+
+    @Override
+    public void delete() {
+      offHeapMap.delete();
+    }
+
+    @Override
+    public long getMemoryUsed() {
+      return offHeapMap.getMemoryUsed();
+    }
+
+    @Override
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      offHeapMap.mutate(mutations, kvCount);
+    }
+  }
+
+  /**
+   * Hands out kvCount ranges to concurrent writers and tracks the visibility watermark, the highest
+   * kvCount at or below which every write has been fully applied to the map. Scans only see entries
+   * at or below the watermark, so they never observe part of a batch of mutations even though
+   * batches are written to the map in parallel.
+   */
+  private static class KVCountWatermark {
+    // start of each kvCount range that has been reserved but not yet completed
+    private final TreeSet<Integer> inFlight = new TreeSet<>();
+    private int nextKVCount = 1;
+    private volatile int watermark = 0;
+
+    synchronized int reserve(int numKVs) {
+      int start = nextKVCount;
+      nextKVCount += numKVs;
+      inFlight.add(start);
+      return start;
+    }
+
+    /**
+     * Marks a reserved range as written and waits until the watermark covers it. Returning before
+     * that point could let a scan started after this write returns miss the write.
+     */
+    synchronized void complete(int start, int numKVs) {
+      inFlight.remove(start);
+
+      int newWatermark = inFlight.isEmpty() ? nextKVCount - 1 : inFlight.first() - 1;
+      if (newWatermark != watermark) {
+        watermark = newWatermark;
+        notifyAll();
+      }
+
+      boolean interrupted = false;
+      while (watermark < start + numKVs - 1) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    int getWatermark() {
+      return watermark;
+    }
+
+    synchronized void checkQuiesced() {
+      if (!inFlight.isEmpty() || nextKVCount - 1 != watermark)
+        throw new IllegalStateException("Memory map in unexpected state : nextKVCount = "
+            + nextKVCount + " kvCount = " + watermark + " writes in progress = " + inFlight.size());
+    }
+  }
+
+  private final KVCountWatermark kvCounts = new KVCountWatermark();
 
   /**
    * Applies changes to a row in the InMemoryMap
    *
    */
   public void mutate(List<Mutation> mutations, int numKVs) {
-    // Can not update mutationCount while writes that started before
-    // are in progress, this would cause partial mutations to be seen.
-    // Also, can not continue until mutation count is updated, because
-    // a read may not see a successful write. Therefore writes must
-    // wait for writes that started before to finish.
-    //
-    // using separate lock from this map, to allow read/write in parallel
-    synchronized (writeSerializer) {
-      int kv = nextKVCount.getAndAdd(numKVs);
-      try {
-        map.mutate(mutations, kv);
-      } finally {
-        kvCount.set(kv + numKVs - 1);
-      }
+    // Writes reserve a contiguous range of kvCounts and are then applied to the map in parallel
+    // with other writes. Scans are limited to the watermark, which only advances past a range once
+    // every range reserved before it has been written, so partial mutations are never seen. This
+    // method does not return until the watermark covers the write, otherwise a read started after
+    // a successful write may not see it.
+    int kv = kvCounts.reserve(numKVs);
+    try {
+      map.mutate(mutations, kv);
+    } finally {
+      kvCounts.complete(kv, numKVs);
     }
   }
 
@@ -701,7 +802,7 @@ public class InMemoryMap {
     if (deleted)
       throw new IllegalStateException("Can not obtain iterator after map deleted");
 
-    int mc = kvCount.get();
+    int mc = kvCounts.getWatermark();
     MemoryDataSource mds = new MemoryDataSource(iteratorSamplerConfig);
     // TODO seems like a bug that two MemoryDataSources are created... may need to fix in older
     // branches
@@ -715,9 +816,7 @@ public class InMemoryMap {
 
   public SortedKeyValueIterator<Key,Value> compactionIterator() {
 
-    if (nextKVCount.get() - 1 != kvCount.get())
-      throw new IllegalStateException("Memory map in unexpected state : nextKVCount = "
-          + nextKVCount.get() + " kvCount = " + kvCount.get());
+    kvCounts.checkQuiesced();
 
     return map.skvIterator(null);
   }
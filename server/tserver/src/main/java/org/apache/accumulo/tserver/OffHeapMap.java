@@ -0,0 +1,506 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.client.SampleNotPresentException;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IterationInterruptedException;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A sorted map of {@link MemKey}s to values that is written in pure Java, but keeps its data and
+ * its skip list index outside of the Java heap. This gives GC behavior close to {@link NativeMap}
+ * without needing the native library.
+ *
+ * <p>
+ * Each entry is stored as a single record in a chunk of direct memory. A record holds the skip list
+ * level and next pointers of the entry followed by the key fields, the kvCount and the value. Only
+ * a handful of chunk objects live on the heap, regardless of how many entries the map holds. Chunks
+ * start small and double in size up to the configured maximum, so maps for lightly written tablets
+ * do not hold much memory. The first chunk is allocated by the first write, so maps that are never
+ * written, like the sample map of a table without sampling, hold no direct memory at all.
+ *
+ * <p>
+ * Writes are lock free except for the brief moment needed to allocate space for a record, so
+ * several threads can write at once. Readers never block. Entries are never removed; the memory for
+ * the whole map is released when {@link #delete()} is called and the direct buffers are garbage
+ * collected. The direct memory available to the JVM should be sized with
+ * {@code -XX:MaxDirectMemorySize} to fit {@code tserver.memory.maps.max}.
+ */
+public class OffHeapMap {
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private static final int MAX_LEVEL = 24;
+
+  // record layout, all offsets are relative to the start of a record which is 8 byte aligned
+  private static final int LEVEL_OFF = 0;
+  private static final int KVCOUNT_OFF = 4;
+  private static final int TIMESTAMP_OFF = 8;
+  private static final int ROW_LEN_OFF = 16;
+  private static final int CF_LEN_OFF = 20;
+  private static final int CQ_LEN_OFF = 24;
+  private static final int CV_LEN_OFF = 28;
+  private static final int VAL_LEN_OFF = 32;
+  private static final int DELETED_OFF = 36;
+  private static final int NEXT_OFF = 40;
+
+  private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+  // the head of the skip list is always the first record of the first chunk, so a pointer of zero
+  // can be used to mean null
+  private static final long HEAD = 0;
+  private static final long NULL = 0;
+
+  private final int maxChunkSize;
+
+  private volatile ByteBuffer[] chunks;
+  private volatile boolean deleted = false;
+
+  // guarded by this
+  private int currentChunk;
+  private int currentOffset;
+  private long memoryUsed;
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  public OffHeapMap(int maxChunkSize) {
+    Preconditions.checkArgument(maxChunkSize >= MIN_CHUNK_SIZE,
+        "Off heap map chunk size %s is less than minimum of %s", maxChunkSize, MIN_CHUNK_SIZE);
+    this.maxChunkSize = maxChunkSize;
+    this.chunks = new ByteBuffer[0];
+    this.currentChunk = -1;
+  }
+
+  private synchronized void allocateHead() {
+    if (currentChunk < 0) {
+      long head = allocate(NEXT_OFF + MAX_LEVEL * 8);
+      Preconditions.checkState(head == HEAD);
+      ByteBuffer chunk = chunk(head);
+      chunk.putInt(offset(head) + LEVEL_OFF, MAX_LEVEL);
+    }
+  }
+
+  private static int chunkIndex(long pointer) {
+    return (int) (pointer >>> 32);
+  }
+
+  private static int offset(long pointer) {
+    return (int) pointer;
+  }
+
+  private static long pointer(int chunkIndex, int offset) {
+    return ((long) chunkIndex << 32) | offset;
+  }
+
+  private ByteBuffer chunk(long pointer) {
+    ByteBuffer[] c = chunks;
+    if (deleted)
+      throw new IllegalStateException("Off heap map deleted");
+    return c[chunkIndex(pointer)];
+  }
+
+  private static ByteBuffer newChunk(int size) {
+    // records are 8 byte aligned so that next pointers can be updated atomically
+    return ByteBuffer.allocateDirect(size + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+  }
+
+  private synchronized long allocate(int recordSize) {
+    if (deleted)
+      throw new IllegalStateException("Off heap map deleted");
+
+    recordSize = (recordSize + 7) & ~7;
+
+    if (currentChunk < 0 || currentOffset + recordSize > chunks[currentChunk].capacity()) {
+      int nextSize = currentChunk < 0 ? MIN_CHUNK_SIZE
+          : Math.min(maxChunkSize, chunks[currentChunk].capacity() * 2);
+      // records larger than the max chunk size get a chunk of their own
+      nextSize = Math.max(nextSize, recordSize);
+
+      ByteBuffer[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+      newChunks[newChunks.length - 1] = newChunk(nextSize);
+      chunks = newChunks;
+      currentChunk = newChunks.length - 1;
+      currentOffset = 0;
+      memoryUsed += nextSize;
+    }
+
+    long pointer = pointer(currentChunk, currentOffset);
+    currentOffset += recordSize;
+    return pointer;
+  }
+
+  private long getNext(long node, int level) {
+    return (long) LONGS.getAcquire(chunk(node), offset(node) + NEXT_OFF + level * 8);
+  }
+
+  private void setNext(long node, int level, long next) {
+    LONGS.setRelease(chunk(node), offset(node) + NEXT_OFF + level * 8, next);
+  }
+
+  private boolean casNext(long node, int level, long expected, long next) {
+    return LONGS.compareAndSet(chunk(node), offset(node) + NEXT_OFF + level * 8, expected, next);
+  }
+
+  private static int randomLevel() {
+    // each level holds a quarter of the entries of the level below it
+    int level = 1;
+    int rand = ThreadLocalRandom.current().nextInt();
+    while (level < MAX_LEVEL && (rand & 3) == 0) {
+      level++;
+      rand >>>= 2;
+      if (rand == 0)
+        break;
+    }
+    return level;
+  }
+
+  private static int compareBytes(byte[] b, int off, int len, ByteBuffer chunk, int nodeOff,
+      int nodeLen) {
+    int end = Math.min(len, nodeLen);
+    for (int i = 0; i < end; i++) {
+      int cmp = (b[off + i] & 0xff) - (chunk.get(nodeOff + i) & 0xff);
+      if (cmp != 0)
+        return cmp;
+    }
+    return len - nodeLen;
+  }
+
+  /**
+   * Compares a key held on the heap to the key of a record. The ordering is the same as
+   * {@link MemKeyComparator}. A search key with a kvCount of {@link Integer#MAX_VALUE} sorts before
+   * every record with an equal key.
+   */
+  private int compare(ByteSequence row, ByteSequence cf, ByteSequence cq, ByteSequence cv, long ts,
+      boolean del, int kvCount, long node) {
+    ByteBuffer chunk = chunk(node);
+    int off = offset(node);
+    int level = chunk.getInt(off + LEVEL_OFF);
+    int rowLen = chunk.getInt(off + ROW_LEN_OFF);
+    int cfLen = chunk.getInt(off + CF_LEN_OFF);
+    int cqLen = chunk.getInt(off + CQ_LEN_OFF);
+    int cvLen = chunk.getInt(off + CV_LEN_OFF);
+
+    int dataOff = off + NEXT_OFF + level * 8;
+
+    int cmp =
+        compareBytes(row.getBackingArray(), row.offset(), row.length(), chunk, dataOff, rowLen);
+    if (cmp != 0)
+      return cmp;
+    dataOff += rowLen;
+
+    cmp = compareBytes(cf.getBackingArray(), cf.offset(), cf.length(), chunk, dataOff, cfLen);
+    if (cmp != 0)
+      return cmp;
+    dataOff += cfLen;
+
+    cmp = compareBytes(cq.getBackingArray(), cq.offset(), cq.length(), chunk, dataOff, cqLen);
+    if (cmp != 0)
+      return cmp;
+    dataOff += cqLen;
+
+    cmp = compareBytes(cv.getBackingArray(), cv.offset(), cv.length(), chunk, dataOff, cvLen);
+    if (cmp != 0)
+      return cmp;
+
+    cmp = Long.compare(chunk.getLong(off + TIMESTAMP_OFF), ts);
+    if (cmp != 0)
+      return cmp;
+
+    boolean nodeDel = chunk.get(off + DELETED_OFF) != 0;
+    if (del != nodeDel)
+      return del ? -1 : 1;
+
+    return Integer.compare(chunk.getInt(off + KVCOUNT_OFF), kvCount);
+  }
+
+  private int compare(Key key, int kvCount, long node) {
+    return compare(key.getRowData(), key.getColumnFamilyData(), key.getColumnQualifierData(),
+        key.getColumnVisibilityData(), key.getTimestamp(), key.isDeleted(), kvCount, node);
+  }
+
+  /**
+   * Finds the first record at or after the given key.
+   */
+  private long ceiling(Key key) {
+    int kvCount = key instanceof MemKey ? ((MemKey) key).getKVCount() : Integer.MAX_VALUE;
+    long x = HEAD;
+    for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+      long next = getNext(x, level);
+      while (next != NULL && compare(key, kvCount, next) > 0) {
+        x = next;
+        next = getNext(x, level);
+      }
+    }
+    return getNext(x, 0);
+  }
+
+  private long newRecord(byte[] row, ColumnUpdate cu, int kvCount, int level) {
+    byte[] cf = cu.getColumnFamily();
+    byte[] cq = cu.getColumnQualifier();
+    byte[] cv = cu.getColumnVisibility();
+    byte[] val = cu.getValue();
+
+    int dataOff = NEXT_OFF + level * 8;
+    long node = allocate(dataOff + row.length + cf.length + cq.length + cv.length + val.length);
+
+    ByteBuffer chunk = chunk(node);
+    int off = offset(node);
+    chunk.putInt(off + LEVEL_OFF, level);
+    chunk.putInt(off + KVCOUNT_OFF, kvCount);
+    chunk.putLong(off + TIMESTAMP_OFF, cu.getTimestamp());
+    chunk.putInt(off + ROW_LEN_OFF, row.length);
+    chunk.putInt(off + CF_LEN_OFF, cf.length);
+    chunk.putInt(off + CQ_LEN_OFF, cq.length);
+    chunk.putInt(off + CV_LEN_OFF, cv.length);
+    chunk.putInt(off + VAL_LEN_OFF, val.length);
+    chunk.put(off + DELETED_OFF, (byte) (cu.isDeleted() ? 1 : 0));
+
+    // a duplicate has its own position, so concurrent writers do not interfere with each other
+    ByteBuffer data = chunk.duplicate();
+    data.position(off + dataOff);
+    data.put(row).put(cf).put(cq).put(cv).put(val);
+
+    return node;
+  }
+
+  private void insert(byte[] row, ColumnUpdate cu, int kvCount) {
+    int level = randomLevel();
+    long node = newRecord(row, cu, kvCount, level);
+
+    Key key = new MemKey(row, cu.getColumnFamily(), cu.getColumnQualifier(),
+        cu.getColumnVisibility(), cu.getTimestamp(), cu.isDeleted(), false, kvCount);
+
+    long[] preds = new long[level];
+    long x = HEAD;
+    for (int lvl = MAX_LEVEL - 1; lvl >= 0; lvl--) {
+      long next = getNext(x, lvl);
+      while (next != NULL && compare(key, kvCount, next) > 0) {
+        x = next;
+        next = getNext(x, lvl);
+      }
+      if (lvl < level)
+        preds[lvl] = x;
+    }
+
+    // Link the record in from the bottom up. Records are never removed, so when a CAS fails the
+    // predecessor is still before the new record and the search can resume from it.
+    for (int lvl = 0; lvl < level; lvl++) {
+      long pred = preds[lvl];
+      while (true) {
+        long next = getNext(pred, lvl);
+        while (next != NULL && compare(key, kvCount, next) > 0) {
+          pred = next;
+          next = getNext(pred, lvl);
+        }
+        setNext(node, lvl, next);
+        if (casNext(pred, lvl, next, node))
+          break;
+      }
+    }
+
+    size.incrementAndGet();
+  }
+
+  /**
+   * Adds all of the updates in the mutations to the map. The updates are assigned consecutive
+   * kvCounts starting with the one given.
+   */
+  public void mutate(List<Mutation> mutations, int kvCount) {
+    if (chunks.length == 0) {
+      allocateHead();
+    }
+    for (Mutation m : mutations) {
+      byte[] row = m.getRow();
+      for (ColumnUpdate cu : m.getUpdates()) {
+        insert(row, cu, kvCount++);
+      }
+    }
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * @return the amount of direct memory allocated by this map
+   */
+  public synchronized long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  public synchronized void delete() {
+    if (deleted)
+      throw new IllegalStateException("Off heap map deleted");
+    deleted = true;
+    // drop references to the chunks so the direct memory can be freed
+    chunks = new ByteBuffer[0];
+  }
+
+  public InterruptibleIterator skvIterator() {
+    return new OffHeapIterator(null);
+  }
+
+  private class OffHeapIterator implements InterruptibleIterator {
+
+    private long node = NULL;
+    private Key topKey;
+    private Value topValue;
+    private Range range = new Range();
+    private AtomicBoolean interruptFlag;
+    private int interruptCheckCount = 0;
+
+    OffHeapIterator(AtomicBoolean interruptFlag) {
+      this.interruptFlag = interruptFlag;
+    }
+
+    private void readTop() {
+      if (node == NULL) {
+        topKey = null;
+        topValue = null;
+        return;
+      }
+
+      ByteBuffer chunk = chunk(node);
+      int off = offset(node);
+      int level = chunk.getInt(off + LEVEL_OFF);
+      int rowLen = chunk.getInt(off + ROW_LEN_OFF);
+      int cfLen = chunk.getInt(off + CF_LEN_OFF);
+      int cqLen = chunk.getInt(off + CQ_LEN_OFF);
+      int cvLen = chunk.getInt(off + CV_LEN_OFF);
+      int valLen = chunk.getInt(off + VAL_LEN_OFF);
+
+      byte[] row = new byte[rowLen];
+      byte[] cf = new byte[cfLen];
+      byte[] cq = new byte[cqLen];
+      byte[] cv = new byte[cvLen];
+      byte[] val = new byte[valLen];
+
+      ByteBuffer data = chunk.duplicate();
+      data.position(off + NEXT_OFF + level * 8);
+      data.get(row).get(cf).get(cq).get(cv).get(val);
+
+      topKey = new MemKey(row, cf, cq, cv, chunk.getLong(off + TIMESTAMP_OFF),
+          chunk.get(off + DELETED_OFF) != 0, false, chunk.getInt(off + KVCOUNT_OFF));
+      topValue = new Value(val, false);
+
+      if (range.afterEndKey(topKey)) {
+        node = NULL;
+        topKey = null;
+        topValue = null;
+      }
+    }
+
+    @Override
+    public Key getTopKey() {
+      return topKey;
+    }
+
+    @Override
+    public Value getTopValue() {
+      return topValue;
+    }
+
+    @Override
+    public boolean hasTop() {
+      return topKey != null;
+    }
+
+    @Override
+    public void next() {
+      if (node == NULL)
+        throw new NoSuchElementException();
+
+      // checking the interrupt flag for every call to next had bad a bad performance impact
+      // so check it every 100th time
+      if (interruptFlag != null && interruptCheckCount++ % 100 == 0 && interruptFlag.get())
+        throw new IterationInterruptedException();
+
+      node = getNext(node, 0);
+      readTop();
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) {
+      if (interruptFlag != null && interruptFlag.get())
+        throw new IterationInterruptedException();
+
+      this.range = range;
+
+      Key key = range.getStartKey();
+      if (chunks.length == 0) {
+        if (deleted)
+          throw new IllegalStateException("Off heap map deleted");
+        // nothing was written yet, so there is not even a head record
+        node = NULL;
+      } else if (key == null) {
+        node = getNext(HEAD, 0);
+      } else {
+        node = ceiling(key);
+      }
+      readTop();
+
+      while (hasTop() && range.beforeStartKey(getTopKey())) {
+        next();
+      }
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+        IteratorEnvironment env) {
+      throw new UnsupportedOperationException("init");
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      if (env != null && env.isSamplingEnabled()) {
+        throw new SampleNotPresentException();
+      }
+      return new OffHeapIterator(interruptFlag);
+    }
+
+    @Override
+    public void setInterruptFlag(AtomicBoolean flag) {
+      this.interruptFlag = flag;
+    }
+  }
+}
@@ -332,13 +332,14 @@ public class TabletServer extends AbstractServer {
         .maxWait(walFailureRetryMax, TimeUnit.MILLISECONDS).backOffFactor(1.5)
         .logInterval(3, TimeUnit.MINUTES).createFactory();
 
-    logger = new TabletServerLogger(this, walogMaxSize, syncCounter, flushCounter,
+    updateMetrics = new TabletServerUpdateMetrics();
+    logger = new TabletServerLogger(this, walogMaxSize, syncCounter, flushCounter, updateMetrics,
         walCreationRetryFactory, walWritingRetryFactory, walogMaxAge);
     this.resourceManager = new TabletServerResourceManager(context);
     this.security = AuditedSecurityOperation.getInstance(context);
 
-    updateMetrics = new TabletServerUpdateMetrics();
-    scanMetrics = new TabletServerScanMetrics();
+    scanMetrics = new TabletServerScanMetrics(resourceManager.getBlockReadahead(),
+        resourceManager.getFairShareQueues(), resourceManager.getTableCacheStats());
     mincMetrics = new TabletServerMinCMetrics();
     SimpleTimer.getInstance(aconf).schedule(TabletLocator::clearLocators, jitter(), jitter());
     walMarker = new WalStateManager(context);
@@ -738,6 +739,7 @@ public class TabletServer extends AbstractServer {
       throw new RuntimeException("Failed to start the tablet client service", e1);
     }
     announceExistence();
+    resourceManager.startCacheWarming(getClientAddressString());
     try {
       walMarker.initWalMarker(getTabletSession());
     } catch (Exception e) {
@@ -855,12 +857,16 @@ public class TabletServer extends AbstractServer {
         }
       }
     }
+    resourceManager.saveHotBlocks();
+
     log.debug("Stopping Replication Server");
     TServerUtils.stopTServer(this.replServer);
 
     log.debug("Stopping Thrift Servers");
     TServerUtils.stopTServer(server);
 
+    logSorter.shutdown();
+
     try {
       log.debug("Closing filesystems");
       getVolumeManager().close();
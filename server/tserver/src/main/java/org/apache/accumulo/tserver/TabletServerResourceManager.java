@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -45,19 +46,25 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
 
+import org.apache.accumulo.core.clientImpl.Tables;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.AccumuloConfiguration.ScanExecutorConfig;
 import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
 import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.impl.PartitionableBlockCache;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.file.blockfile.impl.ScanCacheProvider;
+import org.apache.accumulo.core.metadata.TabletFile;
 import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
 import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.accumulo.core.spi.common.ServiceEnvironment;
 import org.apache.accumulo.core.spi.scan.ScanDirectives;
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
 import org.apache.accumulo.core.spi.scan.ScanDispatcher;
 import org.apache.accumulo.core.spi.scan.ScanDispatcher.DispatchParameters;
 import org.apache.accumulo.core.spi.scan.ScanExecutor;
@@ -74,7 +81,12 @@ import org.apache.accumulo.server.tabletserver.MemoryManagementActions;
 import org.apache.accumulo.server.tabletserver.TabletState;
 import org.apache.accumulo.server.util.time.SimpleTimer;
 import org.apache.accumulo.tserver.FileManager.ScanFileManager;
+import org.apache.accumulo.tserver.cache.BlockCacheWarmer;
+import org.apache.accumulo.tserver.cache.TableCacheStats;
+import org.apache.accumulo.tserver.scan.AdaptiveScanThreadPool;
+import org.apache.accumulo.tserver.scan.FairShareScanQueue;
 import org.apache.accumulo.tserver.session.ScanSession;
+import org.apache.accumulo.tserver.tablet.ResultCache;
 import org.apache.accumulo.tserver.tablet.Tablet;
 import org.apache.htrace.wrappers.TraceExecutorService;
 import org.apache.htrace.wrappers.TraceRunnable;
@@ -105,9 +117,12 @@ public class TabletServerResourceManager {
   private final ExecutorService summaryRetrievalPool;
   private final ExecutorService summaryParitionPool;
   private final ExecutorService summaryRemotePool;
+  private final ExecutorService readaheadPool;
+  private final ExecutorService compactionPartitionPool;
   private final Map<String,ExecutorService> threadPools = new TreeMap<>();
 
   private final Map<String,ExecutorService> scanExecutors;
+  private final Map<String,FairShareScanQueue> fairShareQueues = new TreeMap<>();
   private final Map<String,ScanExecutor> scanExecutorChoices;
 
   private final ConcurrentHashMap<KeyExtent,RunnableStartedAt> activeAssignments;
@@ -122,10 +137,15 @@ public class TabletServerResourceManager {
   private final BlockCache _dCache;
   private final BlockCache _iCache;
   private final BlockCache _sCache;
+  private final ResultCache resultCache;
+  private final BlockCacheWarmer cacheWarmer;
+  private final Map<CacheType,TableCacheStats> tableCacheStats = new EnumMap<>(CacheType.class);
   private final ServerContext context;
 
   private Cache<String,Long> fileLenCache;
 
+  private final BlockReadahead blockReadahead;
+
   private ExecutorService addEs(String name, ExecutorService tp) {
     if (threadPools.containsKey(name)) {
       throw new IllegalArgumentException(
@@ -153,6 +173,11 @@ public class TabletServerResourceManager {
             tp.setCorePoolSize(max);
             tp.setMaximumPoolSize(max);
           }
+          if (tp.getQueue() instanceof FairShareScanQueue) {
+            // threads added by raising the core size must also be started before any tasks are
+            // submitted, see createPriorityExecutor
+            tp.prestartAllCoreThreads();
+          }
         }
       } catch (Throwable t) {
         log.error("Failed to change thread pool size", t);
@@ -183,7 +208,25 @@ public class TabletServerResourceManager {
 
     BlockingQueue<Runnable> queue;
 
-    if (sec.prioritizerClass.orElse("").isEmpty()) {
+    if (sec.fairShare) {
+      Function<Runnable,FairShareScanQueue.Tenant> extractor = r -> {
+        ScanSession session =
+            (ScanSession) ((ScanSession.ScanMeasurer) ((TraceRunnable) r).getRunnable())
+                .getScanInfo();
+        return new FairShareScanQueue.Tenant(session.getUser(), session.getTableId());
+      };
+      FairShareScanQueue fairShareQueue = new FairShareScanQueue(extractor, new FairShares());
+      fairShareQueues.put(sec.name, fairShareQueue);
+      queue = fairShareQueue;
+      SimpleTimer.getInstance(context.getConfiguration()).schedule(() -> {
+        try {
+          fairShareQueue.pruneStats(10, TimeUnit.MINUTES,
+              tableId -> Tables.exists(context, tableId));
+        } catch (Exception e) {
+          log.error("Failed to prune admission stats for {}", sec.name, e);
+        }
+      }, 60_000, 60_000);
+    } else if (sec.prioritizerClass.orElse("").isEmpty()) {
       queue = new LinkedBlockingQueue<>();
     } else {
       ScanPrioritizer factory = null;
@@ -222,7 +265,90 @@ public class TabletServerResourceManager {
 
     scanExecQueues.put(sec.name, queue);
 
-    return createEs(sec::getCurrentMaxThreads, "scan-" + sec.name, queue, sec.priority);
+    String name = "scan-" + sec.name;
+    ThreadPoolExecutor tp;
+    IntSupplier maxThreadsSupplier;
+    if (sec.isAdaptive()) {
+      AdaptiveScanThreadPool atp =
+          new AdaptiveScanThreadPool(sec.maxThreads, sec.adaptiveMinThreads.getAsInt(),
+              sec.adaptiveMaxThreads.getAsInt(), Runtime.getRuntime().availableProcessors(), queue,
+              new NamingThreadFactory(name, sec.priority));
+      tp = atp;
+      maxThreadsSupplier = atp::computePoolSize;
+    } else {
+      tp = new ThreadPoolExecutor(sec.maxThreads, sec.maxThreads, 0L, TimeUnit.MILLISECONDS, queue,
+          new NamingThreadFactory(name, sec.priority));
+      maxThreadsSupplier = sec::getCurrentMaxThreads;
+    }
+
+    if (sec.fairShare) {
+      // a thread pool hands tasks directly to the threads it starts, bypassing admission
+      tp.prestartAllCoreThreads();
+    }
+
+    return addEs(maxThreadsSupplier, name, tp);
+  }
+
+  /**
+   * Reads the shares and caps used by fair share scan executors from the current configuration.
+   */
+  private class FairShares implements FairShareScanQueue.Shares {
+
+    private int getUserCount(Property prefix, String user, int defaultValue) {
+      String val =
+          context.getConfiguration().getAllPropertiesWithPrefix(prefix).get(prefix.getKey() + user);
+      if (val == null) {
+        return defaultValue;
+      }
+      try {
+        return Integer.parseInt(val);
+      } catch (NumberFormatException e) {
+        log.warn("Ignoring invalid value for {}{} : {}", prefix.getKey(), user, val);
+        return defaultValue;
+      }
+    }
+
+    private int getTableCount(Property prop, TableId tableId) {
+      AccumuloConfiguration tableConf = context.getTableConfiguration(tableId);
+      if (tableConf == null) {
+        return Integer.parseInt(prop.getDefaultValue());
+      }
+      return tableConf.getCount(prop);
+    }
+
+    @Override
+    public int getUserShare(String user) {
+      return getUserCount(Property.TSERV_SCAN_FAIRSHARE_USER_SHARE_PREFIX, user, 1);
+    }
+
+    @Override
+    public int getUserMaxConcurrent(String user) {
+      return getUserCount(Property.TSERV_SCAN_FAIRSHARE_USER_MAX_CONCURRENT_PREFIX, user, 0);
+    }
+
+    @Override
+    public int getTableShare(TableId tableId) {
+      return getTableCount(Property.TABLE_SCAN_FAIRSHARE_SHARE, tableId);
+    }
+
+    @Override
+    public int getTableMaxConcurrent(TableId tableId) {
+      return getTableCount(Property.TABLE_SCAN_FAIRSHARE_MAX_CONCURRENT, tableId);
+    }
+  }
+
+  /**
+   * @return the queues of scan executors that use fair share admission, by executor name
+   */
+  public Map<String,FairShareScanQueue> getFairShareQueues() {
+    return Collections.unmodifiableMap(fairShareQueues);
+  }
+
+  /**
+   * @return the per table request and hit counts of the index and data caches
+   */
+  public Map<CacheType,TableCacheStats> getTableCacheStats() {
+    return Collections.unmodifiableMap(tableCacheStats);
   }
 
   private ExecutorService createEs(IntSupplier maxThreadsSupplier, String name,
@@ -324,8 +450,9 @@ public class TabletServerResourceManager {
     final AccumuloConfiguration acuConf = context.getConfiguration();
 
     long maxMemory = acuConf.getAsBytes(Property.TSERV_MAXMEM);
-    boolean usingNativeMap =
-        acuConf.getBoolean(Property.TSERV_NATIVEMAP_ENABLED) && NativeMap.isLoaded();
+    // the off heap map, like the native map, does not use the java heap for its data
+    boolean usingNativeMap = acuConf.getBoolean(Property.TSERV_OFFHEAPMAP_ENABLED)
+        || (acuConf.getBoolean(Property.TSERV_NATIVEMAP_ENABLED) && NativeMap.isLoaded());
 
     long totalQueueSize = acuConf.getAsBytes(Property.TSERV_TOTAL_MUTATION_QUEUE_MAX);
 
@@ -337,30 +464,35 @@ public class TabletServerResourceManager {
 
     cacheManager.start(new BlockCacheConfiguration(acuConf));
 
-    _iCache = cacheManager.getBlockCache(CacheType.INDEX);
-    _dCache = cacheManager.getBlockCache(CacheType.DATA);
+    BlockCache indexCache = cacheManager.getBlockCache(CacheType.INDEX);
+    BlockCache dataCache = cacheManager.getBlockCache(CacheType.DATA);
     _sCache = cacheManager.getBlockCache(CacheType.SUMMARY);
 
-    long dCacheSize = _dCache.getMaxHeapSize();
-    long iCacheSize = _iCache.getMaxHeapSize();
+    long dCacheSize = dataCache.getMaxHeapSize();
+    long iCacheSize = indexCache.getMaxHeapSize();
     long sCacheSize = _sCache.getMaxHeapSize();
+    long rCacheSize = acuConf.getAsBytes(Property.TSERV_RESULTCACHE_SIZE);
+    resultCache = rCacheSize > 0 ? new ResultCache(rCacheSize) : null;
 
     Runtime runtime = Runtime.getRuntime();
     if (usingNativeMap) {
       // Still check block cache sizes when using native maps.
-      if (dCacheSize + iCacheSize + sCacheSize + totalQueueSize > runtime.maxMemory()) {
+      if (dCacheSize + iCacheSize + sCacheSize + rCacheSize + totalQueueSize
+          > runtime.maxMemory()) {
         throw new IllegalArgumentException(String.format(
             "Block cache sizes %,d" + " and mutation queue size %,d is too large for this JVM"
                 + " configuration %,d",
-            dCacheSize + iCacheSize + sCacheSize, totalQueueSize, runtime.maxMemory()));
+            dCacheSize + iCacheSize + sCacheSize + rCacheSize, totalQueueSize,
+            runtime.maxMemory()));
       }
-    } else if (maxMemory + dCacheSize + iCacheSize + sCacheSize + totalQueueSize
+    } else if (maxMemory + dCacheSize + iCacheSize + sCacheSize + rCacheSize + totalQueueSize
         > runtime.maxMemory()) {
       throw new IllegalArgumentException(String.format(
           "Maximum tablet server"
               + " map memory %,d block cache sizes %,d and mutation queue size %,d is"
               + " too large for this JVM configuration %,d",
-          maxMemory, dCacheSize + iCacheSize + sCacheSize, totalQueueSize, runtime.maxMemory()));
+          maxMemory, dCacheSize + iCacheSize + sCacheSize + rCacheSize, totalQueueSize,
+          runtime.maxMemory()));
     }
     runtime.gc();
 
@@ -406,7 +538,34 @@ public class TabletServerResourceManager {
     fileLenCache =
         CacheBuilder.newBuilder().maximumSize(Math.min(maxOpenFiles * 1000L, 100_000)).build();
 
-    fileManager = new FileManager(context, maxOpenFiles, fileLenCache);
+    if (acuConf.get(Property.TSERV_CACHE_WARM_DIR).isEmpty()) {
+      cacheWarmer = null;
+      _iCache = indexCache;
+      _dCache = dataCache;
+    } else {
+      cacheWarmer = new BlockCacheWarmer(context, indexCache, dataCache, fileLenCache,
+          createEs(60, "block cache warmer"));
+      _iCache = cacheWarmer.getIndexCache();
+      _dCache = cacheWarmer.getDataCache();
+    }
+    tableCacheStats.put(CacheType.INDEX, new TableCacheStats());
+    tableCacheStats.put(CacheType.DATA, new TableCacheStats());
+    SimpleTimer.getInstance(acuConf).schedule(() -> {
+      try {
+        tableCacheStats.values()
+            .forEach(stats -> stats.prune(tableId -> Tables.exists(context, tableId)));
+      } catch (Exception e) {
+        log.error("Failed to prune the per table block cache stats", e);
+      }
+    }, 600_000, 600_000);
+
+    readaheadPool = createIdlingEs(Property.TSERV_SCAN_READAHEAD_THREADS, "block readahead");
+    blockReadahead = BlockReadahead.fromConfig(acuConf, readaheadPool);
+
+    compactionPartitionPool =
+        createIdlingEs(Property.TSERV_MAJC_PARTITION_THREADS, "compaction partition");
+
+    fileManager = new FileManager(context, maxOpenFiles, fileLenCache, blockReadahead);
 
     memoryManager = new LargestFirstMemoryManager();
     memoryManager.init(context);
@@ -739,6 +898,37 @@ public class TabletServerResourceManager {
       return tableConf;
     }
 
+    public BlockReadahead getBlockReadahead() {
+      return blockReadahead;
+    }
+
+    public ExecutorService getCompactionPartitionExecutor() {
+      return compactionPartitionPool;
+    }
+
+    /**
+     * @return the tablet server's result cache, or null if it is not configured
+     */
+    public ResultCache getResultCache() {
+      return resultCache;
+    }
+
+    /**
+     * Resolves how a scan uses the result cache. Never returns {@link CacheUsage#TABLE}.
+     */
+    public CacheUsage getResultCacheUsage(ScanDirectives scanDirectives) {
+      if (resultCache == null) {
+        return CacheUsage.DISABLED;
+      }
+
+      CacheUsage usage = scanDirectives.getResultCacheUsage();
+      if (usage == CacheUsage.TABLE) {
+        usage = tableConf.getBoolean(Property.TABLE_RESULTCACHE_ENABLED) ? CacheUsage.ENABLED
+            : CacheUsage.DISABLED;
+      }
+      return usage;
+    }
+
     // BEGIN methods that Tablets call to manage their set of open map files
 
     public void importedMapFiles() {
@@ -750,8 +940,26 @@ public class TabletServerResourceManager {
         throw new IllegalStateException("closed");
       }
 
+      String partition = tableConf.get(Property.TABLE_BLOCKCACHE_PARTITION);
+      if (partition.isEmpty()) {
+        partition = extent.tableId().canonical();
+      }
+      int weight = tableConf.getCount(Property.TABLE_BLOCKCACHE_PARTITION_WEIGHT);
+
+      BlockCache indexCache = tableCacheStats.get(CacheType.INDEX).wrap(extent.tableId(),
+          getPartition(_iCache, partition, weight));
+      BlockCache dataCache = tableCacheStats.get(CacheType.DATA).wrap(extent.tableId(),
+          getPartition(_dCache, partition, weight));
+
       return fileManager.newScanFileManager(extent,
-          new ScanCacheProvider(tableConf, scanDirectives, _iCache, _dCache));
+          new ScanCacheProvider(tableConf, scanDirectives, indexCache, dataCache));
+    }
+
+    private BlockCache getPartition(BlockCache cache, String partition, int weight) {
+      if (cache instanceof PartitionableBlockCache) {
+        return ((PartitionableBlockCache) cache).getPartition(partition, weight);
+      }
+      return cache;
     }
 
     // END methods that Tablets call to manage their set of open map files
@@ -933,6 +1141,43 @@ public class TabletServerResourceManager {
     return fileLenCache;
   }
 
+  /**
+   * Starts periodically saving the names of the hot blocks of the caches, if cache warming is
+   * enabled.
+   *
+   * @param address
+   *          the host and port of this tablet server
+   */
+  public void startCacheWarming(String address) {
+    if (cacheWarmer != null) {
+      cacheWarmer.start(address);
+    }
+  }
+
+  /**
+   * Reads the blocks of a newly loaded tablet that were hot on the tablet server that last hosted
+   * it into the caches in the background, if cache warming is enabled.
+   */
+  public void warmCaches(KeyExtent extent, String lastLocation,
+      Collection<? extends TabletFile> files) {
+    if (cacheWarmer != null) {
+      cacheWarmer.tabletLoaded(extent, lastLocation, files);
+    }
+  }
+
+  /**
+   * Saves the names of the hot blocks of the caches, if cache warming is enabled.
+   */
+  public void saveHotBlocks() {
+    if (cacheWarmer != null) {
+      try {
+        cacheWarmer.saveHotBlocks();
+      } catch (IOException e) {
+        log.warn("Failed to save the hot blocks of the block caches", e);
+      }
+    }
+  }
+
   public ExecutorService getSummaryRetrievalExecutor() {
     return summaryRetrievalPool;
   }
@@ -944,4 +1189,11 @@ public class TabletServerResourceManager {
   public ExecutorService getSummaryRemoteExecutor() {
     return summaryRemotePool;
   }
+
+  /**
+   * @return the readahead for files read by scans and compactions, or null if it is disabled
+   */
+  public BlockReadahead getBlockReadahead() {
+    return blockReadahead;
+  }
 }
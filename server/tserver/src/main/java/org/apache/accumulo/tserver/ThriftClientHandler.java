@@ -37,8 +37,10 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -49,7 +51,9 @@ import org.apache.accumulo.core.client.admin.CompactionConfig;
 import org.apache.accumulo.core.clientImpl.CompressedIterators;
 import org.apache.accumulo.core.clientImpl.DurabilityImpl;
 import org.apache.accumulo.core.clientImpl.Tables;
+import org.apache.accumulo.core.clientImpl.TabletServerBatchReaderIterator;
 import org.apache.accumulo.core.clientImpl.TabletType;
+import org.apache.accumulo.core.clientImpl.ThriftScanner;
 import org.apache.accumulo.core.clientImpl.Translator;
 import org.apache.accumulo.core.clientImpl.Translator.TKeyExtentTranslator;
 import org.apache.accumulo.core.clientImpl.Translator.TRangeTranslator;
@@ -67,6 +71,7 @@ import org.apache.accumulo.core.data.NamespaceId;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.PackedMutations;
 import org.apache.accumulo.core.dataImpl.thrift.InitialMultiScan;
 import org.apache.accumulo.core.dataImpl.thrift.InitialScan;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
@@ -130,6 +135,7 @@ import org.apache.accumulo.tserver.RowLocks.RowLock;
 import org.apache.accumulo.tserver.data.ServerConditionalMutation;
 import org.apache.accumulo.tserver.scan.LookupTask;
 import org.apache.accumulo.tserver.scan.NextBatchTask;
+import org.apache.accumulo.tserver.scan.ScanBatchWindow;
 import org.apache.accumulo.tserver.scan.ScanParameters;
 import org.apache.accumulo.tserver.session.ConditionalSession;
 import org.apache.accumulo.tserver.session.MultiScanSession;
@@ -162,6 +168,7 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
 
   private static final Logger log = LoggerFactory.getLogger(ThriftClientHandler.class);
   private static final long MAX_TIME_TO_WAIT_FOR_SCAN_RESULT_MILLIS = 1000;
+  private static final long MAX_TIME_TO_WAIT_FOR_SPLIT_ROWS_MILLIS = 10_000;
   private static final long RECENTLY_SPLIT_MILLIES = 60 * 1000;
   private final TabletServer server;
   private final WriteTracker writeTracker = new WriteTracker();
@@ -322,8 +329,13 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
         columnSet, ssiList, ssio, isolated, SamplerConfigurationImpl.fromThrift(tSamplerConfig),
         batchTimeOut, contextArg);
 
-    final SingleScanSession scanSession =
-        new SingleScanSession(credentials, extent, scanParams, readaheadThreshold, executionHints);
+    if (executionHints != null
+        && executionHints.containsKey(TabletServerBatchReaderIterator.SPLIT_ROWS_HINT)) {
+      return findRangeSplitRows(credentials, tablet, new Range(range), scanParams, executionHints);
+    }
+
+    final SingleScanSession scanSession = new SingleScanSession(credentials, extent, scanParams,
+        readaheadThreshold, executionHints, createScanBatchWindow(extent, executionHints));
     scanSession.scanner =
         tablet.createScanner(new Range(range), scanParams, scanSession.interruptFlag);
 
@@ -342,6 +354,92 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
     return new InitialScan(sid, scanResult);
   }
 
+  /**
+   * Answers a request for rows that split a range, made by a batch scanner that splits large
+   * ranges. No scan session is created, the rows are returned as the keys of a complete scan
+   * result. Only rows the scan's authorizations, columns and iterators let it read are returned.
+   * The rows are found on the tablet's scan executor, like any other scan, and a range is split
+   * into at most {@link TabletServerBatchReaderIterator#MAX_SPLIT_PARTS} parts.
+   */
+  private InitialScan findRangeSplitRows(TCredentials credentials, Tablet tablet, Range range,
+      ScanParameters scanParams, Map<String,String> executionHints)
+      throws NotServingTabletException {
+    int parts;
+    try {
+      parts = Math.min(TabletServerBatchReaderIterator.MAX_SPLIT_PARTS,
+          Integer.parseInt(executionHints.get(TabletServerBatchReaderIterator.SPLIT_ROWS_HINT)));
+    } catch (NumberFormatException e) {
+      parts = 0;
+    }
+
+    List<TKeyValue> rows = new ArrayList<>();
+    if (parts > 1) {
+      KeyExtent extent = tablet.getExtent();
+      SingleScanSession session =
+          new SingleScanSession(credentials, extent, scanParams, 0, executionHints, null);
+      final int numParts = parts;
+      FutureTask<List<Text>> task = new FutureTask<>(
+          () -> tablet.findRangeSplitRows(range, numParts, scanParams, session.interruptFlag));
+      server.resourceManager.executeReadAhead(extent, getScanDispatcher(extent), session, task);
+      try {
+        for (Text row : task.get(MAX_TIME_TO_WAIT_FOR_SPLIT_ROWS_MILLIS, TimeUnit.MILLISECONDS)) {
+          rows.add(new TKeyValue(new Key(row).toThrift(), ByteBuffer.allocate(0)));
+        }
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof TabletClosedException) {
+          throw new NotServingTabletException(extent.toThrift());
+        }
+        // splitting is only an optimization, the client scans the whole range when given no rows
+        log.warn("Failed to find split rows for {} in {} : {}", range, extent,
+            e.getCause().getMessage());
+      } catch (TimeoutException e) {
+        session.interruptFlag.set(true);
+        task.cancel(false);
+        log.debug("Timed out finding split rows for {} in {}", range, extent);
+      } catch (InterruptedException e) {
+        session.interruptFlag.set(true);
+        task.cancel(false);
+        Thread.currentThread().interrupt();
+      }
+    }
+    return new InitialScan(TabletServerBatchReaderIterator.NO_SCAN_ID, new ScanResult(rows, false));
+  }
+
+  /**
+   * @return a window for the batches read ahead of the client, or null if the client did not ask
+   *         for more than one batch
+   */
+  private ScanBatchWindow createScanBatchWindow(KeyExtent extent,
+      Map<String,String> executionHints) {
+    if (executionHints == null
+        || !executionHints.containsKey(ThriftScanner.READAHEAD_WINDOW_BATCHES_HINT)) {
+      return null;
+    }
+
+    int maxBatches = server.getConfiguration().getCount(Property.TSERV_SCAN_READAHEAD_WINDOW_MAX);
+    long maxBytes =
+        maxBatches * server.getTableConfiguration(extent).getAsBytes(Property.TABLE_SCAN_MAXMEM);
+    try {
+      int batches = Math.min(maxBatches,
+          Integer.parseInt(executionHints.get(ThriftScanner.READAHEAD_WINDOW_BATCHES_HINT)));
+      long bytes = Long
+          .parseLong(executionHints.getOrDefault(ThriftScanner.READAHEAD_WINDOW_BYTES_HINT, "0"));
+      if (batches <= 1) {
+        return null;
+      }
+      return new ScanBatchWindow(batches, bytes <= 0 ? maxBytes : Math.min(bytes, maxBytes));
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring invalid readahead window {}", executionHints, e);
+      return null;
+    }
+  }
+
+  private void startNextBatchTask(long scanID, SingleScanSession scanSession) {
+    scanSession.nextBatchTask = new NextBatchTask(server, scanID, scanSession.interruptFlag);
+    server.resourceManager.executeReadAhead(scanSession.extent,
+        getScanDispatcher(scanSession.extent), scanSession, scanSession.nextBatchTask);
+  }
+
   @Override
   public ScanResult continueScan(TInfo tinfo, long scanID) throws NoSuchScanIDException,
       NotServingTabletException, org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException,
@@ -364,17 +462,24 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
       org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException,
       TSampleNotPresentException {
 
-    if (scanSession.nextBatchTask == null) {
-      scanSession.nextBatchTask = new NextBatchTask(server, scanID, scanSession.interruptFlag);
-      server.resourceManager.executeReadAhead(scanSession.extent,
-          getScanDispatcher(scanSession.extent), scanSession, scanSession.nextBatchTask);
+    if (scanSession.window != null) {
+      if (scanSession.window.startProducer()) {
+        startNextBatchTask(scanID, scanSession);
+      }
+    } else if (scanSession.nextBatchTask == null) {
+      startNextBatchTask(scanID, scanSession);
     }
 
     ScanBatch bresult;
     try {
-      bresult = scanSession.nextBatchTask.get(MAX_TIME_TO_WAIT_FOR_SCAN_RESULT_MILLIS,
-          TimeUnit.MILLISECONDS);
-      scanSession.nextBatchTask = null;
+      if (scanSession.window != null) {
+        bresult =
+            scanSession.window.take(MAX_TIME_TO_WAIT_FOR_SCAN_RESULT_MILLIS, TimeUnit.MILLISECONDS);
+      } else {
+        bresult = scanSession.nextBatchTask.get(MAX_TIME_TO_WAIT_FOR_SCAN_RESULT_MILLIS,
+            TimeUnit.MILLISECONDS);
+        scanSession.nextBatchTask = null;
+      }
     } catch (ExecutionException e) {
       server.sessionManager.removeSession(scanID);
       if (e.getCause() instanceof NotServingTabletException) {
@@ -417,12 +522,15 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
 
     scanSession.batchCount++;
 
-    if (scanResult.more && scanSession.batchCount > scanSession.readaheadThreshold) {
+    if (scanResult.more && scanSession.window != null) {
+      // refill the window that was just emptied while the batches are transmitted to the client
+      if (scanSession.window.startProducer()) {
+        startNextBatchTask(scanID, scanSession);
+      }
+    } else if (scanResult.more && scanSession.batchCount > scanSession.readaheadThreshold) {
       // start reading next batch while current batch is transmitted
       // to client
-      scanSession.nextBatchTask = new NextBatchTask(server, scanID, scanSession.interruptFlag);
-      server.resourceManager.executeReadAhead(scanSession.extent,
-          getScanDispatcher(scanSession.extent), scanSession, scanSession.nextBatchTask);
+      startNextBatchTask(scanID, scanSession);
     }
 
     if (!scanResult.more) {
@@ -682,12 +790,31 @@ class ThriftClientHandler extends ClientServiceHandler implements TabletClientSe
 
       if (us.currentTablet != null) {
         long additionalMutationSize = 0;
-        List<Mutation> mutations = us.queuedMutations.get(us.currentTablet);
-        for (TMutation tmutation : tmutations) {
-          Mutation mutation = new ServerMutation(tmutation);
-          mutations.add(mutation);
-          additionalMutationSize += mutation.numBytes();
+        List<Mutation> mutations = new ArrayList<>(tmutations.size());
+        try {
+          for (TMutation tmutation : tmutations) {
+            if (PackedMutations.isPacked(tmutation)) {
+              for (Mutation packed : PackedMutations.unpack(tmutation)) {
+                Mutation mutation = new ServerMutation(packed);
+                mutations.add(mutation);
+                additionalMutationSize += mutation.numBytes();
+              }
+            } else {
+              Mutation mutation = new ServerMutation(tmutation);
+              mutations.add(mutation);
+              additionalMutationSize += mutation.numBytes();
+            }
+          }
+        } catch (RuntimeException e) {
+          // Fail the tablet, the client resends its mutations after those already committed. The
+          // mutations queued for it are dropped so that they are not committed twice.
+          log.warn("Failed to decode mutations for {} from {}", keyExtent, us.getUser(), e);
+          us.queuedMutations.remove(us.currentTablet);
+          us.failures.put(keyExtent, us.successfulCommits.get(us.currentTablet));
+          us.currentTablet = null;
+          return;
         }
+        us.queuedMutations.get(us.currentTablet).addAll(mutations);
         us.queuedMutationSize += additionalMutationSize;
         long totalQueued = server.updateTotalQueuedMutationSize(additionalMutationSize);
         long total = server.getConfiguration().getAsBytes(Property.TSERV_TOTAL_MUTATION_QUEUE_MAX);
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Reads and writes the file a tablet server saves the names of its hot blocks to. The file contains
+ * a version followed by a list of block names for each cache type.
+ */
+public class BlockCacheManifest {
+
+  private static final int VERSION = 1;
+
+  private BlockCacheManifest() {}
+
+  /**
+   * Writes the manifest to a temporary file that is then renamed over the given file, so readers
+   * never see a partially written manifest.
+   */
+  public static void write(FileSystem fs, Path file, Map<CacheType,List<String>> blocks)
+      throws IOException {
+    Path tmp = file.suffix(".tmp");
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(fs.create(tmp, true)))) {
+      out.writeInt(VERSION);
+      out.writeInt(blocks.size());
+      for (Entry<CacheType,List<String>> entry : blocks.entrySet()) {
+        out.writeUTF(entry.getKey().name());
+        out.writeInt(entry.getValue().size());
+        for (String blockName : entry.getValue()) {
+          out.writeUTF(blockName);
+        }
+      }
+    }
+
+    // replace the old manifest in one rename, deleting it first would leave a window where
+    // readers find no manifest at all
+    FileContext.getFileContext(fs.getUri(), fs.getConf()).rename(tmp, file,
+        Options.Rename.OVERWRITE);
+  }
+
+  /**
+   * @return the block names saved for each cache type, or an empty map if the file does not exist
+   */
+  public static Map<CacheType,List<String>> read(FileSystem fs, Path file) throws IOException {
+    Map<CacheType,List<String>> blocks = new EnumMap<>(CacheType.class);
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(fs.open(file)))) {
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unexpected version " + version + " of block cache manifest " + file);
+      }
+      int numTypes = in.readInt();
+      for (int i = 0; i < numTypes; i++) {
+        CacheType type = CacheType.valueOf(in.readUTF());
+        int numBlocks = in.readInt();
+        List<String> names = new ArrayList<>(numBlocks);
+        for (int j = 0; j < numBlocks; j++) {
+          names.add(in.readUTF());
+        }
+        blocks.put(type, names);
+      }
+    } catch (FileNotFoundException e) {
+      return Collections.emptyMap();
+    }
+    return blocks;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
+import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.metadata.TabletFile;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.core.util.ratelimit.GuavaRateLimiter;
+import org.apache.accumulo.core.util.ratelimit.RateLimiter;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.accumulo.server.util.time.SimpleTimer;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Warms the index and data caches of a tablet server. The names of the most frequently read blocks
+ * are tracked and periodically saved to a file named after the tablet server in
+ * {@link Property#TSERV_CACHE_WARM_DIR}. When a tablet is loaded, the file of the tablet server
+ * that last hosted the tablet is read and the blocks of the tablet's files named in it are read
+ * into the caches in the background, at a limited rate. This covers a tablet server restarting,
+ * where the last location of its tablets is itself, as well as tablets migrating between tablet
+ * servers.
+ */
+public class BlockCacheWarmer {
+
+  private static final Logger log = LoggerFactory.getLogger(BlockCacheWarmer.class);
+
+  private final ServerContext context;
+  private final Path dir;
+  private final long interval;
+  private final int maxBlocks;
+  private final Map<CacheType,HotBlockTracker> trackers = new EnumMap<>(CacheType.class);
+  private final CacheProvider cacheProvider;
+  private final Cache<String,Long> fileLenCache;
+  private final RateLimiter readLimiter;
+  private final Executor executor;
+  private final Cache<String,Map<CacheType,NavigableSet<String>>> manifests;
+  private volatile String address = null;
+
+  public BlockCacheWarmer(ServerContext context, BlockCache indexCache, BlockCache dataCache,
+      Cache<String,Long> fileLenCache, Executor executor) {
+    AccumuloConfiguration conf = context.getConfiguration();
+    this.context = context;
+    this.dir = new Path(conf.get(Property.TSERV_CACHE_WARM_DIR));
+    this.interval = conf.getTimeInMillis(Property.TSERV_CACHE_WARM_INTERVAL);
+    this.maxBlocks = conf.getCount(Property.TSERV_CACHE_WARM_BLOCKS);
+    this.trackers.put(CacheType.INDEX, new HotBlockTracker(indexCache, maxBlocks));
+    this.trackers.put(CacheType.DATA, new HotBlockTracker(dataCache, maxBlocks));
+    // warm through the caches themselves, blocks read to warm a cache are not hot
+    this.cacheProvider = new BasicCacheProvider(indexCache, dataCache);
+    this.fileLenCache = fileLenCache;
+    this.readLimiter = new GuavaRateLimiter(conf.getAsBytes(Property.TSERV_CACHE_WARM_RATE));
+    this.executor = executor;
+    this.manifests = CacheBuilder.newBuilder().maximumSize(16)
+        .expireAfterWrite(interval, TimeUnit.MILLISECONDS).build();
+  }
+
+  /**
+   * @return the index cache wrapped so the names of the blocks read from it are tracked
+   */
+  public BlockCache getIndexCache() {
+    return trackers.get(CacheType.INDEX);
+  }
+
+  /**
+   * @return the data cache wrapped so the names of the blocks read from it are tracked
+   */
+  public BlockCache getDataCache() {
+    return trackers.get(CacheType.DATA);
+  }
+
+  private Path getManifestPath(String tserver) {
+    // a colon is not allowed in a hadoop path name
+    return new Path(dir, tserver.replace(':', '_'));
+  }
+
+  /**
+   * Starts saving the hot blocks of this tablet server periodically.
+   *
+   * @param address
+   *          the host and port of this tablet server
+   */
+  public void start(String address) {
+    this.address = address;
+    SimpleTimer.getInstance(context.getConfiguration()).schedule(() -> {
+      try {
+        saveHotBlocks();
+      } catch (IOException e) {
+        log.warn("Failed to save the hot blocks of the block caches to {}", dir, e);
+      }
+    }, interval, interval);
+  }
+
+  /**
+   * Saves the names of the blocks that are currently read most often. This is called periodically
+   * once started and should be called when the tablet server stops.
+   */
+  public void saveHotBlocks() throws IOException {
+    if (address == null) {
+      return;
+    }
+
+    Map<CacheType,List<String>> blocks = new EnumMap<>(CacheType.class);
+    trackers.forEach((type, tracker) -> blocks.put(type, tracker.getHotBlocks(maxBlocks)));
+    FileSystem fs = dir.getFileSystem(context.getHadoopConf());
+    BlockCacheManifest.write(fs, getManifestPath(address), blocks);
+  }
+
+  private Map<CacheType,NavigableSet<String>> readManifest(String tserver) throws IOException {
+    Path file = getManifestPath(tserver);
+    Map<CacheType,NavigableSet<String>> hotBlocks = new EnumMap<>(CacheType.class);
+    BlockCacheManifest.read(dir.getFileSystem(context.getHadoopConf()), file)
+        .forEach((type, names) -> hotBlocks.put(type, new TreeSet<>(names)));
+    log.debug("Read {} hot blocks from {}", hotBlocks.values().stream().mapToInt(Set::size).sum(),
+        file);
+    return hotBlocks;
+  }
+
+  /**
+   * Reads the blocks of a newly loaded tablet's files that were hot on the tablet server that last
+   * hosted the tablet into the caches in the background.
+   *
+   * @param lastLocation
+   *          the host and port of the tablet server that last hosted the tablet or null if it is
+   *          not known, in which case the blocks that were hot on this tablet server are used
+   */
+  public void tabletLoaded(KeyExtent extent, String lastLocation,
+      Collection<? extends TabletFile> files) {
+    String tserver = lastLocation == null ? address : lastLocation;
+    if (tserver == null || files.isEmpty()) {
+      return;
+    }
+
+    List<TabletFile> toWarm = new ArrayList<>(files);
+    executor.execute(() -> {
+      try {
+        Map<CacheType,NavigableSet<String>> hotBlocks = manifests.getIfPresent(tserver);
+        if (hotBlocks == null) {
+          hotBlocks = readManifest(tserver);
+          // a missing manifest may be written soon, so only remember the ones that were found
+          if (!hotBlocks.isEmpty()) {
+            manifests.put(tserver, hotBlocks);
+          }
+        }
+        int loaded = 0;
+        for (TabletFile file : toWarm) {
+          if (file.getFileName().endsWith("." + RFile.EXTENSION)) {
+            loaded += warm(file.getPath(), hotBlocks);
+          }
+        }
+        if (loaded > 0) {
+          log.debug("Read {} blocks of {} that were hot on {} into the block caches", loaded,
+              extent, tserver);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Failed to warm the block caches for {}", extent, e);
+      }
+    });
+  }
+
+  private int warm(Path path, Map<CacheType,NavigableSet<String>> hotBlocks) throws IOException {
+    String cacheId = CachableBlockFile.pathToCacheId(path);
+    Map<CacheType,SortedSet<String>> fileBlocks = new EnumMap<>(CacheType.class);
+    for (Entry<CacheType,NavigableSet<String>> entry : hotBlocks.entrySet()) {
+      // all blocks of a file are cached under names that start with the file's cache id
+      SortedSet<String> names = entry.getValue().subSet(cacheId, cacheId + Character.MAX_VALUE);
+      if (trackers.containsKey(entry.getKey()) && !names.isEmpty()) {
+        fileBlocks.put(entry.getKey(), names);
+      }
+    }
+
+    if (fileBlocks.isEmpty()) {
+      return 0;
+    }
+
+    FileSystem fs = context.getVolumeManager().getFileSystemByPath(path);
+    CachableBuilder cb = new CachableBuilder().fsPath(fs, path).conf(fs.getConf())
+        .fileLen(fileLenCache).cacheProvider(cacheProvider).readLimiter(readLimiter)
+        .cryptoService(context.getCryptoService());
+    int loaded = 0;
+    try (RFile.Reader reader = new RFile.Reader(cb)) {
+      // the index blocks are needed to find the data blocks, so read them first
+      for (CacheType type : List.of(CacheType.INDEX, CacheType.DATA)) {
+        loaded +=
+            reader.prefetch(type, fileBlocks.getOrDefault(type, Collections.emptySortedSet()));
+      }
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.file.blockfile.cache.impl.PartitionableBlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Passes all calls through to another block cache and keeps track of the names of the blocks that
+ * are read most frequently. The names are tracked with the same frequency based admission and
+ * eviction used by the TinyLfu block cache, so a single scan over a large file does not push the
+ * names of the blocks that are read over and over again out of the tracker.
+ *
+ * <p>
+ * When the wrapped cache is partitioned, the partitions handed out by this tracker record their
+ * accesses with the tracker, so the hot blocks of all partitions are tracked together.
+ */
+public class HotBlockTracker implements PartitionableBlockCache {
+
+  private final BlockCache cache;
+  private final Cache<String,Boolean> names;
+
+  public HotBlockTracker(BlockCache cache, int maxBlocks) {
+    this.cache = cache;
+    this.names = Caffeine.newBuilder().maximumSize(maxBlocks).executor(Runnable::run).build();
+  }
+
+  private HotBlockTracker(BlockCache cache, Cache<String,Boolean> names) {
+    this.cache = cache;
+    this.names = names;
+  }
+
+  private void recordAccess(String blockName) {
+    names.get(blockName, k -> Boolean.TRUE);
+  }
+
+  /**
+   * @return the names of the tracked blocks, the most frequently read first
+   */
+  public List<String> getHotBlocks(int limit) {
+    return new ArrayList<>(names.policy().eviction().get().hottest(limit).keySet());
+  }
+
+  @Override
+  public BlockCache getPartition(String partition, int weight) {
+    if (cache instanceof PartitionableBlockCache) {
+      BlockCache partitionCache = ((PartitionableBlockCache) cache).getPartition(partition, weight);
+      if (partitionCache != cache) {
+        return new HotBlockTracker(partitionCache, names);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    return cache.cacheBlock(blockName, buf);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    recordAccess(blockName);
+    return cache.getBlock(blockName);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    recordAccess(blockName);
+    return cache.getBlock(blockName, loader);
+  }
+
+  @Override
+  public long getMaxHeapSize() {
+    return cache.getMaxHeapSize();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return cache.getMaxSize();
+  }
+
+  @Override
+  public Stats getStats() {
+    return cache.getStats();
+  }
+}
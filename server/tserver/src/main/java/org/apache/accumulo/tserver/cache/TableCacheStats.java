@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+
+/**
+ * Counts the requests and hits of each table against a block cache that is shared by all tables.
+ * The counts are kept by wrapping the cache that is handed to the scans of a table, so only reads
+ * on behalf of scans are counted.
+ */
+public class TableCacheStats {
+
+  public static class Counts {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    // the requests seen by the last prune, only used while pruning
+    private long prunedRequests = -1;
+
+    public long getRequests() {
+      return requests.sum();
+    }
+
+    public long getHits() {
+      return hits.sum();
+    }
+  }
+
+  private final Map<TableId,Counts> counts = new ConcurrentHashMap<>();
+
+  /**
+   * @return a view of the cache that counts requests and hits for the table, or null if the cache
+   *         is null
+   */
+  public BlockCache wrap(TableId tableId, BlockCache cache) {
+    if (cache == null) {
+      return null;
+    }
+    return new CountingBlockCache(cache, this, tableId);
+  }
+
+  private Counts getCounts(TableId tableId) {
+    return counts.computeIfAbsent(tableId, k -> new Counts());
+  }
+
+  /**
+   * @return the counts of every table that read from the cache since its counts were last pruned
+   */
+  public Map<TableId,Counts> getCounts() {
+    return Collections.unmodifiableMap(counts);
+  }
+
+  /**
+   * Drops the counts of tables that no longer exist and of tables that made no requests since this
+   * was last called, so the counts and the metrics reported from them do not grow with every table
+   * ever scanned. A table that reads from the cache again starts with new counts.
+   */
+  public synchronized void prune(Predicate<TableId> tableExists) {
+    counts.entrySet().removeIf(e -> {
+      Counts c = e.getValue();
+      long requests = c.getRequests();
+      boolean idle = requests == c.prunedRequests;
+      c.prunedRequests = requests;
+      return idle || !tableExists.test(e.getKey());
+    });
+  }
+
+  private static class CountingBlockCache implements BlockCache {
+
+    private final BlockCache cache;
+    private final TableCacheStats stats;
+    private final TableId tableId;
+
+    CountingBlockCache(BlockCache cache, TableCacheStats stats, TableId tableId) {
+      this.cache = cache;
+      this.stats = stats;
+      this.tableId = tableId;
+    }
+
+    @Override
+    public CacheEntry cacheBlock(String blockName, byte[] buf) {
+      return cache.cacheBlock(blockName, buf);
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName) {
+      // looked up on each request, the counts may have been pruned since this view was created
+      Counts counts = stats.getCounts(tableId);
+      counts.requests.increment();
+      CacheEntry ce = cache.getBlock(blockName);
+      if (ce != null) {
+        counts.hits.increment();
+      }
+      return ce;
+    }
+
+    @Override
+    public CacheEntry getBlock(String blockName, Loader loader) {
+      Counts counts = stats.getCounts(tableId);
+      counts.requests.increment();
+      CountingLoader countingLoader = new CountingLoader(loader);
+      CacheEntry ce = cache.getBlock(blockName, countingLoader);
+      if (ce != null && !countingLoader.loaded) {
+        counts.hits.increment();
+      }
+      return ce;
+    }
+
+    @Override
+    public long getMaxHeapSize() {
+      return cache.getMaxHeapSize();
+    }
+
+    @Override
+    public long getMaxSize() {
+      return cache.getMaxSize();
+    }
+
+    @Override
+    public Stats getStats() {
+      return cache.getStats();
+    }
+  }
+
+  /*
+   * Records if the cache had to load the block, which makes the request a miss.
+   */
+  private static class CountingLoader implements BlockCache.Loader {
+
+    private final BlockCache.Loader loader;
+    private volatile boolean loaded = false;
+
+    CountingLoader(BlockCache.Loader loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public Map<String,BlockCache.Loader> getDependencies() {
+      return loader.getDependencies();
+    }
+
+    @Override
+    public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+      loaded = true;
+      return loader.load(maxSize, dependencies);
+    }
+  }
+}
@@ -88,4 +88,9 @@ public interface Compactable {
   CompactionServiceId getConfiguredService(CompactionKind kind);
 
   double getCompactionRatio();
+
+  /**
+   * @return the recent rate at which scans seek the tablet, in seeks per second
+   */
+  double getSeekRate();
 }
@@ -170,6 +170,9 @@ public class CompactionService {
       return;
     }
 
+    // the outputs of a partitioned compaction are planned as one file
+    var partitioned = new PartitionedFiles(files.get().allFiles, files.get().candidates);
+
     PlanningParameters params = new PlanningParameters() {
 
       @Override
@@ -199,12 +202,12 @@ public class CompactionService {
 
       @Override
       public Collection<CompactableFile> getCandidates() {
-        return files.get().candidates;
+        return partitioned.getCandidates();
       }
 
       @Override
       public Collection<CompactableFile> getAll() {
-        return files.get().allFiles;
+        return partitioned.getAll();
       }
 
       @Override
@@ -215,10 +218,15 @@ public class CompactionService {
           return Map.of();
       }
 
+      @Override
+      public double getSeekRate() {
+        return compactable.getSeekRate();
+      }
+
       @Override
       public CompactionPlan.Builder createPlanBuilder() {
-        return new CompactionPlanImpl.BuilderImpl(kind, files.get().allFiles,
-            files.get().candidates);
+        return new CompactionPlanImpl.BuilderImpl(kind, partitioned.getAll(),
+            partitioned.getCandidates());
       }
     };
 
@@ -234,7 +242,7 @@ public class CompactionService {
       throw e;
     }
 
-    plan = convertPlan(plan, kind, files.get().allFiles, files.get().candidates);
+    plan = convertPlan(plan, kind, files.get().allFiles, files.get().candidates, partitioned);
 
     Set<CompactionJob> jobs = new HashSet<>(plan.getJobs());
 
@@ -268,9 +276,10 @@ public class CompactionService {
   }
 
   private CompactionPlan convertPlan(CompactionPlan plan, CompactionKind kind,
-      Set<CompactableFile> allFiles, Set<CompactableFile> candidates) {
+      Set<CompactableFile> allFiles, Set<CompactableFile> candidates,
+      PartitionedFiles partitioned) {
 
-    if (plan.getClass().equals(CompactionPlanImpl.class))
+    if (plan.getClass().equals(CompactionPlanImpl.class) && !partitioned.isGrouped())
       return plan;
 
     var builder = new CompactionPlanImpl.BuilderImpl(kind, allFiles, candidates);
@@ -278,7 +287,7 @@ public class CompactionService {
     for (var job : plan.getJobs()) {
       Preconditions.checkArgument(job.getKind() == kind, "Unexpected compaction kind %s != %s",
           job.getKind(), kind);
-      builder.addJob(job.getPriority(), job.getExecutor(), job.getFiles());
+      builder.addJob(job.getPriority(), job.getExecutor(), partitioned.expand(job.getFiles()));
     }
 
     return builder.build();
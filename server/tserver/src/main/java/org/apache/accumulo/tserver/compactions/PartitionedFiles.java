@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.compactions;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.accumulo.core.client.admin.compaction.CompactableFile;
+import org.apache.accumulo.core.metadata.CompactableFileImpl;
+import org.apache.accumulo.core.metadata.StoredTabletFile;
+import org.apache.accumulo.core.metadata.TabletFile;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A compaction split into key range partitions (see table.compaction.major.partitions) writes one
+ * output file per partition. These files do not overlap and are about the same size, so a planner
+ * looking at them one by one would find that they meet the compaction ratio and compact them again.
+ * This class presents the files of each partitioned compaction to a planner as a single file whose
+ * size is the sum of the partitions, and expands the files of planned jobs back to the partitions.
+ */
+public class PartitionedFiles {
+
+  private static final Pattern PARTITION_NAME = Pattern.compile("(.+)_p\\d+(\\.[^.]+)");
+
+  private final Set<CompactableFile> allFiles;
+  private final Set<CompactableFile> candidates;
+  // the partitions of each file that stands in for a group of candidates
+  private final Map<CompactableFile,Set<CompactableFile>> groups = new HashMap<>();
+  private final boolean grouped;
+
+  public PartitionedFiles(Set<CompactableFile> allFiles, Set<CompactableFile> candidates) {
+    Map<CompactableFile,Set<CompactableFile>> allGroups = new HashMap<>();
+    this.allFiles = group(allFiles, allGroups);
+    this.candidates = group(candidates, groups);
+    this.grouped = !allGroups.isEmpty();
+  }
+
+  /**
+   * @return the name of the output file of one partition of a compaction whose output would
+   *         otherwise be the given file
+   */
+  public static TabletFile getPartitionFile(TabletFile file, int partition) {
+    String name = file.getFileName();
+    int dot = name.lastIndexOf('.');
+    return new TabletFile(new Path(file.getPath().getParent(),
+        name.substring(0, dot) + "_p" + partition + name.substring(dot)));
+  }
+
+  /**
+   * @return the path all partitions of the compaction that wrote the file have in common, or null
+   *         when the file was not written by a partitioned compaction
+   */
+  static String getGroup(StoredTabletFile file) {
+    Matcher matcher = PARTITION_NAME.matcher(file.getFileName());
+    if (!matcher.matches()) {
+      return null;
+    }
+    return file.getPath().getParent() + "/" + matcher.group(1) + matcher.group(2);
+  }
+
+  private static Set<CompactableFile> group(Set<CompactableFile> files,
+      Map<CompactableFile,Set<CompactableFile>> groups) {
+    Map<String,Set<CompactableFile>> partitioned = new TreeMap<>();
+    Set<CompactableFile> grouped = new HashSet<>();
+    for (CompactableFile file : files) {
+      String group = getGroup(CompactableFileImpl.toStoredTabletFile(file));
+      if (group == null) {
+        grouped.add(file);
+      } else {
+        partitioned.computeIfAbsent(group, k -> new HashSet<>()).add(file);
+      }
+    }
+
+    partitioned.values().forEach(partitions -> {
+      if (partitions.size() == 1) {
+        grouped.addAll(partitions);
+        return;
+      }
+
+      long size = partitions.stream().mapToLong(CompactableFile::getEstimatedSize).sum();
+      long entries = partitions.stream().mapToLong(CompactableFile::getEstimatedEntries).sum();
+      StoredTabletFile first = partitions.stream().map(CompactableFileImpl::toStoredTabletFile)
+          .min(StoredTabletFile::compareTo).get();
+      CompactableFile file = new CompactableFileImpl(first, new DataFileValue(size, entries));
+      grouped.add(file);
+      groups.put(file, partitions);
+    });
+
+    return grouped;
+  }
+
+  /**
+   * @return all files of the tablet, with the files of each partitioned compaction replaced by one
+   *         file
+   */
+  public Set<CompactableFile> getAll() {
+    return allFiles;
+  }
+
+  /**
+   * @return the candidates for compaction, with the files of each partitioned compaction replaced
+   *         by one file
+   */
+  public Set<CompactableFile> getCandidates() {
+    return candidates;
+  }
+
+  /**
+   * @return false when no files were grouped, so that planned jobs need not be expanded
+   */
+  public boolean isGrouped() {
+    return grouped;
+  }
+
+  /**
+   * @return the given candidates with each file that stands in for a group replaced by the files of
+   *         the group
+   */
+  public Set<CompactableFile> expand(Collection<CompactableFile> files) {
+    Set<CompactableFile> expanded = new HashSet<>();
+    for (CompactableFile file : files) {
+      expanded.addAll(groups.getOrDefault(file, Set.of(file)));
+    }
+    return expanded;
+  }
+}
@@ -27,6 +27,7 @@ import static org.apache.accumulo.tserver.logger.LogEvents.MANY_MUTATIONS;
 import static org.apache.accumulo.tserver.logger.LogEvents.MUTATION;
 import static org.apache.accumulo.tserver.logger.LogEvents.OPEN;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -39,8 +40,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.client.Durability;
@@ -69,6 +72,7 @@ import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.tserver.TabletMutations;
 import org.apache.accumulo.tserver.logger.LogFileKey;
 import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.accumulo.tserver.metrics.TabletServerUpdateMetrics;
 import org.apache.accumulo.tserver.tablet.CommitSession;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -157,6 +161,38 @@ public class DfsLogger implements Comparable<DfsLogger> {
 
   private boolean closed = false;
 
+  /**
+   * Adds work that is queued to the batch, up to maxBatchSize. If waitNanos is positive, waits up
+   * to that long for more work to arrive until the batch is full or the log is closed.
+   */
+  static void gatherWork(BlockingQueue<DfsLogger.LogWork> queue, List<DfsLogger.LogWork> batch,
+      int maxBatchSize, long waitNanos) {
+    queue.drainTo(batch, maxBatchSize - batch.size());
+    if (waitNanos <= 0) {
+      return;
+    }
+
+    long deadline = System.nanoTime() + waitNanos;
+    // the closed marker is always the last work queued
+    while (batch.size() < maxBatchSize && batch.get(batch.size() - 1) != CLOSED_MARKER) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      DfsLogger.LogWork next;
+      try {
+        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+      queue.drainTo(batch, maxBatchSize - batch.size());
+    }
+  }
+
   private class LogSyncingTask implements Runnable {
     private int expectedReplication = 0;
 
@@ -164,6 +200,7 @@ public class DfsLogger implements Comparable<DfsLogger> {
     public void run() {
       ArrayList<DfsLogger.LogWork> work = new ArrayList<>();
       boolean sawClosedMarker = false;
+      int lastBatchSize = 0;
       while (!sawClosedMarker) {
         work.clear();
 
@@ -172,7 +209,10 @@ public class DfsLogger implements Comparable<DfsLogger> {
         } catch (InterruptedException ex) {
           continue;
         }
-        workQueue.drainTo(work);
+        // Only wait for more work when the last sync was shared by concurrent writers. A lone
+        // writer would otherwise wait on every sync for work that never arrives.
+        gatherWork(workQueue, work, maxSyncBatchSize, lastBatchSize > 1 ? syncBatchWaitNanos : 0);
+        lastBatchSize = work.size();
 
         Optional<Boolean> shouldHSync = Optional.empty();
         loop: for (LogWork logWork : work) {
@@ -208,6 +248,10 @@ public class DfsLogger implements Comparable<DfsLogger> {
           fail(work, ex, "synching");
         }
         long duration = System.currentTimeMillis() - start;
+        if (shouldHSync.isPresent() && updateMetrics != null) {
+          updateMetrics.addWalogSyncBatchSize(work.size());
+          updateMetrics.addWalogSyncTime(duration);
+        }
         if (duration > slowFlushMillis) {
           String msg = new StringBuilder(128).append("Slow sync cost: ").append(duration)
               .append(" ms, current pipeline: ").append(Arrays.toString(getPipeLine())).toString();
@@ -252,7 +296,7 @@ public class DfsLogger implements Comparable<DfsLogger> {
     }
   }
 
-  private static class LogWork {
+  static class LogWork {
     final CountDownLatch latch;
     final Durability durability;
     volatile Exception exception;
@@ -329,7 +373,10 @@ public class DfsLogger implements Comparable<DfsLogger> {
   private String metaReference;
   private AtomicLong syncCounter;
   private AtomicLong flushCounter;
+  private TabletServerUpdateMetrics updateMetrics;
   private final long slowFlushMillis;
+  private final long syncBatchWaitNanos;
+  private final int maxSyncBatchSize;
   private long writes = 0;
 
   private DfsLogger(ServerContext context, ServerResources conf) {
@@ -337,13 +384,18 @@ public class DfsLogger implements Comparable<DfsLogger> {
     this.conf = conf;
     this.slowFlushMillis =
         conf.getConfiguration().getTimeInMillis(Property.TSERV_SLOW_FLUSH_MILLIS);
+    this.syncBatchWaitNanos = TimeUnit.MICROSECONDS
+        .toNanos(conf.getConfiguration().getCount(Property.TSERV_WAL_SYNC_BATCH_WAIT));
+    int maxBatch = conf.getConfiguration().getCount(Property.TSERV_WAL_SYNC_BATCH_MAX);
+    this.maxSyncBatchSize = maxBatch <= 0 ? Integer.MAX_VALUE : maxBatch;
   }
 
   public DfsLogger(ServerContext context, ServerResources conf, AtomicLong syncCounter,
-      AtomicLong flushCounter) {
+      AtomicLong flushCounter, TabletServerUpdateMetrics updateMetrics) {
     this(context, conf);
     this.syncCounter = syncCounter;
     this.flushCounter = flushCounter;
+    this.updateMetrics = updateMetrics;
   }
 
   /**
@@ -574,11 +626,22 @@ public class DfsLogger implements Comparable<DfsLogger> {
     return logKeyData(key, Durability.LOG);
   }
 
-  private synchronized void write(LogFileKey key, LogFileValue value) throws IOException {
-    key.write(encryptingLogFile);
-    value.write(encryptingLogFile);
-    encryptingLogFile.flush();
-    writes++;
+  private void write(List<Pair<LogFileKey,LogFileValue>> keys) throws IOException {
+    // Serialize before taking the lock, so concurrent writers only hold it while their entries are
+    // copied into the log's output buffer. All entries of a call are written together.
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(buffer);
+    for (Pair<LogFileKey,LogFileValue> pair : keys) {
+      pair.getFirst().write(out);
+      pair.getSecond().write(out);
+    }
+    out.flush();
+
+    synchronized (this) {
+      buffer.writeTo(encryptingLogFile);
+      encryptingLogFile.flush();
+      writes += keys.size();
+    }
   }
 
   private LoggerOperation logKeyData(LogFileKey key, Durability d) throws IOException {
@@ -589,9 +652,7 @@ public class DfsLogger implements Comparable<DfsLogger> {
       Durability durability) throws IOException {
     DfsLogger.LogWork work = new DfsLogger.LogWork(new CountDownLatch(1), durability);
     try {
-      for (Pair<LogFileKey,LogFileValue> pair : keys) {
-        write(pair.getFirst(), pair.getSecond());
-      }
+      write(keys);
     } catch (ClosedChannelException ex) {
       throw new LogClosedException();
     } catch (Exception e) {
@@ -28,6 +28,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.accumulo.core.Constants;
@@ -129,25 +132,48 @@ public class LogSorter {
           this.input = inputStreams.getOriginalInput();
           this.decryptingInput = inputStreams.getDecryptingInputStream();
 
-          final long bufferSize = conf.getAsBytes(Property.TSERV_SORT_BUFFER_SIZE);
+          // The buffer size is split between the part being read and the parts being sorted, so
+          // that reading continues while every sort thread is busy.
+          final int sortThreads = sortThreadPool.getMaximumPoolSize();
+          final long bufferSize =
+              conf.getAsBytes(Property.TSERV_SORT_BUFFER_SIZE) / (sortThreads + 1);
+          final Semaphore buffers = new Semaphore(sortThreads + 1);
+          final List<Future<?>> sorts = new ArrayList<>();
           Thread.currentThread().setName("Sorting " + name + " for recovery");
-          while (true) {
-            final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<>();
-            try {
-              long start = input.getPos();
-              while (input.getPos() - start < bufferSize) {
-                LogFileKey key = new LogFileKey();
-                LogFileValue value = new LogFileValue();
-                key.readFields(decryptingInput);
-                value.readFields(decryptingInput);
-                buffer.add(new Pair<>(key, value));
+          try {
+            boolean eof = false;
+            while (!eof) {
+              checkSorts(sorts);
+              buffers.acquire();
+              final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<>();
+              try {
+                long start = input.getPos();
+                while (input.getPos() - start < bufferSize) {
+                  LogFileKey key = new LogFileKey();
+                  LogFileValue value = new LogFileValue();
+                  key.readFields(decryptingInput);
+                  value.readFields(decryptingInput);
+                  buffer.add(new Pair<>(key, value));
+                }
+              } catch (EOFException ex) {
+                eof = true;
               }
-              writeBuffer(destPath, buffer, part++);
-              buffer.clear();
-            } catch (EOFException ex) {
-              writeBuffer(destPath, buffer, part++);
-              break;
+              final int bufferPart = part++;
+              sorts.add(sortThreadPool.submit(() -> {
+                try {
+                  writeBuffer(destPath, buffer, bufferPart);
+                } finally {
+                  buffers.release();
+                }
+                return null;
+              }));
+            }
+            for (Future<?> sort : sorts) {
+              sort.get();
             }
+          } finally {
+            // only matters when reading failed, sorts that already started run to completion
+            sorts.forEach(sort -> sort.cancel(false));
           }
           fs.create(new Path(destPath, "finished")).close();
           log.info("Finished log sort {} {} bytes {} parts in {}ms", name, getBytesCopied(), part,
@@ -175,6 +201,17 @@ public class LogSorter {
       }
     }
 
+    /**
+     * Fails the sort early if sorting any of its parts failed.
+     */
+    private void checkSorts(List<Future<?>> sorts) throws ExecutionException, InterruptedException {
+      for (Future<?> sort : sorts) {
+        if (sort.isDone()) {
+          sort.get();
+        }
+      }
+    }
+
     private void writeBuffer(String destPath, List<Pair<LogFileKey,LogFileValue>> buffer, int part)
         throws IOException {
       Path path = new Path(destPath, String.format("part-r-%05d", part));
@@ -216,6 +253,7 @@ public class LogSorter {
   }
 
   ThreadPoolExecutor threadPool;
+  private final ThreadPoolExecutor sortThreadPool;
   private final ServerContext context;
   private double walBlockSize;
 
@@ -224,6 +262,8 @@ public class LogSorter {
     this.conf = conf;
     int threadPoolSize = conf.getCount(Property.TSERV_RECOVERY_MAX_CONCURRENT);
     this.threadPool = new SimpleThreadPool(threadPoolSize, this.getClass().getName());
+    this.sortThreadPool =
+        new SimpleThreadPool(conf.getCount(Property.TSERV_SORT_THREADS), "log part sorter");
     this.walBlockSize = DfsLogger.getWalBlockSize(conf);
   }
 
@@ -234,6 +274,13 @@ public class LogSorter {
         .startProcessing(new LogProcessor(), this.threadPool);
   }
 
+  /**
+   * Stops the threads that sort log parts. Sorts still running fail.
+   */
+  public void shutdown() {
+    sortThreadPool.shutdownNow();
+  }
+
   public List<RecoveryStatus> getLogSorts() {
     List<RecoveryStatus> result = new ArrayList<>();
     synchronized (currentWork) {
@@ -53,6 +53,7 @@ import org.apache.accumulo.tserver.TabletMutations;
 import org.apache.accumulo.tserver.TabletServer;
 import org.apache.accumulo.tserver.log.DfsLogger.LoggerOperation;
 import org.apache.accumulo.tserver.log.DfsLogger.ServerResources;
+import org.apache.accumulo.tserver.metrics.TabletServerUpdateMetrics;
 import org.apache.accumulo.tserver.tablet.CommitSession;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
@@ -96,6 +97,7 @@ public class TabletServerLogger {
 
   private final AtomicLong syncCounter;
   private final AtomicLong flushCounter;
+  private final TabletServerUpdateMetrics updateMetrics;
 
   private long createTime = 0;
 
@@ -149,12 +151,13 @@ public class TabletServerLogger {
   }
 
   public TabletServerLogger(TabletServer tserver, long maxSize, AtomicLong syncCounter,
-      AtomicLong flushCounter, RetryFactory createRetryFactory, RetryFactory writeRetryFactory,
-      long maxAge) {
+      AtomicLong flushCounter, TabletServerUpdateMetrics updateMetrics,
+      RetryFactory createRetryFactory, RetryFactory writeRetryFactory, long maxAge) {
     this.tserver = tserver;
     this.maxSize = maxSize;
     this.syncCounter = syncCounter;
     this.flushCounter = flushCounter;
+    this.updateMetrics = updateMetrics;
     this.createRetryFactory = createRetryFactory;
     this.createRetry = null;
     this.writeRetryFactory = writeRetryFactory;
@@ -275,7 +278,8 @@ public class TabletServerLogger {
           DfsLogger alog = null;
 
           try {
-            alog = new DfsLogger(tserver.getContext(), conf, syncCounter, flushCounter);
+            alog =
+                new DfsLogger(tserver.getContext(), conf, syncCounter, flushCounter, updateMetrics);
             alog.open(tserver.getClientAddressString());
           } catch (Exception t) {
             log.error("Failed to open WAL", t);
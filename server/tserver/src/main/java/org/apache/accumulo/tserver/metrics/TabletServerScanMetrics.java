@@ -18,6 +18,15 @@
  */
 package org.apache.accumulo.tserver.metrics;
 
+import java.util.Map;
+
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.accumulo.tserver.cache.TableCacheStats;
+import org.apache.accumulo.tserver.scan.FairShareScanQueue;
+import org.apache.accumulo.tserver.scan.FairShareScanQueue.AdmissionStats;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.lib.Interns;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableStat;
 
@@ -26,9 +35,17 @@ public class TabletServerScanMetrics extends TServerMetrics {
   private final MutableStat scans;
   private final MutableStat resultsPerScan;
   private final MutableStat yields;
+  private final BlockReadahead readahead;
+  private final Map<String,FairShareScanQueue> fairShareQueues;
+  private final Map<CacheType,TableCacheStats> tableCacheStats;
 
-  public TabletServerScanMetrics() {
+  public TabletServerScanMetrics(BlockReadahead readahead,
+      Map<String,FairShareScanQueue> fairShareQueues,
+      Map<CacheType,TableCacheStats> tableCacheStats) {
     super("Scans");
+    this.readahead = readahead;
+    this.fairShareQueues = fairShareQueues;
+    this.tableCacheStats = tableCacheStats;
 
     MetricsRegistry registry = super.getRegistry();
     scans = registry.newStat("scan", "Scans", "Ops", "Count", true);
@@ -48,4 +65,47 @@ public class TabletServerScanMetrics extends TServerMetrics {
     yields.add(value);
   }
 
+  @Override
+  protected void getMoreMetrics(MetricsRecordBuilder builder, boolean all) {
+    if (readahead != null) {
+      builder.addCounter(Interns.info("readaheadBlocks", "Data blocks queued for readahead"),
+          readahead.getBlocksQueued());
+      builder.addCounter(Interns.info("readaheadUsed", "Data blocks read ahead and then used"),
+          readahead.getBlocksUsed());
+      builder.addCounter(
+          Interns.info("readaheadWasted", "Data blocks queued for readahead but not used"),
+          readahead.getBlocksWasted());
+    }
+
+    fairShareQueues.forEach((executor, queue) -> {
+      queue.getUserStats().forEach((user, stats) -> addAdmissionMetrics(builder,
+          "fairShare." + executor + ".user." + user, "user " + user, stats));
+      queue.getTableStats().forEach((tableId, stats) -> addAdmissionMetrics(builder,
+          "fairShare." + executor + ".table." + tableId, "table " + tableId, stats));
+    });
+
+    tableCacheStats.forEach((type, stats) -> {
+      String cache = type.name().toLowerCase();
+      stats.getCounts().forEach((tableId, counts) -> {
+        String prefix = "cache." + cache + ".table." + tableId;
+        builder.addCounter(Interns.info(prefix + ".requests",
+            "Requests to the " + cache + " cache for table " + tableId), counts.getRequests());
+        builder.addCounter(
+            Interns.info(prefix + ".hits", "Hits in the " + cache + " cache for table " + tableId),
+            counts.getHits());
+      });
+    });
+  }
+
+  private static void addAdmissionMetrics(MetricsRecordBuilder builder, String prefix,
+      String tenant, AdmissionStats stats) {
+    builder.addCounter(Interns.info(prefix + ".admitted", "Scans admitted for " + tenant),
+        stats.getAdmitted());
+    builder.addCounter(
+        Interns.info(prefix + ".queueTime", "Milliseconds scans for " + tenant + " were queued"),
+        stats.getQueueTime());
+    builder.addCounter(Interns.info(prefix + ".throttled",
+        "Scans for " + tenant + " held back by a concurrency cap"), stats.getThrottled());
+  }
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.file.streams.BlockReadTimer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * A scan thread pool that measures how much of the time its tasks run is spent blocked reading file
+ * blocks versus using the CPU. {@link #computePoolSize()} uses those measurements to suggest a pool
+ * size that keeps the cores busy, growing the pool when scans mostly wait on reads and shrinking it
+ * when scans are CPU bound. It is up to the caller to periodically apply the suggestion.
+ */
+public class AdaptiveScanThreadPool extends ThreadPoolExecutor {
+
+  private final int minThreads;
+  private final int maxThreads;
+  private final int cores;
+
+  private final LongAdder runNanos = new LongAdder();
+  private final LongAdder blockReadNanos = new LongAdder();
+
+  // the wall and block read times a worker thread had when it started its current task
+  private final ThreadLocal<long[]> taskStart = ThreadLocal.withInitial(() -> new long[2]);
+
+  public AdaptiveScanThreadPool(int initialThreads, int minThreads, int maxThreads, int cores,
+      BlockingQueue<Runnable> queue, ThreadFactory threadFactory) {
+    super(initialThreads, initialThreads, 0L, TimeUnit.MILLISECONDS, queue, threadFactory);
+    Preconditions.checkArgument(
+        0 < minThreads && minThreads <= initialThreads && initialThreads <= maxThreads,
+        "Must have 0 < min threads <= initial threads <= max threads");
+    Preconditions.checkArgument(cores > 0);
+    this.minThreads = minThreads;
+    this.maxThreads = maxThreads;
+    this.cores = cores;
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    super.beforeExecute(t, r);
+    long[] start = taskStart.get();
+    start[0] = System.nanoTime();
+    start[1] = BlockReadTimer.currentThreadNanos();
+  }
+
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    long[] start = taskStart.get();
+    runNanos.add(System.nanoTime() - start[0]);
+    blockReadNanos.add(BlockReadTimer.currentThreadNanos() - start[1]);
+    super.afterExecute(r, t);
+  }
+
+  /**
+   * Computes a new pool size from the time tasks have spent running and reading since the last
+   * call, then starts measuring again. If no tasks ran, the current size is kept.
+   */
+  public synchronized int computePoolSize() {
+    long run = runNanos.sumThenReset();
+    long read = blockReadNanos.sumThenReset();
+    return computePoolSize(getMaximumPoolSize(), minThreads, maxThreads, cores, run, read);
+  }
+
+  /**
+   * Sizes the pool so that the time threads spend computing fills the cores, which is
+   * {@code cores * (1 + read / compute)}. The pool only moves half way towards that target each
+   * time to damp swings between workloads.
+   */
+  @VisibleForTesting
+  static int computePoolSize(int current, int minThreads, int maxThreads, int cores, long runNanos,
+      long blockReadNanos) {
+    if (runNanos <= 0) {
+      return current;
+    }
+
+    blockReadNanos = Math.min(Math.max(blockReadNanos, 0), runNanos);
+    long computeNanos = runNanos - blockReadNanos;
+
+    int target;
+    if (computeNanos == 0) {
+      target = maxThreads;
+    } else {
+      double ideal = cores * (1.0 + (double) blockReadNanos / computeNanos);
+      target = (int) Math.min(maxThreads, Math.ceil(ideal));
+    }
+
+    int next = current + (target - current) / 2;
+    if (next == current && target != current) {
+      next += Integer.signum(target - current);
+    }
+
+    return Math.max(minThreads, Math.min(maxThreads, next));
+  }
+}
@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.accumulo.core.data.TableId;
+
+/**
+ * A scan executor work queue that admits scans using weighted fair queuing. Scans are grouped by
+ * the user and table they are for. Each group is given a weight that is its user's share times its
+ * table's share, and queued scans are handed to executor threads in the order of their virtual
+ * finish times, so over time every group gets threads in proportion to its weight no matter how
+ * many scans it queues. Users and tables may also have a cap on how many of their scans run at
+ * once, scans over a cap stay queued while other groups' scans are admitted.
+ *
+ * <p>
+ * Tasks taken from this queue are wrapped so the queue knows when they finish. The executor using
+ * this queue should start all of its threads up front, otherwise the executor may run a task it was
+ * given directly instead of queuing it.
+ */
+public class FairShareScanQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+  /**
+   * The user and table a scan is for.
+   */
+  public static final class Tenant {
+    private final String user;
+    private final TableId tableId;
+
+    public Tenant(String user, TableId tableId) {
+      this.user = Objects.requireNonNull(user);
+      this.tableId = Objects.requireNonNull(tableId);
+    }
+
+    public String getUser() {
+      return user;
+    }
+
+    public TableId getTableId() {
+      return tableId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Tenant) {
+        Tenant ot = (Tenant) o;
+        return user.equals(ot.user) && tableId.equals(ot.tableId);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return user.hashCode() * 31 + tableId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return user + "/" + tableId;
+    }
+  }
+
+  /**
+   * Supplies the shares and concurrency caps. Called each time a scan is queued or admitted, so
+   * configuration changes take effect without recreating the queue.
+   */
+  public interface Shares {
+    int getUserShare(String user);
+
+    /**
+     * @return the most scans of the user to run at once, or 0 for no limit
+     */
+    int getUserMaxConcurrent(String user);
+
+    int getTableShare(TableId tableId);
+
+    /**
+     * @return the most scans of the table to run at once, or 0 for no limit
+     */
+    int getTableMaxConcurrent(TableId tableId);
+  }
+
+  /**
+   * Admission statistics for a user or table.
+   */
+  public static class AdmissionStats {
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queueTime = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private volatile long lastActive = System.nanoTime();
+
+    /**
+     * @return the number of scans admitted
+     */
+    public long getAdmitted() {
+      return admitted.sum();
+    }
+
+    /**
+     * @return the total milliseconds admitted scans waited in the queue
+     */
+    public long getQueueTime() {
+      return TimeUnit.NANOSECONDS.toMillis(queueTime.sum());
+    }
+
+    /**
+     * @return the number of scans that were held back at least once because a concurrency cap was
+     *         reached
+     */
+    public long getThrottled() {
+      return throttled.sum();
+    }
+  }
+
+  private static class Entry {
+    final Runnable task;
+    final long queuedNanos = System.nanoTime();
+    final double startTag;
+    final double finishTag;
+    boolean throttled = false;
+
+    Entry(Runnable task, double startTag, double finishTag) {
+      this.task = task;
+      this.startTag = startTag;
+      this.finishTag = finishTag;
+    }
+  }
+
+  private static class TenantQueue {
+    final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    double lastFinishTag = 0;
+  }
+
+  private final Function<Runnable,Tenant> tenantExtractor;
+  private final Shares shares;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition admittable = lock.newCondition();
+
+  private final Map<Tenant,TenantQueue> queues = new LinkedHashMap<>();
+  private final Map<String,Integer> runningPerUser = new HashMap<>();
+  private final Map<TableId,Integer> runningPerTable = new HashMap<>();
+  private double virtualTime = 0;
+  private int count = 0;
+
+  private final Map<String,AdmissionStats> userStats = new ConcurrentHashMap<>();
+  private final Map<TableId,AdmissionStats> tableStats = new ConcurrentHashMap<>();
+
+  public FairShareScanQueue(Function<Runnable,Tenant> tenantExtractor, Shares shares) {
+    this.tenantExtractor = tenantExtractor;
+    this.shares = shares;
+  }
+
+  public Map<String,AdmissionStats> getUserStats() {
+    return Collections.unmodifiableMap(userStats);
+  }
+
+  public Map<TableId,AdmissionStats> getTableStats() {
+    return Collections.unmodifiableMap(tableStats);
+  }
+
+  @Override
+  public boolean offer(Runnable task) {
+    Objects.requireNonNull(task);
+    Tenant tenant = tenantExtractor.apply(task);
+    long weight = Math.max(1, (long) shares.getUserShare(tenant.user))
+        * Math.max(1, shares.getTableShare(tenant.tableId));
+    lock.lock();
+    try {
+      TenantQueue tq = queues.computeIfAbsent(tenant, t -> new TenantQueue());
+      double startTag = Math.max(virtualTime, tq.lastFinishTag);
+      double finishTag = startTag + 1.0 / weight;
+      tq.lastFinishTag = finishTag;
+      tq.entries.add(new Entry(task, startTag, finishTag));
+      count++;
+      admittable.signal();
+    } finally {
+      lock.unlock();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+    return offer(task);
+  }
+
+  @Override
+  public void put(Runnable task) {
+    offer(task);
+  }
+
+  private static boolean atCap(Map<?,Integer> running, Object key, int cap) {
+    return cap > 0 && running.getOrDefault(key, 0) >= cap;
+  }
+
+  /**
+   * Finds the tenant whose next scan has the lowest finish tag and is not over a concurrency cap.
+   * Must be called while holding the lock.
+   */
+  private Tenant selectTenant() {
+    Tenant selected = null;
+    double selectedTag = Double.MAX_VALUE;
+    Iterator<Map.Entry<Tenant,TenantQueue>> iter = queues.entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<Tenant,TenantQueue> e = iter.next();
+      Entry head = e.getValue().entries.peek();
+      if (head == null) {
+        if (e.getValue().lastFinishTag <= virtualTime) {
+          // an idle tenant does not build up credit, so there is no need to remember it
+          iter.remove();
+        }
+        continue;
+      }
+      if (head.finishTag >= selectedTag) {
+        continue;
+      }
+      Tenant tenant = e.getKey();
+      if (atCap(runningPerUser, tenant.user, shares.getUserMaxConcurrent(tenant.user))
+          || atCap(runningPerTable, tenant.tableId, shares.getTableMaxConcurrent(tenant.tableId))) {
+        if (!head.throttled) {
+          head.throttled = true;
+          getStats(userStats, tenant.user).throttled.increment();
+          getStats(tableStats, tenant.tableId).throttled.increment();
+        }
+        continue;
+      }
+      selected = tenant;
+      selectedTag = head.finishTag;
+    }
+    return selected;
+  }
+
+  /**
+   * Removes the next admittable scan, or returns null if there is none. Must be called while
+   * holding the lock.
+   */
+  private Runnable admit() {
+    if (count == 0) {
+      return null;
+    }
+    Tenant tenant = selectTenant();
+    if (tenant == null) {
+      return null;
+    }
+
+    TenantQueue tq = queues.get(tenant);
+    Entry entry = tq.entries.remove();
+    count--;
+    virtualTime = Math.max(virtualTime, entry.startTag);
+
+    runningPerUser.merge(tenant.user, 1, Integer::sum);
+    runningPerTable.merge(tenant.tableId, 1, Integer::sum);
+
+    long queueTime = System.nanoTime() - entry.queuedNanos;
+    AdmissionStats us = getStats(userStats, tenant.user);
+    us.admitted.increment();
+    us.queueTime.add(queueTime);
+    AdmissionStats ts = getStats(tableStats, tenant.tableId);
+    ts.admitted.increment();
+    ts.queueTime.add(queueTime);
+
+    return () -> {
+      try {
+        entry.task.run();
+      } finally {
+        finished(tenant);
+      }
+    };
+  }
+
+  private static <K> AdmissionStats getStats(Map<K,AdmissionStats> stats, K key) {
+    AdmissionStats as = stats.computeIfAbsent(key, k -> new AdmissionStats());
+    as.lastActive = System.nanoTime();
+    return as;
+  }
+
+  /**
+   * Drops the admission statistics of users and tables that have no queued or running scans and
+   * have not had a scan admitted or throttled within the given time, and of tables that no longer
+   * exist. Statistics are kept per user and table, so without pruning they would grow with every
+   * user and table ever scanned.
+   */
+  public void pruneStats(long idleTime, TimeUnit unit, Predicate<TableId> tableExists) {
+    // check for deleted tables before locking, the check may be slow
+    Set<TableId> deleted =
+        tableStats.keySet().stream().filter(tableExists.negate()).collect(Collectors.toSet());
+    long cutoff = System.nanoTime() - unit.toNanos(idleTime);
+
+    lock.lock();
+    try {
+      Set<String> activeUsers = new HashSet<>(runningPerUser.keySet());
+      Set<TableId> activeTables = new HashSet<>(runningPerTable.keySet());
+      queues.forEach((tenant, tq) -> {
+        if (!tq.entries.isEmpty()) {
+          activeUsers.add(tenant.user);
+          activeTables.add(tenant.tableId);
+        }
+      });
+      userStats.entrySet()
+          .removeIf(e -> !activeUsers.contains(e.getKey()) && e.getValue().lastActive - cutoff < 0);
+      tableStats.entrySet().removeIf(e -> !activeTables.contains(e.getKey())
+          && (deleted.contains(e.getKey()) || e.getValue().lastActive - cutoff < 0));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void finished(Tenant tenant) {
+    lock.lock();
+    try {
+      runningPerUser.computeIfPresent(tenant.user, (u, c) -> c == 1 ? null : c - 1);
+      runningPerTable.computeIfPresent(tenant.tableId, (t, c) -> c == 1 ? null : c - 1);
+      if (count > 0) {
+        // a scan held back by a cap may now be admittable
+        admittable.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable poll() {
+    lock.lock();
+    try {
+      return admit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      Runnable task;
+      while ((task = admit()) == null) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = admittable.awaitNanos(nanos);
+      }
+      return task;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      Runnable task;
+      while ((task = admit()) == null) {
+        admittable.await();
+      }
+      return task;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the queued scan that would be admitted next if no caps applied.
+   */
+  @Override
+  public Runnable peek() {
+    lock.lock();
+    try {
+      Entry next = null;
+      for (TenantQueue tq : queues.values()) {
+        Entry head = tq.entries.peek();
+        if (head != null && (next == null || head.finishTag < next.finishTag)) {
+          next = head;
+        }
+      }
+      return next == null ? null : next.task;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    lock.lock();
+    try {
+      for (TenantQueue tq : queues.values()) {
+        if (tq.entries.removeIf(e -> e.task.equals(o))) {
+          count--;
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drains queued scans without admitting them, ignoring caps. This is used when the executor is
+   * shutdown.
+   */
+  @Override
+  public int drainTo(Collection<? super Runnable> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super Runnable> c, int maxElements) {
+    lock.lock();
+    try {
+      int drained = 0;
+      Iterator<TenantQueue> iter = queues.values().iterator();
+      while (iter.hasNext() && drained < maxElements) {
+        TenantQueue tq = iter.next();
+        while (!tq.entries.isEmpty() && drained < maxElements) {
+          c.add(tq.entries.remove().task);
+          drained++;
+          count--;
+        }
+        if (tq.entries.isEmpty()) {
+          iter.remove();
+        }
+      }
+      return drained;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the queued scans.
+   */
+  @Override
+  public Iterator<Runnable> iterator() {
+    lock.lock();
+    try {
+      List<Runnable> snapshot = new ArrayList<>(count);
+      for (TenantQueue tq : queues.values()) {
+        for (Entry e : tq.entries) {
+          snapshot.add(e.task);
+        }
+      }
+      return Collections.unmodifiableList(snapshot).iterator();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -116,7 +116,7 @@ public class LookupTask extends ScanTask<MultiScanResult> {
             interruptFlag.set(true);
 
           lookupResult = tablet.lookup(entry.getValue(), results, session.scanParams,
-              maxResultsSize - bytesAdded, interruptFlag);
+              maxResultsSize - bytesAdded, interruptFlag, session.bloomFilterPrecheck);
 
           // if the tablet was closed it it possible that the
           // interrupt flag was set.... do not want it set for
@@ -71,36 +71,56 @@ public class NextBatchTask extends ScanTask<ScanBatch> {
         return;
       }
 
-      ScanBatch batch = scanSession.scanner.read();
-
-      // there should only be one thing on the queue at a time, so
-      // it should be ok to call add()
-      // instead of put()... if add() fails because queue is at
-      // capacity it means there is code
-      // problem somewhere
-      addResult(batch);
+      if (scanSession.window == null) {
+        ScanBatch batch = scanSession.scanner.read();
+
+        // there should only be one thing on the queue at a time, so
+        // it should be ok to call add()
+        // instead of put()... if add() fails because queue is at
+        // capacity it means there is code
+        // problem somewhere
+        addResult(batch);
+      } else {
+        // keep reading until the client's window is full
+        boolean readMore = true;
+        while (readMore && !isCancelled()) {
+          readMore = scanSession.window.add(scanSession.scanner.read());
+        }
+      }
     } catch (TabletClosedException e) {
-      addResult(new org.apache.accumulo.core.tabletserver.thrift.NotServingTabletException(
-          scanSession.extent.toThrift()));
+      addResult(scanSession,
+          new org.apache.accumulo.core.tabletserver.thrift.NotServingTabletException(
+              scanSession.extent.toThrift()));
     } catch (IterationInterruptedException iie) {
       if (!isCancelled()) {
         log.warn("Iteration interrupted, when scan not cancelled", iie);
-        addResult(iie);
+        addResult(scanSession, iie);
       }
     } catch (TooManyFilesException | SampleNotPresentException e) {
-      addResult(e);
+      addResult(scanSession, e);
     } catch (OutOfMemoryError ome) {
       Halt.halt("Ran out of memory scanning " + scanSession.extent + " for " + scanSession.client,
           1);
-      addResult(ome);
+      addResult(scanSession, ome);
     } catch (Throwable e) {
       log.warn("exception while scanning tablet "
           + (scanSession == null ? "(unknown)" : scanSession.extent), e);
-      addResult(e);
+      addResult(scanSession, e);
     } finally {
+      if (scanSession != null && scanSession.window != null) {
+        scanSession.window.producerFinished(isCancelled());
+      }
       runState.set(ScanRunState.FINISHED);
       Thread.currentThread().setName(oldThreadName);
     }
 
   }
+
+  private void addResult(SingleScanSession scanSession, Throwable t) {
+    if (scanSession != null && scanSession.window != null) {
+      scanSession.window.fail(t);
+    } else {
+      addResult(t);
+    }
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.tserver.tablet.KVEntry;
+import org.apache.accumulo.tserver.tablet.ScanBatch;
+
+/**
+ * Batches a scan has read ahead of its client. A single producer reads batches into the window
+ * until it is full. Each call to {@link #take(long, TimeUnit)} returns all ready batches as one,
+ * which frees the window for the producer to be started again.
+ */
+public class ScanBatchWindow {
+
+  private final int maxBatches;
+  private final long maxBytes;
+
+  private final ArrayDeque<ScanBatch> batches = new ArrayDeque<>();
+  private long bytes = 0;
+
+  private boolean producing = false;
+  private boolean finished = false;
+  private boolean cancelled = false;
+  private Throwable error = null;
+
+  public ScanBatchWindow(int maxBatches, long maxBytes) {
+    this.maxBatches = maxBatches;
+    this.maxBytes = maxBytes;
+  }
+
+  public int getMaxBatches() {
+    return maxBatches;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  private boolean hasRoom() {
+    return batches.size() < maxBatches && bytes < maxBytes;
+  }
+
+  private static long size(ScanBatch batch) {
+    long size = 0;
+    for (KeyValue kv : batch.getResults()) {
+      size += kv.getKey().getSize() + kv.getValue().get().length;
+    }
+    return size;
+  }
+
+  /**
+   * @return true if the caller should start a producer, which must call
+   *         {@link #producerFinished(boolean)} when it stops
+   */
+  public synchronized boolean startProducer() {
+    if (producing || finished || cancelled || error != null || !hasRoom()) {
+      return false;
+    }
+    producing = true;
+    return true;
+  }
+
+  /**
+   * Called by the producer for each batch it reads.
+   *
+   * @return true if the producer should read another batch
+   */
+  public synchronized boolean add(ScanBatch batch) {
+    batches.add(batch);
+    bytes += size(batch);
+    if (!batch.isMore()) {
+      finished = true;
+    }
+    notifyAll();
+    return !finished && hasRoom();
+  }
+
+  /**
+   * Called by the producer when reading a batch fails. The error is returned to the client after
+   * any batches read before it.
+   */
+  public synchronized void fail(Throwable t) {
+    error = t;
+    notifyAll();
+  }
+
+  public synchronized void producerFinished(boolean wasCancelled) {
+    producing = false;
+    cancelled |= wasCancelled;
+    notifyAll();
+  }
+
+  /**
+   * Waits for at least one batch and returns every ready batch combined into one.
+   */
+  public synchronized ScanBatch take(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (batches.isEmpty()) {
+      if (error != null) {
+        Throwable t = error;
+        // the producer may be started again after the client sees the error
+        error = null;
+        throw new ExecutionException(t);
+      }
+      if (cancelled) {
+        throw new CancellationException();
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new TimeoutException();
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+
+    bytes = 0;
+    if (batches.size() == 1) {
+      return batches.poll();
+    }
+
+    List<KVEntry> results = new ArrayList<>();
+    boolean more = true;
+    for (ScanBatch batch : batches) {
+      results.addAll(batch.getResults());
+      more = batch.isMore();
+    }
+    batches.clear();
+    return new ScanBatch(results, more);
+  }
+}
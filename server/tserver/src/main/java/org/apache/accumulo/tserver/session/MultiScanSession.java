@@ -21,6 +21,7 @@ package org.apache.accumulo.tserver.session;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.accumulo.core.clientImpl.TabletServerBatchReaderIterator;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
@@ -32,6 +33,7 @@ import org.apache.accumulo.tserver.scan.ScanTask;
 public class MultiScanSession extends ScanSession {
   public final KeyExtent threadPoolExtent;
   public final Map<KeyExtent,List<Range>> queries;
+  public final boolean bloomFilterPrecheck;
 
   // stats
   public int numRanges;
@@ -43,11 +45,12 @@ public class MultiScanSession extends ScanSession {
 
   public MultiScanSession(TCredentials credentials, KeyExtent threadPoolExtent,
       Map<KeyExtent,List<Range>> queries, ScanParameters scanParams,
-
       Map<String,String> executionHints) {
     super(credentials, scanParams, executionHints);
     this.queries = queries;
     this.threadPoolExtent = threadPoolExtent;
+    this.bloomFilterPrecheck = executionHints != null && Boolean.parseBoolean(
+        executionHints.get(TabletServerBatchReaderIterator.BLOOM_FILTER_PRECHECK_HINT));
   }
 
   @Override
@@ -23,9 +23,11 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
+import org.apache.accumulo.core.file.streams.BlockReadTimer;
 import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
 import org.apache.accumulo.core.spi.common.IteratorConfiguration;
 import org.apache.accumulo.core.spi.common.Stats;
@@ -51,9 +53,11 @@ public abstract class ScanSession extends Session implements ScanInfo {
     @Override
     public void run() {
       long t1 = System.currentTimeMillis();
+      long readNanos = BlockReadTimer.currentThreadNanos();
       task.run();
+      readNanos = BlockReadTimer.currentThreadNanos() - readNanos;
       long t2 = System.currentTimeMillis();
-      session.finishedRun(t1, t2);
+      session.finishedRun(t1, t2, TimeUnit.NANOSECONDS.toMillis(readNanos));
     }
 
     public ScanInfo getScanInfo() {
@@ -68,6 +72,8 @@ public abstract class ScanSession extends Session implements ScanInfo {
   private OptionalLong lastRunTime = OptionalLong.empty();
   private Stat idleStats = new Stat();
   public Stat runStats = new Stat();
+  private Stat blockReadStats = new Stat();
+  private Stat iteratorStats = new Stat();
 
   public final ScanParameters scanParams;
   private Map<String,String> executionHints;
@@ -112,6 +118,16 @@ public abstract class ScanSession extends Session implements ScanInfo {
     return copy;
   }
 
+  @Override
+  public Stats getBlockReadTimeStats() {
+    return blockReadStats;
+  }
+
+  @Override
+  public Stats getIteratorTimeStats() {
+    return iteratorStats;
+  }
+
   @Override
   public Set<Column> getFetchedColumns() {
     return Collections.unmodifiableSet(scanParams.getColumnSet());
@@ -158,11 +174,19 @@ public abstract class ScanSession extends Session implements ScanInfo {
     return executionHints;
   }
 
-  public void finishedRun(long start, long finish) {
+  /**
+   * @param blockReadTime
+   *          the milliseconds of the run that were spent blocked reading file blocks
+   */
+  public void finishedRun(long start, long finish, long blockReadTime) {
     long idleTime = start - getLastRunTime().orElse(getCreationTime());
     long runTime = finish - start;
+    // the two clocks are sampled separately, so never let reads exceed the run time
+    blockReadTime = Math.min(blockReadTime, runTime);
     lastRunTime = OptionalLong.of(finish);
     idleStats.addStat(idleTime);
     runStats.addStat(runTime);
+    blockReadStats.addStat(blockReadTime);
+    iteratorStats.addStat(runTime - blockReadTime);
   }
 }
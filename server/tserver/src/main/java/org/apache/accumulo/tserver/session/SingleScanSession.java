@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
+import org.apache.accumulo.tserver.scan.ScanBatchWindow;
 import org.apache.accumulo.tserver.scan.ScanParameters;
 import org.apache.accumulo.tserver.scan.ScanTask;
 import org.apache.accumulo.tserver.tablet.ScanBatch;
@@ -37,12 +38,15 @@ public class SingleScanSession extends ScanSession {
   public volatile ScanTask<ScanBatch> nextBatchTask;
   public Scanner scanner;
   public final long readaheadThreshold;
+  // null unless the client asked the server to read more than one batch ahead
+  public final ScanBatchWindow window;
 
   public SingleScanSession(TCredentials credentials, KeyExtent extent, ScanParameters scanParams,
-      long readaheadThreshold, Map<String,String> executionHints) {
+      long readaheadThreshold, Map<String,String> executionHints, ScanBatchWindow window) {
     super(credentials, scanParams, executionHints);
     this.extent = extent;
     this.readaheadThreshold = readaheadThreshold;
+    this.window = window;
   }
 
   @Override
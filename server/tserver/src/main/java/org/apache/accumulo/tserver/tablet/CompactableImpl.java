@@ -365,7 +365,7 @@ public class CompactableImpl implements Compactable {
   }
 
   private synchronized void selectedCompactionCompleted(CompactionJob job,
-      Set<StoredTabletFile> jobFiles, StoredTabletFile newFile) {
+      Set<StoredTabletFile> jobFiles, Set<StoredTabletFile> newFiles) {
     Preconditions.checkArgument(
         job.getKind() == CompactionKind.USER || job.getKind() == CompactionKind.SELECTOR);
     Preconditions.checkState(selectedFiles.containsAll(jobFiles));
@@ -380,9 +380,9 @@ public class CompactableImpl implements Compactable {
       selectStatus = SpecialStatus.NOT_ACTIVE;
       log.trace("Selected compaction status changed {} {}", getExtent(), selectStatus);
     } else if (selectStatus == SpecialStatus.SELECTED) {
-      selectedFiles.add(newFile);
+      selectedFiles.addAll(newFiles);
       log.trace("Compacted subset of selected files {} {} -> {}", getExtent(),
-          asFileNames(jobFiles), newFile.getFileName());
+          asFileNames(jobFiles), asFileNames(newFiles));
     } else {
       log.debug("Canceled selected compaction completed {} but others still running ", getExtent());
     }
@@ -638,21 +638,21 @@ public class CompactableImpl implements Compactable {
       localCompactionCfg = this.compactionConfig;
     }
 
-    StoredTabletFile metaFile = null;
+    Set<StoredTabletFile> metaFiles = null;
     try {
 
       TabletLogger.compacting(getExtent(), job, localCompactionCfg);
 
-      metaFile = CompactableUtils.compact(tablet, job, jobFiles, compactionId, propogateDeletes,
+      metaFiles = CompactableUtils.compact(tablet, job, jobFiles, compactionId, propogateDeletes,
           localHelper, iters, new CompactionCheck(service, job.getKind(), checkCompactionId));
 
-      TabletLogger.compacted(getExtent(), job, metaFile);
+      TabletLogger.compacted(getExtent(), job, metaFiles);
 
     } catch (CompactionCanceledException cce) {
       log.debug("Compaction canceled {} ", getExtent());
-      metaFile = null;
+      metaFiles = null;
     } catch (Exception e) {
-      metaFile = null;
+      metaFiles = null;
       throw new RuntimeException(e);
     } finally {
       synchronized (this) {
@@ -664,16 +664,16 @@ public class CompactableImpl implements Compactable {
           notifyAll();
         }
 
-        if (metaFile != null) {
-          choppedFiles.add(metaFile);
+        if (metaFiles != null) {
+          choppedFiles.addAll(metaFiles);
         }
       }
 
       checkifChopComplete(tablet.getDatafiles().keySet());
 
       if ((job.getKind() == CompactionKind.USER || job.getKind() == CompactionKind.SELECTOR)
-          && metaFile != null)
-        selectedCompactionCompleted(job, jobFiles, metaFile);
+          && metaFiles != null)
+        selectedCompactionCompleted(job, jobFiles, metaFiles);
       else
         selectFiles();
     }
@@ -737,6 +737,11 @@ public class CompactableImpl implements Compactable {
     return tablet.getTableConfiguration().getFraction(Property.TABLE_MAJC_RATIO);
   }
 
+  @Override
+  public double getSeekRate() {
+    return tablet.seekRate();
+  }
+
   public boolean isMajorCompactionRunning() {
     // this method intentionally not synchronized because its called by stats code.
     return compactionRunning;
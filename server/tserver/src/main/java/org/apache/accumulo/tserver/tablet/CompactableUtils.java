@@ -20,16 +20,21 @@ package org.apache.accumulo.tserver.tablet;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -52,6 +57,7 @@ import org.apache.accumulo.core.conf.ConfigurationCopy;
 import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
@@ -75,12 +81,14 @@ import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.core.util.ratelimit.RateLimiter;
 import org.apache.accumulo.server.ServiceEnvironmentImpl;
 import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.accumulo.server.util.FileUtil;
 import org.apache.accumulo.server.util.MetadataTableUtil;
 import org.apache.accumulo.tserver.compaction.CompactionPlan;
 import org.apache.accumulo.tserver.compaction.CompactionStrategy;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
 import org.apache.accumulo.tserver.compaction.MajorCompactionRequest;
 import org.apache.accumulo.tserver.compaction.WriteParameters;
+import org.apache.accumulo.tserver.compactions.PartitionedFiles;
 import org.apache.accumulo.tserver.tablet.CompactableImpl.CompactionCheck;
 import org.apache.accumulo.tserver.tablet.CompactableImpl.CompactionHelper;
 import org.apache.accumulo.tserver.tablet.Compactor.CompactionCanceledException;
@@ -88,6 +96,7 @@ import org.apache.accumulo.tserver.tablet.Compactor.CompactionEnv;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -95,6 +104,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Collections2;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 @SuppressWarnings("removal")
 public class CompactableUtils {
@@ -528,15 +538,127 @@ public class CompactableUtils {
     return createCompactionConfiguration(tablet, files);
   }
 
-  static StoredTabletFile compact(Tablet tablet, CompactionJob job, Set<StoredTabletFile> jobFiles,
-      Long compactionId, boolean propogateDeletes, CompactableImpl.CompactionHelper helper,
-      List<IteratorSetting> iters, CompactionCheck compactionCheck)
+  static TabletFile getCompactTmpName(TabletFile newFile) {
+    return new TabletFile(new Path(newFile.getMetaInsert() + "_tmp"));
+  }
+
+  /**
+   * Determines the key ranges a compaction is split into. Each range is compacted by its own
+   * {@link Compactor} into its own output file.
+   */
+  static List<Range> getPartitions(Tablet tablet, AccumuloConfiguration tableConfig,
+      Map<StoredTabletFile,DataFileValue> compactFiles) throws IOException {
+    KeyExtent extent = tablet.getExtent();
+    int numPartitions = tableConfig.getCount(Property.TABLE_MAJC_PARTITIONS);
+    long inputSize = compactFiles.values().stream().mapToLong(DataFileValue::getSize).sum();
+
+    if (numPartitions <= 1
+        || inputSize < tableConfig.getAsBytes(Property.TABLE_MAJC_PARTITION_SIZE_MIN)) {
+      return List.of(extent.toDataRange());
+    }
+
+    List<Text> rows = FileUtil.findPartitionRows(tablet.getContext(), extent.prevEndRow(),
+        extent.endRow(), compactFiles.keySet(), numPartitions);
+    return toPartitions(extent, rows);
+  }
+
+  /**
+   * @param rows
+   *          sorted rows within the extent, each is the inclusive end of a partition
+   */
+  static List<Range> toPartitions(KeyExtent extent, List<Text> rows) {
+    Range tabletRange = extent.toDataRange();
+    List<Range> partitions = new ArrayList<>(rows.size() + 1);
+    Text prevRow = null;
+    for (Text row : rows) {
+      partitions.add(tabletRange.clip(new Range(prevRow, false, row, true)));
+      prevRow = row;
+    }
+    partitions.add(tabletRange.clip(new Range(prevRow, false, null, true)));
+    return partitions;
+  }
+
+  /**
+   * Runs the compactors of all partitions, one in the calling thread and the rest in the tablet
+   * server's compaction partition pool. If any partition fails, the output files of the other
+   * partitions are deleted.
+   */
+  private static CompactionStats[] runPartitions(Tablet tablet, List<Compactor> compactors,
+      List<TabletFile> tmpFiles, AtomicBoolean failed)
       throws IOException, CompactionCanceledException {
-    StoredTabletFile metaFile;
+    if (compactors.size() == 1) {
+      return new CompactionStats[] {compactors.get(0).call()};
+    }
+
+    ExecutorService executor = tablet.getTabletResources().getCompactionPartitionExecutor();
+    List<Future<CompactionStats>> futures = new ArrayList<>(compactors.size());
+    for (Compactor compactor : compactors.subList(1, compactors.size())) {
+      futures.add(executor.submit(() -> {
+        try {
+          return compactor.call();
+        } catch (Exception e) {
+          failed.set(true);
+          throw e;
+        }
+      }));
+    }
+
+    CompactionStats[] stats = new CompactionStats[compactors.size()];
+    Throwable error = null;
+    try {
+      stats[0] = compactors.get(0).call();
+    } catch (IOException | CompactionCanceledException | RuntimeException e) {
+      failed.set(true);
+      error = e;
+    }
+
+    for (int i = 1; i < compactors.size(); i++) {
+      try {
+        stats[i] = Uninterruptibles.getUninterruptibly(futures.get(i - 1));
+      } catch (ExecutionException e) {
+        // partitions stopped because another one failed report being canceled, so prefer the
+        // error that caused the failure
+        if (error == null || error instanceof CompactionCanceledException) {
+          error = e.getCause();
+        }
+      }
+    }
+
+    if (error == null) {
+      return stats;
+    }
+
+    for (int i = 0; i < stats.length; i++) {
+      if (stats[i] != null) {
+        try {
+          tablet.getContext().getVolumeManager().deleteRecursively(tmpFiles.get(i).getPath());
+        } catch (IOException e) {
+          log.warn("Failed to delete compaction partition output file {}", tmpFiles.get(i), e);
+        }
+      }
+    }
+
+    if (error instanceof IOException)
+      throw (IOException) error;
+    if (error instanceof CompactionCanceledException)
+      throw (CompactionCanceledException) error;
+    if (error instanceof RuntimeException)
+      throw (RuntimeException) error;
+    if (error instanceof Error)
+      throw (Error) error;
+    throw new IOException(error);
+  }
+
+  static Set<StoredTabletFile> compact(Tablet tablet, CompactionJob job,
+      Set<StoredTabletFile> jobFiles, Long compactionId, boolean propogateDeletes,
+      CompactableImpl.CompactionHelper helper, List<IteratorSetting> iters,
+      CompactionCheck compactionCheck) throws IOException, CompactionCanceledException {
+    // set when any partition of the compaction fails, so that the other partitions stop early
+    AtomicBoolean failed = new AtomicBoolean(false);
     CompactionEnv cenv = new CompactionEnv() {
       @Override
       public boolean isCompactionEnabled(long entriesCompacted) {
-        return compactionCheck.isCompactionEnabled(entriesCompacted);
+        return !failed.get() && compactionCheck.isCompactionEnabled(entriesCompacted);
       }
 
       @Override
@@ -564,13 +686,28 @@ public class CompactableUtils {
     HashMap<StoredTabletFile,DataFileValue> compactFiles = new HashMap<>();
     jobFiles.forEach(file -> compactFiles.put(file, allFiles.get(file)));
 
-    TabletFile newFile = tablet.getNextMapFilename(!propogateDeletes ? "A" : "C");
-    TabletFile compactTmpName = new TabletFile(new Path(newFile.getMetaInsert() + "_tmp"));
+    List<Range> partitions = getPartitions(tablet, tableConfig, compactFiles);
+
+    List<TabletFile> newFiles = new ArrayList<>(partitions.size());
+    List<TabletFile> tmpFiles = new ArrayList<>(partitions.size());
+    List<Compactor> compactors = new ArrayList<>(partitions.size());
+    TabletFile outputFile = tablet.getNextMapFilename(!propogateDeletes ? "A" : "C");
+    for (int i = 0; i < partitions.size(); i++) {
+      // partitions are named so that planning treats them as one file, see PartitionedFiles
+      TabletFile newFile =
+          partitions.size() == 1 ? outputFile : PartitionedFiles.getPartitionFile(outputFile, i);
+      TabletFile compactTmpName = getCompactTmpName(newFile);
+      newFiles.add(newFile);
+      tmpFiles.add(compactTmpName);
+      compactors.add(new Compactor(tablet.getContext(), tablet, compactFiles, null, compactTmpName,
+          propogateDeletes, cenv, iters, reason, tableConfig, partitions.get(i)));
+    }
 
-    Compactor compactor = new Compactor(tablet.getContext(), tablet, compactFiles, null,
-        compactTmpName, propogateDeletes, cenv, iters, reason, tableConfig);
+    if (partitions.size() > 1) {
+      log.debug("Compacting {} in {} partitions", tablet.getExtent(), partitions.size());
+    }
 
-    var mcs = compactor.call();
+    CompactionStats[] stats = runPartitions(tablet, compactors, tmpFiles, failed);
 
     if (job.getKind() == CompactionKind.USER || job.getKind() == CompactionKind.SELECTOR) {
       helper.getFilesToDrop().forEach(f -> {
@@ -580,10 +717,14 @@ public class CompactableUtils {
       });
     }
 
-    metaFile = tablet.getDatafileManager().bringMajorCompactionOnline(compactFiles.keySet(),
-        compactTmpName, newFile, compactionId,
-        new DataFileValue(mcs.getFileSize(), mcs.getEntriesWritten()));
-    return metaFile;
+    Map<TabletFile,DataFileValue> newDatafiles = new LinkedHashMap<>();
+    for (int i = 0; i < newFiles.size(); i++) {
+      newDatafiles.put(newFiles.get(i),
+          new DataFileValue(stats[i].getFileSize(), stats[i].getEntriesWritten()));
+    }
+
+    return tablet.getDatafileManager().bringMajorCompactionOnline(compactFiles.keySet(),
+        newDatafiles, compactionId);
   }
 
   public static MajorCompactionReason from(CompactionKind ck) {
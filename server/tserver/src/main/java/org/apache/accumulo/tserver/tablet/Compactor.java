@@ -38,13 +38,16 @@ import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.IterConfigUtil;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.blockfile.impl.BlockReadahead;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchBufferingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.ColumnFamilySkippingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
@@ -99,6 +102,8 @@ public class Compactor implements Callable<CompactionStats> {
   private final VolumeManager fs;
   protected final KeyExtent extent;
   private final List<IteratorSetting> iterators;
+  private final BlockReadahead readahead;
+  private final Range range;
 
   // things to report
   private String currentLocalityGroup = "";
@@ -150,6 +155,19 @@ public class Compactor implements Callable<CompactionStats> {
   public Compactor(ServerContext context, Tablet tablet, Map<StoredTabletFile,DataFileValue> files,
       InMemoryMap imm, TabletFile outputFile, boolean propogateDeletes, CompactionEnv env,
       List<IteratorSetting> iterators, int reason, AccumuloConfiguration tableConfiguation) {
+    this(context, tablet, files, imm, outputFile, propogateDeletes, env, iterators, reason,
+        tableConfiguation, tablet.getExtent().toDataRange());
+  }
+
+  /**
+   * @param range
+   *          the part of the tablet to compact, must fall within the tablet. Used to split one
+   *          compaction into key range partitions that each write their own output file.
+   */
+  public Compactor(ServerContext context, Tablet tablet, Map<StoredTabletFile,DataFileValue> files,
+      InMemoryMap imm, TabletFile outputFile, boolean propogateDeletes, CompactionEnv env,
+      List<IteratorSetting> iterators, int reason, AccumuloConfiguration tableConfiguation,
+      Range range) {
     this.context = context;
     this.extent = tablet.getExtent();
     this.fs = context.getVolumeManager();
@@ -161,6 +179,8 @@ public class Compactor implements Callable<CompactionStats> {
     this.env = env;
     this.iterators = iterators;
     this.reason = reason;
+    this.readahead = tablet.getTabletResources().getBlockReadahead();
+    this.range = range;
 
     startTime = System.currentTimeMillis();
   }
@@ -297,6 +317,9 @@ public class Compactor implements Callable<CompactionStats> {
         reader = fileFactory.newReaderBuilder()
             .forFile(mapFile.getPathStr(), fs, fs.getConf(), context.getCryptoService())
             .withTableConfiguration(acuTableConf).withRateLimiter(env.getReadLimiter()).build();
+        if (readahead != null) {
+          reader.setReadahead(readahead);
+        }
 
         readers.add(reader);
 
@@ -347,11 +370,11 @@ public class Compactor implements Callable<CompactionStats> {
         iters.add(imm.compactionIterator());
       }
 
-      CountingIterator citr =
-          new CountingIterator(new MultiIterator(iters, extent.toDataRange()), entriesRead);
+      CountingIterator citr = new CountingIterator(new MultiIterator(iters, range), entriesRead);
       SortedKeyValueIterator<Key,Value> delIter =
           DeletingIterator.wrap(citr, propogateDeletes, DeletingIterator.getBehavior(acuTableConf));
       ColumnFamilySkippingIterator cfsi = new ColumnFamilySkippingIterator(delIter);
+      SortedKeyValueIterator<Key,Value> sysIter = BatchBufferingIterator.wrap(cfsi, acuTableConf);
 
       // if(env.getIteratorScope() )
 
@@ -366,9 +389,9 @@ public class Compactor implements Callable<CompactionStats> {
         throw new IllegalArgumentException();
 
       SortedKeyValueIterator<Key,Value> itr = iterEnv.getTopLevelIterator(IterConfigUtil
-          .convertItersAndLoad(env.getIteratorScope(), cfsi, acuTableConf, iterators, iterEnv));
+          .convertItersAndLoad(env.getIteratorScope(), sysIter, acuTableConf, iterators, iterEnv));
 
-      itr.seek(extent.toDataRange(), columnFamilies, inclusive);
+      itr.seek(range, columnFamilies, inclusive);
 
       if (inclusive) {
         mfw.startNewLocalityGroup(lgName, columnFamilies);
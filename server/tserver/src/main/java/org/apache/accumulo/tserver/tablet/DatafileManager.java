@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -254,6 +255,7 @@ class DatafileManager {
       }
 
       tablet.getTabletResources().importedMapFiles();
+      tablet.dataChanged();
 
       tablet.computeNumEntries();
     }
@@ -395,49 +397,68 @@ class DatafileManager {
     return newFile;
   }
 
-  StoredTabletFile bringMajorCompactionOnline(Set<StoredTabletFile> oldDatafiles,
-      TabletFile tmpDatafile, TabletFile newDatafile, Long compactionId, DataFileValue dfv)
-      throws IOException {
+  /**
+   * Replaces the compacted files with the output of the compaction. A compaction that was split
+   * into key range partitions has one output file per partition, all of which are added to the
+   * tablet in the same metadata update.
+   *
+   * @param newDatafiles
+   *          the output files keyed by their final name, each is currently stored under the name
+   *          returned by {@link CompactableUtils#getCompactTmpName(TabletFile)}
+   */
+  Set<StoredTabletFile> bringMajorCompactionOnline(Set<StoredTabletFile> oldDatafiles,
+      Map<TabletFile,DataFileValue> newDatafiles, Long compactionId) throws IOException {
     final KeyExtent extent = tablet.getExtent();
     VolumeManager vm = tablet.getTabletServer().getContext().getVolumeManager();
     long t1, t2;
 
-    if (vm.exists(newDatafile.getPath())) {
-      log.error("Target map file already exist " + newDatafile, new Exception());
-      throw new IllegalStateException("Target map file already exist " + newDatafile);
+    for (TabletFile newDatafile : newDatafiles.keySet()) {
+      if (vm.exists(newDatafile.getPath())) {
+        log.error("Target map file already exist " + newDatafile, new Exception());
+        throw new IllegalStateException("Target map file already exist " + newDatafile);
+      }
     }
 
-    if (dfv.getNumEntries() == 0) {
-      vm.deleteRecursively(tmpDatafile.getPath());
-    } else {
-      // rename before putting in metadata table, so files in metadata table should
-      // always exist
-      rename(vm, tmpDatafile.getPath(), newDatafile.getPath());
+    Map<StoredTabletFile,DataFileValue> newFiles = new LinkedHashMap<>();
+    for (Entry<TabletFile,DataFileValue> entry : newDatafiles.entrySet()) {
+      TabletFile newDatafile = entry.getKey();
+      TabletFile tmpDatafile = CompactableUtils.getCompactTmpName(newDatafile);
+      if (entry.getValue().getNumEntries() == 0) {
+        vm.deleteRecursively(tmpDatafile.getPath());
+      } else {
+        // rename before putting in metadata table, so files in metadata table should
+        // always exist
+        rename(vm, tmpDatafile.getPath(), newDatafile.getPath());
+      }
+      // calling insert to get the new file before inserting into the metadata
+      newFiles.put(newDatafile.insert(), entry.getValue());
     }
 
     TServerInstance lastLocation = null;
-    // calling insert to get the new file before inserting into the metadata
-    StoredTabletFile newFile = newDatafile.insert();
     synchronized (tablet) {
       t1 = System.currentTimeMillis();
 
       Preconditions.checkState(datafileSizes.keySet().containsAll(oldDatafiles),
           "Compacted files %s are not a subset of tablet files %s", oldDatafiles,
           datafileSizes.keySet());
-      if (dfv.getNumEntries() > 0) {
-        Preconditions.checkState(!datafileSizes.containsKey(newFile),
-            "New compaction file %s already exist in tablet files %s", newFile,
-            datafileSizes.keySet());
-      }
+      newFiles.forEach((newFile, dfv) -> {
+        if (dfv.getNumEntries() > 0) {
+          Preconditions.checkState(!datafileSizes.containsKey(newFile),
+              "New compaction file %s already exist in tablet files %s", newFile,
+              datafileSizes.keySet());
+        }
+      });
 
       tablet.incrementDataSourceDeletions();
 
       datafileSizes.keySet().removeAll(oldDatafiles);
 
-      if (dfv.getNumEntries() > 0) {
-        datafileSizes.put(newFile, dfv);
-        // could be used by a follow on compaction in a multipass compaction
-      }
+      newFiles.forEach((newFile, dfv) -> {
+        if (dfv.getNumEntries() > 0) {
+          datafileSizes.put(newFile, dfv);
+          // could be used by a follow on compaction in a multipass compaction
+        }
+      });
 
       tablet.computeNumEntries();
 
@@ -451,7 +472,7 @@ class DatafileManager {
     if (!filesInUseByScans.isEmpty())
       log.debug("Adding scan refs to metadata {} {}", extent, filesInUseByScans);
     MasterMetadataUtil.replaceDatafiles(tablet.getContext(), extent, oldDatafiles,
-        filesInUseByScans, newFile, compactionId, dfv,
+        filesInUseByScans, newDatafiles, compactionId,
         tablet.getTabletServer().getClientAddressString(), lastLocation,
         tablet.getTabletServer().getLock());
     tablet.setLastCompactionID(compactionId);
@@ -461,7 +482,7 @@ class DatafileManager {
       log.trace(String.format("MajC finish lock %.2f secs", (t2 - t1) / 1000.0));
     }
 
-    return newFile;
+    return newFiles.keySet();
   }
 
   public SortedMap<StoredTabletFile,DataFileValue> getDatafileSizes() {
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.sample.SamplerConfiguration;
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.tserver.scan.ScanParameters;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caches the complete results of batch scan lookups. A cached result is only returned while the
+ * data version of the tablet it was read from is unchanged, see {@link Tablet#getDataVersion()}.
+ */
+public class ResultCache {
+
+  // a single result larger than this fraction of the cache is not cached
+  private static final int MAX_RESULT_FRACTION = 16;
+
+  private final Cache<CacheKey,CachedResult> cache;
+  private final long maxResultSize;
+
+  public ResultCache(long maxSize) {
+    this.cache = Caffeine.newBuilder().maximumWeight(maxSize)
+        .weigher((CacheKey k, CachedResult r) -> (int) Math.min(Integer.MAX_VALUE, r.memoryUsed))
+        .build();
+    this.maxResultSize = maxSize / MAX_RESULT_FRACTION;
+  }
+
+  static class CacheKey {
+    private final KeyExtent extent;
+    private final List<Range> ranges;
+    private final Authorizations authorizations;
+    private final Set<Column> columns;
+    private final List<IterInfo> ssiList;
+    private final Map<String,Map<String,String>> ssio;
+    private final SamplerConfiguration samplerConfig;
+    private final String classLoaderContext;
+    private final long tableConfigVersion;
+    private final int hashCode;
+
+    CacheKey(KeyExtent extent, List<Range> ranges, ScanParameters scanParams,
+        long tableConfigVersion) {
+      this.extent = extent;
+      this.ranges = ranges;
+      this.authorizations = scanParams.getAuthorizations();
+      this.columns = scanParams.getColumnSet();
+      this.ssiList = scanParams.getSsiList();
+      this.ssio = scanParams.getSsio();
+      var sci = scanParams.getSamplerConfigurationImpl();
+      this.samplerConfig = sci == null ? null : sci.toSamplerConfiguration();
+      this.classLoaderContext = scanParams.getClassLoaderContext();
+      this.tableConfigVersion = tableConfigVersion;
+      this.hashCode = Objects.hash(extent, ranges, authorizations, columns, ssiList, ssio,
+          samplerConfig, classLoaderContext, tableConfigVersion);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o instanceof CacheKey) {
+        CacheKey ock = (CacheKey) o;
+        return hashCode == ock.hashCode && tableConfigVersion == ock.tableConfigVersion
+            && extent.equals(ock.extent) && ranges.equals(ock.ranges)
+            && authorizations.equals(ock.authorizations) && columns.equals(ock.columns)
+            && Objects.equals(ssiList, ock.ssiList) && Objects.equals(ssio, ock.ssio)
+            && Objects.equals(samplerConfig, ock.samplerConfig)
+            && Objects.equals(classLoaderContext, ock.classLoaderContext);
+      }
+      return false;
+    }
+  }
+
+  static class CachedResult {
+    final long dataVersion;
+    final List<KVEntry> entries;
+    final long memoryUsed;
+    final long dataSize;
+
+    private CachedResult(long dataVersion, List<KVEntry> entries, long memoryUsed, long dataSize) {
+      this.dataVersion = dataVersion;
+      this.entries = entries;
+      this.memoryUsed = memoryUsed;
+      this.dataSize = dataSize;
+    }
+  }
+
+  /**
+   * @return the cached result for the key if it was read at the given data version, otherwise null
+   */
+  CachedResult get(CacheKey key, long dataVersion) {
+    CachedResult result = cache.getIfPresent(key);
+    if (result == null) {
+      return null;
+    }
+    if (result.dataVersion != dataVersion) {
+      // the tablet's data has changed since this was cached, it will never be used again
+      cache.asMap().remove(key, result);
+      return null;
+    }
+    return result;
+  }
+
+  /**
+   * Caches a complete lookup result. The entries are copied, so the caller may continue to use the
+   * list it passed.
+   */
+  void put(CacheKey key, long dataVersion, List<KVEntry> entries, long memoryUsed, long dataSize) {
+    if (memoryUsed > maxResultSize) {
+      return;
+    }
+    cache.put(key, new CachedResult(dataVersion, List.copyOf(entries), memoryUsed, dataSize));
+  }
+
+  long size() {
+    return cache.estimatedSize();
+  }
+
+  void cleanUp() {
+    cache.cleanUp();
+  }
+}
@@ -21,14 +21,19 @@ package org.apache.accumulo.tserver.tablet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.conf.IterConfigUtil;
 import org.apache.accumulo.core.conf.IterLoad;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.thrift.IterInfo;
 import org.apache.accumulo.core.iterators.IterationInterruptedException;
@@ -43,6 +48,7 @@ import org.apache.accumulo.core.iteratorsImpl.system.SystemIteratorUtil;
 import org.apache.accumulo.core.metadata.TabletFile;
 import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.conf.TableConfiguration.ParsedIteratorConfig;
 import org.apache.accumulo.tserver.FileManager.ScanFileManager;
@@ -121,6 +127,77 @@ class ScanDataSource implements DataSource {
     return iter;
   }
 
+  /**
+   * Returns the ranges that may have data in the tablet's in memory maps or, according to their
+   * bloom filters, in its files. Only the in memory maps and file readers are used, the iterator
+   * stack is not built. Must be called before this data source creates its iterator.
+   */
+  List<Range> getPossibleRanges(List<Range> ranges) throws IOException {
+    List<MemoryIterator> precheckMemIters;
+    long precheckReservationId;
+    Map<TabletFile,DataFileValue> files;
+
+    synchronized (tablet) {
+      if (tablet.isClosed())
+        throw new TabletClosedException();
+
+      if (fileManager == null) {
+        fileManager =
+            tablet.getTabletResources().newScanFileManager(scanParams.getScanDirectives());
+        tablet.addActiveScans(this);
+      }
+
+      precheckMemIters = tablet.getTabletMemory().getIterators(null);
+      Pair<Long,Map<TabletFile,DataFileValue>> reservation =
+          tablet.getDatafileManager().reserveFilesForScan();
+      precheckReservationId = reservation.getFirst();
+      files = reservation.getSecond();
+    }
+
+    try {
+      Set<ByteSequence> cfset = LocalityGroupUtil.EMPTY_CF_SET;
+      if (!scanParams.getColumnSet().isEmpty()) {
+        cfset = LocalityGroupUtil.families(scanParams.getColumnSet());
+      }
+      return getPossibleRanges(ranges, fileManager.rangesPossiblyInFiles(files.keySet(), ranges),
+          precheckMemIters, cfset);
+    } finally {
+      tablet.getTabletMemory().returnIterators(precheckMemIters);
+      tablet.getDatafileManager().returnFilesForScan(precheckReservationId);
+      fileManager.releaseOpenFiles(false);
+    }
+  }
+
+  /**
+   * Returns the ranges that are possibly in the files or that have data in one of the in memory
+   * iterators, keeping their order.
+   *
+   * @param inFiles
+   *          the ranges the files may contain, must be the same range objects as in ranges
+   */
+  static List<Range> getPossibleRanges(List<Range> ranges, List<Range> inFiles,
+      List<? extends SortedKeyValueIterator<Key,Value>> memIters, Set<ByteSequence> cfset)
+      throws IOException {
+    Set<Range> possiblyInFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+    possiblyInFiles.addAll(inFiles);
+
+    List<Range> possible = new ArrayList<>();
+    for (Range range : ranges) {
+      if (possiblyInFiles.contains(range)) {
+        possible.add(range);
+        continue;
+      }
+      for (SortedKeyValueIterator<Key,Value> memIter : memIters) {
+        memIter.seek(range, cfset, !cfset.isEmpty());
+        if (memIter.hasTop()) {
+          possible.add(range);
+          break;
+        }
+      }
+    }
+    return possible;
+  }
+
   private SortedKeyValueIterator<Key,Value> createIterator() throws IOException {
 
     Map<TabletFile,DataFileValue> files;
@@ -179,8 +256,8 @@ class ScanDataSource implements DataSource {
             tablet.getTableConfiguration(), tablet.getExtent().tableId(), fileManager, files,
             scanParams.getAuthorizations(), samplerConfig, new ArrayList<>());
 
-    statsIterator =
-        new StatsIterator(multiIter, TabletServer.seekCount, tablet.getScannedCounter());
+    statsIterator = new StatsIterator(multiIter, TabletServer.seekCount, tablet.getSeekCounter(),
+        tablet.getScannedCounter());
 
     SortedKeyValueIterator<Key,Value> visFilter =
         SystemIteratorUtil.setupSystemScanIterators(statsIterator, scanParams.getColumnSet(),
@@ -80,6 +80,7 @@ import org.apache.accumulo.core.replication.ReplicationConfigurationUtil;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.accumulo.core.spi.scan.ScanDirectives;
+import org.apache.accumulo.core.spi.scan.ScanDirectives.CacheUsage;
 import org.apache.accumulo.core.tabletserver.log.LogEntry;
 import org.apache.accumulo.core.tabletserver.thrift.TabletStats;
 import org.apache.accumulo.core.util.LocalityGroupUtil;
@@ -168,6 +169,22 @@ public class Tablet {
     return dataSourceDeletions.get();
   }
 
+  // process wide so that a tablet that is unloaded and then loaded again never reuses a version
+  private static final AtomicLong nextDataVersion = new AtomicLong(0);
+
+  private volatile long dataVersion = nextDataVersion.incrementAndGet();
+
+  /**
+   * @return a value that changes after any change to the data a scan of this tablet could see
+   */
+  public long getDataVersion() {
+    return dataVersion;
+  }
+
+  void dataChanged() {
+    dataVersion = nextDataVersion.incrementAndGet();
+  }
+
   private final Set<ScanDataSource> activeScans = new HashSet<>();
 
   private enum CloseState {
@@ -227,6 +244,9 @@ public class Tablet {
   private final Rate scannedRate = new Rate(0.95);
   private final AtomicLong scannedCount = new AtomicLong(0);
 
+  private final Rate seekRate = new Rate(0.95);
+  private final AtomicLong seekCount = new AtomicLong(0);
+
   // Files that are currently in the process of bulk importing. Access to this is protected by the
   // tablet lock.
   private final Set<TabletFile> bulkImporting = new HashSet<>();
@@ -626,8 +646,80 @@ public class Tablet {
     }
   }
 
+  /**
+   * Uses the index of this tablet's files to find rows that divide the data of a range into roughly
+   * equal parts, so that a client can scan the parts concurrently. The data in the in memory map is
+   * not considered.
+   *
+   * <p>
+   * Index rows are not filtered by visibility, so each one found is replaced with the first row at
+   * or after it that a scan with the given parameters returns. Rows the scan could not read are
+   * never returned, though the number of parts may be smaller than asked for.
+   *
+   * @return at most numParts - 1 sorted rows within the range, each the inclusive end of a part
+   */
+  public List<Text> findRangeSplitRows(Range range, int numParts, ScanParameters scanParams,
+      AtomicBoolean interruptFlag) throws IOException {
+    Range clipped = extent.toDataRange().clip(range, true);
+    if (clipped == null || numParts <= 1) {
+      return List.of();
+    }
+
+    Text startRow = clipped.isInfiniteStartKey() ? null : clipped.getStartKey().getRow();
+    Text endRow = clipped.isInfiniteStopKey() ? null : clipped.getEndKey().getRow();
+
+    Pair<Long,Map<TabletFile,DataFileValue>> reservation;
+    synchronized (this) {
+      if (isClosed()) {
+        throw new TabletClosedException();
+      }
+      reservation = getDatafileManager().reserveFilesForScan();
+    }
+    List<Text> indexRows;
+    try {
+      indexRows = FileUtil.findPartitionRows(context, startRow, endRow,
+          reservation.getSecond().keySet(), numParts);
+    } finally {
+      getDatafileManager().returnFilesForScan(reservation.getFirst());
+    }
+    if (indexRows.isEmpty()) {
+      return indexRows;
+    }
+
+    if (scanParams.getScanDirectives() == null) {
+      scanParams.setScanDirectives(ScanDirectives.builder().build());
+    }
+    ScanDataSource dataSource = new ScanDataSource(this, scanParams, true, interruptFlag);
+    try {
+      SortedKeyValueIterator<Key,Value> iter = new SourceSwitchingIterator(dataSource);
+      List<Text> rows = new ArrayList<>();
+      for (Text indexRow : indexRows) {
+        if (!rows.isEmpty() && rows.get(rows.size() - 1).compareTo(indexRow) >= 0) {
+          continue;
+        }
+        Range seekRange = clipped.clip(new Range(indexRow, true, null, false), true);
+        if (seekRange == null) {
+          break;
+        }
+        if (scanParams.getColumnSet().isEmpty()) {
+          iter.seek(seekRange, LocalityGroupUtil.EMPTY_CF_SET, false);
+        } else {
+          iter.seek(seekRange, LocalityGroupUtil.families(scanParams.getColumnSet()), true);
+        }
+        if (!iter.hasTop()) {
+          break;
+        }
+        rows.add(new Text(iter.getTopKey().getRow()));
+      }
+      return rows;
+    } finally {
+      dataSource.close(false);
+    }
+  }
+
   public LookupResult lookup(List<Range> ranges, List<KVEntry> results, ScanParameters scanParams,
-      long maxResultSize, AtomicBoolean interruptFlag) throws IOException {
+      long maxResultSize, AtomicBoolean interruptFlag, boolean bloomFilterPrecheck)
+      throws IOException {
 
     if (ranges.isEmpty()) {
       return new LookupResult();
@@ -645,13 +737,54 @@ public class Tablet {
       tabletRange.clip(range);
     }
 
+    CacheUsage resultCacheUsage =
+        tabletResources.getResultCacheUsage(scanParams.getScanDirectives());
+    ResultCache.CacheKey cacheKey = null;
+    // read before the scan so that a change made while scanning prevents caching the result
+    long startDataVersion = dataVersion;
+
+    if (resultCacheUsage != CacheUsage.DISABLED) {
+      cacheKey =
+          new ResultCache.CacheKey(extent, ranges, scanParams, tableConfiguration.getUpdateCount());
+      ResultCache.CachedResult cached =
+          tabletResources.getResultCache().get(cacheKey, startDataVersion);
+      if (cached != null && cached.memoryUsed <= maxResultSize) {
+        results.addAll(cached.entries);
+        LookupResult lookupResult = new LookupResult();
+        lookupResult.bytesAdded = cached.memoryUsed;
+        lookupResult.dataSize = cached.dataSize;
+        updateQueryStats(cached.entries.size(), cached.dataSize);
+        return lookupResult;
+      }
+    }
+
+    int resultsStart = results.size();
+
     ScanDataSource dataSource = new ScanDataSource(this, scanParams, true, interruptFlag);
 
     LookupResult result = null;
 
     try {
+      if (bloomFilterPrecheck && scanParams.getSamplerConfigurationImpl() == null) {
+        int numRanges = ranges.size();
+        ranges = dataSource.getPossibleRanges(ranges);
+        if (log.isTraceEnabled()) {
+          log.trace("{} bloom filter precheck kept {} of {} ranges", extent, ranges.size(),
+              numRanges);
+        }
+        if (ranges.isEmpty()) {
+          result = new LookupResult();
+          return result;
+        }
+      }
+
       SortedKeyValueIterator<Key,Value> iter = new SourceSwitchingIterator(dataSource);
       result = lookup(iter, ranges, results, scanParams, maxResultSize);
+      if (resultCacheUsage == CacheUsage.ENABLED && result.unfinishedRanges.isEmpty()
+          && !result.closed && startDataVersion == dataVersion) {
+        tabletResources.getResultCache().put(cacheKey, startDataVersion,
+            results.subList(resultsStart, results.size()), result.bytesAdded, result.dataSize);
+      }
       return result;
     } catch (IOException ioe) {
       dataSource.close(true);
@@ -1156,6 +1289,7 @@ public class Tablet {
     }
 
     getTabletMemory().mutate(commitSession, mutations, totalCount);
+    dataChanged();
 
     synchronized (this) {
       if (isCloseComplete()) {
@@ -1259,6 +1393,7 @@ public class Tablet {
     // modify dataSourceDeletions so scans will try to switch data sources and fail because the
     // tablet is closed
     dataSourceDeletions.incrementAndGet();
+    dataChanged();
 
     for (ScanDataSource activeScan : activeScans) {
       activeScan.interrupt();
@@ -1733,6 +1868,10 @@ public class Tablet {
     return scannedRate.rate();
   }
 
+  public double seekRate() {
+    return seekRate.rate();
+  }
+
   public long totalQueries() {
     return this.queryCount;
   }
@@ -1748,6 +1887,7 @@ public class Tablet {
     ingestRate.update(now, ingestCount);
     ingestByteRate.update(now, ingestBytes);
     scannedRate.update(now, scannedCount.get());
+    seekRate.update(now, seekCount.get());
   }
 
   public long getSplitCreationTime() {
@@ -2102,6 +2242,7 @@ public class Tablet {
   }
 
   public long incrementDataSourceDeletions() {
+    dataChanged();
     return dataSourceDeletions.incrementAndGet();
   }
 
@@ -2166,6 +2307,7 @@ public class Tablet {
   public void flushComplete(long flushId) {
     lastLocation = null;
     dataSourceDeletions.incrementAndGet();
+    dataChanged();
     tabletMemory.finishedMinC();
     lastFlushID = flushId;
     computeNumEntries();
@@ -2212,6 +2354,10 @@ public class Tablet {
     return scannedCount;
   }
 
+  public AtomicLong getSeekCounter() {
+    return seekCount;
+  }
+
   private static String createTabletDirectoryName(ServerContext context, Text endRow) {
     if (endRow == null) {
       return ServerColumnFamily.DEFAULT_TABLET_DIR_NAME;
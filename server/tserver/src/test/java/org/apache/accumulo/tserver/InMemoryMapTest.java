@@ -30,10 +30,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
@@ -497,6 +501,161 @@ public class InMemoryMapTest {
     testAndCallNext(skvi1, "r1", "foo:cq", 3, "v1");
   }
 
+  @Test
+  public void testConcurrentMutations() throws Exception {
+    InMemoryMap imm = newInMemoryMap(false, tempFolder.newFolder().getAbsolutePath());
+
+    final int numThreads = 8;
+    final int rowsPerThread = 500;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads + 1);
+    AtomicBoolean writesDone = new AtomicBoolean(false);
+    List<Future<?>> writers = new ArrayList<>();
+
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      writers.add(executor.submit(() -> {
+        for (int r = 0; r < rowsPerThread; r++) {
+          Mutation m = new Mutation(String.format("r%02d_%05d", thread, r));
+          m.put("cf1", "a", 1, "1");
+          m.put("cf1", "b", 1, "2");
+          m.put("cf2", "c", 1, "3");
+          imm.mutate(Collections.singletonList(m), 3);
+          // a write must be visible to any scan started after it returns
+          assertEquals(3, countRow(imm, m.getRow()));
+        }
+        return null;
+      }));
+    }
+
+    // scans running while writes are in progress must never see part of a mutation
+    Future<?> scanner = executor.submit(() -> {
+      while (!writesDone.get()) {
+        MemoryIterator iter = imm.skvIterator(null);
+        iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+        Map<Text,Integer> rowCounts = new TreeMap<>();
+        while (iter.hasTop()) {
+          rowCounts.merge(iter.getTopKey().getRow(), 1, Integer::sum);
+          iter.next();
+        }
+        iter.close();
+        for (Entry<Text,Integer> entry : rowCounts.entrySet()) {
+          assertEquals("Partial mutation seen for " + entry.getKey(), 3, (int) entry.getValue());
+        }
+      }
+      return null;
+    });
+
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    writesDone.set(true);
+    scanner.get();
+    executor.shutdown();
+
+    assertEquals(numThreads * rowsPerThread * 3, imm.getNumEntries());
+
+    // throws if the kvCount bookkeeping was not left consistent
+    SortedKeyValueIterator<Key,Value> compactionIter = imm.compactionIterator();
+    compactionIter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    int count = 0;
+    while (compactionIter.hasTop()) {
+      count++;
+      compactionIter.next();
+    }
+    assertEquals(numThreads * rowsPerThread * 3, count);
+  }
+
+  private static int countRow(InMemoryMap imm, byte[] row) throws IOException {
+    MemoryIterator iter = imm.skvIterator(null);
+    iter.seek(new Range(new Text(row)), LocalityGroupUtil.EMPTY_CF_SET, false);
+    int count = 0;
+    while (iter.hasTop()) {
+      count++;
+      iter.next();
+    }
+    iter.close();
+    return count;
+  }
+
+  @Test
+  public void testOffHeapMap() throws Exception {
+    ConfigurationCopy config = newConfig(tempFolder.newFolder().getAbsolutePath());
+    config.set(Property.TSERV_OFFHEAPMAP_ENABLED, "true");
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_OFF_HEAP_MAP_WRAPPER, imm.getMapType());
+
+    mutate(imm, "r1", "foo:cq1", 3, "bar1");
+    MemoryIterator ski1 = imm.skvIterator(null);
+    mutate(imm, "r1", "foo:cq1", 3, "bar2");
+    mutate(imm, "r2", "foo:cq1", 3, "bar3");
+    MemoryIterator ski2 = imm.skvIterator(null);
+
+    ski1.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    testAndCallNext(ski1, "r1", "foo:cq1", 3, "bar1");
+    assertFalse(ski1.hasTop());
+
+    ski2.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar1");
+    testAndCallNext(ski2, "r2", "foo:cq1", 3, "bar3");
+    assertFalse(ski2.hasTop());
+
+    assertEquals(3, imm.getNumEntries());
+    assertTrue(imm.estimatedSizeInBytes() > 0);
+
+    // the map is dumped to a file for active scans when it is deleted
+    imm.delete(0);
+    ski2.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar2");
+    testAndCallNext(ski2, "r1", "foo:cq1", 3, "bar1");
+    testAndCallNext(ski2, "r2", "foo:cq1", 3, "bar3");
+    assertFalse(ski2.hasTop());
+  }
+
+  @Test
+  public void testOffHeapLocalityGroups() throws Exception {
+    ConfigurationCopy config = newConfig(tempFolder.newFolder().getAbsolutePath());
+    config.set(Property.TSERV_OFFHEAPMAP_ENABLED, "true");
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg1",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf1", "cf2")));
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg2",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf3", "cf4")));
+    config.set(Property.TABLE_LOCALITY_GROUPS.getKey(), "lg1,lg2");
+
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+    assertEquals(InMemoryMap.TYPE_LOCALITY_GROUP_MAP_OFF_HEAP, imm.getMapType());
+
+    Mutation m1 = new Mutation("r1");
+    m1.put("cf1", "x", 2, "1");
+    m1.put("cf1", "y", 2, "2");
+    m1.put("cf3", "z", 2, "3");
+    m1.put("foo", "b", 2, "9");
+
+    Mutation m2 = new Mutation("r2");
+    m2.put("cf2", "x", 3, "5");
+
+    Mutation m3 = new Mutation("r3");
+    m3.put("foo", "b", 4, "6");
+
+    Mutation m4 = new Mutation("r4");
+    m4.put("foo", "b", 5, "7");
+    m4.put("cf4", "z", 5, "8");
+
+    Mutation m5 = new Mutation("r5");
+    m5.put("cf3", "z", 6, "A");
+    m5.put("cf4", "z", 6, "B");
+
+    imm.mutate(Arrays.asList(m1, m2, m3, m4, m5), 10);
+
+    MemoryIterator iter1 = imm.skvIterator(null);
+    seekLocalityGroups(iter1);
+    assertEquals(10, imm.getNumEntries());
+
+    imm.delete(0);
+    seekLocalityGroups(iter1);
+  }
+
   static long sum(long[] counts) {
     long result = 0;
     for (long count : counts) {
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.junit.Test;
+
+public class OffHeapMapTest {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private static Mutation newMutation(Random rand) {
+    Mutation m = new Mutation(String.format("r%06d", rand.nextInt(10_000)));
+    int numUpdates = 1 + rand.nextInt(3);
+    for (int i = 0; i < numUpdates; i++) {
+      String fam = "f" + rand.nextInt(3);
+      String qual = "q" + rand.nextInt(5);
+      String vis = rand.nextBoolean() ? "" : "A&B";
+      long ts = rand.nextInt(4);
+      if (rand.nextInt(10) == 0) {
+        m.putDelete(fam, qual, new ColumnVisibility(vis), ts);
+      } else {
+        byte[] val = new byte[rand.nextInt(200)];
+        rand.nextBytes(val);
+        m.put(fam, qual, new ColumnVisibility(vis), ts, new Value(val));
+      }
+    }
+    return m;
+  }
+
+  private static void add(TreeMap<Key,Value> expected, Mutation m, int kvCount) {
+    for (ColumnUpdate cu : m.getUpdates()) {
+      expected.put(
+          new MemKey(m.getRow(), cu.getColumnFamily(), cu.getColumnQualifier(),
+              cu.getColumnVisibility(), cu.getTimestamp(), cu.isDeleted(), true, kvCount++),
+          new Value(cu.getValue()));
+    }
+  }
+
+  private static void verify(TreeMap<Key,Value> expected, InterruptibleIterator iter, Range range)
+      throws Exception {
+    iter.seek(range, LocalityGroupUtil.EMPTY_CF_SET, false);
+    for (Entry<Key,Value> entry : expected.entrySet()) {
+      if (range.contains(entry.getKey())) {
+        assertTrue(iter.hasTop());
+        assertEquals(entry.getKey(), iter.getTopKey());
+        assertEquals(((MemKey) entry.getKey()).getKVCount(),
+            ((MemKey) iter.getTopKey()).getKVCount());
+        assertEquals(entry.getValue(), iter.getTopValue());
+        iter.next();
+      }
+    }
+    assertFalse(iter.hasTop());
+  }
+
+  @Test
+  public void testSortOrderMatchesMemKeyComparator() throws Exception {
+    Random rand = new Random(42);
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+    TreeMap<Key,Value> expected = new TreeMap<>(new MemKeyComparator());
+
+    int kvCount = 1;
+    for (int i = 0; i < 5000; i++) {
+      Mutation m = newMutation(rand);
+      map.mutate(Collections.singletonList(m), kvCount);
+      add(expected, m, kvCount);
+      kvCount += m.size();
+    }
+
+    assertEquals(expected.size(), map.size());
+    // more than one chunk was needed
+    assertTrue(map.getMemoryUsed() > CHUNK_SIZE);
+
+    InterruptibleIterator iter = map.skvIterator();
+    verify(expected, iter, new Range());
+
+    List<Key> keys = new ArrayList<>(expected.keySet());
+    for (int i = 0; i < 100; i++) {
+      Key start = keys.get(rand.nextInt(keys.size()));
+      Key end = keys.get(rand.nextInt(keys.size()));
+      if (start.compareTo(end) > 0) {
+        Key tmp = start;
+        start = end;
+        end = tmp;
+      }
+      verify(expected, iter, new Range(start, rand.nextBoolean(), end, rand.nextBoolean()));
+      verify(expected, iter, new Range(start.getRow()));
+      verify(expected, (InterruptibleIterator) iter.deepCopy(null),
+          new Range(start.followingKey(PartialKey.ROW), null));
+    }
+  }
+
+  @Test
+  public void testDuplicateKeys() throws Exception {
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+
+    Mutation m = new Mutation("r1");
+    m.put("f", "q", 3, "v1");
+    m.put("f", "q", 3, "v2");
+    map.mutate(Collections.singletonList(m), 1);
+
+    InterruptibleIterator iter = map.skvIterator();
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    // the most recent write sorts first
+    assertEquals(new Value("v2"), iter.getTopValue());
+    assertEquals(2, ((MemKey) iter.getTopKey()).getKVCount());
+    iter.next();
+    assertEquals(new Value("v1"), iter.getTopValue());
+    assertEquals(1, ((MemKey) iter.getTopKey()).getKVCount());
+    iter.next();
+    assertFalse(iter.hasTop());
+  }
+
+  @Test
+  public void testEntryLargerThanChunk() throws Exception {
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+
+    byte[] big = new byte[CHUNK_SIZE * 3];
+    new Random(7).nextBytes(big);
+    Mutation m1 = new Mutation("r1");
+    m1.put("f", "q", new Value(big));
+    Mutation m2 = new Mutation("r2");
+    m2.put("f", "q", "small");
+    map.mutate(List.of(m1, m2), 1);
+
+    InterruptibleIterator iter = map.skvIterator();
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    assertEquals(new Value(big), iter.getTopValue());
+    iter.next();
+    assertEquals(new Value("small"), iter.getTopValue());
+    iter.next();
+    assertFalse(iter.hasTop());
+  }
+
+  @Test
+  public void testConcurrentWriters() throws Exception {
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+    final int numThreads = 8;
+    final int perThread = 2000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < perThread; i++) {
+          Mutation m = new Mutation(String.format("r%06d", i * numThreads + thread));
+          m.put("f", "q", "" + i);
+          map.mutate(Collections.singletonList(m), i * numThreads + thread + 1);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(numThreads * perThread, map.size());
+
+    InterruptibleIterator iter = map.skvIterator();
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    Iterator<Integer> rows = IntStream.range(0, numThreads * perThread).iterator();
+    while (iter.hasTop()) {
+      assertEquals(String.format("r%06d", rows.next()), iter.getTopKey().getRow().toString());
+      iter.next();
+    }
+    assertFalse(rows.hasNext());
+  }
+
+  @Test
+  public void testNoMemoryUntilWritten() throws Exception {
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+    assertEquals(0, map.getMemoryUsed());
+
+    InterruptibleIterator iter = map.skvIterator();
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    assertFalse(iter.hasTop());
+
+    Mutation m = new Mutation("r1");
+    m.put("f", "q", "v");
+    map.mutate(Collections.singletonList(m), 1);
+    assertTrue(map.getMemoryUsed() > 0);
+
+    iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+    assertEquals(new Value("v"), iter.getTopValue());
+    iter.next();
+    assertFalse(iter.hasTop());
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    OffHeapMap map = new OffHeapMap(CHUNK_SIZE);
+    Mutation m = new Mutation("r1");
+    m.put("f", "q", "v");
+    map.mutate(Collections.singletonList(m), 1);
+
+    InterruptibleIterator iter = map.skvIterator();
+    map.delete();
+
+    assertThrows(IllegalStateException.class,
+        () -> iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false));
+    assertThrows(IllegalStateException.class, () -> map.mutate(Collections.singletonList(m), 2));
+    assertThrows(IllegalStateException.class, map::delete);
+  }
+}
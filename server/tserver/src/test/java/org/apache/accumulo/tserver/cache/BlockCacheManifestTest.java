@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class BlockCacheManifestTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir"), "target"));
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    FileSystem fs = FileSystem.getLocal(new Configuration());
+    Path file = new Path(tempFolder.getRoot().getAbsolutePath(), "host_9997");
+
+    assertTrue(BlockCacheManifest.read(fs, file).isEmpty());
+
+    BlockCacheManifest.write(fs, file,
+        Map.of(CacheType.INDEX, List.of("f1_i1"), CacheType.DATA, List.of("f1_d1", "f1_d2")));
+    assertEquals(
+        Map.of(CacheType.INDEX, List.of("f1_i1"), CacheType.DATA, List.of("f1_d1", "f1_d2")),
+        BlockCacheManifest.read(fs, file));
+
+    // a second write replaces the first
+    BlockCacheManifest.write(fs, file, Map.of(CacheType.DATA, List.of("f2_d1")));
+    assertEquals(Map.of(CacheType.DATA, List.of("f2_d1")), BlockCacheManifest.read(fs, file));
+    assertFalse(fs.exists(file.suffix(".tmp")));
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HotBlockTrackerTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  @Test
+  public void testHotBlocks() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_DATACACHE_SIZE, "1M");
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(cc));
+
+    HotBlockTracker tracker = new HotBlockTracker(manager.getBlockCache(CacheType.DATA), 100);
+    for (int i = 0; i < 100; i++) {
+      tracker.getBlock("cold" + i);
+    }
+    tracker.cacheBlock("hot", new byte[10]);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(10, tracker.getBlock("hot").getBuffer().length);
+      tracker.getBlock("warm" + (i % 2));
+    }
+    // a scan that reads many blocks once should not push out the blocks that are read often
+    for (int i = 0; i < 1000; i++) {
+      tracker.getBlock("scan" + i);
+    }
+
+    List<String> hotBlocks = tracker.getHotBlocks(100);
+    assertTrue(hotBlocks.size() <= 100);
+    assertTrue(hotBlocks.containsAll(List.of("hot", "warm0", "warm1")));
+    assertEquals(10, tracker.getHotBlocks(10).size());
+    manager.stop();
+  }
+
+  @Test
+  public void testManifest() throws Exception {
+    FileSystem fs = FileSystem.getLocal(new Configuration());
+    Path file = new Path(tempFolder.newFolder().getAbsolutePath(), "host_9997");
+
+    assertEquals(Map.of(), BlockCacheManifest.read(fs, file));
+
+    Map<CacheType,List<String>> blocks = new EnumMap<>(CacheType.class);
+    blocks.put(CacheType.INDEX, List.of("file:/t1/F1.rf!RootData", "file:/t1/F1.rfMRFile.index"));
+    blocks.put(CacheType.DATA, List.of("file:/t1/F1.rfR0", "file:/t1/F1.rfR4096"));
+    BlockCacheManifest.write(fs, file, blocks);
+    assertEquals(blocks, BlockCacheManifest.read(fs, file));
+
+    // writing again replaces the manifest
+    blocks.put(CacheType.DATA, List.of());
+    BlockCacheManifest.write(fs, file, blocks);
+    assertEquals(blocks, BlockCacheManifest.read(fs, file));
+    assertEquals(1, fs.listStatus(file.getParent()).length);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.Test;
+
+public class TableCacheStatsTest {
+
+  private static BlockCache.Loader loader(byte[] data) {
+    return new BlockCache.Loader() {
+      @Override
+      public Map<String,BlockCache.Loader> getDependencies() {
+        return Map.of();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        return data;
+      }
+    };
+  }
+
+  @Test
+  public void testCounts() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_DATACACHE_SIZE, "1M");
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(cc));
+    BlockCache cache = manager.getBlockCache(CacheType.DATA);
+
+    TableCacheStats stats = new TableCacheStats();
+    TableId t1 = TableId.of("1");
+    TableId t2 = TableId.of("2");
+    BlockCache c1 = stats.wrap(t1, cache);
+    BlockCache c2 = stats.wrap(t2, cache);
+
+    // misses, the first read loads the block
+    assertNull(c1.getBlock("b1"));
+    assertEquals(3, c1.getBlock("b1", loader(new byte[3])).getBuffer().length);
+    // hits, including a block another table loaded
+    assertEquals(3, c1.getBlock("b1", loader(new byte[5])).getBuffer().length);
+    assertEquals(3, c2.getBlock("b1").getBuffer().length);
+    assertEquals(3, c2.getBlock("b1", loader(new byte[5])).getBuffer().length);
+
+    // blocks that are added directly are not counted
+    c2.cacheBlock("b2", new byte[7]);
+
+    // the counts of a table are kept by all the views of the cache for that table
+    stats.wrap(t1, cache).getBlock("b2");
+
+    assertEquals(4, stats.getCounts().get(t1).getRequests());
+    assertEquals(2, stats.getCounts().get(t1).getHits());
+    assertEquals(2, stats.getCounts().get(t2).getRequests());
+    assertEquals(2, stats.getCounts().get(t2).getHits());
+
+    assertNull(stats.wrap(t1, null));
+    manager.stop();
+  }
+
+  @Test
+  public void testPrune() throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_DATACACHE_SIZE, "1M");
+    BlockCacheManager manager = new LruBlockCacheManager();
+    manager.start(new BlockCacheConfiguration(cc));
+    BlockCache cache = manager.getBlockCache(CacheType.DATA);
+
+    TableCacheStats stats = new TableCacheStats();
+    TableId t1 = TableId.of("1");
+    TableId t2 = TableId.of("2");
+    TableId t3 = TableId.of("3");
+    BlockCache c1 = stats.wrap(t1, cache);
+    BlockCache c2 = stats.wrap(t2, cache);
+    BlockCache c3 = stats.wrap(t3, cache);
+    c1.getBlock("b1");
+    c2.getBlock("b1");
+    c3.getBlock("b1");
+
+    // table 3 was deleted, the others made requests since the cache started
+    stats.prune(tableId -> !tableId.equals(t3));
+    assertEquals(Set.of(t1, t2), stats.getCounts().keySet());
+
+    // only table 1 made requests since the last prune
+    c1.getBlock("b1");
+    stats.prune(tableId -> true);
+    assertEquals(Set.of(t1), stats.getCounts().keySet());
+    assertEquals(2, stats.getCounts().get(t1).getRequests());
+
+    // a view created before table 2 was pruned counts it again
+    c2.getBlock("b1");
+    assertEquals(1, stats.getCounts().get(t2).getRequests());
+    manager.stop();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.compactions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.admin.compaction.CompactableFile;
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.metadata.StoredTabletFile;
+import org.apache.accumulo.core.metadata.TabletFile;
+import org.apache.accumulo.core.spi.common.ServiceEnvironment;
+import org.apache.accumulo.core.spi.common.ServiceEnvironment.Configuration;
+import org.apache.accumulo.core.spi.compaction.CompactionExecutorId;
+import org.apache.accumulo.core.spi.compaction.CompactionJob;
+import org.apache.accumulo.core.spi.compaction.CompactionKind;
+import org.apache.accumulo.core.spi.compaction.CompactionPlan;
+import org.apache.accumulo.core.spi.compaction.CompactionPlanner;
+import org.apache.accumulo.core.spi.compaction.DefaultCompactionPlanner;
+import org.apache.accumulo.core.spi.compaction.ExecutorManager;
+import org.apache.accumulo.core.util.compaction.CompactionJobImpl;
+import org.apache.accumulo.core.util.compaction.CompactionPlanImpl;
+import org.apache.hadoop.fs.Path;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+
+public class PartitionedFilesTest {
+
+  private static final String TABLET_DIR = "hdfs://fake/accumulo/tables/1/t-0000000z/";
+
+  private static Set<CompactableFile> createCFs(String... namesSizePairs) {
+    Set<CompactableFile> files = new HashSet<>();
+    for (int i = 0; i < namesSizePairs.length; i += 2) {
+      long size = ConfigurationTypeHelper.getFixedMemoryAsBytes(namesSizePairs[i + 1]);
+      files
+          .add(CompactableFile.create(URI.create(TABLET_DIR + namesSizePairs[i] + ".rf"), size, 0));
+    }
+    return files;
+  }
+
+  private static DefaultCompactionPlanner createPlanner() {
+    Configuration conf = EasyMock.createMock(Configuration.class);
+    EasyMock.expect(conf.isSet(EasyMock.anyString())).andReturn(false).anyTimes();
+    ServiceEnvironment senv = EasyMock.createMock(ServiceEnvironment.class);
+    EasyMock.expect(senv.getConfiguration()).andReturn(conf).anyTimes();
+    EasyMock.replay(conf, senv);
+
+    DefaultCompactionPlanner planner = new DefaultCompactionPlanner();
+    planner.init(new CompactionPlanner.InitParameters() {
+      @Override
+      public ServiceEnvironment getServiceEnvironment() {
+        return senv;
+      }
+
+      @Override
+      public Map<String,String> getOptions() {
+        return Map.of("executors", "[{\"name\":\"small\",\"numThreads\":1}]");
+      }
+
+      @Override
+      public String getFullyQualifiedOption(String key) {
+        return "tserver.compaction.major.service.cs1.planner.opts." + key;
+      }
+
+      @Override
+      public ExecutorManager getExecutorManager() {
+        return (name, threads) -> CompactionExecutorId.of(name);
+      }
+    });
+    return planner;
+  }
+
+  private static CompactionPlan makePlan(Set<CompactableFile> files) {
+    PartitionedFiles partitioned = new PartitionedFiles(files, files);
+    CompactionPlan plan = createPlanner().makePlan(new CompactionPlanner.PlanningParameters() {
+      @Override
+      public TableId getTableId() {
+        return TableId.of("1");
+      }
+
+      @Override
+      public ServiceEnvironment getServiceEnvironment() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public double getRatio() {
+        return 3;
+      }
+
+      @Override
+      public CompactionKind getKind() {
+        return CompactionKind.SYSTEM;
+      }
+
+      @Override
+      public Collection<CompactionJob> getRunningCompactions() {
+        return Set.of();
+      }
+
+      @Override
+      public Collection<CompactableFile> getCandidates() {
+        return partitioned.getCandidates();
+      }
+
+      @Override
+      public Collection<CompactableFile> getAll() {
+        return partitioned.getAll();
+      }
+
+      @Override
+      public Map<String,String> getExecutionHints() {
+        return Map.of();
+      }
+
+      @Override
+      public CompactionPlan.Builder createPlanBuilder() {
+        return new CompactionPlanImpl.BuilderImpl(CompactionKind.SYSTEM, partitioned.getAll(),
+            partitioned.getCandidates());
+      }
+    });
+
+    var builder = new CompactionPlanImpl.BuilderImpl(CompactionKind.SYSTEM, files, files);
+    plan.getJobs().forEach(job -> builder.addJob(job.getPriority(), job.getExecutor(),
+        partitioned.expand(job.getFiles())));
+    return builder.build();
+  }
+
+  @Test
+  public void testPartitionFile() {
+    TabletFile file = new TabletFile(new Path(TABLET_DIR + "A0000abc.rf"));
+    TabletFile partition = PartitionedFiles.getPartitionFile(file, 3);
+    assertEquals("A0000abc_p3.rf", partition.getFileName());
+    assertEquals(file.getPath().getParent(), partition.getPath().getParent());
+
+    assertEquals(PartitionedFiles.getGroup(new StoredTabletFile(partition.getPathStr())),
+        PartitionedFiles.getGroup(
+            new StoredTabletFile(PartitionedFiles.getPartitionFile(file, 0).getPathStr())));
+    assertNull(PartitionedFiles.getGroup(new StoredTabletFile(file.getPathStr())));
+  }
+
+  @Test
+  public void testPartitionsAreNotCompactedAgain() {
+    // the outputs of one compaction split into four partitions meet the compaction ratio when
+    // looked at one by one
+    var partitions =
+        createCFs("A0001_p0", "100M", "A0001_p1", "100M", "A0001_p2", "100M", "A0001_p3", "100M");
+    assertFalse(DefaultCompactionPlanner.findMapFilesToCompact(partitions, 3, 10, Long.MAX_VALUE)
+        .isEmpty());
+
+    // as a single file they do not
+    assertTrue(makePlan(partitions).getJobs().isEmpty());
+
+    // small files are compacted without the partitions
+    var files = new HashSet<>(partitions);
+    var small = createCFs("F0002", "10M", "F0003", "10M", "F0004", "10M", "F0009", "10M");
+    files.addAll(small);
+    assertEquals(small, Iterables.getOnlyElement(makePlan(files).getJobs()).getFiles());
+
+    // files large enough to compact with the partitions are compacted with all of them
+    files = new HashSet<>(partitions);
+    var large = createCFs("F0005", "250M", "F0006", "250M", "F0007", "250M", "F000a", "250M");
+    files.addAll(large);
+    var job = Iterables.getOnlyElement(makePlan(files).getJobs());
+    assertEquals(files, job.getFiles());
+    assertTrue(((CompactionJobImpl) job).selectedAll());
+
+    // the partitions of two different compactions are two files, which do not meet the ratio
+    files = new HashSet<>(partitions);
+    files.addAll(
+        createCFs("A0008_p0", "90M", "A0008_p1", "90M", "A0008_p2", "90M", "A0008_p3", "90M"));
+    assertTrue(makePlan(files).getJobs().isEmpty());
+  }
+}
@@ -19,11 +19,15 @@
 package org.apache.accumulo.tserver.log;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.Durability;
 import org.apache.accumulo.tserver.TabletMutations;
@@ -68,6 +72,59 @@ public class DfsLoggerTest {
     assertEquals(Durability.SYNC, chooseDurabilityForGroupCommit(lst));
   }
 
+  private static DfsLogger.LogWork newWork() {
+    return new DfsLogger.LogWork(new CountDownLatch(1), Durability.SYNC);
+  }
+
+  @Test
+  public void testGatherWorkMaxBatchSize() {
+    LinkedBlockingQueue<DfsLogger.LogWork> queue = new LinkedBlockingQueue<>();
+    for (int i = 0; i < 5; i++) {
+      queue.add(newWork());
+    }
+
+    List<DfsLogger.LogWork> batch = new ArrayList<>();
+    batch.add(queue.remove());
+    DfsLogger.gatherWork(queue, batch, 3, 0);
+    assertEquals(3, batch.size());
+    assertEquals(2, queue.size());
+
+    batch.clear();
+    batch.add(queue.remove());
+    DfsLogger.gatherWork(queue, batch, Integer.MAX_VALUE, 0);
+    assertEquals(2, batch.size());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testGatherWorkWaits() throws Exception {
+    LinkedBlockingQueue<DfsLogger.LogWork> queue = new LinkedBlockingQueue<>();
+    List<DfsLogger.LogWork> batch = new ArrayList<>();
+    batch.add(newWork());
+
+    // nothing arrives, so the full wait is used
+    long t1 = System.nanoTime();
+    DfsLogger.gatherWork(queue, batch, 10, TimeUnit.MILLISECONDS.toNanos(20));
+    assertTrue(System.nanoTime() - t1 >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertEquals(1, batch.size());
+
+    // stops waiting as soon as the batch is full
+    Thread writer = new Thread(() -> {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      queue.add(newWork());
+    });
+    writer.start();
+    t1 = System.nanoTime();
+    DfsLogger.gatherWork(queue, batch, 2, TimeUnit.SECONDS.toNanos(30));
+    assertTrue(System.nanoTime() - t1 < TimeUnit.SECONDS.toNanos(30));
+    assertEquals(2, batch.size());
+    writer.join();
+  }
+
   static Durability chooseDurabilityForGroupCommit(Collection<TabletMutations> mutations) {
     Durability result = Durability.NONE;
     for (TabletMutations tabletMutations : mutations) {
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.accumulo.tserver.logger.LogFileKey;
+import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class LogSorterTest {
+
+  private static final String WALOG_FROM_16 = "/walog-from-16.walog";
+
+  private static final AccumuloConfiguration config = DefaultConfiguration.getInstance();
+  private ServerContext context;
+  private String root;
+  private Path walog;
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir"), "target"));
+
+  @Before
+  public void setUp() throws Exception {
+    root = tempFolder.getRoot().getAbsolutePath();
+    context = createMock(ServerContext.class);
+    expect(context.getVolumeManager()).andReturn(VolumeManagerImpl.getLocalForTesting(root))
+        .anyTimes();
+    replay(context);
+
+    try (InputStream walogStream = getClass().getResourceAsStream(WALOG_FROM_16);
+        OutputStream walogInHDFStream = new FileOutputStream(new File(root + WALOG_FROM_16))) {
+      IOUtils.copyLarge(walogStream, walogInHDFStream);
+    }
+    walog = new Path("file://" + root + WALOG_FROM_16);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    context.getVolumeManager().close();
+    verify(context);
+  }
+
+  /**
+   * Reads all sorted parts of a recovered log, checking that each part is sorted.
+   */
+  private List<String> readSortedParts(String dir) throws IOException {
+    FileSystem fs = FileSystem.getLocal(new Configuration());
+    List<String> entries = new ArrayList<>();
+    for (FileStatus status : fs.listStatus(new Path(dir))) {
+      if (!status.getPath().getName().startsWith("part")) {
+        continue;
+      }
+      try (MapFile.Reader reader = new MapFile.Reader(status.getPath(), fs.getConf())) {
+        LogFileKey key = new LogFileKey();
+        LogFileValue value = new LogFileValue();
+        LogFileKey prev = null;
+        while (reader.next(key, value)) {
+          assertTrue(prev == null || prev.compareTo(key) <= 0);
+          entries.add(key + " " + value);
+          prev = key;
+          key = new LogFileKey();
+        }
+      }
+    }
+    entries.sort(null);
+    return entries;
+  }
+
+  private void sort(AccumuloConfiguration conf, String dest) {
+    LogSorter logSorter = new LogSorter(context, conf);
+    try {
+      logSorter.new LogProcessor().sort(WALOG_FROM_16, walog, "file://" + root + dest);
+    } finally {
+      logSorter.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelSort() throws IOException {
+    sort(config, "/single");
+
+    // a small buffer splits the log into many parts that are sorted concurrently
+    ConfigurationCopy parallelConfig = new ConfigurationCopy(config);
+    parallelConfig.set(Property.TSERV_SORT_BUFFER_SIZE, "1K");
+    parallelConfig.set(Property.TSERV_SORT_THREADS, "3");
+    sort(parallelConfig, "/parallel");
+
+    assertTrue(new File(root + "/parallel/finished").exists());
+    assertTrue(
+        new File(root + "/parallel").list((dir, name) -> name.startsWith("part")).length > 4);
+    List<String> expected = readSortedParts(root + "/single");
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, readSortedParts(root + "/parallel"));
+  }
+
+  @Test
+  public void testSortAfterShutdown() {
+    LogSorter logSorter = new LogSorter(context, config);
+    logSorter.shutdown();
+    logSorter.new LogProcessor().sort(WALOG_FROM_16, walog, "file://" + root + "/shutdown");
+    assertTrue(new File(root + "/shutdown/failed").exists());
+  }
+}
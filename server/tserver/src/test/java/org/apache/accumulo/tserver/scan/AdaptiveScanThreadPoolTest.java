@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.accumulo.tserver.scan.AdaptiveScanThreadPool.computePoolSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+public class AdaptiveScanThreadPoolTest {
+
+  @Test
+  public void testNoRunsKeepsSize() {
+    assertEquals(7, computePoolSize(7, 1, 64, 8, 0, 0));
+  }
+
+  @Test
+  public void testCpuBoundShrinksTowardsCores() {
+    // all compute, so the target is the number of cores
+    assertEquals(24, computePoolSize(40, 1, 64, 8, 1000, 0));
+    assertEquals(16, computePoolSize(24, 1, 64, 8, 1000, 0));
+    assertEquals(12, computePoolSize(16, 1, 64, 8, 1000, 0));
+    assertEquals(9, computePoolSize(10, 1, 64, 8, 1000, 0));
+    assertEquals(8, computePoolSize(9, 1, 64, 8, 1000, 0));
+    assertEquals(8, computePoolSize(8, 1, 64, 8, 1000, 0));
+    // never below the min
+    assertEquals(10, computePoolSize(12, 10, 64, 8, 1000, 0));
+  }
+
+  @Test
+  public void testIoBoundGrows() {
+    // 75% reading means a thread computes a quarter of the time, so 4 threads per core
+    assertEquals(24, computePoolSize(16, 1, 64, 8, 1000, 750));
+    assertEquals(32, computePoolSize(32, 1, 64, 8, 1000, 750));
+    // never above the max
+    assertEquals(18, computePoolSize(16, 1, 20, 8, 1000, 750));
+    // only reading goes towards the max
+    assertEquals(40, computePoolSize(16, 1, 64, 8, 1000, 1000));
+    // reads can not exceed the run time
+    assertEquals(40, computePoolSize(16, 1, 64, 8, 1000, 5000));
+  }
+
+  @Test
+  public void testMeasuresTasks() throws Exception {
+    AdaptiveScanThreadPool tp = new AdaptiveScanThreadPool(4, 1, 16, 2, new LinkedBlockingQueue<>(),
+        Executors.defaultThreadFactory());
+    try {
+      assertEquals(4, tp.computePoolSize());
+      for (int i = 0; i < 8; i++) {
+        // tasks that do not read files count as compute
+        tp.submit(() -> {
+          long end = System.nanoTime() + MILLISECONDS.toNanos(5);
+          while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+          }
+        }).get();
+      }
+      // half way from 4 to the 2 cores
+      assertEquals(3, tp.computePoolSize());
+      // the measurements were reset
+      assertEquals(4, tp.computePoolSize());
+    } finally {
+      tp.shutdownNow();
+    }
+    assertTrue(tp.awaitTermination(10, SECONDS));
+  }
+
+  @Test
+  public void testBadBounds() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveScanThreadPool(4, 5, 16, 2,
+        new LinkedBlockingQueue<>(), Executors.defaultThreadFactory()));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveScanThreadPool(17, 1, 16, 2,
+        new LinkedBlockingQueue<>(), Executors.defaultThreadFactory()));
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.tserver.scan.FairShareScanQueue.Tenant;
+import org.junit.Test;
+
+public class FairShareScanQueueTest {
+
+  private static class TestTask implements Runnable {
+    final Tenant tenant;
+    boolean ran = false;
+
+    TestTask(String user, String table) {
+      this.tenant = new Tenant(user, TableId.of(table));
+    }
+
+    @Override
+    public void run() {
+      ran = true;
+    }
+  }
+
+  private static class TestShares implements FairShareScanQueue.Shares {
+    final Map<String,Integer> userShares = new HashMap<>();
+    final Map<String,Integer> userCaps = new HashMap<>();
+    final Map<TableId,Integer> tableShares = new HashMap<>();
+    final Map<TableId,Integer> tableCaps = new HashMap<>();
+
+    @Override
+    public int getUserShare(String user) {
+      return userShares.getOrDefault(user, 1);
+    }
+
+    @Override
+    public int getUserMaxConcurrent(String user) {
+      return userCaps.getOrDefault(user, 0);
+    }
+
+    @Override
+    public int getTableShare(TableId tableId) {
+      return tableShares.getOrDefault(tableId, 1);
+    }
+
+    @Override
+    public int getTableMaxConcurrent(TableId tableId) {
+      return tableCaps.getOrDefault(tableId, 0);
+    }
+  }
+
+  private static FairShareScanQueue newQueue(TestShares shares) {
+    return new FairShareScanQueue(r -> ((TestTask) r).tenant, shares);
+  }
+
+  @Test
+  public void testWeightedOrder() {
+    TestShares shares = new TestShares();
+    shares.userShares.put("bob", 2);
+    FairShareScanQueue queue = newQueue(shares);
+
+    // alice queues all of her scans first, but bob has twice her share
+    for (int i = 0; i < 6; i++) {
+      queue.offer(new TestTask("alice", "1"));
+    }
+    for (int i = 0; i < 6; i++) {
+      queue.offer(new TestTask("bob", "1"));
+    }
+    assertEquals(12, queue.size());
+
+    List<Runnable> admitted = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      Runnable r = queue.poll();
+      assertNotNull(r);
+      admitted.add(r);
+    }
+    assertEquals(3, queue.getUserStats().get("alice").getAdmitted());
+    assertEquals(6, queue.getUserStats().get("bob").getAdmitted());
+    assertEquals(9, queue.getTableStats().get(TableId.of("1")).getAdmitted());
+    assertEquals(3, queue.size());
+
+    // the admitted tasks run the queued tasks
+    admitted.forEach(Runnable::run);
+  }
+
+  @Test
+  public void testTableShares() {
+    TestShares shares = new TestShares();
+    shares.tableShares.put(TableId.of("2"), 3);
+    FairShareScanQueue queue = newQueue(shares);
+
+    for (int i = 0; i < 8; i++) {
+      queue.offer(new TestTask("alice", "1"));
+      queue.offer(new TestTask("alice", "2"));
+    }
+
+    for (int i = 0; i < 8; i++) {
+      assertNotNull(queue.poll());
+    }
+    assertEquals(2, queue.getTableStats().get(TableId.of("1")).getAdmitted());
+    assertEquals(6, queue.getTableStats().get(TableId.of("2")).getAdmitted());
+  }
+
+  @Test
+  public void testUserCap() throws Exception {
+    TestShares shares = new TestShares();
+    shares.userCaps.put("alice", 1);
+    FairShareScanQueue queue = newQueue(shares);
+
+    TestTask a1 = new TestTask("alice", "1");
+    TestTask a2 = new TestTask("alice", "1");
+    TestTask b1 = new TestTask("bob", "1");
+    queue.offer(a1);
+    queue.offer(a2);
+    queue.offer(b1);
+
+    Runnable first = queue.poll();
+    // alice is at her cap, so bob is admitted even though alice's scan was queued first
+    Runnable second = queue.poll();
+    assertNull(queue.poll());
+    assertEquals(1, queue.size());
+    assertEquals(1, queue.getUserStats().get("alice").getThrottled());
+
+    // a thread waiting for work is woken once alice's running scan finishes
+    CompletableFuture<Runnable> waiter = CompletableFuture.supplyAsync(() -> {
+      try {
+        return queue.poll(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Thread.sleep(50);
+    assertFalse(waiter.isDone());
+    first.run();
+    assertTrue(a1.ran);
+    Runnable third = waiter.get(30, TimeUnit.SECONDS);
+    assertNotNull(third);
+    third.run();
+    assertTrue(a2.ran);
+    second.run();
+    assertTrue(b1.ran);
+    assertEquals(0, queue.size());
+    // alice's second scan was only counted as throttled once
+    assertEquals(1, queue.getUserStats().get("alice").getThrottled());
+  }
+
+  @Test
+  public void testTableCap() {
+    TestShares shares = new TestShares();
+    shares.tableCaps.put(TableId.of("1"), 2);
+    FairShareScanQueue queue = newQueue(shares);
+
+    for (int i = 0; i < 4; i++) {
+      queue.offer(new TestTask("alice", "1"));
+      queue.offer(new TestTask("bob", "1"));
+    }
+    Runnable r1 = queue.poll();
+    assertNotNull(queue.poll());
+    assertNull(queue.poll());
+    r1.run();
+    assertNotNull(queue.poll());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testRemoveAndDrain() {
+    FairShareScanQueue queue = newQueue(new TestShares());
+    TestTask t1 = new TestTask("alice", "1");
+    TestTask t2 = new TestTask("bob", "1");
+    TestTask t3 = new TestTask("bob", "2");
+    queue.offer(t1);
+    queue.offer(t2);
+    queue.offer(t3);
+
+    assertTrue(queue.contains(t2));
+    assertTrue(queue.remove(t2));
+    assertFalse(queue.remove(t2));
+    assertEquals(2, queue.size());
+    assertEquals(t1, queue.peek());
+
+    List<Runnable> drained = new ArrayList<>();
+    assertEquals(2, queue.drainTo(drained));
+    assertEquals(List.of(t1, t3), drained);
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testPruneStats() {
+    FairShareScanQueue queue = newQueue(new TestShares());
+    queue.offer(new TestTask("alice", "1"));
+    queue.offer(new TestTask("bob", "2"));
+    queue.offer(new TestTask("bob", "3"));
+    Runnable alice = queue.poll();
+    queue.poll().run();
+    assertEquals(1, queue.size());
+
+    // nothing is idle for an hour, but table 2 was deleted
+    queue.pruneStats(1, TimeUnit.HOURS, tableId -> !tableId.canonical().equals("2"));
+    assertEquals(Set.of("alice", "bob"), queue.getUserStats().keySet());
+    assertEquals(Set.of(TableId.of("1")), queue.getTableStats().keySet());
+
+    // alice's scan is still running and bob's second scan is queued, so they are kept
+    queue.pruneStats(0, TimeUnit.MILLISECONDS, tableId -> true);
+    assertEquals(Set.of("alice", "bob"), queue.getUserStats().keySet());
+    assertEquals(Set.of(TableId.of("1")), queue.getTableStats().keySet());
+
+    alice.run();
+    queue.pruneStats(0, TimeUnit.MILLISECONDS, tableId -> true);
+    assertEquals(Set.of("bob"), queue.getUserStats().keySet());
+    assertEquals(Set.of(), queue.getTableStats().keySet());
+  }
+}
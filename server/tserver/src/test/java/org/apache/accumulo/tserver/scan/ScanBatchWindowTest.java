@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.tserver.tablet.KVEntry;
+import org.apache.accumulo.tserver.tablet.ScanBatch;
+import org.junit.Test;
+
+public class ScanBatchWindowTest {
+
+  private static ScanBatch newBatch(int start, int count, boolean more) {
+    List<KVEntry> entries = new ArrayList<>();
+    for (int i = start; i < start + count; i++) {
+      entries.add(new KVEntry(new Key(String.format("r%04d", i)), new Value("v")));
+    }
+    return new ScanBatch(entries, more);
+  }
+
+  @Test
+  public void testBatchLimit() throws Exception {
+    ScanBatchWindow window = new ScanBatchWindow(3, Long.MAX_VALUE);
+    assertTrue(window.startProducer());
+    // only one producer at a time
+    assertFalse(window.startProducer());
+
+    assertTrue(window.add(newBatch(0, 2, true)));
+    assertTrue(window.add(newBatch(2, 2, true)));
+    assertFalse(window.add(newBatch(4, 2, true)));
+    window.producerFinished(false);
+    // the window is full
+    assertFalse(window.startProducer());
+
+    ScanBatch batch = window.take(1, TimeUnit.SECONDS);
+    assertEquals(6, batch.getResults().size());
+    assertTrue(batch.isMore());
+    for (int i = 0; i < 6; i++) {
+      assertEquals(String.format("r%04d", i),
+          batch.getResults().get(i).getKey().getRowData().toString());
+    }
+
+    assertTrue(window.startProducer());
+  }
+
+  @Test
+  public void testByteLimit() throws Exception {
+    ScanBatch first = newBatch(0, 10, true);
+    ScanBatchWindow window = new ScanBatchWindow(100, 1);
+    assertTrue(window.startProducer());
+    assertFalse(window.add(first));
+    window.producerFinished(false);
+    assertSame(first, window.take(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFinished() throws Exception {
+    ScanBatchWindow window = new ScanBatchWindow(10, Long.MAX_VALUE);
+    assertTrue(window.startProducer());
+    assertTrue(window.add(newBatch(0, 1, true)));
+    assertFalse(window.add(newBatch(1, 1, false)));
+    window.producerFinished(false);
+
+    ScanBatch batch = window.take(1, TimeUnit.SECONDS);
+    assertEquals(2, batch.getResults().size());
+    assertFalse(batch.isMore());
+    assertFalse(window.startProducer());
+  }
+
+  @Test
+  public void testErrorAfterBatches() throws Exception {
+    ScanBatchWindow window = new ScanBatchWindow(10, Long.MAX_VALUE);
+    assertTrue(window.startProducer());
+    window.add(newBatch(0, 1, true));
+    window.fail(new IllegalStateException("test"));
+    window.producerFinished(false);
+    assertFalse(window.startProducer());
+
+    // batches read before the error are returned first
+    assertEquals(1, window.take(1, TimeUnit.SECONDS).getResults().size());
+    ExecutionException ee =
+        assertThrows(ExecutionException.class, () -> window.take(1, TimeUnit.SECONDS));
+    assertTrue(ee.getCause() instanceof IllegalStateException);
+
+    // the client may retry after an error
+    assertTrue(window.startProducer());
+  }
+
+  @Test
+  public void testTimeoutAndCancel() throws Exception {
+    ScanBatchWindow window = new ScanBatchWindow(10, Long.MAX_VALUE);
+    assertThrows(TimeoutException.class, () -> window.take(10, TimeUnit.MILLISECONDS));
+
+    assertTrue(window.startProducer());
+    window.producerFinished(true);
+    assertThrows(CancellationException.class, () -> window.take(1, TimeUnit.SECONDS));
+    assertFalse(window.startProducer());
+  }
+
+  @Test
+  public void testConcurrentProducer() throws Exception {
+    ScanBatchWindow window = new ScanBatchWindow(2, Long.MAX_VALUE);
+    int numBatches = 50;
+    int[] next = {0};
+
+    Runnable producer = () -> {
+      boolean readMore = true;
+      while (readMore) {
+        int n = next[0]++;
+        readMore = window.add(newBatch(n, 1, n < numBatches - 1));
+      }
+      window.producerFinished(false);
+    };
+
+    int seen = 0;
+    boolean more = true;
+    while (more) {
+      if (window.startProducer()) {
+        new Thread(producer).start();
+      }
+      ScanBatch batch = window.take(5, TimeUnit.SECONDS);
+      for (KVEntry entry : batch.getResults()) {
+        assertEquals(String.format("r%04d", seen++), entry.getKey().getRowData().toString());
+      }
+      more = batch.isMore();
+    }
+    assertEquals(numBatches, seen);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.tserver.scan.ScanParameters;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+  private static final KeyExtent EXTENT = new KeyExtent(TableId.of("1"), null, null);
+
+  private static ScanParameters newScanParams(Authorizations auths, Set<Column> columns) {
+    return new ScanParameters(-1, auths, columns, Collections.emptyList(), Collections.emptyMap(),
+        false, null, -1, null);
+  }
+
+  private static ResultCache.CacheKey newKey(String row, Authorizations auths) {
+    return new ResultCache.CacheKey(EXTENT, List.of(new Range(row)), newScanParams(auths, Set.of()),
+        0);
+  }
+
+  private static List<KVEntry> newEntries(String row, int count) {
+    List<KVEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      entries.add(new KVEntry(new Key(row, "f", "q" + i), new Value("v" + i)));
+    }
+    return entries;
+  }
+
+  private static long memoryUsed(List<KVEntry> entries) {
+    return entries.stream().mapToLong(KVEntry::estimateMemoryUsed).sum();
+  }
+
+  @Test
+  public void testKeys() {
+    Authorizations auths = new Authorizations("A", "B");
+    assertEquals(newKey("r1", auths), newKey("r1", new Authorizations("A", "B")));
+    assertEquals(newKey("r1", auths).hashCode(), newKey("r1", auths).hashCode());
+
+    ResultCache cache = new ResultCache(1 << 20);
+    List<KVEntry> entries = newEntries("r1", 3);
+    cache.put(newKey("r1", auths), 5, entries, memoryUsed(entries), 30);
+
+    assertNotNull(cache.get(newKey("r1", auths), 5));
+    assertNull(cache.get(newKey("r2", auths), 5));
+    assertNull(cache.get(newKey("r1", new Authorizations("A")), 5));
+    assertNull(cache.get(new ResultCache.CacheKey(EXTENT, List.of(new Range("r1")),
+        newScanParams(auths, Set.of(new Column("f".getBytes(), null, null))), 0), 5));
+    // the table configuration changed
+    assertNull(cache.get(new ResultCache.CacheKey(EXTENT, List.of(new Range("r1")),
+        newScanParams(auths, Set.of()), 1), 5));
+  }
+
+  @Test
+  public void testDataVersion() {
+    ResultCache cache = new ResultCache(1 << 20);
+    Authorizations auths = new Authorizations("A");
+    List<KVEntry> entries = newEntries("r1", 3);
+    cache.put(newKey("r1", auths), 5, entries, memoryUsed(entries), 30);
+
+    ResultCache.CachedResult cached = cache.get(newKey("r1", auths), 5);
+    assertEquals(entries, cached.entries);
+    assertEquals(30, cached.dataSize);
+
+    // the entries were copied
+    entries.clear();
+    assertEquals(3, cache.get(newKey("r1", auths), 5).entries.size());
+
+    // once the tablet's data changes the entry is dropped
+    assertNull(cache.get(newKey("r1", auths), 6));
+    assertNull(cache.get(newKey("r1", auths), 5));
+  }
+
+  @Test
+  public void testSize() {
+    List<KVEntry> entries = newEntries("r1", 10);
+    long memoryUsed = memoryUsed(entries);
+
+    // a result that takes up too much of the cache is not cached
+    ResultCache cache = new ResultCache(memoryUsed * 4);
+    cache.put(newKey("r1", Authorizations.EMPTY), 1, entries, memoryUsed, 0);
+    assertNull(cache.get(newKey("r1", Authorizations.EMPTY), 1));
+
+    cache = new ResultCache(memoryUsed * 64);
+    for (int i = 0; i < 200; i++) {
+      cache.put(newKey("r" + i, Authorizations.EMPTY), 1, entries, memoryUsed, 0);
+    }
+    cache.cleanUp();
+    assertEquals(64, cache.size(), 10);
+
+    // which entries survive is up to the eviction policy, so look for any that did
+    ResultCache.CachedResult cached = null;
+    for (int i = 0; i < 200 && cached == null; i++) {
+      cached = cache.get(newKey("r" + i, Authorizations.EMPTY), 1);
+      if (cached != null) {
+        assertSame(cached, cache.get(newKey("r" + i, Authorizations.EMPTY), 1));
+      }
+    }
+    assertNotNull(cached);
+  }
+}
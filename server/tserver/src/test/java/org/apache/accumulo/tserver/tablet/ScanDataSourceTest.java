@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.BloomFilterLayer;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.apache.accumulo.tserver.FileManager;
+import org.apache.accumulo.tserver.InMemoryMap;
+import org.apache.accumulo.tserver.InMemoryMap.MemoryIterator;
+import org.apache.accumulo.tserver.InMemoryMapTest;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.io.Text;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class ScanDataSourceTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir"), "target"));
+
+  private static Range familyRange(String row, String family) {
+    Key k = new Key(new Text(row), new Text(family));
+    return new Range(k, true, k.followingKey(PartialKey.ROW_COLFAM), false);
+  }
+
+  private FileSKVIterator createFile(ConfigurationCopy acuconf) throws Exception {
+    Configuration conf = new Configuration();
+    FileSystem fs = FileSystem.getLocal(conf);
+    String fname = new File(tempFolder.getRoot(), "F0000000." + RFile.EXTENSION).getAbsolutePath();
+    FileSKVWriter writer = FileOperations.getInstance().newWriterBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+    writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      writer.append(new Key(new Text(String.format("r%05d", i)), new Text("cf1")), new Value("v"));
+    }
+    writer.close();
+
+    return FileOperations.getInstance().newReaderBuilder()
+        .forFile(fname, fs, conf, CryptoServiceFactory.newDefaultInstance())
+        .withTableConfiguration(acuconf).build();
+  }
+
+  @Test
+  public void testPossibleRanges() throws Exception {
+    ConfigurationCopy acuconf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_KEY_FUNCTOR, ColumnFamilyFunctor.class.getName());
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1");
+    FileSKVIterator reader = createFile(acuconf);
+
+    ConfigurationCopy memConf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    memConf.set(Property.TSERV_NATIVEMAP_ENABLED, "false");
+    memConf.set(Property.TSERV_MEMDUMP_DIR, tempFolder.newFolder().getPath());
+    InMemoryMap imm = new InMemoryMap(memConf, InMemoryMapTest.getServerContext(), TableId.of("1"));
+    Mutation m = new Mutation("m00001");
+    m.put("cf1", "cq1", "v");
+    imm.mutate(List.of(m), 1);
+    MemoryIterator memIter = imm.skvIterator(null);
+
+    Range inMemory = familyRange("m00001", "cf1");
+    Range inFile = familyRange("r00005", "cf1");
+    // the bloom key is the row and family, which a range over many rows does not have
+    Range noBloomKey = new Range("x", "z");
+    Range absent = familyRange("s00001", "cf1");
+    List<Range> ranges = List.of(inMemory, inFile, noBloomKey, absent);
+
+    // the bloom filter is loaded in the background once it is first used
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (((BloomFilterLayer.Reader) reader).probablyHasKey(absent)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    List<Range> inFiles = FileManager.rangesPossiblyIn(List.of(reader), ranges);
+    assertEquals(List.of(inFile, noBloomKey), inFiles);
+    assertFalse(inFiles.contains(inMemory));
+
+    // every range that may have data is looked up, only the absent range is skipped
+    assertEquals(List.of(inMemory, inFile, noBloomKey), ScanDataSource.getPossibleRanges(ranges,
+        inFiles, List.of(memIter), LocalityGroupUtil.EMPTY_CF_SET));
+
+    // a file without a bloom filter may have every range
+    ConfigurationCopy noBloom = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    tempFolder.delete();
+    tempFolder.create();
+    FileSKVIterator plainReader = createFile(noBloom);
+    assertEquals(ranges, FileManager.rangesPossiblyIn(List.of(plainReader), ranges));
+
+    memIter.close();
+    reader.close();
+    plainReader.close();
+  }
+}
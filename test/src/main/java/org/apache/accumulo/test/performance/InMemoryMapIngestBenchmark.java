@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.test.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.accumulo.core.cli.Help;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.util.FastFormat;
+import org.apache.accumulo.tserver.InMemoryMap;
+
+import com.beust.jcommander.Parameter;
+
+/**
+ * Measures how fast several threads can write into the in memory map of a single tablet. The same
+ * amount of data is written once by a single thread and then by the configured number of threads,
+ * and the speedup of the concurrent run is reported.
+ */
+public class InMemoryMapIngestBenchmark {
+
+  static class Opts extends Help {
+    @Parameter(names = "--threads", description = "number of concurrent writer threads")
+    int threads = Runtime.getRuntime().availableProcessors();
+    @Parameter(names = "--mutations", description = "total number of mutations written per run")
+    int mutations = 1_000_000;
+    @Parameter(names = "--updates", description = "column updates per mutation")
+    int updates = 4;
+    @Parameter(names = "--valueSize", description = "size of each value in bytes")
+    int valueSize = 50;
+    @Parameter(names = "--batchSize", description = "mutations per InMemoryMap.mutate() call")
+    int batchSize = 10;
+    @Parameter(names = "--native", description = "use the native map if it is loaded")
+    boolean useNative = false;
+    @Parameter(names = "--offHeap", description = "use the off heap map")
+    boolean useOffHeap = false;
+    @Parameter(names = "--localityGroups", description = "configure two locality groups")
+    boolean localityGroups = false;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Opts opts = new Opts();
+    opts.parseArgs(InMemoryMapIngestBenchmark.class.getName(), args);
+
+    // warm up the JIT before measuring
+    runIngest(opts, 1, opts.mutations / 10);
+
+    long singleThreadTime = runIngest(opts, 1, opts.mutations);
+    long multiThreadTime = runIngest(opts, opts.threads, opts.mutations);
+
+    long entries = (long) opts.mutations * opts.updates;
+    System.out.printf("%-12s %8s %12s %14s%n", "threads", "time(ms)", "entries", "entries/sec");
+    System.out.printf("%-12d %8d %12d %14.0f%n", 1, singleThreadTime, entries,
+        entries / (singleThreadTime / 1000.0));
+    System.out.printf("%-12d %8d %12d %14.0f%n", opts.threads, multiThreadTime, entries,
+        entries / (multiThreadTime / 1000.0));
+    System.out.printf("speedup      %8.2f%n", singleThreadTime / (double) multiThreadTime);
+  }
+
+  private static InMemoryMap newInMemoryMap(Opts opts) {
+    ConfigurationCopy config = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    config.set(Property.TSERV_NATIVEMAP_ENABLED, "" + opts.useNative);
+    config.set(Property.TSERV_OFFHEAPMAP_ENABLED, "" + opts.useOffHeap);
+    config.set(Property.TSERV_MEMDUMP_DIR, System.getProperty("java.io.tmpdir"));
+    if (opts.localityGroups) {
+      config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg1", "cf0");
+      config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg2", "cf1");
+      config.set(Property.TABLE_LOCALITY_GROUPS.getKey(), "lg1,lg2");
+    }
+    // the server context is only used to dump the map for active scans when it is deleted, which
+    // this benchmark never does
+    return new InMemoryMap(config, null, TableId.of("bench"));
+  }
+
+  /**
+   * @return the time in milliseconds it took the given number of threads to write the mutations
+   */
+  private static long runIngest(Opts opts, int numThreads, int numMutations) throws Exception {
+    InMemoryMap imm = newInMemoryMap(opts);
+    byte[] val = new byte[opts.valueSize];
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<?>> futures = new ArrayList<>();
+
+    long t1 = System.currentTimeMillis();
+    for (int t = 0; t < numThreads; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        List<Mutation> batch = new ArrayList<>(opts.batchSize);
+        for (int i = thread; i < numMutations; i += numThreads) {
+          Mutation m = new Mutation(
+              FastFormat.toZeroPaddedString(i * 31L % numMutations, 10, 16, new byte[0]));
+          for (int u = 0; u < opts.updates; u++) {
+            m.put("cf" + (u % 3), "cq" + u, new Value(val));
+          }
+          batch.add(m);
+          if (batch.size() == opts.batchSize) {
+            imm.mutate(batch, opts.updates * batch.size());
+            batch = new ArrayList<>(opts.batchSize);
+          }
+        }
+        if (!batch.isEmpty()) {
+          imm.mutate(batch, opts.updates * batch.size());
+        }
+      }));
+    }
+
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    long t2 = System.currentTimeMillis();
+
+    executor.shutdown();
+    imm.delete(0);
+
+    return t2 - t1;
+  }
+}